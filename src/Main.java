@@ -1,28 +1,244 @@
+import changefeed.ChangeOutbox;
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
+import dbConnection.ConnectionPool;
+import dbConnection.ConnectionProvider;
 import dbConnection.DBConnection;
+import dbConnection.PoolConfig;
+import metrics.Instrumentation;
+import metrics.MetricsRegistry;
+import repository.CachingRepo;
 import repository.IRepo;
+import repository.ReplicaConfig;
+import repository.ReplicaRoutingRepo;
 import repository.Repo;
+import repository.ShardedRepo;
+import repository.WriteBehindRepo;
+import repository.embedded.EmbeddedRepo;
+import repository.ledger.LedgerRepo;
+import repository.ledger.LedgerStore;
 import service.IManagement;
+import service.ItemSearch;
 import service.Management;
+import service.Reporting;
+import service.ReorderMonitor;
+import transfer.FileFormat;
+import transfer.InventoryExporter;
+import transfer.InventoryImporter;
+import transfer.ProgressListener;
 import ui.Menu;
 import ui.Start;
+import util.ExceptionHandler;
 import util.UserPrompts;
 
+import javax.management.JMException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Scanner;
+import java.util.stream.Stream;
 
 //TIP To <b>Run</b> code, press <shortcut actionId="Run"/> or
 // click the <icon src="AllIcons.Actions.Execute"/> icon in the gutter.
 public class Main {
-    public static void main(String[] args) throws SQLException {
-        IRepo repo = new Repo();
-        DBConnection.databaseInit();
-        IManagement management = new Management(repo);
+    //File in the embedded data directory holding the number of shards it was created with
+    private static final String SHARD_COUNT_FILE = "shards";
+
+    public static void main(String[] args) throws SQLException, IOException {
+        //-Dinventory.metrics=true times every repository and management call, readable over JMX
+        //and written in the Prometheus text format to -Dinventory.metricsFile on exit
+        MetricsRegistry metrics = Boolean.getBoolean("inventory.metrics") ? new MetricsRegistry() : MetricsRegistry.DISABLED;
+        ExceptionHandler.setMetrics(metrics);
+        if(metrics.isEnabled()){
+            try {
+                metrics.registerMBean("inventory:type=Metrics");
+            } catch (JMException e) {
+                System.err.println("Metrics are not available over JMX: " + e.getMessage());
+            }
+        }
+
+        //-Dinventory.backend=embedded keeps the inventory in a local log file under -Dinventory.dataDir instead of MySQL
+        IRepo repo;
+        Runnable shutdown;
+        if("embedded".equals(System.getProperty("inventory.backend"))){
+            Path dataDir = Path.of(System.getProperty("inventory.dataDir", "data"));
+            //-Dinventory.shards=N spreads the items over N embedded stores under the data directory. The count is kept
+            //in the data directory, since a different one would place ids on other shards; it can only grow, online
+            int shardCount = Integer.getInteger("inventory.shards", 1);
+            int storedShardCount = storedShardCount(dataDir);
+            if(storedShardCount != 0 && (shardCount < storedShardCount || (storedShardCount == 1 && shardCount > 1))){
+                throw new IllegalStateException(dataDir + " holds " + storedShardCount + " shard(s) and can't be opened with "
+                        + shardCount + "; only a sharded store can be given more shards");
+            }
+            if(shardCount > 1){
+                int opened = storedShardCount == 0 ? shardCount : storedShardCount;
+                List<EmbeddedRepo> stores = new ArrayList<>();
+                for(int i = 0; i < opened; i++){
+                    stores.add(new EmbeddedRepo(dataDir.resolve("shard-" + i)));
+                }
+                ShardedRepo sharded = new ShardedRepo(new ArrayList<>(stores));
+                writeShardCount(dataDir, opened);
+                for(int i = opened; i < shardCount; i++){
+                    EmbeddedRepo added = new EmbeddedRepo(dataDir.resolve("shard-" + i));
+                    stores.add(added);
+                    sharded.addShard(added);
+                    writeShardCount(dataDir, i + 1);
+                }
+                repo = sharded;
+                shutdown = () -> {
+                    sharded.close();
+                    stores.forEach(EmbeddedRepo::close);
+                };
+            }
+            else {
+                EmbeddedRepo embedded = new EmbeddedRepo(dataDir);
+                writeShardCount(dataDir, 1);
+                repo = embedded;
+                shutdown = embedded::close;
+            }
+        }
+        else {
+            ConnectionPool pool = DBConnection.createPool(new PoolConfig());
+            ConnectionProvider connections = Instrumentation.wrapConnections(pool, metrics);
+            //-Dinventory.changeFeed=true records every change in the inventory_changes outbox for downstream consumers,
+            //written by Repo or, with the ledger on, by the ledger's appends
+            ChangeOutbox changeOutbox = Boolean.getBoolean("inventory.changeFeed") ? new ChangeOutbox(connections) : null;
+            //the schema has to exist before the repositories are built, since the ledger loads its state on opening
+            DBConnection.databaseInit();
+            if(changeOutbox != null){
+                changeOutbox.createSchema();
+            }
+            IRepo database = new Repo(connections, changeOutbox);
+            Runnable closeDatabase = pool::close;
+            //-Dinventory.ledger=true records every change as an event in the stock_ledger table, answers lookups
+            //from an in-memory projection and folds the events into the inventory table in the background
+            if(Boolean.getBoolean("inventory.ledger")){
+                LedgerRepo ledger = new LedgerRepo(new LedgerStore(connections, changeOutbox), database);
+                database = ledger;
+                closeDatabase = () -> {
+                    ledger.close();
+                    pool.close();
+                };
+            }
+            //-Dinventory.writeBehind=true batches single item inserts into one transaction per batch
+            if(Boolean.getBoolean("inventory.writeBehind")){
+                WriteBehindRepo writeBehind = new WriteBehindRepo(database);
+                database = writeBehind;
+                Runnable closeLedgerAndPool = closeDatabase;
+                shutdown = () -> {
+                    writeBehind.close();
+                    closeLedgerAndPool.run();
+                };
+            }
+            else {
+                shutdown = closeDatabase;
+            }
+            //-Dinventory.replicas=url1,url2 sends reads to those read replicas and only writes to the primary.
+            //Each side gets its own cache below the router: the primary's is kept current by the writes passing
+            //through it, and a replica's only keeps entries for the lag window, so a cached replica read is never
+            //staler than the router allows and sessions still read their own writes from the primary
+            String replicaUrls = System.getProperty("inventory.replicas", "");
+            if(!replicaUrls.isBlank()){
+                ReplicaConfig replicaConfig = new ReplicaConfig();
+                Duration replicaTtl = replicaConfig.getLagWindow();
+                List<ConnectionPool> replicaPools = new ArrayList<>();
+                List<IRepo> replicas = new ArrayList<>();
+                for(String replicaUrl : replicaUrls.split(",")){
+                    ConnectionPool replicaPool = DBConnection.createPool(replicaUrl.trim(), new PoolConfig());
+                    replicaPools.add(replicaPool);
+                    replicas.add(new CachingRepo(new Repo(Instrumentation.wrapConnections(replicaPool, metrics)),
+                            10_000, replicaTtl, replicaTtl));
+                }
+                ReplicaRoutingRepo router = new ReplicaRoutingRepo(new CachingRepo(database, 10_000, Duration.ofMinutes(5)),
+                        replicas, replicaConfig);
+                repo = router;
+                Runnable primaryShutdown = shutdown;
+                shutdown = () -> {
+                    router.close();
+                    replicaPools.forEach(ConnectionPool::close);
+                    primaryShutdown.run();
+                };
+            }
+            else {
+                repo = new CachingRepo(database, 10_000, Duration.ofMinutes(5));
+            }
+        }
+        repo = Instrumentation.wrap(IRepo.class, repo, "repo", metrics);
+        Management management = new Management(repo);
+        IManagement instrumentedManagement = Instrumentation.wrap(IManagement.class, management, "management", metrics);
+        ReorderMonitor reorderMonitor = new ReorderMonitor(management);
+        reorderMonitor.addListener(alert -> System.out.println(System.lineSeparator() + "Reorder " + alert.getName()
+                + " (id " + alert.getId() + "): " + alert.getQuantity() + " left, reorder point " + alert.getReorderPoint()));
+        reorderMonitor.refresh();
+
+        //--import <file> or --export <file> runs a single transfer without the menu
+        if(args.length == 2 && (args[0].equals("--import") || args[0].equals("--export"))){
+            Path file = Path.of(args[1]);
+            if(args[0].equals("--import")){
+                Start.printImportReport(new InventoryImporter(instrumentedManagement, 1000)
+                        .importFile(file, FileFormat.fromPath(file), ProgressListener.NONE));
+            }
+            else {
+                long rows = new InventoryExporter(instrumentedManagement, 500)
+                        .exportFile(file, FileFormat.fromPath(file), ProgressListener.NONE);
+                System.out.println("Exported " + rows + " items to " + file);
+            }
+            reorderMonitor.close();
+            shutdown.run();
+            writeMetrics(metrics);
+            return;
+        }
+
+        ItemSearch itemSearch = new ItemSearch(management);
+        itemSearch.refresh();
+        //keeps a columnar copy of the inventory current through the management listeners, for the stock analysis
+        Reporting reporting = new Reporting(management);
+        reporting.refresh();
         Menu menu = new Menu();
         Scanner scanner = new Scanner(System.in);
         UserPrompts userPrompts = new UserPrompts(scanner);
-        Start start = new Start(menu,userPrompts,repo,management);
+        Start start = new Start(menu,userPrompts,repo,instrumentedManagement,itemSearch,reporting);
         start.runApp();
+        reorderMonitor.close();
+        shutdown.run();
+        writeMetrics(metrics);
+    }
+
+    //Reads the shard count an embedded data directory was created with, 0 if it holds no store yet
+    private static int storedShardCount(Path dataDir) throws IOException {
+        Path file = dataDir.resolve(SHARD_COUNT_FILE);
+        if(Files.exists(file)){
+            return Integer.parseInt(Files.readString(file).trim());
+        }
+        if(!Files.isDirectory(dataDir)){
+            return 0;
+        }
+        //directories written before the count was kept
+        int shards = 0;
+        while(Files.isDirectory(dataDir.resolve("shard-" + shards))){
+            shards++;
+        }
+        if(shards > 0){
+            return shards;
+        }
+        try(Stream<Path> files = Files.list(dataDir)){
+            return files.findAny().isPresent() ? 1 : 0;
+        }
+    }
+
+    private static void writeShardCount(Path dataDir, int shardCount) throws IOException {
+        Files.writeString(dataDir.resolve(SHARD_COUNT_FILE), Integer.toString(shardCount));
+    }
+
+    //Writes the metrics to -Dinventory.metricsFile, if metrics are on and a file was given
+    private static void writeMetrics(MetricsRegistry metrics) throws IOException {
+        String file = System.getProperty("inventory.metricsFile");
+        if(metrics.isEnabled() && file != null){
+            Files.writeString(Path.of(file), metrics.toPrometheus());
+        }
     }
-}
\ No newline at end of file
+}
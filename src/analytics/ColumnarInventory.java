@@ -0,0 +1,287 @@
+package analytics;
+
+import model.IInventoryItem;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+/**
+ * Copy of the inventory laid out column by column for aggregate queries.
+ * Quantities and prices live in parallel primitive arrays and names are dictionary encoded into an int column,
+ * so an aggregate is a tight loop over a few arrays instead of a walk over item objects. The arrays are kept
+ * dense: removing an item moves the last item into its slot, so loops never have to skip holes.
+ *
+ * Aggregates take a read lock and changes a write lock, so queries see each change completely or not at all.
+ * Names that are no longer used stay in the dictionary until the next full load.
+ */
+public class ColumnarInventory {
+    private static final int INITIAL_CAPACITY = 1024;
+    //Upper limit on the number of price bands, which are counted in an array spanning the lowest to the highest band
+    public static final int MAX_PRICE_BANDS = 100_000;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private String[] ids = new String[INITIAL_CAPACITY];
+    private int[] quantities = new int[INITIAL_CAPACITY];
+    private double[] prices = new double[INITIAL_CAPACITY];
+    private int[] nameCodes = new int[INITIAL_CAPACITY];
+    private int size;
+
+    //id -> slot in the columns
+    private final Map<String, Integer> slots = new HashMap<>();
+    //name -> code, and code -> name
+    private final Map<String, Integer> dictionary = new HashMap<>();
+    private final List<String> names = new ArrayList<>();
+
+    /**
+     * Replaces the contents with the items
+     * @param items Every item in the inventory
+     */
+    public void load(Stream<IInventoryItem> items) {
+        lock.writeLock().lock();
+        try {
+            Arrays.fill(ids, 0, size, null);
+            size = 0;
+            slots.clear();
+            dictionary.clear();
+            names.clear();
+            Iterator<IInventoryItem> iterator = items.iterator();
+            while (iterator.hasNext()) {
+                upsertLocked(iterator.next());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    //Adds the item, or replaces the values of the item with the same id
+    public void upsert(IInventoryItem item) {
+        lock.writeLock().lock();
+        try {
+            upsertLocked(item);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void upsertAll(List<IInventoryItem> items) {
+        lock.writeLock().lock();
+        try {
+            for (IInventoryItem item : items) {
+                upsertLocked(item);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(String id) {
+        lock.writeLock().lock();
+        try {
+            Integer slot = slots.remove(id);
+            if (slot == null) {
+                return;
+            }
+            int last = --size;
+            if (slot != last) {
+                ids[slot] = ids[last];
+                quantities[slot] = quantities[last];
+                prices[slot] = prices[last];
+                nameCodes[slot] = nameCodes[last];
+                slots.put(ids[slot], slot);
+            }
+            ids[last] = null;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    //Changes the quantity of the item by delta, ignoring ids that aren't loaded
+    public void adjustQuantity(String id, int delta) {
+        lock.writeLock().lock();
+        try {
+            Integer slot = slots.get(id);
+            if (slot != null) {
+                quantities[slot] += delta;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    //returns the number of items
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Computes the item count, total units, total stock value and price range in one pass
+     */
+    public StockSummary summary() {
+        lock.readLock().lock();
+        try {
+            int[] quantities = this.quantities;
+            double[] prices = this.prices;
+            long units = 0;
+            double value = 0;
+            double min = Double.POSITIVE_INFINITY;
+            double max = Double.NEGATIVE_INFINITY;
+            for (int i = 0; i < size; i++) {
+                units += quantities[i];
+                value += quantities[i] * prices[i];
+                min = Math.min(min, prices[i]);
+                max = Math.max(max, prices[i]);
+            }
+            return size == 0
+                    ? new StockSummary(0, 0, 0, Double.NaN, Double.NaN)
+                    : new StockSummary(size, units, value, min, max);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Counts the items whose quantity is below the threshold
+     * @param threshold Quantity an item needs to reach to no longer count as low on stock
+     */
+    public int countBelow(int threshold) {
+        lock.readLock().lock();
+        try {
+            int[] quantities = this.quantities;
+            int count = 0;
+            for (int i = 0; i < size; i++) {
+                count += quantities[i] < threshold ? 1 : 0;
+            }
+            return count;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Groups the items into price bands of equal width
+     * @param width Width of each band, the first band starting at zero
+     * @return the bands holding at least one item, cheapest first
+     * @throws IllegalArgumentException if the width is not positive or the prices span more than MAX_PRICE_BANDS bands
+     */
+    public List<PriceBand> priceBands(double width) {
+        if (!(width > 0) || Double.isInfinite(width)) {
+            throw new IllegalArgumentException("Band width must be greater than zero");
+        }
+
+        lock.readLock().lock();
+        try {
+            if (size == 0) {
+                return List.of();
+            }
+            double[] prices = this.prices;
+            int[] quantities = this.quantities;
+            double min = Double.POSITIVE_INFINITY;
+            double max = Double.NEGATIVE_INFINITY;
+            for (int i = 0; i < size; i++) {
+                min = Math.min(min, prices[i]);
+                max = Math.max(max, prices[i]);
+            }
+            long first = (long) Math.floor(min / width);
+            long bandCount = (long) Math.floor(max / width) - first + 1;
+            if (bandCount > MAX_PRICE_BANDS) {
+                throw new IllegalArgumentException("Prices span " + bandCount + " bands of width " + width
+                        + ", more than the limit of " + MAX_PRICE_BANDS);
+            }
+
+            int[] counts = new int[(int) bandCount];
+            long[] units = new long[(int) bandCount];
+            double[] values = new double[(int) bandCount];
+            for (int i = 0; i < size; i++) {
+                int band = (int) ((long) Math.floor(prices[i] / width) - first);
+                counts[band]++;
+                units[band] += quantities[i];
+                values[band] += quantities[i] * prices[i];
+            }
+
+            List<PriceBand> bands = new ArrayList<>();
+            for (int band = 0; band < counts.length; band++) {
+                if (counts[band] > 0) {
+                    double lower = (first + band) * width;
+                    bands.add(new PriceBand(lower, lower + width, counts[band], units[band], values[band]));
+                }
+            }
+            return bands;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Totals the units per item name, grouping on the dictionary codes
+     * @return units per name, in the order the names were first seen
+     */
+    public Map<String, Long> unitsByName() {
+        lock.readLock().lock();
+        try {
+            int[] nameCodes = this.nameCodes;
+            int[] quantities = this.quantities;
+            long[] units = new long[names.size()];
+            boolean[] present = new boolean[names.size()];
+            for (int i = 0; i < size; i++) {
+                units[nameCodes[i]] += quantities[i];
+                present[nameCodes[i]] = true;
+            }
+
+            Map<String, Long> result = new LinkedHashMap<>();
+            for (int code = 0; code < units.length; code++) {
+                if (present[code]) {
+                    result.put(names.get(code), units[code]);
+                }
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void upsertLocked(IInventoryItem item) {
+        Integer slot = slots.get(item.getId());
+        if (slot == null) {
+            if (size == ids.length) {
+                grow();
+            }
+            slot = size++;
+            ids[slot] = item.getId();
+            slots.put(item.getId(), slot);
+        }
+        quantities[slot] = item.getQuantity();
+        prices[slot] = item.getPrice();
+        nameCodes[slot] = encode(item.getName());
+    }
+
+    private int encode(String name) {
+        Integer code = dictionary.get(name);
+        if (code == null) {
+            code = names.size();
+            names.add(name);
+            dictionary.put(name, code);
+        }
+        return code;
+    }
+
+    private void grow() {
+        int capacity = ids.length * 2;
+        ids = Arrays.copyOf(ids, capacity);
+        quantities = Arrays.copyOf(quantities, capacity);
+        prices = Arrays.copyOf(prices, capacity);
+        nameCodes = Arrays.copyOf(nameCodes, capacity);
+    }
+}
@@ -0,0 +1,52 @@
+package analytics;
+
+/**
+ * Items whose price falls in [lowerBound, upperBound)
+ */
+public class PriceBand {
+    private final double lowerBound;
+    private final double upperBound;
+    private final int itemCount;
+    private final long units;
+    //Sum of quantity * price over the items in the band
+    private final double value;
+
+    public PriceBand(double lowerBound, double upperBound, int itemCount, long units, double value) {
+        this.lowerBound = lowerBound;
+        this.upperBound = upperBound;
+        this.itemCount = itemCount;
+        this.units = units;
+        this.value = value;
+    }
+
+    public double getLowerBound() {
+        return lowerBound;
+    }
+
+    public double getUpperBound() {
+        return upperBound;
+    }
+
+    public int getItemCount() {
+        return itemCount;
+    }
+
+    public long getUnits() {
+        return units;
+    }
+
+    public double getValue() {
+        return value;
+    }
+
+    @Override
+    public String toString() {
+        return "PriceBand{" +
+                "lowerBound=" + lowerBound +
+                ", upperBound=" + upperBound +
+                ", itemCount=" + itemCount +
+                ", units=" + units +
+                ", value=" + value +
+                '}';
+    }
+}
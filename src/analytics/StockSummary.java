@@ -0,0 +1,53 @@
+package analytics;
+
+/**
+ * Totals over every item in the inventory
+ */
+public class StockSummary {
+    private final int itemCount;
+    private final long totalUnits;
+    //Sum of quantity * price over all items
+    private final double totalValue;
+    //Lowest and highest price, NaN when there are no items
+    private final double minPrice;
+    private final double maxPrice;
+
+    public StockSummary(int itemCount, long totalUnits, double totalValue, double minPrice, double maxPrice) {
+        this.itemCount = itemCount;
+        this.totalUnits = totalUnits;
+        this.totalValue = totalValue;
+        this.minPrice = minPrice;
+        this.maxPrice = maxPrice;
+    }
+
+    public int getItemCount() {
+        return itemCount;
+    }
+
+    public long getTotalUnits() {
+        return totalUnits;
+    }
+
+    public double getTotalValue() {
+        return totalValue;
+    }
+
+    public double getMinPrice() {
+        return minPrice;
+    }
+
+    public double getMaxPrice() {
+        return maxPrice;
+    }
+
+    @Override
+    public String toString() {
+        return "StockSummary{" +
+                "itemCount=" + itemCount +
+                ", totalUnits=" + totalUnits +
+                ", totalValue=" + totalValue +
+                ", minPrice=" + minPrice +
+                ", maxPrice=" + maxPrice +
+                '}';
+    }
+}
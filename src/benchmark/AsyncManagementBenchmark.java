@@ -0,0 +1,101 @@
+package benchmark;
+
+import dbConnection.ConnectionPool;
+import dbConnection.DBConnection;
+import dbConnection.PoolConfig;
+import model.IInventoryItem;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import repository.BulkLoadOptions;
+import repository.Repo;
+import service.AsyncManagement;
+import service.AsyncOptions;
+import service.Management;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The same run of name lookups issued one at a time through Management and all at once through AsyncManagement,
+ * against the testData database, which must be running. Every row in it is deleted before and after the run.
+ *
+ * Both benchmarks are scored per lookup, so they compare directly.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class AsyncManagementBenchmark {
+    private static final int POOL_SIZE = 16;
+    private static final int ITEMS = 100;
+    //Lookups issued per invocation
+    private static final int LOOKUPS = 1000;
+
+    private ConnectionPool pool;
+    private Management management;
+    private AsyncManagement async;
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        DBConnection.config = true;
+        DBConnection.testDataInit();
+        pool = DBConnection.createPool(new PoolConfig().setMaxSize(POOL_SIZE));
+        deleteAllRows();
+        management = new Management(new Repo(pool));
+        async = new AsyncManagement(management, new AsyncOptions().setMaxConcurrency(POOL_SIZE).setMaxQueued(LOOKUPS));
+        management.bulkLoad(Catalog.items(ITEMS), new BulkLoadOptions());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException {
+        async.close();
+        deleteAllRows();
+        pool.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LOOKUPS)
+    public IInventoryItem blockingLookups() throws SQLException {
+        IInventoryItem last = null;
+        for (int i = 0; i < LOOKUPS; i++) {
+            last = management.getItem(Catalog.name(i % ITEMS));
+        }
+        return last;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LOOKUPS)
+    public List<CompletableFuture<IInventoryItem>> concurrentLookups() {
+        List<CompletableFuture<IInventoryItem>> lookups = new ArrayList<>(LOOKUPS);
+        for (int i = 0; i < LOOKUPS; i++) {
+            lookups.add(async.getItem(Catalog.name(i % ITEMS)));
+        }
+        CompletableFuture.allOf(lookups.toArray(CompletableFuture[]::new)).join();
+        return lookups;
+    }
+
+    private static void deleteAllRows() throws SQLException {
+        try (Connection con = DBConnection.getConnection();
+             Statement stm = con.createStatement()) {
+            stm.execute("DELETE FROM inventory");
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package benchmark;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Compares two JMH JSON result files, such as a committed baseline and a fresh run, benchmark by benchmark.
+ * A result counts as a regression when it is worse by more than the threshold and by more than the
+ * two runs' error margins combined, so noise alone doesn't fail a comparison.
+ *
+ * Usage: BenchmarkDiff baseline.json current.json [thresholdPercent]
+ * Exits with status 1 if any benchmark regressed.
+ */
+public class BenchmarkDiff {
+    private static final double DEFAULT_THRESHOLD_PERCENT = 10;
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: BenchmarkDiff baseline.json current.json [thresholdPercent]");
+            System.exit(2);
+        }
+        double threshold = args.length > 2 ? Double.parseDouble(args[2]) : DEFAULT_THRESHOLD_PERCENT;
+        Map<String, Score> baseline = read(Path.of(args[0]));
+        Map<String, Score> current = read(Path.of(args[1]));
+
+        int regressions = 0;
+        System.out.printf("%-90s %14s %14s %9s%n", "Benchmark", "Baseline", "Current", "Change");
+        for (Map.Entry<String, Score> entry : current.entrySet()) {
+            Score now = entry.getValue();
+            Score before = baseline.get(entry.getKey());
+            if (before == null) {
+                System.out.printf("%-90s %14s %14.3f %9s%n", entry.getKey(), "-", now.value, "new");
+                continue;
+            }
+
+            double change = (now.value - before.value) / before.value * 100;
+            //throughput is better when higher, every other mode measures time and is better when lower
+            double worsening = now.higherIsBetter ? -change : change;
+            boolean regressed = worsening > threshold && Math.abs(now.value - before.value) > now.error + before.error;
+            if (regressed) {
+                regressions++;
+            }
+            System.out.printf("%-90s %14.3f %14.3f %+8.1f%% %s%s%n", entry.getKey(), before.value, now.value, change,
+                    now.unit, regressed ? "  REGRESSION" : "");
+        }
+        for (String missing : baseline.keySet()) {
+            if (!current.containsKey(missing)) {
+                System.out.printf("%-90s %14.3f %14s %9s%n", missing, baseline.get(missing).value, "-", "missing");
+            }
+        }
+
+        System.out.println(regressions == 0 ? "No regressions beyond " + threshold + "%"
+                : regressions + " benchmarks regressed by more than " + threshold + "%");
+        System.exit(regressions == 0 ? 0 : 1);
+    }
+
+    //Reads a JMH JSON result file into scores keyed by benchmark, parameters and thread count
+    private static Map<String, Score> read(Path file) throws IOException {
+        Map<String, Score> scores = new LinkedHashMap<>();
+        try (Reader reader = Files.newBufferedReader(file)) {
+            for (JsonElement element : JsonParser.parseReader(reader).getAsJsonArray()) {
+                JsonObject result = element.getAsJsonObject();
+                StringBuilder key = new StringBuilder(result.get("benchmark").getAsString());
+                if (result.has("params")) {
+                    Map<String, String> params = new TreeMap<>();
+                    result.getAsJsonObject("params").entrySet()
+                            .forEach(param -> params.put(param.getKey(), param.getValue().getAsString()));
+                    key.append(params);
+                }
+                key.append(" threads=").append(result.get("threads").getAsInt());
+
+                JsonObject metric = result.getAsJsonObject("primaryMetric");
+                double error = metric.get("scoreError").isJsonPrimitive() && metric.get("scoreError").getAsJsonPrimitive().isNumber()
+                        ? metric.get("scoreError").getAsDouble() : 0;
+                scores.put(key.toString(), new Score(metric.get("score").getAsDouble(), Double.isNaN(error) ? 0 : error,
+                        metric.get("scoreUnit").getAsString(), result.get("mode").getAsString().equals("thrpt")));
+            }
+        }
+        return scores;
+    }
+
+    /**
+     * One benchmark's primary score.
+     */
+    private static final class Score {
+        private final double value;
+        private final double error;
+        private final String unit;
+        private final boolean higherIsBetter;
+
+        private Score(double value, double error, String unit, boolean higherIsBetter) {
+            this.value = value;
+            this.error = error;
+            this.unit = unit;
+            this.higherIsBetter = higherIsBetter;
+        }
+    }
+}
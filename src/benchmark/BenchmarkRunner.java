@@ -0,0 +1,67 @@
+package benchmark;
+
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonParser;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Runs the benchmarks once per thread count and writes every result to one JMH JSON file,
+ * which BenchmarkDiff compares against a baseline.
+ *
+ * Usage: BenchmarkRunner [--threads 1,4,16] [--include regex] [--out results.json]
+ */
+public class BenchmarkRunner {
+    private static final String DEFAULT_THREADS = "1,4,16";
+    //Every benchmark in this package
+    private static final String DEFAULT_INCLUDE = "benchmark\\..*Benchmark";
+    private static final String DEFAULT_OUT = "benchmark-results/results.json";
+
+    public static void main(String[] args) throws IOException, RunnerException {
+        String threads = DEFAULT_THREADS;
+        String include = DEFAULT_INCLUDE;
+        Path out = Path.of(DEFAULT_OUT);
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            switch (args[i]) {
+                case "--threads" -> threads = args[i + 1];
+                case "--include" -> include = args[i + 1];
+                case "--out" -> out = Path.of(args[i + 1]);
+                default -> throw new IllegalArgumentException("Unknown option " + args[i]);
+            }
+        }
+
+        JsonArray results = new JsonArray();
+        for (String count : threads.split(",")) {
+            Path part = Files.createTempFile("jmh-" + count.trim() + "-threads", ".json");
+            try {
+                Options options = new OptionsBuilder()
+                        .include(include)
+                        .threads(Integer.parseInt(count.trim()))
+                        .resultFormat(ResultFormatType.JSON)
+                        .result(part.toString())
+                        .build();
+                new Runner(options).run();
+                try (Reader reader = Files.newBufferedReader(part)) {
+                    results.addAll(JsonParser.parseReader(reader).getAsJsonArray());
+                }
+            } finally {
+                Files.deleteIfExists(part);
+            }
+        }
+
+        if (out.getParent() != null) {
+            Files.createDirectories(out.getParent());
+        }
+        Files.writeString(out, new GsonBuilder().setPrettyPrinting().create().toJson(results));
+        System.out.println("Wrote " + results.size() + " results to " + out);
+    }
+}
@@ -0,0 +1,48 @@
+package benchmark;
+
+import model.IInventoryItem;
+import model.InventoryItem;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Builds the synthetic catalogs the benchmarks load before measuring.
+ * Item i is called item-i, so a benchmark can look up any item by name without keeping a list of them.
+ */
+final class Catalog {
+
+    private Catalog() {
+    }
+
+    //returns count items with ids and names numbered from 0, and quantities and prices spread out for the reports
+    static List<IInventoryItem> items(int count) {
+        List<IInventoryItem> items = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            items.add(new InventoryItem(id(i), name(i), i % 500, 1 + (i % 1000) / 10.0, 0, i % 50));
+        }
+        return items;
+    }
+
+    static String id(int i) {
+        return "bench-" + i;
+    }
+
+    static String name(int i) {
+        return "item-" + i;
+    }
+
+    //Deletes a directory made for an embedded store, with everything in it
+    static void deleteDirectory(Path directory) throws IOException {
+        try (Stream<Path> paths = Files.walk(directory)) {
+            for (Path path : (Iterable<Path>) paths.sorted(Comparator.reverseOrder())::iterator) {
+                Files.delete(path);
+            }
+        }
+    }
+}
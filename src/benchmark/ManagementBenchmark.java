@@ -0,0 +1,94 @@
+package benchmark;
+
+import analytics.StockSummary;
+import model.IInventoryItem;
+import model.ItemPage;
+import model.ItemRanking;
+import model.ItemSort;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import repository.BulkLoadOptions;
+import repository.embedded.EmbeddedRepo;
+import service.Management;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Management over the embedded store, so the numbers show the service layer and the in-memory indexes
+ * without a database round trip.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ManagementBenchmark {
+    private static final int PAGE_SIZE = 50;
+    private static final int TOP_ITEMS = 10;
+
+    @Param({"1000", "100000"})
+    public int catalogSize;
+
+    private Path directory;
+    private EmbeddedRepo repo;
+    private Management management;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException, SQLException {
+        directory = Files.createTempDirectory("management-benchmark");
+        repo = new EmbeddedRepo(directory);
+        management = new Management(repo);
+        management.bulkLoad(Catalog.items(catalogSize), new BulkLoadOptions().setChunkSize(BulkLoadOptions.MAX_CHUNK_SIZE));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        repo.close();
+        Catalog.deleteDirectory(directory);
+    }
+
+    @Benchmark
+    public IInventoryItem getItem() throws SQLException {
+        return management.getItem(Catalog.name(ThreadLocalRandom.current().nextInt(catalogSize)));
+    }
+
+    //one unit in and one out, so the catalog is the same after every iteration
+    @Benchmark
+    public boolean increaseThenDecreaseQuantity() throws SQLException {
+        String id = Catalog.id(ThreadLocalRandom.current().nextInt(catalogSize));
+        return management.increaseQuantity(id, 1) && management.decreaseQuantity(id, 1);
+    }
+
+    @Benchmark
+    public ItemPage firstPage() throws SQLException {
+        return management.getPage(PAGE_SIZE, null, ItemSort.NAME);
+    }
+
+    @Benchmark
+    public StockSummary stockSummary() throws SQLException {
+        return management.getStockSummary();
+    }
+
+    @Benchmark
+    public List<IInventoryItem> topItemsByValue() throws SQLException {
+        return management.getTopItems(ItemRanking.VALUE, TOP_ITEMS);
+    }
+}
@@ -0,0 +1,71 @@
+package benchmark;
+
+import model.InventoryItem;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import util.AutoGenerator;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Id generation and the InventoryItem methods every other layer calls.
+ * Run with several thread counts to see contention on the shared id generator.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ModelBenchmark {
+
+    private InventoryItem item;
+    private InventoryItem equalItem;
+    private InventoryItem otherItem;
+
+    @Setup
+    public void setUp() {
+        item = new InventoryItem("bench-1", "Brown Rice 5kg", 10, 33.3, 0, 5);
+        equalItem = new InventoryItem("bench-2", "Brown Rice 5kg", 10, 33.3, 0, 5);
+        otherItem = new InventoryItem("bench-3", "Brown Rice 10kg", 10, 33.3, 0, 5);
+    }
+
+    @Benchmark
+    public String idGenerator() {
+        return AutoGenerator.idGenerator();
+    }
+
+    //includes generating the id
+    @Benchmark
+    public InventoryItem constructWithGeneratedId() {
+        return new InventoryItem("Brown Rice 5kg", 10, 33.3);
+    }
+
+    @Benchmark
+    public InventoryItem constructWithId() {
+        return new InventoryItem("bench-1", "Brown Rice 5kg", 10, 33.3, 0, 5);
+    }
+
+    @Benchmark
+    public boolean equalsEqual() {
+        return item.equals(equalItem);
+    }
+
+    @Benchmark
+    public boolean equalsDifferent() {
+        return item.equals(otherItem);
+    }
+
+    @Benchmark
+    public int hashCodeOf() {
+        return item.hashCode();
+    }
+}
@@ -0,0 +1,139 @@
+package benchmark;
+
+import dbConnection.ConnectionPool;
+import dbConnection.DBConnection;
+import dbConnection.PoolConfig;
+import model.IInventoryItem;
+import model.InventoryItem;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import repository.BulkLoadOptions;
+import repository.BulkLoadReport;
+import repository.IRepo;
+import repository.Repo;
+import repository.embedded.EmbeddedRepo;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Inserts, name lookups and full scans against each storage backend.
+ * The embedded backend keeps its log in a temporary directory; the mysql backend uses the testData database
+ * the integration tests use, which must be running, and deletes every row in it before and after the run.
+ *
+ * Inserted items are kept, so the catalog grows by whatever the insert benchmarks wrote during a trial.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RepoBenchmark {
+    //Items written per batched insert
+    private static final int BATCH_SIZE = 100;
+    //Pool size covering the largest thread count BenchmarkRunner uses by default
+    private static final int POOL_SIZE = 32;
+
+    @Param({"embedded", "mysql"})
+    public String backend;
+
+    @Param({"1000", "100000"})
+    public int catalogSize;
+
+    private IRepo repo;
+    private Path directory;
+    private EmbeddedRepo embedded;
+    private ConnectionPool pool;
+    //Numbers the inserted items, so no insert conflicts with an earlier one
+    private final AtomicLong inserted = new AtomicLong();
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException, SQLException {
+        if (backend.equals("embedded")) {
+            directory = Files.createTempDirectory("repo-benchmark");
+            embedded = new EmbeddedRepo(directory);
+            repo = embedded;
+        } else {
+            DBConnection.config = true;
+            DBConnection.testDataInit();
+            pool = DBConnection.createPool(new PoolConfig().setMaxSize(POOL_SIZE));
+            repo = new Repo(pool);
+            deleteAllRows();
+        }
+        repo.bulkLoad(Catalog.items(catalogSize), new BulkLoadOptions().setChunkSize(BulkLoadOptions.MAX_CHUNK_SIZE));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException, SQLException {
+        if (embedded != null) {
+            embedded.close();
+            Catalog.deleteDirectory(directory);
+        } else {
+            deleteAllRows();
+            pool.close();
+        }
+    }
+
+    @Benchmark
+    public boolean insertSingle() throws SQLException {
+        return repo.addItem(nextItem());
+    }
+
+    //scored per item, so it compares directly with insertSingle
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public BulkLoadReport insertBatched() throws SQLException {
+        List<IInventoryItem> batch = new ArrayList<>(BATCH_SIZE);
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            batch.add(nextItem());
+        }
+        return repo.bulkLoad(batch, new BulkLoadOptions().setChunkSize(BATCH_SIZE));
+    }
+
+    @Benchmark
+    public IInventoryItem lookupByName() throws SQLException {
+        return repo.getItem(Catalog.name(ThreadLocalRandom.current().nextInt(catalogSize)));
+    }
+
+    @Benchmark
+    public long fullScan() throws SQLException {
+        try (Stream<IInventoryItem> items = repo.streamItems(1000)) {
+            return items.count();
+        }
+    }
+
+    private IInventoryItem nextItem() {
+        long n = inserted.incrementAndGet();
+        return new InventoryItem("insert-" + n, "inserted-" + n, 1, 1.0);
+    }
+
+    private static void deleteAllRows() throws SQLException {
+        try (Connection con = DBConnection.getConnection();
+             Statement stm = con.createStatement()) {
+            stm.execute("DELETE FROM inventory");
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package changefeed;
+
+import java.util.List;
+
+/**
+ * Receives batches of changes from a ChangeFeed subscription, on the subscription's own thread
+ */
+@FunctionalInterface
+public interface ChangeBatchListener {
+
+    //called with the next events in offset order; throwing redelivers the same batch after a back-off
+    void onChanges(List<ChangeEvent> events) throws Exception;
+}
@@ -0,0 +1,119 @@
+package changefeed;
+
+import model.IInventoryItem;
+
+/**
+ * One change to the inventory, as recorded in the change feed.
+ * ADDED and UPDATED events carry the item's values; the other kinds carry only the id and the delta.
+ * Events created by the factory methods have offset 0 until the outbox gives them one.
+ */
+public class ChangeEvent {
+    private final long offset;
+    private final ChangeType type;
+    private final String itemId;
+    private final String name;
+    private final int quantity;
+    private final double price;
+    private final int reorderPoint;
+    private final int delta;
+    private final long timestamp;
+
+    public ChangeEvent(long offset, ChangeType type, String itemId, String name, int quantity, double price,
+                       int reorderPoint, int delta, long timestamp) {
+        this.offset = offset;
+        this.type = type;
+        this.itemId = itemId;
+        this.name = name;
+        this.quantity = quantity;
+        this.price = price;
+        this.reorderPoint = reorderPoint;
+        this.delta = delta;
+        this.timestamp = timestamp;
+    }
+
+    public static ChangeEvent added(IInventoryItem item) {
+        return ofItem(ChangeType.ADDED, item);
+    }
+
+    public static ChangeEvent updated(IInventoryItem item) {
+        return ofItem(ChangeType.UPDATED, item);
+    }
+
+    public static ChangeEvent removed(String id) {
+        return ofDelta(ChangeType.REMOVED, id, 0);
+    }
+
+    public static ChangeEvent quantityChanged(String id, int delta) {
+        return ofDelta(ChangeType.QUANTITY_CHANGED, id, delta);
+    }
+
+    public static ChangeEvent reserved(String id, int amount) {
+        return ofDelta(ChangeType.RESERVED, id, amount);
+    }
+
+    public static ChangeEvent released(String id, int amount) {
+        return ofDelta(ChangeType.RELEASED, id, amount);
+    }
+
+    private static ChangeEvent ofItem(ChangeType type, IInventoryItem item) {
+        return new ChangeEvent(0, type, item.getId(), item.getName(), item.getQuantity(), item.getPrice(),
+                item.getReorderPoint(), 0, System.currentTimeMillis());
+    }
+
+    private static ChangeEvent ofDelta(ChangeType type, String id, int delta) {
+        return new ChangeEvent(0, type, id, null, 0, 0, 0, delta, System.currentTimeMillis());
+    }
+
+    //returns the position of the event in the feed, increasing by one per event in commit order
+    public long getOffset() {
+        return offset;
+    }
+
+    public ChangeType getType() {
+        return type;
+    }
+
+    public String getItemId() {
+        return itemId;
+    }
+
+    //returns the item name for ADDED and UPDATED events, null otherwise
+    public String getName() {
+        return name;
+    }
+
+    //returns the item quantity for ADDED and UPDATED events
+    public int getQuantity() {
+        return quantity;
+    }
+
+    //returns the item price for ADDED and UPDATED events
+    public double getPrice() {
+        return price;
+    }
+
+    //returns the item reorder point for ADDED and UPDATED events
+    public int getReorderPoint() {
+        return reorderPoint;
+    }
+
+    //returns the units moved by QUANTITY_CHANGED, RESERVED and RELEASED events
+    public int getDelta() {
+        return delta;
+    }
+
+    //returns when the change was made, in milliseconds since the epoch
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    @Override
+    public String toString() {
+        return "ChangeEvent{" +
+                "offset=" + offset +
+                ", type=" + type +
+                ", itemId=" + itemId +
+                (name != null ? ", name='" + name + '\'' + ", quantity=" + quantity + ", price=" + price : ", delta=" + delta) +
+                '}';
+    }
+}
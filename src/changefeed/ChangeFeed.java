@@ -0,0 +1,184 @@
+package changefeed;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Delivers the changes in a ChangeOutbox to consumers, so they can process deltas instead of re-reading the inventory.
+ *
+ * Every subscription runs on its own thread, reading the next batch after its committed offset, handing it
+ * to its listener and committing the offset of the batch's last event once the listener returns. The next
+ * batch is only read after that, so a slow consumer is never sent more than it can take and simply falls
+ * further behind in the outbox. A consumer that restarts resumes after its last committed batch.
+ *
+ * Delivery is at least once: if the listener throws, or the process stops before the offset is committed,
+ * the same events are delivered again.
+ */
+public class ChangeFeed implements AutoCloseable {
+    public static final int DEFAULT_BATCH_SIZE = 500;
+    public static final Duration DEFAULT_POLL_INTERVAL = Duration.ofMillis(200);
+    //Longest wait before redelivering to a listener that keeps failing
+    private static final long MAX_BACKOFF_MILLIS = 30_000;
+
+    private final ChangeOutbox outbox;
+    private final List<Subscription> subscriptions = new CopyOnWriteArrayList<>();
+
+    public ChangeFeed(ChangeOutbox outbox) {
+        this.outbox = outbox;
+    }
+
+    /**
+     * Subscribes with the default batch size and poll interval
+     * @param consumer Name the consumer's offset is committed under
+     * @param listener Receives the changes
+     * @return the running subscription, closed to stop it
+     */
+    public Subscription subscribe(String consumer, ChangeBatchListener listener) {
+        return subscribe(consumer, DEFAULT_BATCH_SIZE, DEFAULT_POLL_INTERVAL, listener);
+    }
+
+    /**
+     * Subscribes starting after the consumer's committed offset
+     * @param consumer Name the consumer's offset is committed under
+     * @param batchSize Most events handed to the listener at once
+     * @param pollInterval How long to wait before looking again when there are no new events
+     * @param listener Receives the changes
+     * @return the running subscription, closed to stop it
+     */
+    public Subscription subscribe(String consumer, int batchSize, Duration pollInterval, ChangeBatchListener listener) {
+        if (consumer == null || consumer.isBlank()) {
+            throw new IllegalArgumentException("A consumer name is required");
+        }
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("Batch size must be greater than zero");
+        }
+        if (pollInterval.isNegative() || pollInterval.isZero()) {
+            throw new IllegalArgumentException("Poll interval must be greater than zero");
+        }
+        Subscription subscription = new Subscription(consumer, batchSize, pollInterval.toMillis(), listener);
+        subscriptions.add(subscription);
+        subscription.thread.start();
+        return subscription;
+    }
+
+    /**
+     * Stops every subscription, waiting for batches being delivered to finish
+     */
+    @Override
+    public void close() {
+        for (Subscription subscription : subscriptions) {
+            subscription.close();
+        }
+    }
+
+    /**
+     * One consumer reading the feed.
+     */
+    public final class Subscription implements AutoCloseable {
+        private final String consumer;
+        private final int batchSize;
+        private final long pollMillis;
+        private final ChangeBatchListener listener;
+        private final Thread thread;
+        //Waited on between polls and notified by close, so closing never waits out a poll interval
+        private final Object wakeUp = new Object();
+        private volatile boolean closed;
+        //-1 until the committed offset has been read from the outbox
+        private volatile long committed = -1;
+
+        private final LongAdder delivered = new LongAdder();
+        private final LongAdder failures = new LongAdder();
+
+        private Subscription(String consumer, int batchSize, long pollMillis, ChangeBatchListener listener) {
+            this.consumer = consumer;
+            this.batchSize = batchSize;
+            this.pollMillis = pollMillis;
+            this.listener = listener;
+            this.thread = new Thread(this::run, "change-feed-" + consumer);
+            this.thread.setDaemon(true);
+        }
+
+        //returns the name the offset is committed under
+        public String getConsumer() {
+            return consumer;
+        }
+
+        //returns the offset of the last event processed, -1 until the subscription has read its starting point
+        public long getCommittedOffset() {
+            return committed;
+        }
+
+        //returns the number of events delivered and committed so far
+        public long getDeliveredCount() {
+            return delivered.sum();
+        }
+
+        //returns the number of times reading the outbox or the listener failed
+        public long getFailureCount() {
+            return failures.sum();
+        }
+
+        /**
+         * Stops the subscription, waiting for a batch being delivered to finish
+         */
+        @Override
+        public void close() {
+            closed = true;
+            synchronized (wakeUp) {
+                wakeUp.notifyAll();
+            }
+            if (Thread.currentThread() != thread) {
+                try {
+                    thread.join();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            subscriptions.remove(this);
+        }
+
+        //Runs on the subscription thread until closed
+        private void run() {
+            int failuresInRow = 0;
+            while (!closed) {
+                try {
+                    if (committed < 0) {
+                        committed = outbox.getCommittedOffset(consumer);
+                    }
+                    List<ChangeEvent> batch = outbox.read(committed, batchSize);
+                    if (batch.isEmpty()) {
+                        pause(pollMillis);
+                        continue;
+                    }
+
+                    listener.onChanges(batch);
+                    long last = batch.get(batch.size() - 1).getOffset();
+                    outbox.commitOffset(consumer, last);
+                    committed = last;
+                    delivered.add(batch.size());
+                    failuresInRow = 0;
+                } catch (Exception e) {
+                    failures.increment();
+                    System.err.println("Change feed consumer " + consumer + " failed: " + e.getMessage());
+                    //doubles the wait after every failure in a row, so a broken consumer doesn't hammer the database
+                    pause(Math.min(MAX_BACKOFF_MILLIS, pollMillis << Math.min(failuresInRow++, 16)));
+                }
+            }
+        }
+
+        private void pause(long millis) {
+            synchronized (wakeUp) {
+                if (closed) {
+                    return;
+                }
+                try {
+                    wakeUp.wait(millis);
+                } catch (InterruptedException e) {
+                    closed = true;
+                }
+            }
+        }
+    }
+}
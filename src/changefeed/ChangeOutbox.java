@@ -0,0 +1,195 @@
+package changefeed;
+
+import dbConnection.ConnectionProvider;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Durable, ordered log of inventory changes kept in the database next to the inventory table (a transactional outbox).
+ * Repo appends the events of a change on the same connection and in the same transaction as the change itself,
+ * so an event is visible exactly when its change is committed, and a rolled back change leaves no event behind.
+ *
+ * Offsets come from a single sequence row that is locked until the appending transaction ends, so offsets are
+ * handed out in commit order and a reader that has seen offset n will never later find a smaller one appear.
+ * The price is that writers recording changes commit one at a time.
+ *
+ * Consumers keep their position in the outbox under a name, so they can stop and resume where they left off.
+ */
+public class ChangeOutbox {
+    private final ConnectionProvider connectionProvider;
+
+    /**
+     * Constructs the outbox
+     * @param connectionProvider where reads and offset commits get their connection from, usually the Repo's pool
+     */
+    public ChangeOutbox(ConnectionProvider connectionProvider) {
+        this.connectionProvider = connectionProvider;
+    }
+
+    /**
+     * Creates the outbox, sequence and consumer offset tables if they don't exist yet
+     */
+    public void createSchema() throws SQLException {
+        String createChanges = """
+                CREATE TABLE IF NOT EXISTS inventory_changes(
+                change_offset BIGINT PRIMARY KEY,
+                type VARCHAR(20) NOT NULL,
+                item_id VARCHAR(100) NOT NULL,
+                name VARCHAR(100) NULL,
+                quantity INT NOT NULL DEFAULT 0,
+                price DOUBLE NOT NULL DEFAULT 0,
+                reorder_point INT NOT NULL DEFAULT 0,
+                delta INT NOT NULL DEFAULT 0,
+                changed_at BIGINT NOT NULL
+                );
+                """;
+        String createSequence = "CREATE TABLE IF NOT EXISTS inventory_change_sequence(id INT PRIMARY KEY, last_offset BIGINT NOT NULL)";
+        String createOffsets = "CREATE TABLE IF NOT EXISTS inventory_change_offsets(consumer VARCHAR(100) PRIMARY KEY, committed_offset BIGINT NOT NULL)";
+
+        try(Connection con = connectionProvider.getConnection();
+            Statement stm = con.createStatement()
+        ){
+            stm.execute(createChanges);
+            stm.execute(createSequence);
+            stm.execute(createOffsets);
+            stm.execute("INSERT IGNORE INTO inventory_change_sequence(id, last_offset) VALUES(1, 0)");
+        }
+    }
+
+    /**
+     * Appends events as part of the caller's transaction.
+     * The connection must have auto-commit off; the events become visible when the caller commits.
+     * @param con Connection the change was made on
+     * @param events Events of the change, in order
+     */
+    public void append(Connection con, List<ChangeEvent> events) throws SQLException {
+        if(events.isEmpty()){
+            return;
+        }
+
+        long last;
+        try(PreparedStatement pstm = con.prepareStatement("SELECT last_offset FROM inventory_change_sequence WHERE id = 1 FOR UPDATE");
+            ResultSet rs = pstm.executeQuery()
+        ){
+            if(!rs.next()){
+                throw new SQLException("Change feed sequence is missing, call createSchema first");
+            }
+            last = rs.getLong(1);
+        }
+        try(PreparedStatement pstm = con.prepareStatement("UPDATE inventory_change_sequence SET last_offset = ? WHERE id = 1")){
+            pstm.setLong(1, last + events.size());
+            pstm.executeUpdate();
+        }
+
+        String insert = "INSERT INTO inventory_changes(change_offset,type,item_id,name,quantity,price,reorder_point,delta,changed_at) VALUES(?,?,?,?,?,?,?,?,?)";
+        try(PreparedStatement pstm = con.prepareStatement(insert)){
+            for(ChangeEvent event : events){
+                pstm.setLong(1, ++last);
+                pstm.setString(2, event.getType().name());
+                pstm.setString(3, event.getItemId());
+                pstm.setString(4, event.getName());
+                pstm.setInt(5, event.getQuantity());
+                pstm.setDouble(6, event.getPrice());
+                pstm.setInt(7, event.getReorderPoint());
+                pstm.setInt(8, event.getDelta());
+                pstm.setLong(9, event.getTimestamp());
+                pstm.addBatch();
+            }
+            pstm.executeBatch();
+        }
+    }
+
+    /**
+     * Reads committed events in offset order
+     * @param afterOffset Offset of the last event already seen, 0 to start from the beginning
+     * @param limit Most events to return
+     * @return the events after the offset, empty if there are none yet
+     */
+    public List<ChangeEvent> read(long afterOffset, int limit) throws SQLException {
+        if(limit <= 0){
+            throw new IllegalArgumentException("Limit must be greater than zero");
+        }
+
+        String read = "SELECT * FROM inventory_changes WHERE change_offset > ? ORDER BY change_offset LIMIT ?";
+
+        try(Connection con = connectionProvider.getConnection();
+            PreparedStatement pstm = con.prepareStatement(read)
+        ){
+            pstm.setLong(1, afterOffset);
+            pstm.setInt(2, limit);
+            List<ChangeEvent> events = new ArrayList<>(Math.min(limit, 1000));
+            try(ResultSet rs = pstm.executeQuery()){
+                while(rs.next()){
+                    events.add(new ChangeEvent(rs.getLong("change_offset"), ChangeType.valueOf(rs.getString("type")),
+                            rs.getString("item_id"), rs.getString("name"), rs.getInt("quantity"), rs.getDouble("price"),
+                            rs.getInt("reorder_point"), rs.getInt("delta"), rs.getLong("changed_at")));
+                }
+            }
+            return events;
+        }
+    }
+
+    //returns the offset of the last committed event, 0 if nothing was recorded yet
+    public long getLastOffset() throws SQLException {
+        try(Connection con = connectionProvider.getConnection();
+            PreparedStatement pstm = con.prepareStatement("SELECT last_offset FROM inventory_change_sequence WHERE id = 1");
+            ResultSet rs = pstm.executeQuery()
+        ){
+            return rs.next() ? rs.getLong(1) : 0;
+        }
+    }
+
+    /**
+     * Returns where a consumer left off
+     * @param consumer Name the consumer commits its offset under
+     * @return the offset of the last event the consumer processed, 0 if it never committed one
+     */
+    public long getCommittedOffset(String consumer) throws SQLException {
+        try(Connection con = connectionProvider.getConnection();
+            PreparedStatement pstm = con.prepareStatement("SELECT committed_offset FROM inventory_change_offsets WHERE consumer = ?")
+        ){
+            pstm.setString(1, consumer);
+            try(ResultSet rs = pstm.executeQuery()){
+                return rs.next() ? rs.getLong(1) : 0;
+            }
+        }
+    }
+
+    /**
+     * Stores where a consumer left off. Committing a smaller offset rewinds the consumer.
+     * @param consumer Name the consumer commits its offset under
+     * @param offset Offset of the last event the consumer processed
+     */
+    public void commitOffset(String consumer, long offset) throws SQLException {
+        String commit = "INSERT INTO inventory_change_offsets(consumer, committed_offset) VALUES(?, ?) " +
+                "ON DUPLICATE KEY UPDATE committed_offset = VALUES(committed_offset)";
+
+        try(Connection con = connectionProvider.getConnection();
+            PreparedStatement pstm = con.prepareStatement(commit)
+        ){
+            pstm.setString(1, consumer);
+            pstm.setLong(2, offset);
+            pstm.executeUpdate();
+        }
+    }
+
+    /**
+     * Deletes the events every consumer has processed, keeping the outbox from growing forever
+     * @return the number of events deleted
+     */
+    public int purgeConsumed() throws SQLException {
+        String purge = "DELETE FROM inventory_changes WHERE change_offset <= (SELECT COALESCE(MIN(committed_offset), 0) FROM inventory_change_offsets)";
+
+        try(Connection con = connectionProvider.getConnection();
+            PreparedStatement pstm = con.prepareStatement(purge)
+        ){
+            return pstm.executeUpdate();
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package changefeed;
+
+/**
+ * Kind of change recorded in the change feed
+ */
+public enum ChangeType {
+    //a new item, with all its values
+    ADDED,
+    //an item was deleted
+    REMOVED,
+    //delta units were added to the quantity, or taken away when negative
+    QUANTITY_CHANGED,
+    //delta units moved from the available quantity to the reserved quantity
+    RESERVED,
+    //delta reserved units moved back to the available quantity
+    RELEASED,
+    //an item's name, quantity, price or reorder point was overwritten, with all its new values
+    UPDATED
+}
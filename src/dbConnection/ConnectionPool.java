@@ -0,0 +1,432 @@
+package dbConnection;
+
+import util.LatencyHistogram;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Bounded pool of JDBC connections.
+ * Physical connections are created through another ConnectionProvider and handed out wrapped in a proxy,
+ * so closing the connection returns it to the pool instead of closing the socket.
+ * Connections are validated when borrowed, idle connections above the minimum size are evicted,
+ * and connections held longer than the leak threshold are reported, with the stack trace of the caller that borrowed them
+ * when borrow stack traces are turned on in the PoolConfig.
+ */
+public class ConnectionPool implements ConnectionProvider, AutoCloseable {
+    private final ConnectionProvider factory;
+    private final PoolConfig config;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition available = lock.newCondition();
+    //Most recently returned connection first, so the tail holds the connections idle the longest
+    private final Deque<PooledConnection> idle = new ArrayDeque<>();
+    private final Set<PooledConnection> borrowed = ConcurrentHashMap.newKeySet();
+    //Open connections, including the ones being created, guarded by lock
+    private int total;
+    //Callers blocked in getConnection, guarded by lock
+    private int waiting;
+    private boolean closed;
+
+    private final LongAdder waitNanos = new LongAdder();
+    private final LongAdder timeouts = new LongAdder();
+    private final LongAdder leaks = new LongAdder();
+    private final LatencyHistogram borrowLatency = new LatencyHistogram();
+
+    private final ScheduledExecutorService housekeeper;
+
+    /**
+     * Constructs the pool and opens the minimum number of connections.
+     * @param factory provider used to open physical connections
+     * @param config pool settings
+     * @throws SQLException if the initial connections could not be opened
+     */
+    public ConnectionPool(ConnectionProvider factory, PoolConfig config) throws SQLException {
+        if (config.getMinSize() > config.getMaxSize()) {
+            throw new IllegalArgumentException("Minimum pool size cannot be greater than the maximum size");
+        }
+        this.factory = factory;
+        this.config = config;
+
+        fillToMinimum();
+
+        this.housekeeper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "connection-pool-housekeeper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long interval = config.getHousekeepingInterval().toMillis();
+        housekeeper.scheduleWithFixedDelay(this::housekeep, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Borrows a connection from the pool, opening a new one if none are idle and the pool isn't full.
+     * @return a validated connection that goes back to the pool when closed
+     * @throws SQLTimeoutException if no connection became available within the acquire timeout
+     * @throws SQLException if the pool is closed or a new connection could not be opened
+     */
+    @Override
+    public Connection getConnection() throws SQLException {
+        long start = System.nanoTime();
+        long deadline = start + config.getAcquireTimeout().toNanos();
+
+        while (true) {
+            PooledConnection pooled;
+            boolean create = false;
+
+            lock.lock();
+            try {
+                while (true) {
+                    if (closed) {
+                        throw new SQLException("Connection pool is closed");
+                    }
+                    pooled = idle.pollFirst();
+                    if (pooled != null) {
+                        break;
+                    }
+                    if (total < config.getMaxSize()) {
+                        total++;
+                        create = true;
+                        break;
+                    }
+
+                    long remaining = deadline - System.nanoTime();
+                    if (remaining <= 0) {
+                        timeouts.increment();
+                        throw new SQLTimeoutException("Timed out after " + config.getAcquireTimeout().toMillis()
+                                + "ms waiting for a database connection");
+                    }
+
+                    waiting++;
+                    long before = System.nanoTime();
+                    try {
+                        available.awaitNanos(remaining);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new SQLException("Interrupted while waiting for a database connection", e);
+                    } finally {
+                        waiting--;
+                        waitNanos.add(System.nanoTime() - before);
+                    }
+                }
+            } finally {
+                lock.unlock();
+            }
+
+            if (create) {
+                pooled = open();
+            } else if (!isValid(pooled)) {
+                discard(pooled);
+                continue;
+            }
+
+            return lease(pooled, start);
+        }
+    }
+
+    /**
+     * Takes a snapshot of the pool counters.
+     * @return the current pool metrics
+     */
+    public PoolMetrics getMetrics() {
+        lock.lock();
+        try {
+            return new PoolMetrics(borrowed.size(), idle.size(), waiting, waitNanos.sum(),
+                    timeouts.sum(), leaks.sum(), borrowLatency);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Closes every idle connection and stops the housekeeping thread.
+     * Borrowed connections are closed when they are returned.
+     */
+    @Override
+    public void close() {
+        List<PooledConnection> toClose;
+        lock.lock();
+        try {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            toClose = new ArrayList<>(idle);
+            total -= idle.size();
+            idle.clear();
+            available.signalAll();
+        } finally {
+            lock.unlock();
+        }
+
+        housekeeper.shutdownNow();
+        toClose.forEach(PooledConnection::closeQuietly);
+    }
+
+    //Opens a physical connection for a slot already counted in total
+    private PooledConnection open() throws SQLException {
+        try {
+            return new PooledConnection(factory.getConnection());
+        } catch (SQLException | RuntimeException e) {
+            lock.lock();
+            try {
+                total--;
+                available.signal();
+            } finally {
+                lock.unlock();
+            }
+            throw e;
+        }
+    }
+
+    private boolean isValid(PooledConnection pooled) {
+        try {
+            return pooled.physical.isValid(config.getValidationTimeoutSeconds());
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    private Connection lease(PooledConnection pooled, long start) {
+        pooled.borrowedAt = System.nanoTime();
+        pooled.leakReported = false;
+        //capturing a stack trace walks the caller's stack, so it is only done on request
+        pooled.borrowSite = config.isBorrowStackTraces() && !config.getLeakDetectionThreshold().isZero()
+                ? new Throwable("Connection borrowed here")
+                : null;
+        borrowed.add(pooled);
+        borrowLatency.record(System.nanoTime() - start);
+
+        return (Connection) Proxy.newProxyInstance(
+                Connection.class.getClassLoader(),
+                new Class<?>[]{Connection.class},
+                new Lease(pooled));
+    }
+
+    //Puts a connection back in the pool once the caller closes it
+    private void release(PooledConnection pooled) {
+        borrowed.remove(pooled);
+
+        if (pooled.broken || !reset(pooled)) {
+            discard(pooled);
+            return;
+        }
+
+        lock.lock();
+        try {
+            if (!closed) {
+                pooled.lastUsed = System.nanoTime();
+                idle.addFirst(pooled);
+                available.signal();
+                return;
+            }
+            total--;
+        } finally {
+            lock.unlock();
+        }
+        pooled.closeQuietly();
+    }
+
+    //Rolls back anything the caller left open so the next borrower starts clean
+    private boolean reset(PooledConnection pooled) {
+        try {
+            Connection con = pooled.physical;
+            if (con.isClosed()) {
+                return false;
+            }
+            if (!con.getAutoCommit()) {
+                con.rollback();
+                con.setAutoCommit(true);
+            }
+            if (con.isReadOnly()) {
+                con.setReadOnly(false);
+            }
+            return true;
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    private void discard(PooledConnection pooled) {
+        pooled.closeQuietly();
+        lock.lock();
+        try {
+            total--;
+            available.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void fillToMinimum() throws SQLException {
+        while (true) {
+            lock.lock();
+            try {
+                if (closed || total >= config.getMinSize()) {
+                    return;
+                }
+                total++;
+            } finally {
+                lock.unlock();
+            }
+
+            PooledConnection pooled = open();
+            lock.lock();
+            try {
+                pooled.lastUsed = System.nanoTime();
+                idle.addLast(pooled);
+                available.signal();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    //Evicts connections idle past the timeout, tops the pool back up to the minimum and reports leaks
+    private void housekeep() {
+        try {
+            long now = System.nanoTime();
+            long idleTimeout = config.getIdleTimeout().toNanos();
+            List<PooledConnection> evicted = new ArrayList<>();
+
+            lock.lock();
+            try {
+                Iterator<PooledConnection> oldestFirst = idle.descendingIterator();
+                while (oldestFirst.hasNext() && total > config.getMinSize()) {
+                    PooledConnection pooled = oldestFirst.next();
+                    if (now - pooled.lastUsed < idleTimeout) {
+                        break;
+                    }
+                    oldestFirst.remove();
+                    total--;
+                    evicted.add(pooled);
+                }
+            } finally {
+                lock.unlock();
+            }
+            evicted.forEach(PooledConnection::closeQuietly);
+
+            fillToMinimum();
+            detectLeaks(now);
+        } catch (SQLException | RuntimeException e) {
+            System.err.println("Connection pool housekeeping failed: " + e.getMessage());
+        }
+    }
+
+    private void detectLeaks(long now) {
+        long threshold = config.getLeakDetectionThreshold().toNanos();
+        if (threshold <= 0) {
+            return;
+        }
+        for (PooledConnection pooled : borrowed) {
+            if (!pooled.leakReported && now - pooled.borrowedAt > threshold) {
+                pooled.leakReported = true;
+                leaks.increment();
+                System.err.println("Possible connection leak: connection held for more than "
+                        + config.getLeakDetectionThreshold().toMillis() + "ms");
+                if (pooled.borrowSite != null) {
+                    pooled.borrowSite.printStackTrace();
+                } else {
+                    System.err.println("Turn on PoolConfig.setBorrowStackTraces to see where it was borrowed");
+                }
+            }
+        }
+    }
+
+    /**
+     * A physical connection and the bookkeeping the pool keeps about it.
+     */
+    private static final class PooledConnection {
+        private final Connection physical;
+        private volatile long lastUsed;
+        private volatile long borrowedAt;
+        private volatile Throwable borrowSite;
+        private volatile boolean leakReported;
+        private volatile boolean broken;
+
+        private PooledConnection(Connection physical) {
+            this.physical = physical;
+            this.lastUsed = System.nanoTime();
+        }
+
+        private void closeQuietly() {
+            try {
+                physical.close();
+            } catch (SQLException ignored) {
+                //the connection is being thrown away either way
+            }
+        }
+    }
+
+    /**
+     * Handler behind the connection handed to callers.
+     * Closing it returns the physical connection to the pool, after which every other call fails.
+     */
+    private final class Lease implements InvocationHandler {
+        private final PooledConnection pooled;
+        private boolean returned;
+
+        private Lease(PooledConnection pooled) {
+            this.pooled = pooled;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close" -> {
+                    if (!returned) {
+                        returned = true;
+                        release(pooled);
+                    }
+                    return null;
+                }
+                case "isClosed" -> {
+                    return returned || pooled.physical.isClosed();
+                }
+                case "equals" -> {
+                    return proxy == args[0];
+                }
+                case "hashCode" -> {
+                    return System.identityHashCode(proxy);
+                }
+                case "toString" -> {
+                    return "PooledConnection[" + pooled.physical + "]";
+                }
+                default -> {
+                    if (returned) {
+                        throw new SQLException("Connection has already been returned to the pool");
+                    }
+                }
+            }
+
+            try {
+                return method.invoke(pooled.physical, args);
+            } catch (InvocationTargetException e) {
+                Throwable cause = e.getCause();
+                //SQL state class 08 means the connection itself failed, so it must not be reused
+                if (cause instanceof SQLException sql && sql.getSQLState() != null && sql.getSQLState().startsWith("08")) {
+                    pooled.broken = true;
+                }
+                throw cause;
+            }
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package dbConnection;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * Defines where the repository gets its JDBC connections from.
+ * Callers must close the returned connection when they are done with it,
+ * which either closes the physical connection or hands it back to a pool.
+ */
+public interface ConnectionProvider {
+
+    /**
+     * Retrieves a connection to the inventory database.
+     * @return an open connection
+     * @throws SQLException if no connection could be obtained
+     */
+    Connection getConnection() throws SQLException;
+}
@@ -4,10 +4,14 @@ import java.sql.*;
 
 public class DBConnection {
     public static boolean config = false;
-    private final static String url = "jdbc:mysql://localhost:3306/inventory_db";
+    //useCursorFetch makes the driver honour setFetchSize, so streamed reads don't buffer the whole table
+    //rewriteBatchedStatements turns JDBC batches into multi-row INSERTs
+    private final static String url = "jdbc:mysql://localhost:3306/inventory_db?useCursorFetch=true&rewriteBatchedStatements=true";
     private final static String username = "root";
     private final static String password = "MasokoBums";
 
+    private final static String testUrl = "jdbc:mysql://localhost:3306/testData?useCursorFetch=true&rewriteBatchedStatements=true";
+
     private DBConnection(){}
 
     public static Connection getConnection() throws SQLException {
@@ -15,7 +19,7 @@ public class DBConnection {
             return DriverManager.getConnection(url, username, password);
         }
         else {
-            String url = "jdbc:mysql://localhost:3306/testData";
+            String url = testUrl;
             String name = "root";
             String password = "MasokoBums";
 
@@ -23,44 +27,101 @@ public class DBConnection {
         }
     }
 
+    /**
+     * Creates a connection pool for the database selected by config.
+     * @param poolConfig Pool sizing and timeout settings
+     * @return a pool that must be closed when the app shuts down
+     */
+    public static ConnectionPool createPool(PoolConfig poolConfig) throws SQLException {
+        return createPool(config ? testUrl : url, poolConfig);
+    }
 
-    public static void databaseInit() throws SQLException {
-        String createTable = """
-                CREATE TABLE IF NOT EXISTS inventory(
-                id VARCHAR(100) PRIMARY KEY,
-                name VARCHAR(100) NOT NULL,
-                quantity INT NOT NULL,
-                price DOUBLE NOT NULL
-                );
-                """;
+    /**
+     * Creates a connection pool for another server holding the inventory, such as a read replica.
+     * @param jdbcUrl JDBC url of the server, signed in to with the same credentials as the primary
+     * @param poolConfig Pool sizing and timeout settings
+     * @return a pool that must be closed when the app shuts down
+     */
+    public static ConnectionPool createPool(String jdbcUrl, PoolConfig poolConfig) throws SQLException {
+        ConnectionProvider factory = new DriverManagerConnectionProvider(jdbcUrl, username, password);
+        return new ConnectionPool(factory, poolConfig);
+    }
 
-        try(Connection con = DBConnection.getConnection();
-            Statement stm = con.createStatement()
-        ){
-            stm.execute(createTable);
+
+    public static void databaseInit() throws SQLException {
+        try(Connection con = DBConnection.getConnection()){
+            createSchema(con);
         }
     }
 
 
     public static void testDataInit() throws SQLException {
+        try(Connection con = getConnection()){
+            createSchema(con);
+        }
+    }
 
-
+    /**
+     * Creates the inventory table and its secondary indexes if they don't exist yet,
+     * and migrates tables created by older versions.
+     * The (column, id) indexes back keyset pagination for every sort order, and name_key
+     * holds the lower-cased name so name lookups are indexed and case-insensitive.
+     */
+    private static void createSchema(Connection con) throws SQLException {
         String createTable = """
                 CREATE TABLE IF NOT EXISTS inventory(
                 id VARCHAR(100) PRIMARY KEY,
                 name VARCHAR(100) NOT NULL,
                 quantity INT NOT NULL,
-                price DOUBLE NOT NULL
+                price DOUBLE NOT NULL,
+                reserved INT NOT NULL DEFAULT 0,
+                version BIGINT NOT NULL DEFAULT 0,
+                reorder_point INT NOT NULL DEFAULT 0,
+                name_key VARCHAR(100) GENERATED ALWAYS AS (LOWER(name)) STORED
                 );
                 """;
 
-
-        try(Connection con = getConnection();
-                Statement stm = con.createStatement()
-        ){
+        try(Statement stm = con.createStatement()){
             stm.execute(createTable);
         }
 
+        addColumn(con, "reserved", "ALTER TABLE inventory ADD COLUMN reserved INT NOT NULL DEFAULT 0");
+        addColumn(con, "version", "ALTER TABLE inventory ADD COLUMN version BIGINT NOT NULL DEFAULT 0");
+        addColumn(con, "reorder_point", "ALTER TABLE inventory ADD COLUMN reorder_point INT NOT NULL DEFAULT 0");
+        addColumn(con, "name_key", "ALTER TABLE inventory ADD COLUMN name_key VARCHAR(100) GENERATED ALWAYS AS (LOWER(name)) STORED");
+
+        createIndex(con, "idx_inventory_name", "CREATE INDEX idx_inventory_name ON inventory(name, id)");
+        createIndex(con, "idx_inventory_quantity", "CREATE INDEX idx_inventory_quantity ON inventory(quantity, id)");
+        createIndex(con, "idx_inventory_price", "CREATE INDEX idx_inventory_price ON inventory(price, id)");
+        createIndex(con, "idx_inventory_name_key", "CREATE INDEX idx_inventory_name_key ON inventory(name_key)");
+    }
+
+    //Adds a column to an inventory table created before the column existed
+    private static void addColumn(Connection con, String columnName, String ddl) throws SQLException {
+        try(ResultSet rs = con.getMetaData().getColumns(con.getCatalog(), null, "inventory", columnName)){
+            if(rs.next()){
+                return;
+            }
+        }
+
+        try(Statement stm = con.createStatement()){
+            stm.execute(ddl);
+        }
+    }
+
+    //MySQL has no CREATE INDEX IF NOT EXISTS, so the index is looked up first
+    private static void createIndex(Connection con, String indexName, String ddl) throws SQLException {
+        try(ResultSet rs = con.getMetaData().getIndexInfo(con.getCatalog(), null, "inventory", false, false)){
+            while(rs.next()){
+                if(indexName.equalsIgnoreCase(rs.getString("INDEX_NAME"))){
+                    return;
+                }
+            }
+        }
+
+        try(Statement stm = con.createStatement()){
+            stm.execute(ddl);
+        }
     }
 
 }
@@ -0,0 +1,26 @@
+package dbConnection;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+
+/**
+ * Connection provider that opens a new physical connection through DriverManager on every call.
+ * Used by the connection pool to create its connections and by code that doesn't need pooling.
+ */
+public class DriverManagerConnectionProvider implements ConnectionProvider {
+    private final String url;
+    private final String username;
+    private final String password;
+
+    public DriverManagerConnectionProvider(String url, String username, String password) {
+        this.url = url;
+        this.username = username;
+        this.password = password;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return DriverManager.getConnection(url, username, password);
+    }
+}
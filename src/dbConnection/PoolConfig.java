@@ -0,0 +1,104 @@
+package dbConnection;
+
+import java.time.Duration;
+
+/**
+ * Settings for the ConnectionPool.
+ * Defaults are sized for the console app; every setter returns this so settings can be chained.
+ */
+public class PoolConfig {
+    //Connections kept open even when idle
+    private int minSize = 2;
+    //Upper bound on open connections
+    private int maxSize = 10;
+    //How long an idle connection above minSize is kept before it is closed
+    private Duration idleTimeout = Duration.ofMinutes(5);
+    //How long a caller waits for a free connection before giving up
+    private Duration acquireTimeout = Duration.ofSeconds(5);
+    //How long a connection may be borrowed before it is reported as a possible leak, zero disables it
+    private Duration leakDetectionThreshold = Duration.ofSeconds(30);
+    //Whether every borrow records its stack trace for leak reports, off by default since it costs a stack walk per borrow
+    private boolean borrowStackTraces = false;
+    //Timeout handed to Connection.isValid when a connection is borrowed
+    private int validationTimeoutSeconds = 2;
+    //How often the pool evicts idle connections and looks for leaks
+    private Duration housekeepingInterval = Duration.ofSeconds(30);
+
+    public int getMinSize() {
+        return minSize;
+    }
+
+    public PoolConfig setMinSize(int minSize) {
+        if (minSize < 0) {
+            throw new IllegalArgumentException("Minimum pool size cannot be negative");
+        }
+        this.minSize = minSize;
+        return this;
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    public PoolConfig setMaxSize(int maxSize) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("Maximum pool size must be greater than zero");
+        }
+        this.maxSize = maxSize;
+        return this;
+    }
+
+    public Duration getIdleTimeout() {
+        return idleTimeout;
+    }
+
+    public PoolConfig setIdleTimeout(Duration idleTimeout) {
+        this.idleTimeout = idleTimeout;
+        return this;
+    }
+
+    public Duration getAcquireTimeout() {
+        return acquireTimeout;
+    }
+
+    public PoolConfig setAcquireTimeout(Duration acquireTimeout) {
+        this.acquireTimeout = acquireTimeout;
+        return this;
+    }
+
+    public Duration getLeakDetectionThreshold() {
+        return leakDetectionThreshold;
+    }
+
+    public PoolConfig setLeakDetectionThreshold(Duration leakDetectionThreshold) {
+        this.leakDetectionThreshold = leakDetectionThreshold;
+        return this;
+    }
+
+    public boolean isBorrowStackTraces() {
+        return borrowStackTraces;
+    }
+
+    public PoolConfig setBorrowStackTraces(boolean borrowStackTraces) {
+        this.borrowStackTraces = borrowStackTraces;
+        return this;
+    }
+
+    public int getValidationTimeoutSeconds() {
+        return validationTimeoutSeconds;
+    }
+
+    public PoolConfig setValidationTimeoutSeconds(int validationTimeoutSeconds) {
+        this.validationTimeoutSeconds = validationTimeoutSeconds;
+        return this;
+    }
+
+    public Duration getHousekeepingInterval() {
+        return housekeepingInterval;
+    }
+
+    public PoolConfig setHousekeepingInterval(Duration housekeepingInterval) {
+        this.housekeepingInterval = housekeepingInterval;
+        return this;
+    }
+}
@@ -0,0 +1,79 @@
+package dbConnection;
+
+import util.LatencyHistogram;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Point in time view of the connection pool counters.
+ * The borrow latency histogram is shared with the pool and keeps updating.
+ */
+public class PoolMetrics {
+    private final int active;
+    private final int idle;
+    private final int waiting;
+    private final long totalWaitNanos;
+    private final long timeouts;
+    private final long leaksDetected;
+    private final LatencyHistogram borrowLatency;
+
+    public PoolMetrics(int active, int idle, int waiting, long totalWaitNanos,
+                       long timeouts, long leaksDetected, LatencyHistogram borrowLatency) {
+        this.active = active;
+        this.idle = idle;
+        this.waiting = waiting;
+        this.totalWaitNanos = totalWaitNanos;
+        this.timeouts = timeouts;
+        this.leaksDetected = leaksDetected;
+        this.borrowLatency = borrowLatency;
+    }
+
+    //returns the number of connections currently borrowed
+    public int getActive() {
+        return active;
+    }
+
+    //returns the number of open connections waiting in the pool
+    public int getIdle() {
+        return idle;
+    }
+
+    //returns the number of callers blocked waiting for a connection
+    public int getWaiting() {
+        return waiting;
+    }
+
+    //returns the total time callers have spent blocked waiting for a connection
+    public long getTotalWaitNanos() {
+        return totalWaitNanos;
+    }
+
+    //returns how many borrows gave up after the acquire timeout
+    public long getTimeouts() {
+        return timeouts;
+    }
+
+    //returns how many borrowed connections were held past the leak threshold
+    public long getLeaksDetected() {
+        return leaksDetected;
+    }
+
+    //returns the histogram of the time taken by getConnection
+    public LatencyHistogram getBorrowLatency() {
+        return borrowLatency;
+    }
+
+    @Override
+    public String toString() {
+        return "PoolMetrics{" +
+                "active=" + active +
+                ", idle=" + idle +
+                ", waiting=" + waiting +
+                ", totalWaitMs=" + TimeUnit.NANOSECONDS.toMillis(totalWaitNanos) +
+                ", timeouts=" + timeouts +
+                ", leaksDetected=" + leaksDetected +
+                ", borrowP50Us=" + borrowLatency.getPercentile(50, TimeUnit.MICROSECONDS) +
+                ", borrowP99Us=" + borrowLatency.getPercentile(99, TimeUnit.MICROSECONDS) +
+                '}';
+    }
+}
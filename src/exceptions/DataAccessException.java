@@ -0,0 +1,8 @@
+package exceptions;
+
+public class DataAccessException extends RuntimeException {
+
+    public DataAccessException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,7 @@
+package exceptions;
+
+public class InvalidRowException extends RuntimeException {
+    public InvalidRowException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,210 @@
+package metrics;
+
+import dbConnection.ConnectionProvider;
+import model.IInventoryItem;
+import model.ItemPage;
+import repository.BulkLoadReport;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Wraps interfaces such as IRepo and IManagement in a proxy that times every call and counts
+ * its rows and exceptions in a MetricsRegistry.
+ * With a disabled registry the object is handed back as it is, so nothing is added to the call path.
+ */
+public final class Instrumentation {
+
+    private Instrumentation() {
+    }
+
+    /**
+     * Instruments every method of an interface
+     * @param type Interface to instrument
+     * @param delegate Object the calls are passed on to
+     * @param component Name the operations are recorded under, such as repo or management
+     * @param registry Registry to record into
+     * @return a proxy implementing the interface, or the delegate itself if the registry is disabled
+     */
+    public static <T> T wrap(Class<T> type, T delegate, String component, MetricsRegistry registry) {
+        if (!registry.isEnabled()) {
+            return delegate;
+        }
+        if (!type.isInterface()) {
+            throw new IllegalArgumentException(type.getName() + " is not an interface");
+        }
+
+        //looked up once here so a call never has to look its stats up by name
+        Map<Method, OperationStats> operations = new HashMap<>();
+        for (Method method : type.getMethods()) {
+            operations.put(method, registry.stats(component, method.getName()));
+        }
+        Object proxy = Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type},
+                new Timed(delegate, operations));
+        return type.cast(proxy);
+    }
+
+    /**
+     * Times how long connections take to acquire, recorded as connection.acquire
+     * @param provider Provider the connections come from, usually the pool
+     * @param registry Registry to record into
+     * @return the instrumented provider, or the provider itself if the registry is disabled
+     */
+    public static ConnectionProvider wrapConnections(ConnectionProvider provider, MetricsRegistry registry) {
+        if (!registry.isEnabled()) {
+            return provider;
+        }
+        OperationStats acquire = registry.stats("connection", "acquire");
+        return () -> {
+            long start = System.nanoTime();
+            try {
+                Connection connection = provider.getConnection();
+                acquire.recordSuccess(System.nanoTime() - start, 0);
+                return connection;
+            } catch (SQLException | RuntimeException e) {
+                acquire.recordFailure(System.nanoTime() - start, e);
+                throw e;
+            }
+        };
+    }
+
+    //returns how many rows a call returned or wrote, judged by what it returned
+    static long rowsOf(Object result) {
+        if (result instanceof Collection<?> collection) {
+            return collection.size();
+        }
+        if (result instanceof ItemPage page) {
+            return page.getItems().size();
+        }
+        if (result instanceof BulkLoadReport report) {
+            return report.getInserted();
+        }
+        if (result instanceof IInventoryItem) {
+            return 1;
+        }
+        if (result instanceof Boolean changed) {
+            return changed ? 1 : 0;
+        }
+        return 0;
+    }
+
+    /**
+     * Handler behind an instrumented proxy.
+     */
+    private static final class Timed implements InvocationHandler {
+        private final Object delegate;
+        private final Map<Method, OperationStats> operations;
+
+        private Timed(Object delegate, Map<Method, OperationStats> operations) {
+            this.delegate = delegate;
+            this.operations = operations;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            OperationStats stats = operations.get(method);
+            if (stats == null) {
+                switch (method.getName()) {
+                    case "equals" -> {
+                        return proxy == args[0];
+                    }
+                    case "hashCode" -> {
+                        return System.identityHashCode(proxy);
+                    }
+                    default -> {
+                        return invokeDelegate(method, args);
+                    }
+                }
+            }
+
+            long start = System.nanoTime();
+            Object result;
+            try {
+                result = invokeDelegate(method, args);
+            } catch (Throwable e) {
+                stats.recordFailure(System.nanoTime() - start, e);
+                throw e;
+            }
+            stats.recordSuccess(System.nanoTime() - start, rowsOf(result));
+
+            //a stream is timed until it is opened and its rows are counted as the caller reads them
+            if (result instanceof Stream<?> stream) {
+                return StreamSupport.stream(new CountingSpliterator<>(stream.spliterator(), stats), stream.isParallel())
+                        .onClose(stream::close);
+            }
+            return result;
+        }
+
+        private Object invokeDelegate(Method method, Object[] args) throws Throwable {
+            try {
+                return method.invoke(delegate, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+
+    /**
+     * Counts the rows of a stream as they are read.
+     * The stream is not reported as sized, so a terminal operation such as count() has to read every row
+     * instead of taking the size from the source.
+     */
+    private static final class CountingSpliterator<T> implements Spliterator<T> {
+        private final Spliterator<T> source;
+        private final OperationStats stats;
+
+        private CountingSpliterator(Spliterator<T> source, OperationStats stats) {
+            this.source = source;
+            this.stats = stats;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super T> action) {
+            return source.tryAdvance(row -> {
+                stats.addRows(1);
+                action.accept(row);
+            });
+        }
+
+        @Override
+        public void forEachRemaining(Consumer<? super T> action) {
+            source.forEachRemaining(row -> {
+                stats.addRows(1);
+                action.accept(row);
+            });
+        }
+
+        @Override
+        public Spliterator<T> trySplit() {
+            Spliterator<T> split = source.trySplit();
+            return split == null ? null : new CountingSpliterator<>(split, stats);
+        }
+
+        @Override
+        public long estimateSize() {
+            return source.estimateSize();
+        }
+
+        @Override
+        public int characteristics() {
+            return source.characteristics() & ~(Spliterator.SIZED | Spliterator.SUBSIZED);
+        }
+
+        @Override
+        public Comparator<? super T> getComparator() {
+            return source.getComparator();
+        }
+    }
+}
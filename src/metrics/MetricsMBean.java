@@ -0,0 +1,117 @@
+package metrics;
+
+import javax.management.Attribute;
+import javax.management.AttributeList;
+import javax.management.AttributeNotFoundException;
+import javax.management.DynamicMBean;
+import javax.management.MBeanAttributeInfo;
+import javax.management.MBeanInfo;
+import javax.management.MBeanOperationInfo;
+import javax.management.MBeanParameterInfo;
+import javax.management.ReflectionException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Read-only JMX view of a MetricsRegistry.
+ * Every operation shows up as a group of attributes named component.operation.count, .errors, .rows,
+ * .meanMillis and .p99Millis, and the whole registry as the Prometheus attribute.
+ */
+final class MetricsMBean implements DynamicMBean {
+    private static final String PROMETHEUS = "Prometheus";
+    private static final String[] LONG_FIELDS = {"count", "errors", "rows"};
+    private static final String[] DOUBLE_FIELDS = {"meanMillis", "p99Millis"};
+
+    private final MetricsRegistry registry;
+
+    MetricsMBean(MetricsRegistry registry) {
+        this.registry = registry;
+    }
+
+    @Override
+    public Object getAttribute(String attribute) throws AttributeNotFoundException {
+        if (attribute.equals(PROMETHEUS)) {
+            return registry.toPrometheus();
+        }
+        int split = attribute.lastIndexOf('.');
+        int componentEnd = attribute.indexOf('.');
+        if (split <= 0 || componentEnd == split) {
+            throw new AttributeNotFoundException(attribute);
+        }
+        OperationStats stats = find(attribute.substring(0, componentEnd), attribute.substring(componentEnd + 1, split));
+        if (stats == null) {
+            throw new AttributeNotFoundException(attribute);
+        }
+        return switch (attribute.substring(split + 1)) {
+            case "count" -> stats.getCount();
+            case "errors" -> stats.getErrorCount();
+            case "rows" -> stats.getRows();
+            case "meanMillis" -> stats.getLatency().getMeanNanos() / TimeUnit.MILLISECONDS.toNanos(1);
+            case "p99Millis" -> stats.getLatency().getPercentile(99, TimeUnit.MILLISECONDS);
+            default -> throw new AttributeNotFoundException(attribute);
+        };
+    }
+
+    @Override
+    public AttributeList getAttributes(String[] attributes) {
+        AttributeList list = new AttributeList();
+        for (String attribute : attributes) {
+            try {
+                list.add(new Attribute(attribute, getAttribute(attribute)));
+            } catch (AttributeNotFoundException e) {
+                //JMX leaves unknown attributes out of the list
+            }
+        }
+        return list;
+    }
+
+    @Override
+    public void setAttribute(Attribute attribute) throws AttributeNotFoundException {
+        throw new AttributeNotFoundException("Metrics are read only: " + attribute.getName());
+    }
+
+    @Override
+    public AttributeList setAttributes(AttributeList attributes) {
+        return new AttributeList();
+    }
+
+    @Override
+    public Object invoke(String actionName, Object[] params, String[] signature) throws ReflectionException {
+        if (actionName.equals("reset")) {
+            registry.reset();
+            return null;
+        }
+        throw new ReflectionException(new NoSuchMethodException(actionName));
+    }
+
+    //Built on every call, since operations register themselves as they are instrumented
+    @Override
+    public MBeanInfo getMBeanInfo() {
+        List<MBeanAttributeInfo> attributes = new ArrayList<>();
+        attributes.add(new MBeanAttributeInfo(PROMETHEUS, String.class.getName(),
+                "Every metric in the Prometheus text format", true, false, false));
+        for (OperationStats stats : registry.getStats()) {
+            String prefix = stats.getComponent() + "." + stats.getOperation() + ".";
+            for (String field : LONG_FIELDS) {
+                attributes.add(new MBeanAttributeInfo(prefix + field, long.class.getName(), field, true, false, false));
+            }
+            for (String field : DOUBLE_FIELDS) {
+                attributes.add(new MBeanAttributeInfo(prefix + field, double.class.getName(), field, true, false, false));
+            }
+        }
+        MBeanOperationInfo reset = new MBeanOperationInfo("reset", "Clears every counter",
+                new MBeanParameterInfo[0], void.class.getName(), MBeanOperationInfo.ACTION);
+        return new MBeanInfo(MetricsRegistry.class.getName(), "Inventory operation metrics",
+                attributes.toArray(new MBeanAttributeInfo[0]), null, new MBeanOperationInfo[]{reset}, null);
+    }
+
+    private OperationStats find(String component, String operation) {
+        for (OperationStats stats : registry.getStats()) {
+            if (stats.getComponent().equals(component) && stats.getOperation().equals(operation)) {
+                return stats;
+            }
+        }
+        return null;
+    }
+}
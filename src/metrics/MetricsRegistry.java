@@ -0,0 +1,154 @@
+package metrics;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Holds the stats of every instrumented operation, keyed by component and operation name,
+ * and exports them over JMX or as Prometheus text.
+ *
+ * The DISABLED registry records nothing: Instrumentation hands back the uninstrumented object
+ * for it, so turning metrics off leaves no proxy and no timing on the call path.
+ */
+public class MetricsRegistry {
+    //Registry used when metrics are turned off
+    public static final MetricsRegistry DISABLED = new MetricsRegistry(false);
+    //Quantiles written for every latency summary
+    private static final double[] QUANTILES = {0.5, 0.9, 0.99, 0.999};
+
+    private final boolean enabled;
+    //"component.operation" -> stats
+    private final ConcurrentHashMap<String, OperationStats> operations = new ConcurrentHashMap<>();
+
+    public MetricsRegistry() {
+        this(true);
+    }
+
+    private MetricsRegistry(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    //returns false for the DISABLED registry
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Retrieves the stats of an operation, creating them on first use
+     * @param component Name of the instrumented object, such as repo or management
+     * @param operation Name of the operation
+     * @return the stats shared by every caller using the same names
+     */
+    public OperationStats stats(String component, String operation) {
+        return operations.computeIfAbsent(component + "." + operation, key -> new OperationStats(component, operation));
+    }
+
+    /**
+     * Counts an exception that was caught and reported rather than thrown out of an instrumented call
+     * @param component Where the exception was handled
+     * @param error The exception
+     */
+    public void recordHandled(String component, Throwable error) {
+        if (enabled) {
+            stats(component, "handled").recordError(error);
+        }
+    }
+
+    //returns the stats of every operation, ordered by component and operation name
+    public List<OperationStats> getStats() {
+        List<OperationStats> stats = new ArrayList<>(operations.values());
+        stats.sort(Comparator.comparing(OperationStats::getComponent).thenComparing(OperationStats::getOperation));
+        return stats;
+    }
+
+    //clears the counters of every operation
+    public void reset() {
+        for (OperationStats stats : operations.values()) {
+            stats.reset();
+        }
+    }
+
+    /**
+     * Writes every operation in the Prometheus text exposition format:
+     * a latency summary in seconds, a rows counter and an error counter labelled by exception class.
+     */
+    public String toPrometheus() {
+        List<OperationStats> stats = getStats();
+        StringBuilder out = new StringBuilder();
+
+        out.append("# HELP inventory_operation_duration_seconds Time taken by each call, including calls that threw\n");
+        out.append("# TYPE inventory_operation_duration_seconds summary\n");
+        for (OperationStats operation : stats) {
+            String labels = labels(operation);
+            for (double quantile : QUANTILES) {
+                out.append("inventory_operation_duration_seconds{").append(labels)
+                        .append(",quantile=\"").append(quantile).append("\"} ")
+                        .append(seconds(operation.getLatency().getPercentileNanos(quantile * 100))).append('\n');
+            }
+            out.append("inventory_operation_duration_seconds_sum{").append(labels).append("} ")
+                    .append(seconds(operation.getLatency().getTotalNanos())).append('\n');
+            out.append("inventory_operation_duration_seconds_count{").append(labels).append("} ")
+                    .append(operation.getCount()).append('\n');
+        }
+
+        out.append("# HELP inventory_operation_rows_total Rows returned by reads or written by writes\n");
+        out.append("# TYPE inventory_operation_rows_total counter\n");
+        for (OperationStats operation : stats) {
+            out.append("inventory_operation_rows_total{").append(labels(operation)).append("} ")
+                    .append(operation.getRows()).append('\n');
+        }
+
+        out.append("# HELP inventory_operation_errors_total Calls that threw, by exception class\n");
+        out.append("# TYPE inventory_operation_errors_total counter\n");
+        for (OperationStats operation : stats) {
+            for (Map.Entry<String, Long> error : operation.getErrors().entrySet()) {
+                out.append("inventory_operation_errors_total{").append(labels(operation))
+                        .append(",exception=\"").append(escape(error.getKey())).append("\"} ")
+                        .append(error.getValue()).append('\n');
+            }
+        }
+        return out.toString();
+    }
+
+    /**
+     * Registers the registry with the platform MBean server, so jconsole or any JMX client can read it
+     * @param objectName Name to register under, such as inventory:type=Metrics
+     * @return the registered name, to pass to unregisterMBean
+     * @throws JMException if the name is invalid or already taken
+     */
+    public ObjectName registerMBean(String objectName) throws JMException {
+        ObjectName name = new ObjectName(objectName);
+        ManagementFactory.getPlatformMBeanServer().registerMBean(new MetricsMBean(this), name);
+        return name;
+    }
+
+    //Removes a registration made by registerMBean, if it is still there
+    public static void unregisterMBean(ObjectName name) throws JMException {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        if (server.isRegistered(name)) {
+            server.unregisterMBean(name);
+        }
+    }
+
+    private static String labels(OperationStats operation) {
+        return "component=\"" + escape(operation.getComponent()) + "\",operation=\"" + escape(operation.getOperation()) + "\"";
+    }
+
+    private static String seconds(long nanos) {
+        return String.format(Locale.ROOT, "%.9f", (double) nanos / TimeUnit.SECONDS.toNanos(1));
+    }
+
+    //Escapes a label value as the Prometheus text format requires
+    private static String escape(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+}
@@ -0,0 +1,96 @@
+package metrics;
+
+import util.LatencyHistogram;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters for one instrumented operation: how long its calls took, how many rows they returned
+ * or wrote, and which exceptions they threw. Recording is lock free.
+ */
+public class OperationStats {
+    private final String component;
+    private final String operation;
+    //Every call, successful or not
+    private final LatencyHistogram latency = new LatencyHistogram();
+    //Rows returned by reads, or written by writes
+    private final LongAdder rows = new LongAdder();
+    //exception class name -> number of calls that threw it
+    private final ConcurrentHashMap<String, LongAdder> errors = new ConcurrentHashMap<>();
+
+    OperationStats(String component, String operation) {
+        this.component = component;
+        this.operation = operation;
+    }
+
+    void recordSuccess(long nanos, long rowCount) {
+        latency.record(nanos);
+        if (rowCount > 0) {
+            rows.add(rowCount);
+        }
+    }
+
+    void recordFailure(long nanos, Throwable error) {
+        latency.record(nanos);
+        recordError(error);
+    }
+
+    void recordError(Throwable error) {
+        errors.computeIfAbsent(error.getClass().getSimpleName(), name -> new LongAdder()).increment();
+    }
+
+    void addRows(long rowCount) {
+        rows.add(rowCount);
+    }
+
+    //returns the name of the instrumented object, such as repo or management
+    public String getComponent() {
+        return component;
+    }
+
+    //returns the name of the instrumented method
+    public String getOperation() {
+        return operation;
+    }
+
+    //returns the histogram of the time taken by every call
+    public LatencyHistogram getLatency() {
+        return latency;
+    }
+
+    //returns the number of calls, including the ones that threw
+    public long getCount() {
+        return latency.getCount();
+    }
+
+    //returns the number of rows returned or written
+    public long getRows() {
+        return rows.sum();
+    }
+
+    //returns the number of calls that threw, by exception class name
+    public Map<String, Long> getErrors() {
+        Map<String, Long> counts = new TreeMap<>();
+        errors.forEach((name, count) -> counts.put(name, count.sum()));
+        return counts;
+    }
+
+    //returns the number of calls that threw
+    public long getErrorCount() {
+        long total = 0;
+        for (LongAdder count : errors.values()) {
+            total += count.sum();
+        }
+        return total;
+    }
+
+    //clears every counter
+    public void reset() {
+        latency.reset();
+        rows.reset();
+        errors.clear();
+    }
+}
@@ -0,0 +1,13 @@
+package model;
+
+/**
+ * Outcome of a single stock adjustment.
+ */
+public enum AdjustmentResult {
+    //The quantity was changed
+    APPLIED,
+    //The item didn't have enough stock to take the amount away, nothing was changed
+    INSUFFICIENT_STOCK,
+    //No item has the id
+    NOT_FOUND
+}
@@ -3,7 +3,7 @@ package model;
 /**
  * Defines the contract of the Inventory Item in the system.
  * Any class that implements this interface must provide methods
- * to retrieve ID, Name, Quantity and Price
+ * to retrieve ID, Name, Quantity, Price, Version and Reorder point
  */
 public interface IInventoryItem {
 
@@ -19,6 +19,12 @@ public interface IInventoryItem {
     //returns the price of the item
      double getPrice();
 
+    //returns the version of the stored row, bumped on every change so updates can detect concurrent writers
+     long getVersion();
+
+    //returns the quantity below which the item should be reordered, 0 when it is never reordered
+     int getReorderPoint();
+
     //returns the string representation of the inventory item
     @Override
      String toString();
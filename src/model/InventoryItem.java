@@ -18,10 +18,14 @@ public class InventoryItem implements Serializable , IInventoryItem{
     private final int quantity;
     //Inventory Item price
     private final double price;
+    //Version of the stored row the item was read from, 0 for new items
+    private final long version;
+    //Quantity below which the item should be reordered, 0 when it is never reordered
+    private final int reorderPoint;
 
     /**
  * Constructs the Inventory item with the specified , Name, Quantity and price
-     * The ID is auto generated using AutoGenerator.
+     * The ID is auto generated using AutoGenerator, so it sorts in creation order.
      * @param name: Name of item
      * @param quantity: Quantity of the item
      * @param price: Price of the item
@@ -31,13 +35,41 @@ public class InventoryItem implements Serializable , IInventoryItem{
         this.name = name;
         this.quantity = quantity;
         this.price = price;
+        this.version = 0;
+        this.reorderPoint = 0;
+    }
+
+    /**
+     * Constructs the Inventory item with an auto generated ID and a reorder point
+     * @param reorderPoint: Quantity below which the item should be reordered
+     */
+    public InventoryItem(String name, int quantity, double price, int reorderPoint) {
+        this(AutoGenerator.idGenerator(), name, quantity, price, 0, reorderPoint);
     }
 
     public InventoryItem(String id, String name, int quantity, double price) {
+        this(id, name, quantity, price, 0);
+    }
+
+    /**
+     * Constructs the Inventory item as read from storage, including the version of its row
+     * @param version: Version of the stored row, passed back on update to detect concurrent changes
+     */
+    public InventoryItem(String id, String name, int quantity, double price, long version) {
+        this(id, name, quantity, price, version, 0);
+    }
+
+    /**
+     * Constructs the Inventory item as read from storage, including its version and reorder point
+     * @param reorderPoint: Quantity below which the item should be reordered, 0 when it is never reordered
+     */
+    public InventoryItem(String id, String name, int quantity, double price, long version, int reorderPoint) {
         this.id = id;
         this.name = name;
         this.quantity = quantity;
         this.price = price;
+        this.version = version;
+        this.reorderPoint = reorderPoint;
     }
 
     //==========Getters================
@@ -66,6 +98,18 @@ public class InventoryItem implements Serializable , IInventoryItem{
         return price;
     }
 
+    //returns the version of the stored row
+    @Override
+    public long getVersion() {
+        return version;
+    }
+
+    //returns the quantity below which the item should be reordered
+    @Override
+    public int getReorderPoint() {
+        return reorderPoint;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (o == null || getClass() != o.getClass()) return false;
@@ -86,6 +130,8 @@ public class InventoryItem implements Serializable , IInventoryItem{
                 ", name='" + name + '\'' +
                 ", quantity=" + quantity +
                 ", price=" + price +
+                ", version=" + version +
+                ", reorderPoint=" + reorderPoint +
                 '}';
     }
 }
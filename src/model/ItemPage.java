@@ -0,0 +1,41 @@
+package model;
+
+import java.util.List;
+
+/**
+ * A single page of inventory items together with the cursor for the page after it.
+ */
+public class ItemPage {
+    //Items on this page
+    private final List<IInventoryItem> items;
+    //Opaque cursor pointing after the last item, null on the last page
+    private final String nextCursor;
+
+    public ItemPage(List<IInventoryItem> items, String nextCursor) {
+        this.items = List.copyOf(items);
+        this.nextCursor = nextCursor;
+    }
+
+    //returns the items on this page
+    public List<IInventoryItem> getItems() {
+        return items;
+    }
+
+    //returns the cursor to pass in to get the next page, or null if this is the last page
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    //returns true if there is a page after this one
+    public boolean hasNext() {
+        return nextCursor != null;
+    }
+
+    @Override
+    public String toString() {
+        return "ItemPage{" +
+                "items=" + items +
+                ", nextCursor='" + nextCursor + '\'' +
+                '}';
+    }
+}
@@ -0,0 +1,27 @@
+package model;
+
+/**
+ * Measures items can be ranked by in reports, highest first.
+ * Every ranking breaks ties on id so the order is stable.
+ */
+public enum ItemRanking {
+    VALUE("quantity * price"),
+    QUANTITY("quantity");
+
+    //SQL expression the ranking is based on
+    private final String expression;
+
+    ItemRanking(String expression) {
+        this.expression = expression;
+    }
+
+    //returns the SQL expression over the inventory columns that the ranking is based on
+    public String getExpression() {
+        return expression;
+    }
+
+    //returns the measure for an item already in memory
+    public double valueOf(IInventoryItem item) {
+        return this == VALUE ? item.getQuantity() * item.getPrice() : item.getQuantity();
+    }
+}
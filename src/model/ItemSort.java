@@ -0,0 +1,37 @@
+package model;
+
+import java.util.Comparator;
+
+/**
+ * Orders in which the inventory can be paged through.
+ * Every order breaks ties on id so each item has exactly one position.
+ */
+public enum ItemSort {
+    ID("id"),
+    NAME("name"),
+    QUANTITY("quantity"),
+    PRICE("price");
+
+    //Column the order is based on
+    private final String column;
+
+    ItemSort(String column) {
+        this.column = column;
+    }
+
+    //returns the inventory column the order is based on
+    public String getColumn() {
+        return column;
+    }
+
+    //returns the same order for items already in memory, ties broken on id
+    public Comparator<IInventoryItem> comparator() {
+        Comparator<IInventoryItem> byValue = switch (this) {
+            case NAME -> Comparator.comparing(IInventoryItem::getName);
+            case QUANTITY -> Comparator.comparingInt(IInventoryItem::getQuantity);
+            case PRICE -> Comparator.comparingDouble(IInventoryItem::getPrice);
+            case ID -> (a, b) -> 0;
+        };
+        return byValue.thenComparing(IInventoryItem::getId);
+    }
+}
@@ -0,0 +1,49 @@
+package model;
+
+/**
+ * An item whose quantity is below its reorder point
+ */
+public class ReorderAlert {
+    private final String id;
+    private final String name;
+    private final int quantity;
+    private final int reorderPoint;
+
+    public ReorderAlert(String id, String name, int quantity, int reorderPoint) {
+        this.id = id;
+        this.name = name;
+        this.quantity = quantity;
+        this.reorderPoint = reorderPoint;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getQuantity() {
+        return quantity;
+    }
+
+    public int getReorderPoint() {
+        return reorderPoint;
+    }
+
+    //returns how many units the item is short of its reorder point
+    public int getDeficit() {
+        return reorderPoint - quantity;
+    }
+
+    @Override
+    public String toString() {
+        return "ReorderAlert{" +
+                "id=" + id +
+                ", name='" + name + '\'' +
+                ", quantity=" + quantity +
+                ", reorderPoint=" + reorderPoint +
+                '}';
+    }
+}
@@ -0,0 +1,32 @@
+package model;
+
+/**
+ * A change to the quantity of one item: positive to add stock, negative to take it away.
+ */
+public class StockAdjustment {
+    private final String id;
+    private final int delta;
+
+    public StockAdjustment(String id, int delta) {
+        this.id = id;
+        this.delta = delta;
+    }
+
+    //returns the id of the item to adjust
+    public String getId() {
+        return id;
+    }
+
+    //returns the amount added to the quantity, negative to take stock away
+    public int getDelta() {
+        return delta;
+    }
+
+    @Override
+    public String toString() {
+        return "StockAdjustment{" +
+                "id=" + id +
+                ", delta=" + delta +
+                '}';
+    }
+}
@@ -0,0 +1,45 @@
+package repository;
+
+/**
+ * Settings for loading a large number of items in one call.
+ * Every setter returns this so settings can be chained.
+ */
+public class BulkLoadOptions {
+    //MySQL allows at most 65535 placeholders per statement and every row uses 4
+    public static final int MAX_CHUNK_SIZE = 10_000;
+
+    /**
+     * What happens to the rest of the load when some ids already exist.
+     */
+    public enum Mode {
+        //Nothing is written unless every item can be inserted
+        ALL_OR_NOTHING,
+        //Conflicting items are skipped and every other item is written, committing chunk by chunk
+        BEST_EFFORT
+    }
+
+    //Rows written per multi-row INSERT and, in best effort mode, per transaction
+    private int chunkSize = 1000;
+    private Mode mode = Mode.BEST_EFFORT;
+
+    public int getChunkSize() {
+        return chunkSize;
+    }
+
+    public BulkLoadOptions setChunkSize(int chunkSize) {
+        if (chunkSize <= 0 || chunkSize > MAX_CHUNK_SIZE) {
+            throw new IllegalArgumentException("Chunk size must be between 1 and " + MAX_CHUNK_SIZE);
+        }
+        this.chunkSize = chunkSize;
+        return this;
+    }
+
+    public Mode getMode() {
+        return mode;
+    }
+
+    public BulkLoadOptions setMode(Mode mode) {
+        this.mode = mode;
+        return this;
+    }
+}
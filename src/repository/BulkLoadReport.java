@@ -0,0 +1,100 @@
+package repository;
+
+import model.IInventoryItem;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Outcome of a bulk load: how many rows were written, which ids conflicted and how fast it ran.
+ */
+public class BulkLoadReport {
+    //Number of items passed in
+    private final int submitted;
+    //Number of items written to storage
+    private final int inserted;
+    //Ids that already existed or appeared more than once in the load
+    private final List<String> conflictingIds;
+    //True if an all or nothing load was rolled back because of conflicts
+    private final boolean rolledBack;
+    private final long elapsedNanos;
+
+    public BulkLoadReport(int submitted, int inserted, List<String> conflictingIds, boolean rolledBack, long elapsedNanos) {
+        this.submitted = submitted;
+        this.inserted = inserted;
+        this.conflictingIds = List.copyOf(conflictingIds);
+        this.rolledBack = rolledBack;
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    public int getSubmitted() {
+        return submitted;
+    }
+
+    public int getInserted() {
+        return inserted;
+    }
+
+    public List<String> getConflictingIds() {
+        return conflictingIds;
+    }
+
+    public boolean isRolledBack() {
+        return rolledBack;
+    }
+
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    /**
+     * Works out which of the submitted items were inserted from the conflicts: every occurrence of an id is reported
+     * as a conflict except the first one when that id was inserted
+     * @param items The items this load was given, in the order they were given
+     * @return the inserted items in the same order, none if the load was rolled back
+     */
+    public List<IInventoryItem> insertedItems(List<IInventoryItem> items) {
+        if (rolledBack) {
+            return List.of();
+        }
+        if (conflictingIds.isEmpty()) {
+            return items;
+        }
+        Map<String, Integer> surplus = new HashMap<>();
+        for (IInventoryItem item : items) {
+            surplus.merge(item.getId(), 1, Integer::sum);
+        }
+        for (String id : conflictingIds) {
+            surplus.merge(id, -1, Integer::sum);
+        }
+
+        List<IInventoryItem> insertedItems = new ArrayList<>(inserted);
+        for (IInventoryItem item : items) {
+            //the first occurrence takes the only insert, later ones find nothing left
+            if (surplus.getOrDefault(item.getId(), 0) > 0) {
+                surplus.put(item.getId(), 0);
+                insertedItems.add(item);
+            }
+        }
+        return insertedItems;
+    }
+
+    //returns the number of submitted rows processed per second
+    public double getRowsPerSecond() {
+        return elapsedNanos == 0 ? 0 : submitted / (elapsedNanos / (double) TimeUnit.SECONDS.toNanos(1));
+    }
+
+    @Override
+    public String toString() {
+        return "BulkLoadReport{" +
+                "submitted=" + submitted +
+                ", inserted=" + inserted +
+                ", conflicts=" + conflictingIds.size() +
+                ", rolledBack=" + rolledBack +
+                ", rowsPerSecond=" + String.format("%.0f", getRowsPerSecond()) +
+                '}';
+    }
+}
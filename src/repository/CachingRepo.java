@@ -0,0 +1,456 @@
+package repository;
+
+import analytics.StockSummary;
+import exceptions.EmptyItemNameException;
+import exceptions.NoItemPresentException;
+import model.AdjustmentResult;
+import model.IInventoryItem;
+import model.ItemPage;
+import model.ItemRanking;
+import model.ItemSort;
+import model.StockAdjustment;
+import util.Names;
+
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+/**
+ * Read-through cache in front of another repository.
+ * Name lookups are served from a bounded LRU map with a time to live, and every write
+ * invalidates the entries it could affect once it has gone through the underlying repository;
+ * inserts and removals also invalidate before they are passed on.
+ * Concurrent misses on the same name share a single load, so a burst of searches runs one SELECT.
+ * Names are cached by their normalized form because lookups are case-insensitive.
+ *
+ * Report queries (the stock summary and top items) are cached separately for a short time, since they scan
+ * the whole inventory, and are dropped by any write.
+ */
+public class CachingRepo implements IRepo {
+    //How long report results are served from the cache when no report time to live is given
+    public static final Duration DEFAULT_REPORT_TTL = Duration.ofSeconds(10);
+
+    private final IRepo delegate;
+    private final int maxSize;
+    private final long ttlNanos;
+    private final long reportTtlNanos;
+
+    //normalized name -> cached item, in access order so the eldest entry is the least recently used. Guarded by this
+    private final LinkedHashMap<String, Entry> byName;
+    //id -> normalized name of the cached item, used to invalidate by id. Guarded by this
+    private final Map<String, String> byId = new HashMap<>();
+    //Loads in progress, keyed by normalized name
+    private final ConcurrentHashMap<String, CompletableFuture<IInventoryItem>> inFlight = new ConcurrentHashMap<>();
+    //report query ("summary" or ranking and limit) -> cached result. Guarded by this
+    private final Map<String, CachedReport> reports = new HashMap<>();
+    //Bumped on every invalidation so loads that started before it don't cache stale rows. Guarded by this
+    private long generation;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * Constructs the cache around the specified repository
+     * @param delegate Repository that the cache reads through to and writes to
+     * @param maxSize Maximum number of items kept in the cache
+     * @param ttl How long an item is served from the cache before it is loaded again
+     */
+    public CachingRepo(IRepo delegate, int maxSize, Duration ttl) {
+        this(delegate, maxSize, ttl, DEFAULT_REPORT_TTL);
+    }
+
+    /**
+     * Constructs the cache around the specified repository
+     * @param delegate Repository that the cache reads through to and writes to
+     * @param maxSize Maximum number of items kept in the cache
+     * @param ttl How long an item is served from the cache before it is loaded again
+     * @param reportTtl How long report results are served from the cache before they are computed again
+     */
+    public CachingRepo(IRepo delegate, int maxSize, Duration ttl, Duration reportTtl) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("Cache size must be greater than zero");
+        }
+        this.delegate = delegate;
+        this.maxSize = maxSize;
+        this.ttlNanos = ttl.toNanos();
+        this.reportTtlNanos = reportTtl.toNanos();
+        this.byName = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                if (size() > CachingRepo.this.maxSize) {
+                    byId.remove(eldest.getValue().item.getId());
+                    evictions.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Adds the item through the underlying repository and drops any cached item with the same name
+     */
+    @Override
+    public boolean addItem(IInventoryItem item) throws SQLException {
+        List<IInventoryItem> added = item == null ? null : List.of(item);
+        invalidateNames(added);
+        try {
+            return delegate.addItem(item);
+        } finally {
+            invalidateNames(added);
+        }
+    }
+
+    /**
+     * Adds the items through the underlying repository and drops any cached items with the same names
+     */
+    @Override
+    public boolean addListOfItems(List<IInventoryItem> items) throws SQLException {
+        invalidateNames(items);
+        try {
+            return delegate.addListOfItems(items);
+        } finally {
+            invalidateNames(items);
+        }
+    }
+
+    /**
+     * Loads the items through the underlying repository and drops any cached items with the same names
+     */
+    @Override
+    public BulkLoadReport bulkLoad(List<IInventoryItem> items, BulkLoadOptions options) throws SQLException {
+        invalidateNames(items);
+        try {
+            return delegate.bulkLoad(items, options);
+        } finally {
+            invalidateNames(items);
+        }
+    }
+
+    /**
+     * Retrieves an item by name from the cache, loading it from the underlying repository on a miss
+     * @throws EmptyItemNameException if the name is blank
+     * @throws NoItemPresentException if no item matches the name
+     */
+    @Override
+    public IInventoryItem getItem(String name) throws SQLException {
+        if (name.isBlank()) {
+            throw new EmptyItemNameException();
+        }
+
+        String key = Names.normalize(name);
+        long loadGeneration;
+        synchronized (this) {
+            Entry entry = byName.get(key);
+            if (entry != null) {
+                if (System.nanoTime() - entry.loadedAt < ttlNanos) {
+                    hits.increment();
+                    return entry.item;
+                }
+                remove(key);
+            }
+            misses.increment();
+            loadGeneration = generation;
+        }
+
+        CompletableFuture<IInventoryItem> load = new CompletableFuture<>();
+        CompletableFuture<IInventoryItem> existing = inFlight.putIfAbsent(key, load);
+        if (existing != null) {
+            return await(existing);
+        }
+
+        try {
+            IInventoryItem item = delegate.getItem(name);
+            synchronized (this) {
+                if (generation == loadGeneration) {
+                    byName.put(key, new Entry(item, System.nanoTime()));
+                    byId.put(item.getId(), key);
+                }
+            }
+            load.complete(item);
+            return item;
+        } catch (SQLException | RuntimeException e) {
+            load.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, load);
+        }
+    }
+
+    /**
+     * Retrieves all the items straight from the underlying repository
+     */
+    @Override
+    public List<IInventoryItem> getItems() throws SQLException {
+        return delegate.getItems();
+    }
+
+    /**
+     * Streams all the items straight from the underlying repository
+     */
+    @Override
+    public Stream<IInventoryItem> streamItems(int fetchSize) throws SQLException {
+        return delegate.streamItems(fetchSize);
+    }
+
+    /**
+     * Retrieves the page straight from the underlying repository
+     */
+    @Override
+    public ItemPage getPage(int pageSize, String afterCursor, ItemSort sort) throws SQLException {
+        return delegate.getPage(pageSize, afterCursor, sort);
+    }
+
+    /**
+     * Removes the item through the underlying repository and drops it from the cache
+     */
+    @Override
+    public boolean removeItemById(String id) throws SQLException {
+        invalidateId(id);
+        boolean removed = delegate.removeItemById(id);
+        invalidateId(id);
+        return removed;
+    }
+
+    /**
+     * Adds stock through the underlying repository and drops the item from the cache
+     */
+    @Override
+    public boolean increaseQuantity(String id, int amount) throws SQLException {
+        try {
+            return delegate.increaseQuantity(id, amount);
+        } finally {
+            invalidateId(id);
+        }
+    }
+
+    /**
+     * Takes stock away through the underlying repository and drops the item from the cache
+     */
+    @Override
+    public boolean decreaseQuantity(String id, int amount) throws SQLException {
+        try {
+            return delegate.decreaseQuantity(id, amount);
+        } finally {
+            invalidateId(id);
+        }
+    }
+
+    /**
+     * Reserves stock through the underlying repository and drops the item from the cache
+     */
+    @Override
+    public boolean reserveQuantity(String id, int amount) throws SQLException {
+        try {
+            return delegate.reserveQuantity(id, amount);
+        } finally {
+            invalidateId(id);
+        }
+    }
+
+    /**
+     * Releases reserved stock through the underlying repository and drops the item from the cache
+     */
+    @Override
+    public boolean releaseReservation(String id, int amount) throws SQLException {
+        try {
+            return delegate.releaseReservation(id, amount);
+        } finally {
+            invalidateId(id);
+        }
+    }
+
+    /**
+     * Applies the adjustments through the underlying repository and drops the adjusted items from the cache
+     */
+    @Override
+    public List<AdjustmentResult> adjustQuantities(List<StockAdjustment> adjustments) throws SQLException {
+        try {
+            return delegate.adjustQuantities(adjustments);
+        } finally {
+            if (adjustments != null) {
+                for (StockAdjustment adjustment : adjustments) {
+                    invalidateId(adjustment.getId());
+                }
+            }
+        }
+    }
+
+    /**
+     * Updates the item through the underlying repository and drops both its old and new name from the cache
+     */
+    @Override
+    public boolean updateItem(IInventoryItem item) throws SQLException {
+        try {
+            return delegate.updateItem(item);
+        } finally {
+            if (item != null) {
+                invalidateId(item.getId());
+                invalidateName(item.getName());
+            }
+        }
+    }
+
+    /**
+     * Returns the stock summary from the report cache, computing it through the underlying repository when stale
+     */
+    @Override
+    public StockSummary getStockSummary() throws SQLException {
+        return (StockSummary) report("summary", delegate::getStockSummary);
+    }
+
+    /**
+     * Returns the top items from the report cache, loading them through the underlying repository when stale
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public List<IInventoryItem> getTopItems(ItemRanking ranking, int limit) throws SQLException {
+        return (List<IInventoryItem>) report("top:" + ranking + ":" + limit, () -> List.copyOf(delegate.getTopItems(ranking, limit)));
+    }
+
+    //returns how many lookups were served from the cache
+    public long getHits() {
+        return hits.sum();
+    }
+
+    //returns how many lookups had to go to the underlying repository
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    //returns how many items were dropped to keep the cache within its size
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    //returns the number of items currently cached
+    public synchronized int size() {
+        return byName.size();
+    }
+
+    //drops every cached item and report
+    public synchronized void clear() {
+        generation++;
+        byName.clear();
+        byId.clear();
+        reports.clear();
+    }
+
+    private synchronized void invalidateName(String name) {
+        generation++;
+        reports.clear();
+        if (name != null) {
+            remove(Names.normalize(name));
+        }
+    }
+
+    //Drops the names of the items, both before a write so it isn't served stale while running and after it,
+    //so a lookup that ran between the first invalidation and the commit doesn't keep the old row
+    private synchronized void invalidateNames(List<IInventoryItem> items) {
+        generation++;
+        reports.clear();
+        if (items != null) {
+            for (IInventoryItem item : items) {
+                if (item != null && item.getName() != null) {
+                    remove(Names.normalize(item.getName()));
+                }
+            }
+        }
+    }
+
+    private synchronized void invalidateId(String id) {
+        generation++;
+        reports.clear();
+        String key = byId.get(id);
+        if (key != null) {
+            remove(key);
+        }
+    }
+
+    /**
+     * Serves a report from the cache or computes it. Concurrent misses each compute the report,
+     * which is cheap next to the reads it saves, and a result computed across a write is not cached.
+     */
+    private Object report(String key, ReportQuery query) throws SQLException {
+        long loadGeneration;
+        synchronized (this) {
+            CachedReport cached = reports.get(key);
+            if (cached != null && System.nanoTime() - cached.loadedAt < reportTtlNanos) {
+                return cached.value;
+            }
+            loadGeneration = generation;
+        }
+
+        Object value = query.run();
+        synchronized (this) {
+            if (generation == loadGeneration) {
+                reports.put(key, new CachedReport(value, System.nanoTime()));
+            }
+        }
+        return value;
+    }
+
+    //must be called while holding the lock on this
+    private void remove(String key) {
+        Entry entry = byName.remove(key);
+        if (entry != null) {
+            byId.remove(entry.item.getId());
+        }
+    }
+
+    //Waits for a load started by another caller and rethrows its failure as if this caller had run it
+    private static IInventoryItem await(CompletableFuture<IInventoryItem> load) throws SQLException {
+        try {
+            return load.join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof SQLException sql) {
+                throw sql;
+            }
+            if (cause instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * A cached item and the time it was loaded.
+     */
+    private static final class Entry {
+        private final IInventoryItem item;
+        private final long loadedAt;
+
+        private Entry(IInventoryItem item, long loadedAt) {
+            this.item = item;
+            this.loadedAt = loadedAt;
+        }
+    }
+
+    /**
+     * A cached report result and the time it was computed.
+     */
+    private static final class CachedReport {
+        private final Object value;
+        private final long loadedAt;
+
+        private CachedReport(Object value, long loadedAt) {
+            this.value = value;
+            this.loadedAt = loadedAt;
+        }
+    }
+
+    //A report query against the underlying repository
+    private interface ReportQuery {
+        Object run() throws SQLException;
+    }
+}
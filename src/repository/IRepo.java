@@ -1,9 +1,16 @@
 package repository;
 
+import analytics.StockSummary;
+import model.AdjustmentResult;
 import model.IInventoryItem;
+import model.ItemPage;
+import model.ItemRanking;
+import model.ItemSort;
+import model.StockAdjustment;
 
 import java.sql.SQLException;
 import java.util.List;
+import java.util.stream.Stream;
 
 /**
  * Define the contract for the inventory Repository
@@ -27,6 +34,14 @@ public interface IRepo {
      */
      boolean addListOfItems (List<IInventoryItem> items) throws SQLException;
 
+    /**
+     * Load a large list of items in chunks.
+     * @param items List of items to add to the inventory.
+     * @param options Chunk size and whether conflicts abort the whole load
+     * @return a report of the inserted rows, the conflicting ids and the throughput
+     */
+     BulkLoadReport bulkLoad(List<IInventoryItem> items, BulkLoadOptions options) throws SQLException;
+
     /**
      * Retrieve an item by its name.
      * @param name Name of the item
@@ -40,10 +55,87 @@ public interface IRepo {
      */
      List<IInventoryItem> getItems() throws SQLException;
 
+    /**
+     * Streams all the items from the Inventory ordered by id, without loading them all into memory.
+     * The stream holds database resources until it is closed, so it must be used in a try-with-resources block.
+     * @param fetchSize Number of rows fetched from storage per round trip
+     * @return a stream of Inventory items
+     */
+     Stream<IInventoryItem> streamItems(int fetchSize) throws SQLException;
+
+    /**
+     * Retrieves one page of items using keyset pagination.
+     * @param pageSize Maximum number of items on the page
+     * @param afterCursor Cursor returned with the previous page, or null for the first page
+     * @param sort Order to page through the inventory in
+     * @return the page of items and the cursor for the next page
+     */
+     ItemPage getPage(int pageSize, String afterCursor, ItemSort sort) throws SQLException;
+
     /**
      * Removes an item by its name
      * @param id The id of the item
      * @return True if removed successfully
      */
      boolean removeItemById(String id) throws SQLException;
+
+    /**
+     * Adds stock to an item without reading it first.
+     * @param id The id of the item
+     * @param amount Amount of stock to add
+     * @return True once the stock has been added
+     */
+     boolean increaseQuantity(String id, int amount) throws SQLException;
+
+    /**
+     * Takes stock away from an item, only if it has at least the amount in stock.
+     * @param id The id of the item
+     * @param amount Amount of stock to take away
+     * @return True if the stock was taken, false if there was not enough stock
+     */
+     boolean decreaseQuantity(String id, int amount) throws SQLException;
+
+    /**
+     * Moves stock from the available quantity to the reserved quantity, only if enough is available.
+     * @param id The id of the item
+     * @param amount Amount of stock to reserve
+     * @return True if the stock was reserved, false if there was not enough stock
+     */
+     boolean reserveQuantity(String id, int amount) throws SQLException;
+
+    /**
+     * Moves reserved stock back to the available quantity.
+     * @param id The id of the item
+     * @param amount Amount of reserved stock to release
+     * @return True if the stock was released, false if less than the amount was reserved
+     */
+     boolean releaseReservation(String id, int amount) throws SQLException;
+
+    /**
+     * Applies many stock adjustments in one round trip.
+     * @param adjustments Adjustments to apply, in order
+     * @return the result of each adjustment, in the same order
+     */
+     List<AdjustmentResult> adjustQuantities(List<StockAdjustment> adjustments) throws SQLException;
+
+    /**
+     * Updates an item with compare-and-set semantics on its version.
+     * @param item The item with its new values and the version it was read at
+     * @return True if the item was updated, false if it was changed by someone else since it was read
+     */
+     boolean updateItem(IInventoryItem item) throws SQLException;
+
+    /**
+     * Computes the item count, total units, total stock value and price range where the data lives.
+     * @return the totals over the whole inventory
+     */
+     StockSummary getStockSummary() throws SQLException;
+
+    /**
+     * Retrieves the highest ranked items without reading the rest.
+     * @param ranking Measure to rank the items by
+     * @param limit Maximum number of items to return
+     * @return the top items, highest first
+     */
+     List<IInventoryItem> getTopItems(ItemRanking ranking, int limit) throws SQLException;
 }
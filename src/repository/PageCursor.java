@@ -0,0 +1,84 @@
+package repository;
+
+import model.IInventoryItem;
+import model.ItemSort;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Base64;
+
+/**
+ * Position in a keyset paginated listing: the sort value and id of the last item on a page.
+ * Callers only ever see it as an opaque url safe string.
+ */
+public final class PageCursor {
+    private final ItemSort sort;
+    private final String sortValue;
+    private final String id;
+
+    private PageCursor(ItemSort sort, String sortValue, String id) {
+        this.sort = sort;
+        this.sortValue = sortValue;
+        this.id = id;
+    }
+
+    /**
+     * Creates the cursor pointing after the given item
+     * @param sort Order of the listing
+     * @param last Last item on the current page
+     * @return the encoded cursor
+     */
+    public static String after(ItemSort sort, IInventoryItem last) {
+        String value = switch (sort) {
+            case ID -> last.getId();
+            case NAME -> last.getName();
+            case QUANTITY -> Integer.toString(last.getQuantity());
+            case PRICE -> Double.toString(last.getPrice());
+        };
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeUTF(sort.name());
+            out.writeUTF(value);
+            out.writeUTF(last.getId());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes.toByteArray());
+    }
+
+    /**
+     * Decodes a cursor handed back by a caller
+     * @param cursor The encoded cursor
+     * @param sort Order the caller is paging through
+     * @return the decoded position
+     * @throws IllegalArgumentException if the cursor is malformed or was issued for a different order
+     */
+    public static PageCursor decode(String cursor, ItemSort sort) {
+        PageCursor decoded;
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(Base64.getUrlDecoder().decode(cursor)))) {
+            decoded = new PageCursor(ItemSort.valueOf(in.readUTF()), in.readUTF(), in.readUTF());
+        } catch (IOException | IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid page cursor");
+        }
+
+        if (decoded.sort != sort) {
+            throw new IllegalArgumentException("Page cursor was issued for sorting by " + decoded.sort.name().toLowerCase());
+        }
+        return decoded;
+    }
+
+    //returns the sort value of the last item seen, as text
+    public String getSortValue() {
+        return sortValue;
+    }
+
+    //returns the id of the last item seen
+    public String getId() {
+        return id;
+    }
+}
@@ -0,0 +1,52 @@
+package repository;
+
+import java.time.Duration;
+
+/**
+ * Settings for the ReplicaRoutingRepo.
+ * Every setter returns this so settings can be chained.
+ */
+public class ReplicaConfig {
+    //How long a session's reads stay on the primary after it writes, the replication lag it can tolerate
+    private Duration lagWindow = Duration.ofSeconds(1);
+    //How often every replica is probed, zero leaves probing to explicit checkReplicas calls
+    private Duration healthCheckInterval = Duration.ofSeconds(5);
+    //A replica whose probe or read takes longer than this is taken out of rotation until a probe is fast again
+    private Duration slowThreshold = Duration.ofMillis(500);
+
+    public Duration getLagWindow() {
+        return lagWindow;
+    }
+
+    public ReplicaConfig setLagWindow(Duration lagWindow) {
+        if (lagWindow.isNegative()) {
+            throw new IllegalArgumentException("Lag window cannot be negative");
+        }
+        this.lagWindow = lagWindow;
+        return this;
+    }
+
+    public Duration getHealthCheckInterval() {
+        return healthCheckInterval;
+    }
+
+    public ReplicaConfig setHealthCheckInterval(Duration healthCheckInterval) {
+        if (healthCheckInterval.isNegative()) {
+            throw new IllegalArgumentException("Health check interval cannot be negative");
+        }
+        this.healthCheckInterval = healthCheckInterval;
+        return this;
+    }
+
+    public Duration getSlowThreshold() {
+        return slowThreshold;
+    }
+
+    public ReplicaConfig setSlowThreshold(Duration slowThreshold) {
+        if (slowThreshold.isNegative() || slowThreshold.isZero()) {
+            throw new IllegalArgumentException("Slow threshold must be greater than zero");
+        }
+        this.slowThreshold = slowThreshold;
+        return this;
+    }
+}
@@ -0,0 +1,411 @@
+package repository;
+
+import analytics.StockSummary;
+import exceptions.DataAccessException;
+import model.AdjustmentResult;
+import model.IInventoryItem;
+import model.ItemPage;
+import model.ItemRanking;
+import model.ItemSort;
+import model.StockAdjustment;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+import java.util.stream.Stream;
+
+/**
+ * Sends writes to the primary and spreads reads round-robin over the healthy replicas.
+ *
+ * Reads are made through a session, and a session that wrote within the lag window reads from the primary,
+ * so it always sees its own writes while the replicas catch up; other sessions may read data up to the lag
+ * window old. newSession gives a caller its own session, and calls made on the router itself use one session
+ * per thread.
+ *
+ * A replica is taken out of rotation when a read on it fails or is slower than the slow threshold, and the failed
+ * read is retried on the primary. A health check probes every replica with a one item page, at the configured
+ * interval or whenever checkReplicas is called, and puts it back once a probe is fast again.
+ * With no healthy replica left, every read goes to the primary.
+ */
+public class ReplicaRoutingRepo implements IRepo, AutoCloseable {
+    private final IRepo primary;
+    private final List<Replica> replicas;
+    private final long lagNanos;
+    private final long slowNanos;
+    //Returns the current time in nanoseconds, for the lag window and read timings
+    private final LongSupplier clock;
+    private final AtomicInteger nextReplica = new AtomicInteger();
+    private final ThreadLocal<Session> threadSession = ThreadLocal.withInitial(Session::new);
+    //null when replicas are only checked by explicit checkReplicas calls
+    private final ScheduledExecutorService healthCheck;
+
+    private final LongAdder replicaReads = new LongAdder();
+    private final LongAdder primaryReads = new LongAdder();
+    private final LongAdder ejections = new LongAdder();
+
+    /**
+     * Constructs the router with the default lag window and health check settings
+     * @param primary Repository every write goes to
+     * @param replicas Repositories holding copies of the primary, read from in turn
+     */
+    public ReplicaRoutingRepo(IRepo primary, List<IRepo> replicas) {
+        this(primary, replicas, new ReplicaConfig());
+    }
+
+    /**
+     * Constructs the router over the specified primary and replicas
+     * @param primary Repository every write goes to
+     * @param replicas Repositories holding copies of the primary, read from in turn
+     * @param config Lag window, health check interval and slow threshold
+     */
+    public ReplicaRoutingRepo(IRepo primary, List<IRepo> replicas, ReplicaConfig config) {
+        this(primary, replicas, config, System::nanoTime);
+    }
+
+    /**
+     * Constructs the router with the specified clock, used by tests
+     * @param primary Repository every write goes to
+     * @param replicas Repositories holding copies of the primary, read from in turn
+     * @param config Lag window, health check interval and slow threshold
+     * @param clock Returns the current time in nanoseconds, like System.nanoTime
+     */
+    public ReplicaRoutingRepo(IRepo primary, List<IRepo> replicas, ReplicaConfig config, LongSupplier clock) {
+        if (primary == null) {
+            throw new IllegalArgumentException("A primary is required");
+        }
+        this.primary = primary;
+        this.replicas = new ArrayList<>(replicas.size());
+        for (IRepo replica : replicas) {
+            this.replicas.add(new Replica(replica));
+        }
+        this.lagNanos = config.getLagWindow().toNanos();
+        this.slowNanos = config.getSlowThreshold().toNanos();
+        this.clock = clock;
+
+        long interval = config.getHealthCheckInterval().toMillis();
+        if (interval > 0 && !this.replicas.isEmpty()) {
+            this.healthCheck = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread thread = new Thread(r, "replica-health");
+                thread.setDaemon(true);
+                return thread;
+            });
+            this.healthCheck.scheduleWithFixedDelay(this::checkReplicas, interval, interval, TimeUnit.MILLISECONDS);
+        } else {
+            this.healthCheck = null;
+        }
+    }
+
+    /**
+     * Opens a session with its own read-your-writes window, for a caller that may move between threads
+     * @return a repository that reads from the primary for the lag window after each of its own writes
+     */
+    public IRepo newSession() {
+        return new Session();
+    }
+
+    @Override
+    public boolean addItem(IInventoryItem item) throws SQLException {
+        return threadSession.get().addItem(item);
+    }
+
+    @Override
+    public boolean addListOfItems(List<IInventoryItem> items) throws SQLException {
+        return threadSession.get().addListOfItems(items);
+    }
+
+    @Override
+    public BulkLoadReport bulkLoad(List<IInventoryItem> items, BulkLoadOptions options) throws SQLException {
+        return threadSession.get().bulkLoad(items, options);
+    }
+
+    @Override
+    public IInventoryItem getItem(String name) throws SQLException {
+        return threadSession.get().getItem(name);
+    }
+
+    @Override
+    public List<IInventoryItem> getItems() throws SQLException {
+        return threadSession.get().getItems();
+    }
+
+    @Override
+    public Stream<IInventoryItem> streamItems(int fetchSize) throws SQLException {
+        return threadSession.get().streamItems(fetchSize);
+    }
+
+    @Override
+    public ItemPage getPage(int pageSize, String afterCursor, ItemSort sort) throws SQLException {
+        return threadSession.get().getPage(pageSize, afterCursor, sort);
+    }
+
+    @Override
+    public boolean removeItemById(String id) throws SQLException {
+        return threadSession.get().removeItemById(id);
+    }
+
+    @Override
+    public boolean increaseQuantity(String id, int amount) throws SQLException {
+        return threadSession.get().increaseQuantity(id, amount);
+    }
+
+    @Override
+    public boolean decreaseQuantity(String id, int amount) throws SQLException {
+        return threadSession.get().decreaseQuantity(id, amount);
+    }
+
+    @Override
+    public boolean reserveQuantity(String id, int amount) throws SQLException {
+        return threadSession.get().reserveQuantity(id, amount);
+    }
+
+    @Override
+    public boolean releaseReservation(String id, int amount) throws SQLException {
+        return threadSession.get().releaseReservation(id, amount);
+    }
+
+    @Override
+    public List<AdjustmentResult> adjustQuantities(List<StockAdjustment> adjustments) throws SQLException {
+        return threadSession.get().adjustQuantities(adjustments);
+    }
+
+    @Override
+    public boolean updateItem(IInventoryItem item) throws SQLException {
+        return threadSession.get().updateItem(item);
+    }
+
+    @Override
+    public StockSummary getStockSummary() throws SQLException {
+        return threadSession.get().getStockSummary();
+    }
+
+    @Override
+    public List<IInventoryItem> getTopItems(ItemRanking ranking, int limit) throws SQLException {
+        return threadSession.get().getTopItems(ranking, limit);
+    }
+
+    /**
+     * Probes every replica with a one item page, taking out the ones that fail or answer slower
+     * than the slow threshold and putting back the ones that answer in time
+     */
+    public void checkReplicas() {
+        for (Replica replica : replicas) {
+            long start = clock.getAsLong();
+            boolean healthy;
+            try {
+                replica.repo.getPage(1, null, ItemSort.ID);
+                healthy = clock.getAsLong() - start <= slowNanos;
+            } catch (SQLException | RuntimeException e) {
+                healthy = false;
+            }
+            if (!healthy && replica.healthy) {
+                ejections.increment();
+            }
+            replica.healthy = healthy;
+        }
+    }
+
+    //returns the number of replicas reads are currently spread over
+    public int getHealthyReplicaCount() {
+        int count = 0;
+        for (Replica replica : replicas) {
+            if (replica.healthy) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    //returns the number of reads answered by a replica
+    public long getReplicaReadCount() {
+        return replicaReads.sum();
+    }
+
+    //returns the number of reads answered by the primary, including retries of failed replica reads
+    public long getPrimaryReadCount() {
+        return primaryReads.sum();
+    }
+
+    //returns the number of times a replica was taken out of rotation
+    public long getEjectionCount() {
+        return ejections.sum();
+    }
+
+    /**
+     * Stops the health checks. The primary and replicas are left open for their owner to close.
+     */
+    @Override
+    public void close() {
+        if (healthCheck != null) {
+            healthCheck.shutdownNow();
+        }
+    }
+
+    //Next healthy replica in turn, or null if none is healthy
+    private Replica pickReplica() {
+        int size = replicas.size();
+        if (size == 0) {
+            return null;
+        }
+        int start = Math.floorMod(nextReplica.getAndIncrement(), size);
+        for (int i = 0; i < size; i++) {
+            Replica replica = replicas.get((start + i) % size);
+            if (replica.healthy) {
+                return replica;
+            }
+        }
+        return null;
+    }
+
+    //Takes a replica out of rotation until a health check finds it fast again
+    private void eject(Replica replica) {
+        if (replica.healthy) {
+            replica.healthy = false;
+            ejections.increment();
+        }
+    }
+
+    /**
+     * A read or write to run against the primary or a replica
+     */
+    @FunctionalInterface
+    private interface Call<T> {
+        T apply(IRepo repo) throws SQLException;
+    }
+
+    /**
+     * A replica and whether reads are currently sent to it.
+     */
+    private static final class Replica {
+        private final IRepo repo;
+        private volatile boolean healthy = true;
+
+        private Replica(IRepo repo) {
+            this.repo = repo;
+        }
+    }
+
+    /**
+     * One caller's view of the router, remembering when it last wrote.
+     */
+    private final class Session implements IRepo {
+        //Clock time until which reads go to the primary
+        private volatile long primaryUntil = clock.getAsLong();
+
+        //Runs a read on a replica unless this session wrote within the lag window
+        private <T> T read(Call<T> read) throws SQLException {
+            Replica replica = primaryUntil - clock.getAsLong() > 0 ? null : pickReplica();
+            if (replica != null) {
+                long start = clock.getAsLong();
+                try {
+                    T result = read.apply(replica.repo);
+                    if (clock.getAsLong() - start > slowNanos) {
+                        eject(replica);
+                    }
+                    replicaReads.increment();
+                    return result;
+                } catch (SQLException | DataAccessException e) {
+                    //anything else, such as no item matching, is the answer and not a fault of the replica
+                    eject(replica);
+                }
+            }
+            primaryReads.increment();
+            return read.apply(primary);
+        }
+
+        //Runs a write on the primary and keeps this session's reads there for the lag window after it
+        private <T> T write(Call<T> write) throws SQLException {
+            try {
+                return write.apply(primary);
+            } finally {
+                primaryUntil = clock.getAsLong() + lagNanos;
+            }
+        }
+
+        @Override
+        public boolean addItem(IInventoryItem item) throws SQLException {
+            return write(repo -> repo.addItem(item));
+        }
+
+        @Override
+        public boolean addListOfItems(List<IInventoryItem> items) throws SQLException {
+            return write(repo -> repo.addListOfItems(items));
+        }
+
+        @Override
+        public BulkLoadReport bulkLoad(List<IInventoryItem> items, BulkLoadOptions options) throws SQLException {
+            return write(repo -> repo.bulkLoad(items, options));
+        }
+
+        @Override
+        public IInventoryItem getItem(String name) throws SQLException {
+            return read(repo -> repo.getItem(name));
+        }
+
+        @Override
+        public List<IInventoryItem> getItems() throws SQLException {
+            return read(IRepo::getItems);
+        }
+
+        //Only opening the stream is covered, a replica failing while it is read surfaces to the caller
+        @Override
+        public Stream<IInventoryItem> streamItems(int fetchSize) throws SQLException {
+            return read(repo -> repo.streamItems(fetchSize));
+        }
+
+        @Override
+        public ItemPage getPage(int pageSize, String afterCursor, ItemSort sort) throws SQLException {
+            return read(repo -> repo.getPage(pageSize, afterCursor, sort));
+        }
+
+        @Override
+        public boolean removeItemById(String id) throws SQLException {
+            return write(repo -> repo.removeItemById(id));
+        }
+
+        @Override
+        public boolean increaseQuantity(String id, int amount) throws SQLException {
+            return write(repo -> repo.increaseQuantity(id, amount));
+        }
+
+        @Override
+        public boolean decreaseQuantity(String id, int amount) throws SQLException {
+            return write(repo -> repo.decreaseQuantity(id, amount));
+        }
+
+        @Override
+        public boolean reserveQuantity(String id, int amount) throws SQLException {
+            return write(repo -> repo.reserveQuantity(id, amount));
+        }
+
+        @Override
+        public boolean releaseReservation(String id, int amount) throws SQLException {
+            return write(repo -> repo.releaseReservation(id, amount));
+        }
+
+        @Override
+        public List<AdjustmentResult> adjustQuantities(List<StockAdjustment> adjustments) throws SQLException {
+            return write(repo -> repo.adjustQuantities(adjustments));
+        }
+
+        @Override
+        public boolean updateItem(IInventoryItem item) throws SQLException {
+            return write(repo -> repo.updateItem(item));
+        }
+
+        @Override
+        public StockSummary getStockSummary() throws SQLException {
+            return read(IRepo::getStockSummary);
+        }
+
+        @Override
+        public List<IInventoryItem> getTopItems(ItemRanking ranking, int limit) throws SQLException {
+            return read(repo -> repo.getTopItems(ranking, limit));
+        }
+    }
+}
@@ -1,17 +1,30 @@
 package repository;
 
+import analytics.StockSummary;
 
+import changefeed.ChangeEvent;
+import changefeed.ChangeOutbox;
+import dbConnection.ConnectionProvider;
 import dbConnection.DBConnection;
 
+import exceptions.DataAccessException;
 import exceptions.EmptyItemNameException;
 
 import exceptions.ItemAlreadyExistsException;
 import exceptions.NoItemPresentException;
 import model.IInventoryItem;
+import model.AdjustmentResult;
 import model.InventoryItem;
+import model.ItemPage;
+import model.ItemRanking;
+import model.ItemSort;
+import model.StockAdjustment;
 
 import java.sql.*;
 import java.util.*;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * Repository class for managing inventory items
@@ -20,14 +33,33 @@ import java.util.*;
  * Implements IRepo interface
  */
 public class Repo implements IRepo{
+    private final ConnectionProvider connectionProvider;
+    //Outbox every change is recorded in, in the change's own transaction, or null when the change feed is off
+    private final ChangeOutbox changes;
 
+    /**
+     * Constructs the Repository opening a new connection through DBConnection for every call
+     */
+    public Repo(){
+        this(DBConnection::getConnection);
+    }
 
+    /**
+     * Constructs the Repository with the specified connection provider
+     * @param connectionProvider where every repository call gets its connection from, usually a ConnectionPool
+     */
+    public Repo(ConnectionProvider connectionProvider){
+        this(connectionProvider, null);
+    }
 
     /**
-     * Constructs the Repository with specified Gson and Path
-     * Automatically loads existing items from Json file into the in memory storage
+     * Constructs the Repository recording every change in a change feed outbox
+     * @param connectionProvider where every repository call gets its connection from, usually a ConnectionPool
+     * @param changes Outbox the changes are appended to in the same transaction as the change, null for no change feed
      */
-    public Repo(){
+    public Repo(ConnectionProvider connectionProvider, ChangeOutbox changes){
+        this.connectionProvider = connectionProvider;
+        this.changes = changes;
         if(DBConnection.config){
             try {
                 DBConnection.testDataInit();
@@ -50,17 +82,23 @@ public class Repo implements IRepo{
             throw new NoItemPresentException();
         }
 
-        String add = "INSERT INTO inventory(id,name,quantity,price) VALUES(?,?,?,?)";
-
-        try(Connection con = DBConnection.getConnection();
-            PreparedStatement pstm = con.prepareStatement(add);
-        ){
-            pstm.setString(1, item.getId());
-            pstm.setString(2,item.getName());
-            pstm.setInt(3,item.getQuantity());
-            pstm.setDouble(4,item.getPrice());
-            int row = pstm.executeUpdate();
-            return row > 0;
+        String add = "INSERT INTO inventory(id,name,quantity,price,reorder_point) VALUES(?,?,?,?,?)";
+
+        try{
+            return recorded((con, events) -> {
+                try(PreparedStatement pstm = con.prepareStatement(add)){
+                    pstm.setString(1, item.getId());
+                    pstm.setString(2,item.getName());
+                    pstm.setInt(3,item.getQuantity());
+                    pstm.setDouble(4,item.getPrice());
+                    pstm.setInt(5,item.getReorderPoint());
+                    int row = pstm.executeUpdate();
+                    if(row > 0){
+                        events.add(ChangeEvent.added(item));
+                    }
+                    return row > 0;
+                }
+            });
         }
         catch (SQLIntegrityConstraintViolationException e){
             throw new ItemAlreadyExistsException();
@@ -80,35 +118,103 @@ public class Repo implements IRepo{
             throw new NoItemPresentException();
         }
 
-        String addItems = "INSERT INTO inventory(id,name,quantity,price) VALUES(?,?,?,?)";
-
-        try(Connection con = DBConnection.getConnection();
-            PreparedStatement pstm = con.prepareStatement(addItems))
-        {
-            for(IInventoryItem in : items){
-                pstm.setString(1,in.getId());
-                pstm.setString(2,in.getName());
-                pstm.setInt(3,in.getQuantity());
-                pstm.setDouble(4,in.getPrice());
-                pstm.addBatch();
-            }
-
-            int[] rows = pstm.executeBatch();
-            for(int in : rows){
-                if(in == Statement.EXECUTE_FAILED){
-                    return false;
+        String addItems = "INSERT INTO inventory(id,name,quantity,price,reorder_point) VALUES(?,?,?,?,?)";
+
+        try{
+            return recorded((con, events) -> {
+                try(PreparedStatement pstm = con.prepareStatement(addItems)){
+                    for(IInventoryItem in : items){
+                        pstm.setString(1,in.getId());
+                        pstm.setString(2,in.getName());
+                        pstm.setInt(3,in.getQuantity());
+                        pstm.setDouble(4,in.getPrice());
+                        pstm.setInt(5,in.getReorderPoint());
+                        pstm.addBatch();
+                    }
+
+                    int[] rows = pstm.executeBatch();
+                    boolean allAdded = true;
+                    for(int i = 0; i < rows.length; i++){
+                        if(rows[i] == Statement.EXECUTE_FAILED){
+                            allAdded = false;
+                        }
+                        else {
+                            events.add(ChangeEvent.added(items.get(i)));
+                        }
+                    }
+
+                    return allAdded;
                 }
-            }
-
-            return true;
+            });
         }
         catch (SQLIntegrityConstraintViolationException e){
             throw new ItemAlreadyExistsException();
         }
     }
 
+    /**
+     * Loads a large list of items in chunks, each written with a single multi-row INSERT.
+     * Ids that already exist, or appear more than once in the list, are reported as conflicts.
+     * In best effort mode every chunk is its own transaction and conflicting items are skipped;
+     * in all or nothing mode the whole load is one transaction that is rolled back if anything conflicts.
+     * @param items: The items to load
+     * @param options: Chunk size and conflict handling
+     * @return: Report of the inserted rows, the conflicting ids and the throughput
+     * @throws: NoItemPresentException if the list of items is null or empty
+     */
+    @Override
+    public BulkLoadReport bulkLoad(List<IInventoryItem> items, BulkLoadOptions options) throws SQLException {
+        if(items == null || items.isEmpty()){
+            throw new NoItemPresentException();
+        }
+
+        long start = System.nanoTime();
+        boolean bestEffort = options.getMode() == BulkLoadOptions.Mode.BEST_EFFORT;
+        List<String> conflicts = new ArrayList<>();
+        Set<String> seen = new HashSet<>();
+        int inserted = 0;
+        List<IInventoryItem> written = new ArrayList<>();
+
+        try(Connection con = connectionProvider.getConnection()){
+            con.setAutoCommit(false);
+            try{
+                for(int from = 0; from < items.size(); from += options.getChunkSize()){
+                    List<IInventoryItem> chunk = items.subList(from, Math.min(items.size(), from + options.getChunkSize()));
+                    List<IInventoryItem> fresh = withoutConflicts(con, chunk, seen, conflicts);
+
+                    //an all or nothing load keeps scanning so every conflict is reported, but stops writing
+                    if(!bestEffort && !conflicts.isEmpty()){
+                        continue;
+                    }
+
+                    inserted += insertChunk(con, fresh, bestEffort, conflicts, written);
+                    recordAdded(con, written);
+                    if(bestEffort){
+                        con.commit();
+                    }
+                }
+
+                if(!bestEffort && !conflicts.isEmpty()){
+                    con.rollback();
+                    return new BulkLoadReport(items.size(), 0, conflicts, true, System.nanoTime() - start);
+                }
+                con.commit();
+            }
+            catch (SQLException | RuntimeException e){
+                con.rollback();
+                throw e;
+            }
+            finally {
+                con.setAutoCommit(true);
+            }
+        }
+
+        return new BulkLoadReport(items.size(), inserted, conflicts, false, System.nanoTime() - start);
+    }
+
     /**
      * Retrieves and item by its name (Case insensitive)
+     * The lookup goes through the indexed, lower-cased name_key column.
      * @param name: Name of the item.
      * @return: A Single Inventory item matching the name
      * @throws: EmptyItemNameException if the name input is blank
@@ -120,9 +226,9 @@ public class Repo implements IRepo{
             throw new EmptyItemNameException();
         }
 
-        String getItem = "SELECT * FROM inventory WHERE name = ?";
+        String getItem = "SELECT * FROM inventory WHERE name_key = LOWER(?)";
 
-        try(Connection con = DBConnection.getConnection();
+        try(Connection con = connectionProvider.getConnection();
             PreparedStatement pstm = con.prepareStatement(getItem)
         ){
             pstm.setString(1,name);
@@ -130,12 +236,7 @@ public class Repo implements IRepo{
             ResultSet rs = pstm.executeQuery();
 
             if(rs.next()){
-                String id = rs.getString("id");
-                String itemName = rs.getString("name");
-                int quantity = rs.getInt("quantity");
-                double price = rs.getDouble("price");
-
-                return new InventoryItem(id,itemName,quantity,price);
+                return mapRow(rs);
             }
         }
 
@@ -151,17 +252,13 @@ public class Repo implements IRepo{
     public List<IInventoryItem> getItems() throws SQLException {
         String selectAll = "SELECT * FROM inventory ORDER BY id";
 
-        try(Connection con = DBConnection.getConnection();
+        try(Connection con = connectionProvider.getConnection();
             PreparedStatement pstm = con.prepareStatement(selectAll);
             ResultSet rs = pstm.executeQuery()
         ){
             List<IInventoryItem> items = new ArrayList<>();
             while(rs.next()){
-                String id = rs.getString("id");
-                String name = rs.getString("name");
-                int quantity = rs.getInt("quantity");
-                double price = rs.getDouble("price");
-                items.add(new InventoryItem(id,name,quantity,price));
+                items.add(mapRow(rs));
             }
 
 
@@ -174,7 +271,121 @@ public class Repo implements IRepo{
         }
     }
 
+    /**
+     * Streams all the items in the repository ordered by id.
+     * Rows are read through a forward only cursor in batches of fetchSize, so memory use stays
+     * constant however large the table is. The connection stays open until the stream is closed.
+     * @param fetchSize: Number of rows fetched per round trip
+     * @return: Stream of Inventory items that must be closed after use
+     * @throws: DataAccessException from the stream if reading a row fails
+     */
+    @Override
+    public Stream<IInventoryItem> streamItems(int fetchSize) throws SQLException {
+        if(fetchSize <= 0){
+            throw new IllegalArgumentException("Fetch size must be greater than zero");
+        }
+
+        String selectAll = "SELECT * FROM inventory ORDER BY id";
+
+        Connection con = connectionProvider.getConnection();
+        try{
+            PreparedStatement pstm = con.prepareStatement(selectAll, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            pstm.setFetchSize(fetchSize);
+            ResultSet rs = pstm.executeQuery();
+
+            Spliterator<IInventoryItem> rows = new Spliterators.AbstractSpliterator<>(Long.MAX_VALUE,
+                    Spliterator.ORDERED | Spliterator.NONNULL) {
+                @Override
+                public boolean tryAdvance(Consumer<? super IInventoryItem> action) {
+                    try {
+                        if(!rs.next()){
+                            return false;
+                        }
+                        action.accept(mapRow(rs));
+                        return true;
+                    } catch (SQLException e) {
+                        throw new DataAccessException("Failed to read inventory row", e);
+                    }
+                }
+            };
+
+            return StreamSupport.stream(rows, false).onClose(() -> {
+                try(con; pstm; rs){
+                    //closing the cursor, statement and connection
+                } catch (SQLException e) {
+                    throw new DataAccessException("Failed to close inventory stream", e);
+                }
+            });
+        }
+        catch (SQLException | RuntimeException e){
+            con.close();
+            throw e;
+        }
+    }
+
+
+
+    /**
+     * Retrieves one page of items using keyset pagination.
+     * Instead of an OFFSET the query seeks past the last item of the previous page on the
+     * (sort column, id) index, so deep pages cost the same as the first one.
+     * @param pageSize: Maximum number of items on the page
+     * @param afterCursor: Cursor returned with the previous page, or null for the first page
+     * @param sort: Order to page through the inventory in
+     * @return: The page of items and the cursor for the next page
+     * @throws: IllegalArgumentException if the page size is not positive or the cursor is invalid
+     */
+    @Override
+    public ItemPage getPage(int pageSize, String afterCursor, ItemSort sort) throws SQLException {
+        if(pageSize <= 0){
+            throw new IllegalArgumentException("Page size must be greater than zero");
+        }
+
+        String column = sort.getColumn();
+        PageCursor cursor = afterCursor == null ? null : PageCursor.decode(afterCursor, sort);
+
+        String where = "";
+        if(cursor != null){
+            where = sort == ItemSort.ID
+                    ? "WHERE id > ? "
+                    : "WHERE (" + column + " > ? OR (" + column + " = ? AND id > ?)) ";
+        }
+        String orderBy = sort == ItemSort.ID ? "ORDER BY id " : "ORDER BY " + column + ", id ";
+        String page = "SELECT * FROM inventory " + where + orderBy + "LIMIT ?";
+
+        try(Connection con = connectionProvider.getConnection();
+            PreparedStatement pstm = con.prepareStatement(page)
+        ){
+            int index = 1;
+            if(cursor != null){
+                if(sort == ItemSort.ID){
+                    pstm.setString(index++, cursor.getId());
+                }
+                else {
+                    bindSortValue(pstm, index++, sort, cursor.getSortValue());
+                    bindSortValue(pstm, index++, sort, cursor.getSortValue());
+                    pstm.setString(index++, cursor.getId());
+                }
+            }
+            //one extra row tells us whether there is a next page
+            pstm.setInt(index, pageSize + 1);
+
+            List<IInventoryItem> items = new ArrayList<>(pageSize);
+            boolean hasNext = false;
+            try(ResultSet rs = pstm.executeQuery()){
+                while(rs.next()){
+                    if(items.size() == pageSize){
+                        hasNext = true;
+                        break;
+                    }
+                    items.add(mapRow(rs));
+                }
+            }
 
+            String next = hasNext ? PageCursor.after(sort, items.get(items.size() - 1)) : null;
+            return new ItemPage(items, next);
+        }
+    }
 
     /**
      * Removes item from the inventory by id
@@ -191,13 +402,456 @@ public class Repo implements IRepo{
 
        String remove = "DELETE FROM inventory WHERE id = ?";
 
-        try(Connection con = DBConnection.getConnection();
-            PreparedStatement pstm = con.prepareStatement(remove)
+        return recorded((con, events) -> {
+            try(PreparedStatement pstm = con.prepareStatement(remove)){
+                pstm.setString(1,id);
+                int rows = pstm.executeUpdate();
+                if(rows > 0){
+                    events.add(ChangeEvent.removed(id));
+                }
+                return rows>0;
+            }
+        });
+    }
+
+    /**
+     * Adds stock to an item with a single UPDATE, so concurrent adjustments never overwrite each other
+     * @param id: ID of the item
+     * @param amount: Amount of stock to add
+     * @return: True once the stock has been added
+     * @throws: NoItemPresentException if no item has the id
+     */
+    @Override
+    public boolean increaseQuantity(String id, int amount) throws SQLException {
+        validateAdjustment(id, amount);
+
+        String increase = "UPDATE inventory SET quantity = quantity + ?, version = version + 1 WHERE id = ?";
+
+        return recorded((con, events) -> {
+            try(PreparedStatement pstm = con.prepareStatement(increase)){
+                pstm.setInt(1, amount);
+                pstm.setString(2, id);
+                return adjusted(con, pstm.executeUpdate(), id, events, ChangeEvent.quantityChanged(id, amount));
+            }
+        });
+    }
+
+    /**
+     * Takes stock away from an item if it has enough.
+     * The stock check and the change are one conditional UPDATE, so two orders can never both take the last unit.
+     * @param id: ID of the item
+     * @param amount: Amount of stock to take away
+     * @return: True if the stock was taken, false if the item has less than the amount in stock
+     * @throws: NoItemPresentException if no item has the id
+     */
+    @Override
+    public boolean decreaseQuantity(String id, int amount) throws SQLException {
+        validateAdjustment(id, amount);
+
+        String decrease = "UPDATE inventory SET quantity = quantity - ?, version = version + 1 WHERE id = ? AND quantity >= ?";
+
+        return recorded((con, events) -> {
+            try(PreparedStatement pstm = con.prepareStatement(decrease)){
+                pstm.setInt(1, amount);
+                pstm.setString(2, id);
+                pstm.setInt(3, amount);
+                return adjusted(con, pstm.executeUpdate(), id, events, ChangeEvent.quantityChanged(id, -amount));
+            }
+        });
+    }
+
+    /**
+     * Moves stock from the available quantity to the reserved quantity if enough is available
+     * @param id: ID of the item
+     * @param amount: Amount of stock to reserve
+     * @return: True if the stock was reserved, false if the item has less than the amount available
+     * @throws: NoItemPresentException if no item has the id
+     */
+    @Override
+    public boolean reserveQuantity(String id, int amount) throws SQLException {
+        validateAdjustment(id, amount);
+
+        String reserve = "UPDATE inventory SET quantity = quantity - ?, reserved = reserved + ?, version = version + 1 WHERE id = ? AND quantity >= ?";
+
+        return recorded((con, events) -> {
+            try(PreparedStatement pstm = con.prepareStatement(reserve)){
+                pstm.setInt(1, amount);
+                pstm.setInt(2, amount);
+                pstm.setString(3, id);
+                pstm.setInt(4, amount);
+                return adjusted(con, pstm.executeUpdate(), id, events, ChangeEvent.reserved(id, amount));
+            }
+        });
+    }
+
+    /**
+     * Moves reserved stock back to the available quantity
+     * @param id: ID of the item
+     * @param amount: Amount of reserved stock to release
+     * @return: True if the stock was released, false if less than the amount is reserved
+     * @throws: NoItemPresentException if no item has the id
+     */
+    @Override
+    public boolean releaseReservation(String id, int amount) throws SQLException {
+        validateAdjustment(id, amount);
+
+        String release = "UPDATE inventory SET quantity = quantity + ?, reserved = reserved - ?, version = version + 1 WHERE id = ? AND reserved >= ?";
+
+        return recorded((con, events) -> {
+            try(PreparedStatement pstm = con.prepareStatement(release)){
+                pstm.setInt(1, amount);
+                pstm.setInt(2, amount);
+                pstm.setString(3, id);
+                pstm.setInt(4, amount);
+                return adjusted(con, pstm.executeUpdate(), id, events, ChangeEvent.released(id, amount));
+            }
+        });
+    }
+
+    /**
+     * Applies many stock adjustments in one batch and one transaction.
+     * Every adjustment is its own conditional UPDATE, so one item running out of stock doesn't stop the others.
+     * @param adjustments: Adjustments to apply, in order
+     * @return: The result of each adjustment, in the same order
+     * @throws: NoItemPresentException if the list of adjustments is null or empty
+     */
+    @Override
+    public List<AdjustmentResult> adjustQuantities(List<StockAdjustment> adjustments) throws SQLException {
+        if(adjustments == null || adjustments.isEmpty()){
+            throw new NoItemPresentException();
+        }
+        for(StockAdjustment adjustment : adjustments){
+            if(adjustment.getId() == null || adjustment.getId().isBlank()){
+                throw new EmptyItemNameException();
+            }
+            if(adjustment.getDelta() == 0 || adjustment.getDelta() == Integer.MIN_VALUE){
+                throw new IllegalArgumentException("Invalid adjustment amount for item " + adjustment.getId());
+            }
+        }
+
+        //quantity >= -delta always holds when adding stock, so one statement covers both directions
+        String adjust = "UPDATE inventory SET quantity = quantity + ?, version = version + 1 WHERE id = ? AND quantity >= ?";
+
+        try(Connection con = connectionProvider.getConnection()){
+            con.setAutoCommit(false);
+            try(PreparedStatement pstm = con.prepareStatement(adjust)){
+                for(StockAdjustment adjustment : adjustments){
+                    pstm.setInt(1, adjustment.getDelta());
+                    pstm.setString(2, adjustment.getId());
+                    pstm.setInt(3, -adjustment.getDelta());
+                    pstm.addBatch();
+                }
+                int[] rows = pstm.executeBatch();
+
+                List<String> failed = new ArrayList<>();
+                for(int i = 0; i < rows.length; i++){
+                    if(rows[i] == 0){
+                        failed.add(adjustments.get(i).getId());
+                    }
+                }
+                Set<String> existing = failed.isEmpty() ? Set.of() : existingIds(con, failed);
+
+                List<AdjustmentResult> results = new ArrayList<>(rows.length);
+                List<ChangeEvent> events = new ArrayList<>();
+                for(int i = 0; i < rows.length; i++){
+                    if(rows[i] != 0){
+                        results.add(AdjustmentResult.APPLIED);
+                        events.add(ChangeEvent.quantityChanged(adjustments.get(i).getId(), adjustments.get(i).getDelta()));
+                    }
+                    else {
+                        results.add(existing.contains(adjustments.get(i).getId())
+                                ? AdjustmentResult.INSUFFICIENT_STOCK
+                                : AdjustmentResult.NOT_FOUND);
+                    }
+                }
+
+                if(changes != null){
+                    changes.append(con, events);
+                }
+                con.commit();
+                return results;
+            }
+            catch (SQLException | RuntimeException e){
+                con.rollback();
+                throw e;
+            }
+            finally {
+                con.setAutoCommit(true);
+            }
+        }
+    }
+
+    /**
+     * Updates the name, quantity and price of an item if nobody changed it since it was read.
+     * The version read with the item is compared and bumped in the same UPDATE, so no row lock is held
+     * between reading and writing; a caller that loses the race re-reads the item and retries.
+     * @param item: The item with its new values and the version it was read at
+     * @return: True if the item was updated, false if its version changed since it was read
+     * @throws: NoItemPresentException if the item is null or no item has its id
+     * @throws: EmptyItemNameException if the new name is blank
+     */
+    @Override
+    public boolean updateItem(IInventoryItem item) throws SQLException {
+        if(item == null){
+            throw new NoItemPresentException();
+        }
+        if(item.getName() == null || item.getName().isBlank()){
+            throw new EmptyItemNameException();
+        }
+
+        String update = "UPDATE inventory SET name = ?, quantity = ?, price = ?, reorder_point = ?, version = version + 1 WHERE id = ? AND version = ?";
+
+        return recorded((con, events) -> {
+            try(PreparedStatement pstm = con.prepareStatement(update)){
+                pstm.setString(1, item.getName());
+                pstm.setInt(2, item.getQuantity());
+                pstm.setDouble(3, item.getPrice());
+                pstm.setInt(4, item.getReorderPoint());
+                pstm.setString(5, item.getId());
+                pstm.setLong(6, item.getVersion());
+                return adjusted(con, pstm.executeUpdate(), item.getId(), events, ChangeEvent.updated(item));
+            }
+        });
+    }
+
+    private static void validateAdjustment(String id, int amount){
+        if(id == null || id.isBlank()){
+            throw new EmptyItemNameException();
+        }
+        if(amount <= 0){
+            throw new IllegalArgumentException("Amount must be greater than zero");
+        }
+    }
+
+    /**
+     * Runs a change on one connection. With a change feed the change and the events it collects are written
+     * in one transaction, so the feed holds an event exactly when its change was committed.
+     * Without one the change runs in auto-commit mode as before and its events are dropped.
+     */
+    private <T> T recorded(Change<T> change) throws SQLException {
+        try(Connection con = connectionProvider.getConnection()){
+            if(changes == null){
+                return change.apply(con, new ArrayList<>());
+            }
+
+            con.setAutoCommit(false);
+            try{
+                List<ChangeEvent> events = new ArrayList<>();
+                T result = change.apply(con, events);
+                changes.append(con, events);
+                con.commit();
+                return result;
+            }
+            catch (SQLException | RuntimeException e){
+                con.rollback();
+                throw e;
+            }
+            finally {
+                con.setAutoCommit(true);
+            }
+        }
+    }
+
+    //Records the items a bulk load chunk inserted in the chunk's transaction, then forgets them
+    private void recordAdded(Connection con, List<IInventoryItem> written) throws SQLException {
+        if(changes != null && !written.isEmpty()){
+            List<ChangeEvent> events = new ArrayList<>(written.size());
+            for(IInventoryItem item : written){
+                events.add(ChangeEvent.added(item));
+            }
+            changes.append(con, events);
+        }
+        written.clear();
+    }
+
+    /**
+     * A write made on the given connection, adding the changes it made to events
+     */
+    @FunctionalInterface
+    private interface Change<T> {
+        T apply(Connection con, List<ChangeEvent> events) throws SQLException;
+    }
+
+    //Turns the update count of a conditional update into a result, telling a missing item apart from a failed condition
+    private static boolean adjusted(Connection con, int rows, String id, List<ChangeEvent> events, ChangeEvent event) throws SQLException {
+        if(rows > 0){
+            events.add(event);
+            return true;
+        }
+        if(existingIds(con, List.of(id)).isEmpty()){
+            throw new NoItemPresentException();
+        }
+        return false;
+    }
+
+    //Returns which of the ids are stored in the inventory
+    private static Set<String> existingIds(Connection con, List<String> ids) throws SQLException {
+        String placeholders = String.join(",", Collections.nCopies(ids.size(), "?"));
+        Set<String> existing = new HashSet<>();
+
+        try(PreparedStatement pstm = con.prepareStatement("SELECT id FROM inventory WHERE id IN (" + placeholders + ")")){
+            for(int i = 0; i < ids.size(); i++){
+                pstm.setString(i + 1, ids.get(i));
+            }
+            try(ResultSet rs = pstm.executeQuery()){
+                while(rs.next()){
+                    existing.add(rs.getString(1));
+                }
+            }
+        }
+        return existing;
+    }
+
+    //Returns the items of the chunk whose ids are neither stored already nor repeated earlier in the load
+    private static List<IInventoryItem> withoutConflicts(Connection con, List<IInventoryItem> chunk,
+                                                        Set<String> seen, List<String> conflicts) throws SQLException {
+        List<String> ids = new ArrayList<>(chunk.size());
+        for(IInventoryItem item : chunk){
+            ids.add(item.getId());
+        }
+        Set<String> existing = existingIds(con, ids);
+
+        List<IInventoryItem> fresh = new ArrayList<>(chunk.size());
+        for(IInventoryItem item : chunk){
+            if(existing.contains(item.getId()) || !seen.add(item.getId())){
+                conflicts.add(item.getId());
+            }
+            else {
+                fresh.add(item);
+            }
+        }
+        return fresh;
+    }
+
+    /**
+     * Writes the chunk with one multi-row INSERT.
+     * If another writer inserted one of the ids since the conflict check, a best effort load falls back
+     * to inserting the chunk row by row so only the rows that really conflict are skipped.
+     * The inserted items are added to written.
+     */
+    private static int insertChunk(Connection con, List<IInventoryItem> chunk, boolean bestEffort,
+                                   List<String> conflicts, List<IInventoryItem> written) throws SQLException {
+        if(chunk.isEmpty()){
+            return 0;
+        }
+
+        String values = String.join(",", Collections.nCopies(chunk.size(), "(?,?,?,?,?)"));
+        Savepoint savepoint = bestEffort ? con.setSavepoint() : null;
+
+        try(PreparedStatement pstm = con.prepareStatement("INSERT INTO inventory(id,name,quantity,price,reorder_point) VALUES " + values)){
+            int index = 1;
+            for(IInventoryItem in : chunk){
+                pstm.setString(index++, in.getId());
+                pstm.setString(index++, in.getName());
+                pstm.setInt(index++, in.getQuantity());
+                pstm.setDouble(index++, in.getPrice());
+                pstm.setInt(index++, in.getReorderPoint());
+            }
+            int inserted = pstm.executeUpdate();
+            written.addAll(chunk);
+            return inserted;
+        }
+        catch (SQLIntegrityConstraintViolationException e){
+            if(!bestEffort){
+                throw new ItemAlreadyExistsException();
+            }
+            con.rollback(savepoint);
+        }
+
+        int inserted = 0;
+        try(PreparedStatement pstm = con.prepareStatement("INSERT INTO inventory(id,name,quantity,price,reorder_point) VALUES(?,?,?,?,?)")){
+            for(IInventoryItem in : chunk){
+                pstm.setString(1, in.getId());
+                pstm.setString(2, in.getName());
+                pstm.setInt(3, in.getQuantity());
+                pstm.setDouble(4, in.getPrice());
+                pstm.setInt(5, in.getReorderPoint());
+                try{
+                    inserted += pstm.executeUpdate();
+                    written.add(in);
+                }
+                catch (SQLIntegrityConstraintViolationException e){
+                    conflicts.add(in.getId());
+                }
+            }
+        }
+        return inserted;
+    }
+
+    //Binds a sort value from a page cursor using the column's type
+    private static void bindSortValue(PreparedStatement pstm, int index, ItemSort sort, String value) throws SQLException {
+        try {
+            switch (sort) {
+                case QUANTITY -> pstm.setInt(index, Integer.parseInt(value));
+                case PRICE -> pstm.setDouble(index, Double.parseDouble(value));
+                default -> pstm.setString(index, value);
+            }
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid page cursor");
+        }
+    }
+
+    /**
+     * Computes the inventory totals with one aggregate query, so no rows leave the database
+     * @return: Item count, total units, total stock value and price range of the inventory
+     */
+    @Override
+    public StockSummary getStockSummary() throws SQLException {
+        String summary = "SELECT COUNT(*), COALESCE(SUM(quantity), 0), COALESCE(SUM(quantity * price), 0), " +
+                "MIN(price), MAX(price) FROM inventory";
+
+        try(Connection con = connectionProvider.getConnection();
+            PreparedStatement pstm = con.prepareStatement(summary);
+            ResultSet rs = pstm.executeQuery()
         ){
-            pstm.setString(1,id);
-            int rows = pstm.executeUpdate();
-            return rows>0;
+            rs.next();
+            int count = rs.getInt(1);
+            if(count == 0){
+                return new StockSummary(0, 0, 0, Double.NaN, Double.NaN);
+            }
+            return new StockSummary(count, rs.getLong(2), rs.getDouble(3), rs.getDouble(4), rs.getDouble(5));
         }
     }
 
+    /**
+     * Retrieves the highest ranked items, letting the database sort and limit them
+     * @param ranking: Measure to rank the items by
+     * @param limit: Maximum number of items to return
+     * @return: The top items, highest first
+     * @throws: IllegalArgumentException if the limit is not positive
+     */
+    @Override
+    public List<IInventoryItem> getTopItems(ItemRanking ranking, int limit) throws SQLException {
+        if(limit <= 0){
+            throw new IllegalArgumentException("Limit must be greater than zero");
+        }
+
+        String top = "SELECT * FROM inventory ORDER BY " + ranking.getExpression() + " DESC, id LIMIT ?";
+
+        try(Connection con = connectionProvider.getConnection();
+            PreparedStatement pstm = con.prepareStatement(top)
+        ){
+            pstm.setInt(1, limit);
+            List<IInventoryItem> items = new ArrayList<>(Math.min(limit, 1000));
+            try(ResultSet rs = pstm.executeQuery()){
+                while(rs.next()){
+                    items.add(mapRow(rs));
+                }
+            }
+            return items;
+        }
+    }
+
+    //Maps the current row of the result set to an Inventory item
+    private static IInventoryItem mapRow(ResultSet rs) throws SQLException {
+        String id = rs.getString("id");
+        String name = rs.getString("name");
+        int quantity = rs.getInt("quantity");
+        double price = rs.getDouble("price");
+        long version = rs.getLong("version");
+        int reorderPoint = rs.getInt("reorder_point");
+
+        return new InventoryItem(id,name,quantity,price,version,reorderPoint);
+    }
+
 }
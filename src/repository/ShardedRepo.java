@@ -0,0 +1,754 @@
+package repository;
+
+import analytics.StockSummary;
+import exceptions.EmptyItemNameException;
+import exceptions.ItemAlreadyExistsException;
+import exceptions.NoItemPresentException;
+import model.AdjustmentResult;
+import model.IInventoryItem;
+import model.ItemPage;
+import model.ItemRanking;
+import model.ItemSort;
+import model.StockAdjustment;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Spreads the inventory over several repositories, each with its own storage and connections.
+ * An item lives on the shard picked by a jump consistent hash of its id, so calls that name an id go to one
+ * shard, while name lookups, listings and reports ask every shard in parallel and merge the answers:
+ * listings with a k-way merge of the shards' sorted results.
+ *
+ * addShard rebalances online. Jump hashing only ever moves ids onto the new shard, about 1/(n+1) of them;
+ * writes to those ids wait until they have been copied over, and everything else carries on. Until the old
+ * copies are deleted, every read ignores items found on a shard that doesn't own their id.
+ *
+ * Lists and bulk loads are split by shard, so an all or nothing load that fails on one shard is undone on the
+ * others by deleting what they inserted.
+ */
+public class ShardedRepo implements IRepo, AutoCloseable {
+    //Rows fetched per round trip when scanning a shard
+    private static final int FETCH_SIZE = 1000;
+    //Items copied to a new shard per bulk load while rebalancing
+    private static final int MIGRATION_BATCH_SIZE = 1000;
+
+    //Current shards, replaced as a whole when one is added
+    private volatile List<IRepo> shards;
+    //Set while addShard copies ids to a new shard
+    private volatile Migration migration;
+    //True from the end of a migration until the copies it left on the old shards are deleted
+    private volatile boolean cleaning;
+    //Held by writes while they run, and exclusively to start or finish a migration
+    private final ReadWriteLock topology = new ReentrantReadWriteLock();
+    private final ExecutorService executor;
+
+    /**
+     * Constructs the router over the specified shards
+     * @param shards Repositories to spread the items over, in a fixed order: an item's shard is picked by position
+     */
+    public ShardedRepo(List<IRepo> shards) {
+        if (shards == null || shards.isEmpty()) {
+            throw new IllegalArgumentException("At least one shard is needed");
+        }
+        this.shards = List.copyOf(shards);
+        AtomicInteger counter = new AtomicInteger();
+        this.executor = Executors.newCachedThreadPool(r -> {
+            Thread thread = new Thread(r, "shard-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Picks the shard of an id with a jump consistent hash (Lamping and Veach), which moves ids only onto the
+     * new shard when one is added
+     * @param id Item id
+     * @param shardCount Number of shards
+     * @return the position of the shard, from 0 to shardCount - 1
+     */
+    public static int shardOf(String id, int shardCount) {
+        //FNV-1a over the characters, so placement doesn't depend on String.hashCode
+        long key = 0xcbf29ce484222325L;
+        for (int i = 0; i < id.length(); i++) {
+            key = (key ^ id.charAt(i)) * 0x100000001b3L;
+        }
+
+        long bucket = -1;
+        long next = 0;
+        while (next < shardCount) {
+            bucket = next;
+            key = key * 2862933555777941757L + 1;
+            next = (long) ((bucket + 1) * ((double) (1L << 31) / (double) ((key >>> 33) + 1)));
+        }
+        return (int) bucket;
+    }
+
+    //returns the number of shards
+    public int getShardCount() {
+        return shards.size();
+    }
+
+    @Override
+    public boolean addItem(IInventoryItem item) throws SQLException {
+        if (item == null) {
+            throw new NoItemPresentException();
+        }
+        return routed(List.of(item.getId()), current -> current.get(shardOf(item.getId(), current.size())).addItem(item));
+    }
+
+    /**
+     * Adds the items all or nothing, writing each shard's share in one call
+     * @throws ItemAlreadyExistsException if any id already exists, in which case nothing is added
+     */
+    @Override
+    public boolean addListOfItems(List<IInventoryItem> items) throws SQLException {
+        if (items == null || items.isEmpty()) {
+            throw new NoItemPresentException();
+        }
+        BulkLoadReport report = bulkLoad(items, new BulkLoadOptions()
+                .setChunkSize(BulkLoadOptions.MAX_CHUNK_SIZE).setMode(BulkLoadOptions.Mode.ALL_OR_NOTHING));
+        if (report.isRolledBack()) {
+            throw new ItemAlreadyExistsException();
+        }
+        return true;
+    }
+
+    /**
+     * Loads each shard's share of the items in parallel and adds the reports up.
+     * In all or nothing mode, a shard that rolls back or fails makes the others delete what they inserted,
+     * and the first failure is rethrown once that is done. A best effort load keeps what the shards stored.
+     */
+    @Override
+    public BulkLoadReport bulkLoad(List<IInventoryItem> items, BulkLoadOptions options) throws SQLException {
+        if (items == null || items.isEmpty()) {
+            throw new NoItemPresentException();
+        }
+        long start = System.nanoTime();
+        List<String> ids = items.stream().map(IInventoryItem::getId).collect(Collectors.toList());
+        boolean allOrNothing = options.getMode() == BulkLoadOptions.Mode.ALL_OR_NOTHING;
+
+        return routed(ids, current -> {
+            List<List<IInventoryItem>> groups = groupByShard(items, current.size(), IInventoryItem::getId);
+            //every shard's outcome is collected before acting on any, so a failure can't leave another shard's load unseen
+            List<ShardLoad> loads = onEach(current, (shard, index) -> {
+                ShardLoad load = new ShardLoad();
+                if (!groups.get(index).isEmpty()) {
+                    try {
+                        load.report = shard.bulkLoad(groups.get(index), options);
+                    } catch (SQLException | RuntimeException e) {
+                        load.failure = e;
+                    }
+                }
+                return load;
+            });
+
+            int inserted = 0;
+            boolean rolledBack = false;
+            Exception failure = null;
+            List<String> conflicts = new ArrayList<>();
+            for (ShardLoad load : loads) {
+                if (load.failure != null) {
+                    if (failure == null) {
+                        failure = load.failure;
+                    } else {
+                        failure.addSuppressed(load.failure);
+                    }
+                } else if (load.report != null) {
+                    inserted += load.report.getInserted();
+                    rolledBack |= load.report.isRolledBack();
+                    conflicts.addAll(load.report.getConflictingIds());
+                }
+            }
+
+            if (allOrNothing && (rolledBack || failure != null)) {
+                for (int i = 0; i < current.size(); i++) {
+                    BulkLoadReport report = loads.get(i).report;
+                    if (report == null || report.isRolledBack()) {
+                        continue;
+                    }
+                    for (IInventoryItem item : groups.get(i)) {
+                        try {
+                            current.get(i).removeItemById(item.getId());
+                        } catch (SQLException | RuntimeException e) {
+                            if (failure == null) {
+                                failure = e;
+                            } else {
+                                failure.addSuppressed(e);
+                            }
+                        }
+                    }
+                }
+                inserted = 0;
+                rolledBack = true;
+            }
+
+            if (failure instanceof SQLException sql) {
+                throw sql;
+            }
+            if (failure != null) {
+                throw (RuntimeException) failure;
+            }
+            return new BulkLoadReport(items.size(), inserted, conflicts, rolledBack, System.nanoTime() - start);
+        });
+    }
+
+    /**
+     * Asks every shard for the name in parallel
+     * @throws EmptyItemNameException if the name is blank
+     * @throws NoItemPresentException if no shard has an item with the name
+     */
+    @Override
+    public IInventoryItem getItem(String name) throws SQLException {
+        if (name.isBlank()) {
+            throw new EmptyItemNameException();
+        }
+        List<IRepo> current = shards;
+        List<IInventoryItem> found = onEach(current, (shard, index) -> {
+            try {
+                IInventoryItem item = shard.getItem(name);
+                return owns(index, item, current.size()) ? item : null;
+            } catch (NoItemPresentException e) {
+                return null;
+            }
+        });
+        for (IInventoryItem item : found) {
+            if (item != null) {
+                return item;
+            }
+        }
+        throw new NoItemPresentException();
+    }
+
+    //returns every item ordered by id, merged from the shards
+    @Override
+    public List<IInventoryItem> getItems() throws SQLException {
+        try (Stream<IInventoryItem> items = streamItems(FETCH_SIZE)) {
+            return items.collect(Collectors.toList());
+        }
+    }
+
+    /**
+     * Streams every item ordered by id with a k-way merge of the shards' streams, which are already ordered by id.
+     * Closing the stream closes every shard's stream.
+     */
+    @Override
+    public Stream<IInventoryItem> streamItems(int fetchSize) throws SQLException {
+        List<IRepo> current = shards;
+        List<Stream<IInventoryItem>> streams = new ArrayList<>(current.size());
+        try {
+            for (int i = 0; i < current.size(); i++) {
+                int index = i;
+                streams.add(current.get(i).streamItems(fetchSize).filter(item -> owns(index, item, current.size())));
+            }
+        } catch (SQLException | RuntimeException e) {
+            streams.forEach(Stream::close);
+            throw e;
+        }
+
+        List<Iterator<IInventoryItem>> iterators = new ArrayList<>(streams.size());
+        for (Stream<IInventoryItem> stream : streams) {
+            iterators.add(stream.iterator());
+        }
+        Iterator<IInventoryItem> merged = new MergingIterator(iterators, ItemSort.ID.comparator());
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(merged, Spliterator.ORDERED | Spliterator.NONNULL), false)
+                .onClose(() -> streams.forEach(Stream::close));
+    }
+
+    /**
+     * Asks every shard for a page after the same cursor and merges them.
+     * The page is cut at the last item of any shard that has more, since that shard's next items could come before
+     * the other shards' remaining items, so it can come back with fewer than pageSize items before the last page.
+     */
+    @Override
+    public ItemPage getPage(int pageSize, String afterCursor, ItemSort sort) throws SQLException {
+        if (pageSize <= 0) {
+            throw new IllegalArgumentException("Page size must be greater than zero");
+        }
+        List<IRepo> current = shards;
+        List<ItemPage> pages = onEach(current, (shard, index) -> shard.getPage(pageSize, afterCursor, sort));
+
+        Comparator<IInventoryItem> order = sort.comparator();
+        List<IInventoryItem> items = new ArrayList<>();
+        IInventoryItem cutoff = null;
+        for (int i = 0; i < pages.size(); i++) {
+            ItemPage page = pages.get(i);
+            for (IInventoryItem item : page.getItems()) {
+                if (owns(i, item, current.size())) {
+                    items.add(item);
+                }
+            }
+            if (page.hasNext()) {
+                IInventoryItem last = page.getItems().get(page.getItems().size() - 1);
+                if (cutoff == null || order.compare(last, cutoff) < 0) {
+                    cutoff = last;
+                }
+            }
+        }
+        items.sort(order);
+
+        List<IInventoryItem> taken = new ArrayList<>(pageSize);
+        for (IInventoryItem item : items) {
+            if (taken.size() == pageSize || (cutoff != null && order.compare(item, cutoff) > 0)) {
+                break;
+            }
+            taken.add(item);
+        }
+
+        boolean hasNext = cutoff != null || taken.size() < items.size();
+        String next = null;
+        if (hasNext) {
+            //a page cut short by the cutoff carries on after it, everything up to it has been returned
+            IInventoryItem last = taken.size() < pageSize && cutoff != null ? cutoff : taken.get(taken.size() - 1);
+            next = PageCursor.after(sort, last);
+        }
+        return new ItemPage(taken, next);
+    }
+
+    @Override
+    public boolean removeItemById(String id) throws SQLException {
+        requireId(id);
+        return routed(List.of(id), current -> current.get(shardOf(id, current.size())).removeItemById(id));
+    }
+
+    @Override
+    public boolean increaseQuantity(String id, int amount) throws SQLException {
+        requireId(id);
+        return routed(List.of(id), current -> current.get(shardOf(id, current.size())).increaseQuantity(id, amount));
+    }
+
+    @Override
+    public boolean decreaseQuantity(String id, int amount) throws SQLException {
+        requireId(id);
+        return routed(List.of(id), current -> current.get(shardOf(id, current.size())).decreaseQuantity(id, amount));
+    }
+
+    @Override
+    public boolean reserveQuantity(String id, int amount) throws SQLException {
+        requireId(id);
+        return routed(List.of(id), current -> current.get(shardOf(id, current.size())).reserveQuantity(id, amount));
+    }
+
+    @Override
+    public boolean releaseReservation(String id, int amount) throws SQLException {
+        requireId(id);
+        return routed(List.of(id), current -> current.get(shardOf(id, current.size())).releaseReservation(id, amount));
+    }
+
+    /**
+     * Sends each shard its share of the adjustments, in their original order, and puts the results back in that order
+     * @throws NoItemPresentException if there are no adjustments
+     * @throws EmptyItemNameException if an adjustment has no id
+     */
+    @Override
+    public List<AdjustmentResult> adjustQuantities(List<StockAdjustment> adjustments) throws SQLException {
+        if (adjustments == null || adjustments.isEmpty()) {
+            throw new NoItemPresentException();
+        }
+        for (StockAdjustment adjustment : adjustments) {
+            requireId(adjustment.getId());
+        }
+        List<String> ids = adjustments.stream().map(StockAdjustment::getId).collect(Collectors.toList());
+
+        return routed(ids, current -> {
+            List<List<StockAdjustment>> groups = groupByShard(adjustments, current.size(), StockAdjustment::getId);
+            List<List<AdjustmentResult>> results = onEach(current, (shard, index) ->
+                    groups.get(index).isEmpty() ? List.of() : shard.adjustQuantities(groups.get(index)));
+
+            List<AdjustmentResult> ordered = new ArrayList<>(adjustments.size());
+            int[] next = new int[current.size()];
+            for (StockAdjustment adjustment : adjustments) {
+                int shard = shardOf(adjustment.getId(), current.size());
+                ordered.add(results.get(shard).get(next[shard]++));
+            }
+            return ordered;
+        });
+    }
+
+    @Override
+    public boolean updateItem(IInventoryItem item) throws SQLException {
+        if (item == null) {
+            throw new NoItemPresentException();
+        }
+        return routed(List.of(item.getId()), current -> current.get(shardOf(item.getId(), current.size())).updateItem(item));
+    }
+
+    /**
+     * Adds up every shard's totals. While a rebalance is cleaning up, the totals come from a scan instead,
+     * so items not yet deleted from their old shard aren't counted twice.
+     */
+    @Override
+    public StockSummary getStockSummary() throws SQLException {
+        if (cleaning) {
+            return summarize();
+        }
+        List<StockSummary> summaries = onEach(shards, (shard, index) -> shard.getStockSummary());
+
+        int count = 0;
+        long units = 0;
+        double value = 0;
+        double min = Double.NaN;
+        double max = Double.NaN;
+        for (StockSummary summary : summaries) {
+            if (summary.getItemCount() == 0) {
+                continue;
+            }
+            count += summary.getItemCount();
+            units += summary.getTotalUnits();
+            value += summary.getTotalValue();
+            min = Double.isNaN(min) ? summary.getMinPrice() : Math.min(min, summary.getMinPrice());
+            max = Double.isNaN(max) ? summary.getMaxPrice() : Math.max(max, summary.getMaxPrice());
+        }
+        return new StockSummary(count, units, value, min, max);
+    }
+
+    /**
+     * Merges every shard's top items. While a rebalance is cleaning up, the ranking comes from a scan instead.
+     */
+    @Override
+    public List<IInventoryItem> getTopItems(ItemRanking ranking, int limit) throws SQLException {
+        Comparator<IInventoryItem> order = Comparator.<IInventoryItem>comparingDouble(ranking::valueOf).reversed()
+                .thenComparing(IInventoryItem::getId);
+        List<IInventoryItem> candidates = new ArrayList<>();
+        if (cleaning) {
+            try (Stream<IInventoryItem> items = streamItems(FETCH_SIZE)) {
+                items.forEach(candidates::add);
+            }
+        } else {
+            List<IRepo> current = shards;
+            List<List<IInventoryItem>> tops = onEach(current, (shard, index) -> shard.getTopItems(ranking, limit));
+            tops.forEach(candidates::addAll);
+        }
+        candidates.sort(order);
+        return new ArrayList<>(candidates.subList(0, Math.min(limit, candidates.size())));
+    }
+
+    /**
+     * Adds an empty shard and moves onto it the items the hash now places there.
+     * Runs alongside other calls: writes to the moving ids wait until they have been copied, the rest don't.
+     * Returns once the old copies have been deleted.
+     * @param shard Repository to add, which must be empty
+     * @throws IllegalArgumentException if the shard already holds items
+     */
+    public synchronized void addShard(IRepo shard) throws SQLException {
+        if (shard.getStockSummary().getItemCount() != 0) {
+            throw new IllegalArgumentException("A new shard must be empty");
+        }
+
+        List<IRepo> old = shards;
+        Migration move = new Migration(old.size() + 1);
+        topology.writeLock().lock();
+        try {
+            migration = move;
+        } finally {
+            topology.writeLock().unlock();
+        }
+
+        //ids written to the new shard per old shard, listed as each batch is sent so a failed copy can be undone
+        List<List<String>> moved = new ArrayList<>(old.size());
+        try {
+            for (int i = 0; i < old.size(); i++) {
+                List<String> ids = new ArrayList<>();
+                moved.add(ids);
+                copyMovingItems(old.get(i), i, old.size(), move, shard, ids);
+            }
+            List<IRepo> grown = new ArrayList<>(old);
+            grown.add(shard);
+            topology.writeLock().lock();
+            try {
+                shards = List.copyOf(grown);
+                cleaning = true;
+                migration = null;
+            } finally {
+                topology.writeLock().unlock();
+            }
+        } catch (SQLException | RuntimeException e) {
+            topology.writeLock().lock();
+            try {
+                migration = null;
+            } finally {
+                topology.writeLock().unlock();
+            }
+            for (List<String> ids : moved) {
+                for (String id : ids) {
+                    try {
+                        shard.removeItemById(id);
+                    } catch (SQLException | RuntimeException undo) {
+                        e.addSuppressed(undo);
+                    }
+                }
+            }
+            throw e;
+        } finally {
+            move.finished.countDown();
+        }
+
+        try {
+            for (int i = 0; i < old.size(); i++) {
+                for (String id : moved.get(i)) {
+                    old.get(i).removeItemById(id);
+                }
+            }
+        } finally {
+            cleaning = false;
+        }
+    }
+
+    //Shuts down the threads used to reach the shards; the shards themselves belong to the caller
+    @Override
+    public void close() {
+        executor.shutdown();
+    }
+
+    //Copies the items of one old shard that move to the new shard, adding their ids to the list as they are sent
+    private static void copyMovingItems(IRepo from, int index, int oldCount, Migration move, IRepo to, List<String> ids) throws SQLException {
+        List<IInventoryItem> batch = new ArrayList<>(MIGRATION_BATCH_SIZE);
+        BulkLoadOptions options = new BulkLoadOptions().setChunkSize(MIGRATION_BATCH_SIZE);
+        try (Stream<IInventoryItem> items = from.streamItems(FETCH_SIZE)) {
+            for (IInventoryItem item : (Iterable<IInventoryItem>) items::iterator) {
+                //skips copies left behind by an earlier migration that didn't finish cleaning up
+                if (shardOf(item.getId(), oldCount) != index || !move.isMoving(item.getId())) {
+                    continue;
+                }
+                batch.add(item);
+                if (batch.size() == MIGRATION_BATCH_SIZE) {
+                    copy(batch, to, options, ids);
+                }
+            }
+        }
+        if (!batch.isEmpty()) {
+            copy(batch, to, options, ids);
+        }
+    }
+
+    //the ids are listed before the load, since a batch that fails part way may have stored some of its items
+    private static void copy(List<IInventoryItem> batch, IRepo to, BulkLoadOptions options, List<String> ids) throws SQLException {
+        for (IInventoryItem item : batch) {
+            ids.add(item.getId());
+        }
+        to.bulkLoad(batch, options);
+        batch.clear();
+    }
+
+    //Totals from a scan that skips copies left on shards that no longer own them
+    private StockSummary summarize() throws SQLException {
+        int count = 0;
+        long units = 0;
+        double value = 0;
+        double min = Double.NaN;
+        double max = Double.NaN;
+        try (Stream<IInventoryItem> items = streamItems(FETCH_SIZE)) {
+            for (IInventoryItem item : (Iterable<IInventoryItem>) items::iterator) {
+                count++;
+                units += item.getQuantity();
+                value += item.getQuantity() * item.getPrice();
+                min = Double.isNaN(min) ? item.getPrice() : Math.min(min, item.getPrice());
+                max = Double.isNaN(max) ? item.getPrice() : Math.max(max, item.getPrice());
+            }
+        }
+        return new StockSummary(count, units, value, min, max);
+    }
+
+    /**
+     * Runs a write against the current shards, first waiting out any migration that is moving one of the ids
+     */
+    private <T> T routed(Collection<String> ids, Routed<T> call) throws SQLException {
+        while (true) {
+            Migration move;
+            topology.readLock().lock();
+            try {
+                move = migration;
+                if (move == null || ids.stream().noneMatch(move::isMoving)) {
+                    return call.apply(shards);
+                }
+            } finally {
+                topology.readLock().unlock();
+            }
+            move.awaitFinished();
+        }
+    }
+
+    /**
+     * Runs a call on every shard in parallel
+     * @return the results in shard order
+     */
+    private <T> List<T> onEach(List<IRepo> current, ShardCall<T> call) throws SQLException {
+        if (current.size() == 1) {
+            List<T> single = new ArrayList<>(1);
+            single.add(call.apply(current.get(0), 0));
+            return single;
+        }
+
+        List<Future<T>> futures = new ArrayList<>(current.size());
+        for (int i = 0; i < current.size(); i++) {
+            int index = i;
+            futures.add(executor.submit(() -> call.apply(current.get(index), index)));
+        }
+
+        List<T> results = new ArrayList<>(current.size());
+        try {
+            for (Future<T> future : futures) {
+                results.add(future.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for the shards", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof SQLException sql) {
+                throw sql;
+            }
+            if (cause instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new SQLException("Shard call failed", cause);
+        }
+        return results;
+    }
+
+    //Splits values into one list per shard, keeping their order within each list
+    private static <T> List<List<T>> groupByShard(List<T> values, int shardCount, Function<T, String> id) {
+        List<List<T>> groups = new ArrayList<>(shardCount);
+        for (int i = 0; i < shardCount; i++) {
+            groups.add(new ArrayList<>());
+        }
+        for (T value : values) {
+            groups.get(shardOf(id.apply(value), shardCount)).add(value);
+        }
+        return groups;
+    }
+
+    //ids are checked before routing, since a missing id has no shard to be sent to
+    private static void requireId(String id) {
+        if (id == null || id.isBlank()) {
+            throw new EmptyItemNameException();
+        }
+    }
+
+    //returns true if the shard at the index owns the item, rather than holding a copy left by a migration
+    private static boolean owns(int index, IInventoryItem item, int shardCount) {
+        return shardOf(item.getId(), shardCount) == index;
+    }
+
+    /**
+     * A call made against the whole list of shards.
+     */
+    @FunctionalInterface
+    private interface Routed<T> {
+        T apply(List<IRepo> shards) throws SQLException;
+    }
+
+    /**
+     * A call made against one shard.
+     */
+    @FunctionalInterface
+    private interface ShardCall<T> {
+        T apply(IRepo shard, int index) throws SQLException;
+    }
+
+    /**
+     * What one shard's part of a bulk load came back with, its report or the exception it threw.
+     */
+    private static final class ShardLoad {
+        private BulkLoadReport report;
+        private Exception failure;
+    }
+
+    /**
+     * Ids being moved onto a new shard, and the signal that they have been.
+     */
+    private static final class Migration {
+        private final int shardCount;
+        private final CountDownLatch finished = new CountDownLatch(1);
+
+        private Migration(int shardCount) {
+            this.shardCount = shardCount;
+        }
+
+        //returns true if the id moves to the new shard, the last one
+        private boolean isMoving(String id) {
+            return shardOf(id, shardCount) == shardCount - 1;
+        }
+
+        private void awaitFinished() {
+            boolean interrupted = false;
+            while (true) {
+                try {
+                    finished.await();
+                    break;
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Merges iterators that are each already sorted, always taking the smallest head.
+     */
+    private static final class MergingIterator implements Iterator<IInventoryItem> {
+        private final PriorityQueue<Head> heads;
+
+        private MergingIterator(List<Iterator<IInventoryItem>> iterators, Comparator<IInventoryItem> order) {
+            this.heads = new PriorityQueue<>(Math.max(1, iterators.size()), (a, b) -> order.compare(a.item, b.item));
+            for (Iterator<IInventoryItem> iterator : iterators) {
+                if (iterator.hasNext()) {
+                    heads.add(new Head(iterator.next(), iterator));
+                }
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return !heads.isEmpty();
+        }
+
+        @Override
+        public IInventoryItem next() {
+            Head head = heads.poll();
+            if (head == null) {
+                throw new NoSuchElementException();
+            }
+            if (head.rest.hasNext()) {
+                heads.add(new Head(head.rest.next(), head.rest));
+            }
+            return head.item;
+        }
+
+        /**
+         * The next item of one iterator, and the iterator it came from.
+         */
+        private static final class Head {
+            private final IInventoryItem item;
+            private final Iterator<IInventoryItem> rest;
+
+            private Head(IInventoryItem item, Iterator<IInventoryItem> rest) {
+                this.item = item;
+                this.rest = rest;
+            }
+        }
+    }
+}
@@ -0,0 +1,341 @@
+package repository;
+
+import analytics.StockSummary;
+import exceptions.ItemAlreadyExistsException;
+import exceptions.NoItemPresentException;
+import model.AdjustmentResult;
+import model.IInventoryItem;
+import model.ItemPage;
+import model.ItemRanking;
+import model.ItemSort;
+import model.StockAdjustment;
+
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+/**
+ * Batches single item inserts in front of another repository.
+ * addItem puts the item on a bounded queue and waits while a single flusher thread gathers queued items,
+ * up to batchSize of them or whatever arrived within the linger time, and writes them with one bulk load
+ * in one transaction. Each caller then gets the outcome for its own item: true, or ItemAlreadyExistsException
+ * if the id was taken. If the batch fails as a whole, its items are inserted one by one, so each caller gets
+ * the exception of its own item and an item that fails doesn't take the rest of the batch with it.
+ *
+ * When the queue is full, addItem blocks until the flusher catches up. Every other call goes
+ * straight to the underlying repository; an item is only visible there once its addItem has returned.
+ */
+public class WriteBehindRepo implements IRepo, AutoCloseable {
+    public static final int DEFAULT_BATCH_SIZE = 500;
+    public static final Duration DEFAULT_LINGER = Duration.ofMillis(5);
+    //How long the flusher waits for a first item before checking whether it was closed
+    private static final long IDLE_POLL_MILLIS = 100;
+
+    private final IRepo delegate;
+    private final int batchSize;
+    private final long lingerNanos;
+    private final BlockingQueue<PendingInsert> queue;
+    private final BulkLoadOptions loadOptions;
+    private final Thread flusher;
+    //Held to enqueue, and exclusively to close, so nothing is enqueued after the flusher's final drain
+    private final ReadWriteLock closeLock = new ReentrantReadWriteLock();
+    private volatile boolean closed;
+
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder flushedItems = new LongAdder();
+
+    /**
+     * Constructs the write-behind queue with the default batch size and linger time
+     * @param delegate Repository the batches are written to
+     */
+    public WriteBehindRepo(IRepo delegate) {
+        this(delegate, DEFAULT_BATCH_SIZE, DEFAULT_LINGER, DEFAULT_BATCH_SIZE * 4);
+    }
+
+    /**
+     * Constructs the write-behind queue around the specified repository
+     * @param delegate Repository the batches are written to
+     * @param batchSize Most items written per batch
+     * @param linger How long the flusher waits for more items after the first one of a batch arrives
+     * @param capacity Most items waiting in the queue before addItem blocks
+     */
+    public WriteBehindRepo(IRepo delegate, int batchSize, Duration linger, int capacity) {
+        if (batchSize <= 0 || batchSize > BulkLoadOptions.MAX_CHUNK_SIZE) {
+            throw new IllegalArgumentException("Batch size must be between 1 and " + BulkLoadOptions.MAX_CHUNK_SIZE);
+        }
+        if (capacity < batchSize) {
+            throw new IllegalArgumentException("Queue capacity cannot be smaller than the batch size");
+        }
+        this.delegate = delegate;
+        this.batchSize = batchSize;
+        this.lingerNanos = linger.toNanos();
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        //one chunk per batch, so each batch commits once and conflicting ids are skipped rather than failing it
+        this.loadOptions = new BulkLoadOptions().setChunkSize(batchSize).setMode(BulkLoadOptions.Mode.BEST_EFFORT);
+        this.flusher = new Thread(this::flushLoop, "write-behind");
+        this.flusher.setDaemon(true);
+        this.flusher.start();
+    }
+
+    /**
+     * Queues the item and waits until the batch holding it has been written
+     * @throws NoItemPresentException if the item is null
+     * @throws ItemAlreadyExistsException if an item with the same id exists, or was queued earlier in the same batch
+     * @throws IllegalStateException if the queue has been closed
+     */
+    @Override
+    public boolean addItem(IInventoryItem item) throws SQLException {
+        try {
+            return addItemAsync(item).join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof SQLException sql) {
+                throw sql;
+            }
+            if (cause instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Queues the item without waiting for it to be written.
+     * Blocks only while the queue is full.
+     * @param item Item to insert
+     * @return a future completed once the batch holding the item has been written
+     */
+    public CompletableFuture<Boolean> addItemAsync(IInventoryItem item) {
+        if (item == null) {
+            throw new NoItemPresentException();
+        }
+        PendingInsert pending = new PendingInsert(item);
+        closeLock.readLock().lock();
+        try {
+            if (closed) {
+                throw new IllegalStateException("Write-behind queue is closed");
+            }
+            queue.put(pending);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            pending.result.completeExceptionally(e);
+        } finally {
+            closeLock.readLock().unlock();
+        }
+        return pending.result;
+    }
+
+    @Override
+    public boolean addListOfItems(List<IInventoryItem> items) throws SQLException {
+        return delegate.addListOfItems(items);
+    }
+
+    @Override
+    public BulkLoadReport bulkLoad(List<IInventoryItem> items, BulkLoadOptions options) throws SQLException {
+        return delegate.bulkLoad(items, options);
+    }
+
+    @Override
+    public IInventoryItem getItem(String name) throws SQLException {
+        return delegate.getItem(name);
+    }
+
+    @Override
+    public List<IInventoryItem> getItems() throws SQLException {
+        return delegate.getItems();
+    }
+
+    @Override
+    public Stream<IInventoryItem> streamItems(int fetchSize) throws SQLException {
+        return delegate.streamItems(fetchSize);
+    }
+
+    @Override
+    public ItemPage getPage(int pageSize, String afterCursor, ItemSort sort) throws SQLException {
+        return delegate.getPage(pageSize, afterCursor, sort);
+    }
+
+    @Override
+    public boolean removeItemById(String id) throws SQLException {
+        return delegate.removeItemById(id);
+    }
+
+    @Override
+    public boolean increaseQuantity(String id, int amount) throws SQLException {
+        return delegate.increaseQuantity(id, amount);
+    }
+
+    @Override
+    public boolean decreaseQuantity(String id, int amount) throws SQLException {
+        return delegate.decreaseQuantity(id, amount);
+    }
+
+    @Override
+    public boolean reserveQuantity(String id, int amount) throws SQLException {
+        return delegate.reserveQuantity(id, amount);
+    }
+
+    @Override
+    public boolean releaseReservation(String id, int amount) throws SQLException {
+        return delegate.releaseReservation(id, amount);
+    }
+
+    @Override
+    public List<AdjustmentResult> adjustQuantities(List<StockAdjustment> adjustments) throws SQLException {
+        return delegate.adjustQuantities(adjustments);
+    }
+
+    @Override
+    public boolean updateItem(IInventoryItem item) throws SQLException {
+        return delegate.updateItem(item);
+    }
+
+    @Override
+    public StockSummary getStockSummary() throws SQLException {
+        return delegate.getStockSummary();
+    }
+
+    @Override
+    public List<IInventoryItem> getTopItems(ItemRanking ranking, int limit) throws SQLException {
+        return delegate.getTopItems(ranking, limit);
+    }
+
+    //returns the number of items waiting to be written
+    public int getQueueDepth() {
+        return queue.size();
+    }
+
+    //returns the number of batches written so far
+    public long getBatchCount() {
+        return batches.sum();
+    }
+
+    //returns the number of queued items handed to the underlying repository so far
+    public long getFlushedItemCount() {
+        return flushedItems.sum();
+    }
+
+    /**
+     * Stops taking new items and waits until every queued item has been written
+     */
+    @Override
+    public void close() {
+        closeLock.writeLock().lock();
+        try {
+            closed = true;
+        } finally {
+            closeLock.writeLock().unlock();
+        }
+        try {
+            flusher.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    //Runs on the flusher thread until the queue is closed and empty
+    private void flushLoop() {
+        List<PendingInsert> batch = new ArrayList<>(batchSize);
+        boolean interrupted = false;
+        while (!closed || !queue.isEmpty()) {
+            try {
+                PendingInsert first = queue.poll(IDLE_POLL_MILLIS, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                long deadline = System.nanoTime() + lingerNanos;
+                while (batch.size() < batchSize) {
+                    if (queue.drainTo(batch, batchSize - batch.size()) > 0) {
+                        continue;
+                    }
+                    long remaining = deadline - System.nanoTime();
+                    //a closing queue writes what it has straight away
+                    PendingInsert next = closed || remaining <= 0 ? null : queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                flush(batch);
+            } catch (InterruptedException e) {
+                //the flusher is only stopped by close, which waits for the queue to empty, so an interrupt
+                //writes what was already taken off the queue and is passed on once the loop ends
+                interrupted = true;
+                if (!batch.isEmpty()) {
+                    flush(batch);
+                }
+            } finally {
+                batch.clear();
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    //Writes a batch and completes every caller's future with the outcome for its own item
+    private void flush(List<PendingInsert> batch) {
+        List<IInventoryItem> items = new ArrayList<>(batch.size());
+        for (PendingInsert pending : batch) {
+            items.add(pending.item);
+        }
+
+        BulkLoadReport report;
+        try {
+            report = delegate.bulkLoad(items, loadOptions);
+        } catch (SQLException | RuntimeException e) {
+            //one bad item fails the whole batch, so each item is retried on its own to find out whose it was
+            flushEach(batch);
+            return;
+        }
+        batches.increment();
+        flushedItems.add(batch.size());
+
+        //inserted holds the batch's inserted items in batch order, so it is walked alongside the batch
+        List<IInventoryItem> inserted = report.insertedItems(items);
+        int next = 0;
+        for (PendingInsert pending : batch) {
+            if (next < inserted.size() && inserted.get(next) == pending.item) {
+                next++;
+                pending.result.complete(true);
+            } else {
+                pending.result.completeExceptionally(new ItemAlreadyExistsException());
+            }
+        }
+    }
+
+    //Inserts the items of a failed batch one at a time, completing each caller's future with its own outcome
+    private void flushEach(List<PendingInsert> batch) {
+        for (PendingInsert pending : batch) {
+            try {
+                pending.result.complete(delegate.addItem(pending.item));
+            } catch (SQLException | RuntimeException e) {
+                pending.result.completeExceptionally(e);
+            }
+        }
+        flushedItems.add(batch.size());
+    }
+
+    /**
+     * A queued item and the future its caller waits on.
+     */
+    private static final class PendingInsert {
+        private final IInventoryItem item;
+        private final CompletableFuture<Boolean> result = new CompletableFuture<>();
+
+        private PendingInsert(IInventoryItem item) {
+            this.item = item;
+        }
+    }
+}
@@ -0,0 +1,880 @@
+package repository.embedded;
+
+import analytics.StockSummary;
+import exceptions.DataAccessException;
+import exceptions.DataCorruptionException;
+import exceptions.EmptyItemNameException;
+import exceptions.ItemAlreadyExistsException;
+import exceptions.NoItemPresentException;
+import model.AdjustmentResult;
+import model.IInventoryItem;
+import model.InventoryItem;
+import model.ItemPage;
+import model.ItemRanking;
+import model.ItemSort;
+import model.StockAdjustment;
+import repository.BulkLoadOptions;
+import repository.BulkLoadReport;
+import repository.IRepo;
+import repository.PageCursor;
+import util.Names;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+
+/**
+ * In-process repository that needs no database server.
+ * Every change is appended to a log file on disk and applied to in-memory hash indexes keyed by id and
+ * by normalized name, so lookups never leave the process. On startup the latest snapshot, a MappedCatalog, is
+ * mapped and indexed as views over the mapping, so its items are never copied onto the heap, and only the logs
+ * written since it are replayed. Items are copied off the mapping when they are handed to callers.
+ *
+ * Writes are serialized by a single lock, which also makes the conditional stock adjustments atomic,
+ * while reads go straight to the concurrent indexes without locking. With a zero sync interval every write
+ * waits for its log records to be fsynced, with concurrent writers sharing one fsync; with a positive
+ * interval the log is fsynced in the background and a crash can lose the writes of the last interval.
+ *
+ * Once the current log grows past the compaction threshold the store starts a new log generation, writes a
+ * snapshot of the live items in the background and deletes the logs the snapshot covers, so disk use stays
+ * proportional to the live data rather than to the history of changes. The unchanged items then move onto the
+ * new snapshot's mapping, and the mapping before the previous one is released.
+ */
+public class EmbeddedRepo implements IRepo, AutoCloseable {
+    public static final long DEFAULT_COMPACTION_THRESHOLD = 64L * 1024 * 1024;
+
+    //Snapshot written before the mapped catalog, read once and replaced by the first compaction
+    private static final String LEGACY_SNAPSHOT_FILE = "inventory.snapshot";
+    private static final String LOG_PREFIX = "inventory-";
+    private static final String LOG_SUFFIX = ".log";
+    private static final String CATALOG_SUFFIX = ".catalog";
+    //Single log used before snapshots were introduced, adopted as generation 0
+    private static final String LEGACY_LOG_FILE = "inventory.log";
+
+    //id -> item, sorted so listings and id pagination come out in id order
+    private final ConcurrentSkipListMap<String, StoredItem> byId = new ConcurrentSkipListMap<>();
+    //normalized name -> ids of the items with that name
+    private final ConcurrentHashMap<String, NavigableSet<String>> byName = new ConcurrentHashMap<>();
+
+    private final ReentrantLock writeLock = new ReentrantLock();
+    //Held while a snapshot is written so only one compaction runs at a time
+    private final ReentrantLock compactionLock = new ReentrantLock();
+    private final Path directory;
+    private final boolean syncOnWrite;
+    private final long compactionThreshold;
+    private final ScheduledExecutorService background;
+    //Current log, replaced under the write lock when a new generation starts
+    private volatile ItemLog log;
+    private long generation;
+    //Mapping of the latest snapshot, null until the first one is written
+    private volatile MappedCatalog catalog;
+    //Mapping of the snapshot before it, kept open until the next compaction so reads that picked up one of
+    //its views just before the switch can finish. Guarded by the compaction lock
+    private MappedCatalog retired;
+
+    /**
+     * Opens the store in the directory, fsyncing every write before it returns
+     * @param directory Directory holding the store's files, created if needed
+     */
+    public EmbeddedRepo(Path directory) {
+        this(directory, Duration.ZERO);
+    }
+
+    /**
+     * Opens the store in the directory, compacting once the log reaches the default threshold
+     * @param directory Directory holding the store's files, created if needed
+     * @param syncInterval Zero to fsync every write before it returns, otherwise how often the log is fsynced in the background
+     */
+    public EmbeddedRepo(Path directory, Duration syncInterval) {
+        this(directory, syncInterval, DEFAULT_COMPACTION_THRESHOLD);
+    }
+
+    /**
+     * Opens the store in the directory, loading its snapshot and replaying the logs written since
+     * @param directory Directory holding the store's files, created if needed
+     * @param syncInterval Zero to fsync every write before it returns, otherwise how often the log is fsynced in the background
+     * @param compactionThreshold Log size in bytes that triggers a snapshot
+     * @throws DataAccessException if the files can't be read
+     * @throws DataCorruptionException if the snapshot or a log record other than the last fails its checksum
+     */
+    public EmbeddedRepo(Path directory, Duration syncInterval, long compactionThreshold) {
+        if (compactionThreshold <= 0) {
+            throw new IllegalArgumentException("Compaction threshold must be greater than zero");
+        }
+        this.directory = directory;
+        this.compactionThreshold = compactionThreshold;
+        try {
+            Files.createDirectories(directory);
+            recover();
+        } catch (IOException e) {
+            throw new DataAccessException("Failed to open embedded store in " + directory, e);
+        }
+
+        this.syncOnWrite = syncInterval.isZero();
+        this.background = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "embedded-store");
+            thread.setDaemon(true);
+            return thread;
+        });
+        if (!syncOnWrite) {
+            long interval = syncInterval.toMillis();
+            background.scheduleWithFixedDelay(this::syncQuietly, interval, interval, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @Override
+    public boolean addItem(IInventoryItem item) {
+        if (item == null) {
+            throw new NoItemPresentException();
+        }
+        return addAll(List.of(item));
+    }
+
+    /**
+     * Adds all the items or none of them
+     * @throws ItemAlreadyExistsException if any id is already stored or repeated in the list
+     */
+    @Override
+    public boolean addListOfItems(List<IInventoryItem> items) {
+        if (items == null || items.isEmpty()) {
+            throw new NoItemPresentException();
+        }
+        return addAll(items);
+    }
+
+    @Override
+    public BulkLoadReport bulkLoad(List<IInventoryItem> items, BulkLoadOptions options) {
+        if (items == null || items.isEmpty()) {
+            throw new NoItemPresentException();
+        }
+
+        long start = System.nanoTime();
+        boolean bestEffort = options.getMode() == BulkLoadOptions.Mode.BEST_EFFORT;
+        List<String> conflicts = new ArrayList<>();
+        Set<String> seen = new HashSet<>();
+        int inserted = 0;
+
+        if (!bestEffort) {
+            writeLock.lock();
+            try {
+                List<StoredItem> fresh = withoutConflicts(items, seen, conflicts);
+                if (!conflicts.isEmpty()) {
+                    return new BulkLoadReport(items.size(), 0, conflicts, true, System.nanoTime() - start);
+                }
+                inserted = fresh.size();
+                long position = write(fresh);
+                writeLock.unlock();
+                afterWrite(position);
+                return new BulkLoadReport(items.size(), inserted, conflicts, false, System.nanoTime() - start);
+            } finally {
+                if (writeLock.isHeldByCurrentThread()) {
+                    writeLock.unlock();
+                }
+            }
+        }
+
+        //best effort loads take the lock chunk by chunk so other writers aren't starved
+        long position = 0;
+        for (int from = 0; from < items.size(); from += options.getChunkSize()) {
+            List<IInventoryItem> chunk = items.subList(from, Math.min(items.size(), from + options.getChunkSize()));
+            writeLock.lock();
+            try {
+                List<StoredItem> fresh = withoutConflicts(chunk, seen, conflicts);
+                inserted += fresh.size();
+                position = Math.max(position, write(fresh));
+            } finally {
+                writeLock.unlock();
+            }
+        }
+        afterWrite(position);
+
+        return new BulkLoadReport(items.size(), inserted, conflicts, false, System.nanoTime() - start);
+    }
+
+    /**
+     * Retrieves an item by its name (Case insensitive)
+     * @throws EmptyItemNameException if the name is blank
+     * @throws NoItemPresentException if no item matches the name
+     */
+    @Override
+    public IInventoryItem getItem(String name) {
+        if (name.isBlank()) {
+            throw new EmptyItemNameException();
+        }
+
+        NavigableSet<String> ids = byName.get(Names.normalize(name));
+        if (ids != null) {
+            for (String id : ids) {
+                StoredItem stored = byId.get(id);
+                if (stored != null) {
+                    return stored.detached();
+                }
+            }
+        }
+        throw new NoItemPresentException();
+    }
+
+    /**
+     * Retrieves all the items ordered by id
+     * @throws NoItemPresentException if the store is empty
+     */
+    @Override
+    public List<IInventoryItem> getItems() {
+        List<IInventoryItem> items = new ArrayList<>(byId.size());
+        for (StoredItem stored : byId.values()) {
+            items.add(stored.detached());
+        }
+        if (items.isEmpty()) {
+            throw new NoItemPresentException();
+        }
+        return items;
+    }
+
+    /**
+     * Streams the items ordered by id straight from the index. The fetch size has no effect on an in-memory store.
+     */
+    @Override
+    public Stream<IInventoryItem> streamItems(int fetchSize) {
+        if (fetchSize <= 0) {
+            throw new IllegalArgumentException("Fetch size must be greater than zero");
+        }
+        return byId.values().stream().map(StoredItem::detached);
+    }
+
+    /**
+     * Retrieves one page of items.
+     * Pages in id order seek straight into the sorted id index. Other orders have no index here, so they
+     * take a single pass over the items keeping the smallest pageSize + 1 past the cursor in a heap.
+     */
+    @Override
+    public ItemPage getPage(int pageSize, String afterCursor, ItemSort sort) {
+        if (pageSize <= 0) {
+            throw new IllegalArgumentException("Page size must be greater than zero");
+        }
+        PageCursor cursor = afterCursor == null ? null : PageCursor.decode(afterCursor, sort);
+
+        List<IInventoryItem> items = new ArrayList<>(pageSize + 1);
+        if (sort == ItemSort.ID) {
+            Map<String, StoredItem> tail = cursor == null ? byId : byId.tailMap(cursor.getId(), false);
+            for (StoredItem stored : tail.values()) {
+                items.add(stored.detached());
+                if (items.size() > pageSize) {
+                    break;
+                }
+            }
+        } else {
+            Comparator<IInventoryItem> order = sort.comparator();
+            IInventoryItem after = cursor == null ? null : probe(sort, cursor);
+            PriorityQueue<StoredItem> smallest = new PriorityQueue<>(pageSize + 2,
+                    Comparator.comparing((StoredItem stored) -> stored.item, order.reversed()));
+            for (StoredItem stored : byId.values()) {
+                if (after != null && order.compare(stored.item, after) <= 0) {
+                    continue;
+                }
+                smallest.add(stored);
+                if (smallest.size() > pageSize + 1) {
+                    smallest.poll();
+                }
+            }
+            for (StoredItem stored : smallest) {
+                items.add(stored.detached());
+            }
+            items.sort(order);
+        }
+
+        boolean hasNext = items.size() > pageSize;
+        if (hasNext) {
+            items.remove(pageSize);
+        }
+        String next = hasNext ? PageCursor.after(sort, items.get(items.size() - 1)) : null;
+        return new ItemPage(items, next);
+    }
+
+    @Override
+    public boolean removeItemById(String id) {
+        if (id.isBlank()) {
+            throw new EmptyItemNameException();
+        }
+
+        long position;
+        writeLock.lock();
+        try {
+            StoredItem stored = byId.get(id);
+            if (stored == null) {
+                return false;
+            }
+            position = append(List.of(StoredItem.toDeleteRecord(id)));
+            unindex(stored);
+        } finally {
+            writeLock.unlock();
+        }
+        afterWrite(position);
+        return true;
+    }
+
+    @Override
+    public boolean increaseQuantity(String id, int amount) {
+        validateAdjustment(id, amount);
+        return adjust(id, amount, 0);
+    }
+
+    @Override
+    public boolean decreaseQuantity(String id, int amount) {
+        validateAdjustment(id, amount);
+        return adjust(id, -amount, 0);
+    }
+
+    @Override
+    public boolean reserveQuantity(String id, int amount) {
+        validateAdjustment(id, amount);
+        return adjust(id, -amount, amount);
+    }
+
+    @Override
+    public boolean releaseReservation(String id, int amount) {
+        validateAdjustment(id, amount);
+        return adjust(id, amount, -amount);
+    }
+
+    /**
+     * Applies the adjustments in order under one lock and makes them durable with a single fsync
+     */
+    @Override
+    public List<AdjustmentResult> adjustQuantities(List<StockAdjustment> adjustments) {
+        if (adjustments == null || adjustments.isEmpty()) {
+            throw new NoItemPresentException();
+        }
+        for (StockAdjustment adjustment : adjustments) {
+            if (adjustment.getId() == null || adjustment.getId().isBlank()) {
+                throw new EmptyItemNameException();
+            }
+            if (adjustment.getDelta() == 0 || adjustment.getDelta() == Integer.MIN_VALUE) {
+                throw new IllegalArgumentException("Invalid adjustment amount for item " + adjustment.getId());
+            }
+        }
+
+        List<AdjustmentResult> results = new ArrayList<>(adjustments.size());
+        long position;
+        writeLock.lock();
+        try {
+            //id -> latest state, so an id repeated in the batch sees the earlier adjustments to it
+            Map<String, StoredItem> changed = new LinkedHashMap<>();
+            for (StockAdjustment adjustment : adjustments) {
+                StoredItem stored = changed.getOrDefault(adjustment.getId(), byId.get(adjustment.getId()));
+                if (stored == null) {
+                    results.add(AdjustmentResult.NOT_FOUND);
+                    continue;
+                }
+                long quantity = (long) stored.item.getQuantity() + adjustment.getDelta();
+                if (quantity < 0 || quantity > Integer.MAX_VALUE) {
+                    results.add(AdjustmentResult.INSUFFICIENT_STOCK);
+                    continue;
+                }
+                changed.put(stored.id(), stored.withStock((int) quantity, stored.reserved));
+                results.add(AdjustmentResult.APPLIED);
+            }
+            //the indexes only change once the log holds the new states, so a failed append leaves nothing behind
+            position = appendPuts(new ArrayList<>(changed.values()));
+            for (StoredItem updated : changed.values()) {
+                byId.put(updated.id(), updated);
+            }
+        } finally {
+            writeLock.unlock();
+        }
+        afterWrite(position);
+        return results;
+    }
+
+    /**
+     * Updates the item if its version still matches the stored one
+     * @throws NoItemPresentException if the item is null or no item has its id
+     */
+    @Override
+    public boolean updateItem(IInventoryItem item) {
+        if (item == null) {
+            throw new NoItemPresentException();
+        }
+        if (item.getName() == null || item.getName().isBlank()) {
+            throw new EmptyItemNameException();
+        }
+
+        long position;
+        writeLock.lock();
+        try {
+            StoredItem stored = byId.get(item.getId());
+            if (stored == null) {
+                throw new NoItemPresentException();
+            }
+            if (stored.item.getVersion() != item.getVersion()) {
+                return false;
+            }
+            StoredItem updated = new StoredItem(new InventoryItem(item.getId(), item.getName(), item.getQuantity(),
+                    item.getPrice(), item.getVersion() + 1, item.getReorderPoint()), stored.reserved);
+            position = append(List.of(updated.toPutRecord()));
+            unindex(stored);
+            index(updated);
+        } finally {
+            writeLock.unlock();
+        }
+        afterWrite(position);
+        return true;
+    }
+
+    @Override
+    public StockSummary getStockSummary() {
+        int count = 0;
+        long units = 0;
+        double value = 0;
+        double min = Double.POSITIVE_INFINITY;
+        double max = Double.NEGATIVE_INFINITY;
+        for (StoredItem stored : byId.values()) {
+            IInventoryItem item = stored.item;
+            count++;
+            units += item.getQuantity();
+            value += item.getQuantity() * item.getPrice();
+            min = Math.min(min, item.getPrice());
+            max = Math.max(max, item.getPrice());
+        }
+        return count == 0 ? new StockSummary(0, 0, 0, Double.NaN, Double.NaN) : new StockSummary(count, units, value, min, max);
+    }
+
+    /**
+     * Finds the top items in one pass, keeping only the current top in a heap
+     */
+    @Override
+    public List<IInventoryItem> getTopItems(ItemRanking ranking, int limit) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("Limit must be greater than zero");
+        }
+
+        Comparator<IInventoryItem> order = Comparator.<IInventoryItem>comparingDouble(ranking::valueOf).reversed()
+                .thenComparing(IInventoryItem::getId);
+        PriorityQueue<StoredItem> top = new PriorityQueue<>(Comparator.comparing((StoredItem stored) -> stored.item, order.reversed()));
+        for (StoredItem stored : byId.values()) {
+            top.add(stored);
+            if (top.size() > limit) {
+                top.poll();
+            }
+        }
+        List<IInventoryItem> items = new ArrayList<>(top.size());
+        for (StoredItem stored : top) {
+            items.add(stored.detached());
+        }
+        items.sort(order);
+        return items;
+    }
+
+    //returns the number of items in the store
+    public int size() {
+        return byId.size();
+    }
+
+    /**
+     * Writes a snapshot of the live items and deletes the logs it makes redundant.
+     * Writers are only blocked while the store switches to a new log; the snapshot itself is written alongside them.
+     * @throws DataAccessException if the snapshot can't be written, in which case the logs are kept
+     */
+    public void compact() {
+        compactionLock.lock();
+        try {
+            List<StoredItem> items;
+            long snapshotGeneration;
+            writeLock.lock();
+            try {
+                //the items and the new generation are captured together, so the snapshot plus the logs from
+                //that generation on always hold exactly the current state
+                items = new ArrayList<>(byId.values());
+                ItemLog previous = log;
+                snapshotGeneration = generation + 1;
+                log = ItemLog.open(logFile(snapshotGeneration), previous.end(), record -> { });
+                generation = snapshotGeneration;
+                previous.close();
+            } finally {
+                writeLock.unlock();
+            }
+
+            Path file = catalogFile(snapshotGeneration);
+            MappedCatalog.write(file, snapshotGeneration, items);
+            MappedCatalog written = MappedCatalog.open(file);
+            //items nobody changed since they were captured move onto the new mapping; the rest are already off it
+            for (int i = 0; i < items.size(); i++) {
+                StoredItem captured = items.get(i);
+                byId.replace(captured.id(), captured, new StoredItem(written.get(i), captured.reserved));
+            }
+            if (retired != null) {
+                retired.close();
+            }
+            retired = catalog;
+            catalog = written;
+
+            deleteLogsBefore(snapshotGeneration);
+            deleteCatalogsBefore(snapshotGeneration);
+            Files.deleteIfExists(directory.resolve(LEGACY_SNAPSHOT_FILE));
+        } catch (IOException e) {
+            throw new DataAccessException("Failed to compact embedded store in " + directory, e);
+        } finally {
+            compactionLock.unlock();
+        }
+    }
+
+    /**
+     * Forces the log to disk and closes it, waiting for a running compaction to finish first.
+     * The snapshot mappings are released too, so the store can't be read once closed.
+     */
+    @Override
+    public void close() {
+        background.shutdown();
+        try {
+            background.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        writeLock.lock();
+        try {
+            log.close();
+        } catch (IOException e) {
+            throw new DataAccessException("Failed to close embedded store", e);
+        } finally {
+            writeLock.unlock();
+            compactionLock.lock();
+            try {
+                if (catalog != null) {
+                    catalog.close();
+                }
+                if (retired != null) {
+                    retired.close();
+                }
+            } finally {
+                compactionLock.unlock();
+            }
+        }
+    }
+
+    //Adds the items if none of their ids are taken
+    private boolean addAll(List<IInventoryItem> items) {
+        long position;
+        writeLock.lock();
+        try {
+            Set<String> ids = new HashSet<>();
+            List<StoredItem> fresh = new ArrayList<>(items.size());
+            for (IInventoryItem item : items) {
+                if (byId.containsKey(item.getId()) || !ids.add(item.getId())) {
+                    throw new ItemAlreadyExistsException();
+                }
+                fresh.add(toStored(item));
+            }
+            position = write(fresh);
+        } finally {
+            writeLock.unlock();
+        }
+        afterWrite(position);
+        return true;
+    }
+
+    //Must be called while holding the write lock
+    private List<StoredItem> withoutConflicts(List<IInventoryItem> items, Set<String> seen, List<String> conflicts) {
+        List<StoredItem> fresh = new ArrayList<>(items.size());
+        for (IInventoryItem item : items) {
+            if (byId.containsKey(item.getId()) || !seen.add(item.getId())) {
+                conflicts.add(item.getId());
+            } else {
+                fresh.add(toStored(item));
+            }
+        }
+        return fresh;
+    }
+
+    //Logs and indexes new items, must be called while holding the write lock
+    private long write(List<StoredItem> items) {
+        long position = appendPuts(items);
+        for (StoredItem stored : items) {
+            index(stored);
+        }
+        return position;
+    }
+
+    //Applies a conditional change to the quantity and reserved stock of one item
+    private boolean adjust(String id, int quantityDelta, int reservedDelta) {
+        long position;
+        writeLock.lock();
+        try {
+            StoredItem stored = byId.get(id);
+            if (stored == null) {
+                throw new NoItemPresentException();
+            }
+            long quantity = (long) stored.item.getQuantity() + quantityDelta;
+            long reserved = (long) stored.reserved + reservedDelta;
+            if (quantity < 0 || reserved < 0 || quantity > Integer.MAX_VALUE || reserved > Integer.MAX_VALUE) {
+                return false;
+            }
+            StoredItem updated = stored.withStock((int) quantity, (int) reserved);
+            position = append(List.of(updated.toPutRecord()));
+            byId.put(id, updated);
+        } finally {
+            writeLock.unlock();
+        }
+        afterWrite(position);
+        return true;
+    }
+
+    private long appendPuts(List<StoredItem> items) {
+        if (items.isEmpty()) {
+            return 0;
+        }
+        List<byte[]> records = new ArrayList<>(items.size());
+        for (StoredItem stored : items) {
+            records.add(stored.toPutRecord());
+        }
+        return append(records);
+    }
+
+    private long append(List<byte[]> records) {
+        try {
+            return log.append(records);
+        } catch (IOException e) {
+            throw new DataAccessException("Failed to write to the embedded store log", e);
+        }
+    }
+
+    //Waits for the log to reach disk when every write is synced, then starts a compaction if the log has grown too large
+    private void afterWrite(long position) {
+        if (position == 0) {
+            return;
+        }
+        if (syncOnWrite) {
+            try {
+                log.sync(position);
+            } catch (IOException e) {
+                throw new DataAccessException("Failed to sync the embedded store log", e);
+            }
+        }
+        if (log.size() >= compactionThreshold && !compactionLock.isLocked()) {
+            try {
+                background.execute(this::compactQuietly);
+            } catch (RejectedExecutionException e) {
+                //the store is closing
+            }
+        }
+    }
+
+    private void compactQuietly() {
+        //a write that raced past the threshold check may find the compaction already done
+        if (log.size() < compactionThreshold) {
+            return;
+        }
+        try {
+            compact();
+        } catch (RuntimeException e) {
+            System.err.println("Failed to compact the embedded store: " + e.getMessage());
+        }
+    }
+
+    private void syncQuietly() {
+        try {
+            log.syncAll();
+        } catch (IOException e) {
+            System.err.println("Failed to sync the embedded store log: " + e.getMessage());
+        }
+    }
+
+    //Loads the snapshot, replays the logs written since and opens the newest log for appending
+    private void recover() throws IOException {
+        //a compaction cut short leaves its temporary files behind
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*.tmp")) {
+            for (Path file : files) {
+                Files.deleteIfExists(file);
+            }
+        }
+        Path legacy = directory.resolve(LEGACY_LOG_FILE);
+        if (Files.exists(legacy)) {
+            Files.move(legacy, logFile(0), StandardCopyOption.ATOMIC_MOVE);
+        }
+
+        List<Long> catalogs = generations(CATALOG_SUFFIX);
+        Path legacySnapshot = directory.resolve(LEGACY_SNAPSHOT_FILE);
+        long first = 0;
+        if (!catalogs.isEmpty()) {
+            first = catalogs.get(catalogs.size() - 1);
+            loadCatalog(catalogFile(first));
+        } else if (Files.exists(legacySnapshot)) {
+            first = Snapshot.read(legacySnapshot, this::index);
+        }
+        //logs and snapshots older than the snapshot are left behind when a crash hits before their deletion
+        deleteLogsBefore(first);
+        deleteCatalogsBefore(first);
+
+        List<Long> generations = logGenerations();
+        long base = 0;
+        generation = first;
+        for (long logGeneration : generations) {
+            ItemLog replayed = ItemLog.open(logFile(logGeneration), base, this::replay);
+            generation = logGeneration;
+            if (logGeneration == generations.get(generations.size() - 1)) {
+                log = replayed;
+            } else {
+                base = replayed.end();
+                replayed.close();
+            }
+        }
+        if (log == null) {
+            log = ItemLog.open(logFile(generation), 0, this::replay);
+        }
+    }
+
+    //Maps the snapshot and indexes its items as views over the mapping
+    private void loadCatalog(Path file) throws IOException {
+        MappedCatalog loaded = MappedCatalog.open(file);
+        try {
+            loaded.verify();
+            for (long i = 0; i < loaded.size(); i++) {
+                index(new StoredItem(loaded.get(i), loaded.getReserved(i)));
+            }
+        } catch (IOException | RuntimeException e) {
+            loaded.close();
+            throw e;
+        }
+        catalog = loaded;
+    }
+
+    private Path logFile(long logGeneration) {
+        return directory.resolve(String.format("%s%016d%s", LOG_PREFIX, logGeneration, LOG_SUFFIX));
+    }
+
+    //Snapshots are named after the first log they don't cover, so a new one never replaces a file that is mapped
+    private Path catalogFile(long logGeneration) {
+        return directory.resolve(String.format("%s%016d%s", LOG_PREFIX, logGeneration, CATALOG_SUFFIX));
+    }
+
+    //returns the generations of the log files in the directory in ascending order
+    private List<Long> logGenerations() throws IOException {
+        return generations(LOG_SUFFIX);
+    }
+
+    //returns the generations of the store's files with the suffix in ascending order
+    private List<Long> generations(String suffix) throws IOException {
+        List<Long> generations = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, LOG_PREFIX + "*" + suffix)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                try {
+                    generations.add(Long.parseLong(name.substring(LOG_PREFIX.length(), name.length() - suffix.length())));
+                } catch (NumberFormatException e) {
+                    //not one of ours
+                }
+            }
+        }
+        Collections.sort(generations);
+        return generations;
+    }
+
+    private void deleteLogsBefore(long logGeneration) throws IOException {
+        for (long older : logGenerations()) {
+            if (older < logGeneration) {
+                Files.deleteIfExists(logFile(older));
+            }
+        }
+    }
+
+    //Deletes the snapshots older than the generation. One still mapped can't be deleted on every platform,
+    //in which case it is left for a later compaction or the next start
+    private void deleteCatalogsBefore(long logGeneration) throws IOException {
+        for (long older : generations(CATALOG_SUFFIX)) {
+            if (older < logGeneration) {
+                try {
+                    Files.deleteIfExists(catalogFile(older));
+                } catch (IOException e) {
+                    System.err.println("Could not delete old snapshot " + catalogFile(older) + ": " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    //Applies one log record during startup
+    private void replay(ByteBuffer record) {
+        byte type = record.get();
+        switch (type) {
+            case StoredItem.PUT -> {
+                StoredItem stored = StoredItem.readPut(record);
+                StoredItem previous = byId.get(stored.id());
+                if (previous != null) {
+                    unindex(previous);
+                }
+                index(stored);
+            }
+            case StoredItem.DELETE -> {
+                StoredItem previous = byId.get(StoredItem.readString(record));
+                if (previous != null) {
+                    unindex(previous);
+                }
+            }
+            default -> throw new DataCorruptionException("Unknown record type " + type + " in embedded store log");
+        }
+    }
+
+    private void index(StoredItem stored) {
+        byId.put(stored.id(), stored);
+        byName.computeIfAbsent(Names.normalize(stored.item.getName()), key -> new ConcurrentSkipListSet<>())
+                .add(stored.id());
+    }
+
+    private void unindex(StoredItem stored) {
+        byId.remove(stored.id());
+        byName.computeIfPresent(Names.normalize(stored.item.getName()), (key, ids) -> {
+            ids.remove(stored.id());
+            return ids.isEmpty() ? null : ids;
+        });
+    }
+
+    private static StoredItem toStored(IInventoryItem item) {
+        InventoryItem copy = item instanceof InventoryItem inventoryItem && inventoryItem.getVersion() == 0
+                ? inventoryItem
+                : new InventoryItem(item.getId(), item.getName(), item.getQuantity(), item.getPrice(), 0, item.getReorderPoint());
+        return new StoredItem(copy, 0);
+    }
+
+    private static void validateAdjustment(String id, int amount) {
+        if (id == null || id.isBlank()) {
+            throw new EmptyItemNameException();
+        }
+        if (amount <= 0) {
+            throw new IllegalArgumentException("Amount must be greater than zero");
+        }
+    }
+
+    //Builds an item holding the cursor's position so it can be compared with the comparator
+    private static IInventoryItem probe(ItemSort sort, PageCursor cursor) {
+        try {
+            return switch (sort) {
+                case NAME -> new InventoryItem(cursor.getId(), cursor.getSortValue(), 0, 0);
+                case QUANTITY -> new InventoryItem(cursor.getId(), "", Integer.parseInt(cursor.getSortValue()), 0);
+                case PRICE -> new InventoryItem(cursor.getId(), "", 0, Double.parseDouble(cursor.getSortValue()));
+                case ID -> new InventoryItem(cursor.getId(), "", 0, 0);
+            };
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid page cursor");
+        }
+    }
+}
@@ -0,0 +1,224 @@
+package repository.embedded;
+
+import exceptions.DataCorruptionException;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only log file of the embedded store.
+ * Every record is framed as [int length][int crc32][payload], so a write torn by a crash is detected
+ * on replay and cut off. Only the last record of the file can be torn; a bad record with intact data after it
+ * is corruption and fails the replay rather than silently dropping everything behind it.
+ * Appends only reach the OS page cache; sync forces them to disk, and callers that sync at the same time
+ * share a single fsync (group commit).
+ *
+ * Positions are logical: a log continuing an earlier one starts counting from that log's end, so a position
+ * handed out by a log that has since been closed is already covered by its successor.
+ */
+final class ItemLog implements Closeable {
+    private static final int HEADER_SIZE = 8;
+
+    private final Path file;
+    private final FileChannel channel;
+    //Logical position of the start of the file
+    private final long base;
+    //End of the last appended record
+    private volatile long written;
+    //End of the last record known to be on disk
+    private volatile long synced;
+    private final Object syncLock = new Object();
+
+    private ItemLog(Path file, FileChannel channel, long base, long end) {
+        this.file = file;
+        this.channel = channel;
+        this.base = base;
+        this.written = base + end;
+        this.synced = base + end;
+    }
+
+    /**
+     * Opens the log, replaying every intact record and cutting off a torn tail
+     * @param file Log file, created if it doesn't exist
+     * @param base Logical position the file starts at, the end of the log it continues
+     * @param replay Receives the payload of every record in order
+     * @return the log positioned after its last intact record
+     * @throws DataCorruptionException if a record fails its checksum and is not the last one in the file,
+     * or a record header holds a length no record can have
+     */
+    static ItemLog open(Path file, long base, Consumer<ByteBuffer> replay) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            long end = replay(channel, file, replay);
+            if (end < channel.size()) {
+                System.err.println("Discarding " + (channel.size() - end) + " bytes of incomplete log records in " + file);
+                channel.truncate(end);
+                channel.force(true);
+            }
+            channel.position(end);
+            return new ItemLog(file, channel, base, end);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Appends records without forcing them to disk
+     * @param payloads Payloads to append, written back to back
+     * @return the log position after the last record, to pass to sync
+     */
+    synchronized long append(List<byte[]> payloads) throws IOException {
+        int size = 0;
+        for (byte[] payload : payloads) {
+            size += HEADER_SIZE + payload.length;
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate(size);
+        CRC32 crc = new CRC32();
+        for (byte[] payload : payloads) {
+            crc.reset();
+            crc.update(payload);
+            buffer.putInt(payload.length).putInt((int) crc.getValue()).put(payload);
+        }
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+
+        written = base + channel.position();
+        return written;
+    }
+
+    /**
+     * Makes sure everything up to the position is on disk.
+     * If another thread is already syncing, this waits for it and only syncs again if that didn't cover the position.
+     * @param position Position returned by append
+     */
+    void sync(long position) throws IOException {
+        if (synced >= position) {
+            return;
+        }
+        synchronized (syncLock) {
+            if (synced >= position) {
+                return;
+            }
+            long target = written;
+            channel.force(false);
+            synced = target;
+        }
+    }
+
+    //Forces everything appended so far to disk
+    void syncAll() throws IOException {
+        sync(written);
+    }
+
+    //returns the size of the log file in bytes
+    long size() {
+        return written - base;
+    }
+
+    //returns the logical position after the last appended record
+    long end() {
+        return written;
+    }
+
+    Path getFile() {
+        return file;
+    }
+
+    /**
+     * Forces the log to disk and closes it. Syncs that arrive afterwards find their position already synced.
+     */
+    @Override
+    public void close() throws IOException {
+        synchronized (syncLock) {
+            try {
+                if (channel.isOpen()) {
+                    channel.force(false);
+                    synced = written;
+                }
+            } finally {
+                channel.close();
+            }
+        }
+    }
+
+    //Reads records from the start of the channel and returns the end of the last intact one
+    private static long replay(FileChannel channel, Path file, Consumer<ByteBuffer> replay) throws IOException {
+        long size = channel.size();
+        long position = 0;
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        CRC32 crc = new CRC32();
+
+        while (position + HEADER_SIZE <= size) {
+            header.clear();
+            readFully(channel, header, position);
+            header.flip();
+            int length = header.getInt();
+            int checksum = header.getInt();
+            if (length <= 0 || length > StoredItem.MAX_RECORD_SIZE) {
+                //a crash can leave the end of the file zero filled, anything else means the header itself is damaged
+                if (isZeroFilled(channel, position, size)) {
+                    break;
+                }
+                throw new DataCorruptionException("Log " + file + " holds a record with an invalid length at byte " + position);
+            }
+            //with the length in bounds, running past the end leaves less than one record behind it, so this is the torn last record
+            if (position + HEADER_SIZE + length > size) {
+                break;
+            }
+
+            ByteBuffer payload = ByteBuffer.allocate(length);
+            readFully(channel, payload, position + HEADER_SIZE);
+            payload.flip();
+            crc.reset();
+            crc.update(payload.duplicate());
+            if ((int) crc.getValue() != checksum) {
+                if (position + HEADER_SIZE + length == size) {
+                    break;
+                }
+                throw new DataCorruptionException("Log " + file + " failed its checksum at byte " + position
+                        + " with " + (size - position - HEADER_SIZE - length) + " bytes of records after it");
+            }
+
+            replay.accept(payload);
+            position += HEADER_SIZE + length;
+        }
+        return position;
+    }
+
+    //returns true if every byte from the position to the end of the file is zero
+    private static boolean isZeroFilled(FileChannel channel, long position, long size) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(8192);
+        while (position < size) {
+            buffer.clear().limit((int) Math.min(buffer.capacity(), size - position));
+            readFully(channel, buffer, position);
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                if (buffer.get() != 0) {
+                    return false;
+                }
+            }
+            position += buffer.limit();
+        }
+        return true;
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position + buffer.position());
+            if (read < 0) {
+                throw new IOException("Unexpected end of log file");
+            }
+        }
+    }
+}
@@ -0,0 +1,397 @@
+package repository.embedded;
+
+import exceptions.DataCorruptionException;
+import model.IInventoryItem;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Collection;
+import java.util.zip.CRC32;
+
+/**
+ * Snapshot of the embedded store served straight from a memory-mapped file.
+ * Opening a catalog only maps the file and checks its header, and items are never loaded onto the heap:
+ * every item read from it is a small view that reads its fields from the mapping when asked, with the OS paging
+ * the data in and out as needed.
+ *
+ * Layout, all numbers big-endian:
+ * [int magic][int format][int region size][int crc32 of everything after the header][long count]
+ * [long offset table position][long log generation], then the records, then an offset table holding the position
+ * of every record as a long. The log generation is the first log whose records are not part of the catalog.
+ * A record is [int quantity][double price][long version][int reorder point][int reserved]
+ * [short id length][id UTF-8][short name length][name UTF-8], so the numeric fields sit at fixed offsets and are
+ * read without decoding the strings.
+ *
+ * A single mapping can't exceed 2GB, so the file is mapped in regions and the writer pads so that no record
+ * or offset crosses a region boundary.
+ *
+ * Closing a catalog drops its mappings, which are unmapped once the views still in use are gone; a view
+ * read after that throws IllegalStateException, so views must not be handed out beyond the store.
+ */
+final class MappedCatalog implements AutoCloseable {
+    private static final int MAGIC = 0x494E5643;
+    private static final int FORMAT = 3;
+    private static final int HEADER_SIZE = 40;
+    private static final int FIXED_FIELDS_SIZE = 28;
+    static final int DEFAULT_REGION_SIZE = 1 << 30;
+
+    private final Path file;
+    //null once closed
+    private volatile MappedByteBuffer[] regions;
+    private final int regionShift;
+    private final long regionMask;
+    private final int checksum;
+    private final long count;
+    private final long offsetTable;
+    private final long logGeneration;
+
+    private MappedCatalog(Path file, MappedByteBuffer[] regions, int regionSize, int checksum, long count,
+                          long offsetTable, long logGeneration) {
+        this.file = file;
+        this.regions = regions;
+        this.regionShift = Integer.numberOfTrailingZeros(regionSize);
+        this.regionMask = regionSize - 1;
+        this.checksum = checksum;
+        this.count = count;
+        this.offsetTable = offsetTable;
+        this.logGeneration = logGeneration;
+    }
+
+    /**
+     * Writes the items to a new catalog file, which only appears under its name once complete
+     * @param file Catalog file, which must not exist yet
+     * @param logGeneration First log generation not covered by the items
+     * @param items Live items to store, in id order
+     */
+    static void write(Path file, long logGeneration, Collection<StoredItem> items) throws IOException {
+        write(file, logGeneration, items, DEFAULT_REGION_SIZE);
+    }
+
+    static void write(Path file, long logGeneration, Collection<StoredItem> items, int regionSize) throws IOException {
+        if (Integer.bitCount(regionSize) != 1 || regionSize < 1 << 16) {
+            throw new IllegalArgumentException("Region size must be a power of two of at least 64KB");
+        }
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        Path offsets = file.resolveSibling(file.getFileName() + ".offsets.tmp");
+
+        try {
+            writeTemp(temp, offsets, logGeneration, items, regionSize);
+            //moved once closed, since not every platform can rename an open file
+            Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE);
+            syncDirectory(file.getParent());
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    private static void writeTemp(Path temp, Path offsets, long logGeneration, Collection<StoredItem> items, int regionSize) throws IOException {
+        try (FileChannel out = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.READ, StandardOpenOption.TRUNCATE_EXISTING);
+             FileChannel offsetOut = FileChannel.open(offsets, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                     StandardOpenOption.READ, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.DELETE_ON_CLOSE)) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 20);
+            ByteBuffer offsetBuffer = ByteBuffer.allocateDirect(1 << 16);
+            //the header is filled in once the counts are known
+            long position = pad(out, buffer, 0, HEADER_SIZE);
+
+            for (StoredItem stored : items) {
+                IInventoryItem item = stored.item;
+                byte[] id = utf8(item.getId());
+                byte[] name = utf8(item.getName());
+                int size = FIXED_FIELDS_SIZE + 2 + id.length + 2 + name.length;
+
+                //records never straddle a region, so pad up to the next one when this record doesn't fit
+                long regionEnd = (position / regionSize + 1) * regionSize;
+                if (position + size > regionEnd) {
+                    position = pad(out, buffer, position, regionEnd);
+                }
+                if (buffer.remaining() < size) {
+                    drain(out, buffer);
+                }
+                buffer.putInt(item.getQuantity()).putDouble(item.getPrice()).putLong(item.getVersion())
+                        .putInt(item.getReorderPoint()).putInt(stored.reserved)
+                        .putShort((short) id.length).put(id).putShort((short) name.length).put(name);
+
+                if (!offsetBuffer.hasRemaining()) {
+                    drain(offsetOut, offsetBuffer);
+                }
+                offsetBuffer.putLong(position);
+                position += size;
+            }
+
+            //offsets are 8 bytes and regions a power of two, so an aligned table never straddles a region
+            long offsetTable = pad(out, buffer, position, (position + 7) & ~7L);
+            drain(out, buffer);
+            drain(offsetOut, offsetBuffer);
+            out.position(out.size());
+            long copied = 0;
+            long offsetsSize = offsetOut.size();
+            while (copied < offsetsSize) {
+                copied += offsetOut.transferTo(copied, offsetsSize - copied, out);
+            }
+
+            buffer.clear();
+            buffer.putInt(MAGIC).putInt(FORMAT).putInt(regionSize).putInt(checksum(out, out.size()))
+                    .putLong(items.size()).putLong(offsetTable).putLong(logGeneration).flip();
+            long at = 0;
+            while (buffer.hasRemaining()) {
+                at += out.write(buffer, at);
+            }
+            out.force(true);
+        }
+    }
+
+    /**
+     * Maps a catalog file. Only the header is read, the records are paged in on access.
+     * @param file Catalog file written by write
+     * @throws DataCorruptionException if the file is not a catalog or is shorter than its header says
+     */
+    static MappedCatalog open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_SIZE) {
+                throw new DataCorruptionException("Catalog " + file + " is too short to be a catalog");
+            }
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            while (header.hasRemaining()) {
+                if (channel.read(header, header.position()) < 0) {
+                    throw new DataCorruptionException("Catalog " + file + " is too short to be a catalog");
+                }
+            }
+            header.flip();
+            if (header.getInt() != MAGIC || header.getInt() != FORMAT) {
+                throw new DataCorruptionException("Catalog " + file + " is not a supported catalog file");
+            }
+            int regionSize = header.getInt();
+            int checksum = header.getInt();
+            long count = header.getLong();
+            long offsetTable = header.getLong();
+            long logGeneration = header.getLong();
+            if (Integer.bitCount(regionSize) != 1 || count < 0 || offsetTable < HEADER_SIZE
+                    || offsetTable + count * Long.BYTES != size) {
+                throw new DataCorruptionException("Catalog " + file + " has an invalid header");
+            }
+
+            MappedByteBuffer[] regions = new MappedByteBuffer[(int) ((size + regionSize - 1) / regionSize)];
+            for (int i = 0; i < regions.length; i++) {
+                long start = (long) i * regionSize;
+                regions[i] = channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(regionSize, size - start));
+            }
+            //the mappings stay valid after the channel is closed
+            return new MappedCatalog(file, regions, regionSize, checksum, count, offsetTable, logGeneration);
+        }
+    }
+
+    /**
+     * Checks the records against the checksum in the header, which reads the whole file
+     * @throws DataCorruptionException if they don't match
+     */
+    void verify() throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (checksum(channel, channel.size()) != checksum) {
+                throw new DataCorruptionException("Catalog " + file + " failed its checksum");
+            }
+        }
+    }
+
+    //returns the number of items in the catalog
+    long size() {
+        return count;
+    }
+
+    //returns the first log generation not covered by the catalog
+    long getLogGeneration() {
+        return logGeneration;
+    }
+
+    /**
+     * Returns a view of the item at the index, in the order the items were written
+     * @throws IndexOutOfBoundsException if there is no item at the index
+     */
+    IInventoryItem get(long index) {
+        return new ItemView(recordAt(checkIndex(index)));
+    }
+
+    //returns the reserved stock of the item at the index
+    int getReserved(long index) {
+        return getInt(recordAt(checkIndex(index)) + 24);
+    }
+
+    Path getFile() {
+        return file;
+    }
+
+    /**
+     * Drops the mappings, which the JVM unmaps once no view refers to them any more
+     */
+    @Override
+    public void close() {
+        regions = null;
+    }
+
+    private long checkIndex(long index) {
+        if (index < 0 || index >= count) {
+            throw new IndexOutOfBoundsException("Item " + index + " of " + count);
+        }
+        return index;
+    }
+
+    //returns the position of the record at the index
+    private long recordAt(long index) {
+        return getLong(offsetTable + index * Long.BYTES);
+    }
+
+    private String idAt(long record) {
+        return getString(record + FIXED_FIELDS_SIZE);
+    }
+
+    private ByteBuffer region(long position) {
+        MappedByteBuffer[] mapped = regions;
+        if (mapped == null) {
+            throw new IllegalStateException("Catalog " + file + " is closed");
+        }
+        return mapped[(int) (position >>> regionShift)];
+    }
+
+    private int getInt(long position) {
+        return region(position).getInt((int) (position & regionMask));
+    }
+
+    private long getLong(long position) {
+        return region(position).getLong((int) (position & regionMask));
+    }
+
+    private double getDouble(long position) {
+        return region(position).getDouble((int) (position & regionMask));
+    }
+
+    private String getString(long position) {
+        ByteBuffer region = region(position);
+        int offset = (int) (position & regionMask);
+        int length = region.getShort(offset) & 0xFFFF;
+        byte[] bytes = new byte[length];
+        region.get(offset + 2, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static byte[] utf8(String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > 0xFFFF) {
+            throw new IllegalArgumentException("Text is too long to store: " + value.substring(0, 20) + "...");
+        }
+        return bytes;
+    }
+
+    //returns the CRC32 of everything after the header; read rather than mapped, so no mapping outlives the call
+    private static int checksum(FileChannel channel, long size) throws IOException {
+        CRC32 crc = new CRC32();
+        ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 20);
+        long position = HEADER_SIZE;
+        while (position < size) {
+            buffer.clear();
+            int read = channel.read(buffer, position);
+            if (read < 0) {
+                throw new IOException("Unexpected end of catalog file");
+            }
+            buffer.flip();
+            crc.update(buffer);
+            position += read;
+        }
+        return (int) crc.getValue();
+    }
+
+    private static long pad(FileChannel out, ByteBuffer buffer, long position, long target) throws IOException {
+        while (position < target) {
+            if (!buffer.hasRemaining()) {
+                drain(out, buffer);
+            }
+            int zeros = (int) Math.min(target - position, buffer.remaining());
+            for (int i = 0; i < zeros; i++) {
+                buffer.put((byte) 0);
+            }
+            position += zeros;
+        }
+        return position;
+    }
+
+    private static void drain(FileChannel out, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            out.write(buffer, out.size());
+        }
+        buffer.clear();
+    }
+
+    //Makes a rename in the directory durable; not every platform allows opening a directory, so failures are ignored
+    private static void syncDirectory(Path directory) {
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            //the rename is still atomic, only its durability before the next OS flush is lost
+        }
+    }
+
+    /**
+     * Flyweight item that holds only the position of its record and reads every field from the mapping on access
+     */
+    private final class ItemView implements IInventoryItem {
+        private final long record;
+
+        private ItemView(long record) {
+            this.record = record;
+        }
+
+        @Override
+        public String getId() {
+            return idAt(record);
+        }
+
+        @Override
+        public String getName() {
+            return getString(record + FIXED_FIELDS_SIZE + 2 + getIdLength());
+        }
+
+        @Override
+        public int getQuantity() {
+            return getInt(record);
+        }
+
+        @Override
+        public double getPrice() {
+            return getDouble(record + 4);
+        }
+
+        @Override
+        public long getVersion() {
+            return getLong(record + 12);
+        }
+
+        @Override
+        public int getReorderPoint() {
+            return getInt(record + 20);
+        }
+
+        private int getIdLength() {
+            return region(record).getShort((int) ((record + FIXED_FIELDS_SIZE) & regionMask)) & 0xFFFF;
+        }
+
+        @Override
+        public String toString() {
+            return "InventoryItem{" +
+                    "id=" + getId() +
+                    ", name='" + getName() + '\'' +
+                    ", quantity=" + getQuantity() +
+                    ", price=" + getPrice() +
+                    ", version=" + getVersion() +
+                    ", reorderPoint=" + getReorderPoint() +
+                    '}';
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package repository.embedded;
+
+import exceptions.DataCorruptionException;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+
+/**
+ * Point in time image of every live item in the embedded store, as written before the mapped catalog replaced it.
+ * Layout: [int magic][int format][long log generation][int count], then count records each framed as
+ * [int length][PUT record], and finally an int CRC32 of everything before it. The log generation is the
+ * first log whose records are not part of the snapshot.
+ *
+ * Only read, to open a store written by an older version; its first compaction writes a catalog instead.
+ */
+final class Snapshot {
+    private static final int MAGIC = 0x494E5653;
+    private static final int FORMAT = 1;
+    private static final int HEADER_SIZE = 20;
+    private static final int TRAILER_SIZE = 4;
+
+    private Snapshot() {
+    }
+
+    /**
+     * Maps the snapshot and passes every item it holds to the consumer
+     * @param file Snapshot file
+     * @param consumer Receives the items in the order they were written
+     * @return the first log generation not covered by the snapshot
+     * @throws DataCorruptionException if the file is truncated, not a snapshot, or fails its checksum
+     */
+    static long read(Path file, Consumer<StoredItem> consumer) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_SIZE + TRAILER_SIZE || size > Integer.MAX_VALUE) {
+                throw new DataCorruptionException("Snapshot " + file + " has an invalid size of " + size + " bytes");
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+
+            CRC32 crc = new CRC32();
+            crc.update(buffer.slice(0, (int) size - TRAILER_SIZE));
+            if ((int) crc.getValue() != buffer.getInt((int) size - TRAILER_SIZE)) {
+                throw new DataCorruptionException("Snapshot " + file + " failed its checksum");
+            }
+            if (buffer.getInt() != MAGIC || buffer.getInt() != FORMAT) {
+                throw new DataCorruptionException("Snapshot " + file + " is not a supported snapshot file");
+            }
+
+            long logGeneration = buffer.getLong();
+            int count = buffer.getInt();
+            buffer.limit((int) size - TRAILER_SIZE);
+            try {
+                for (int i = 0; i < count; i++) {
+                    int length = buffer.getInt();
+                    ByteBuffer record = buffer.slice(buffer.position(), length);
+                    buffer.position(buffer.position() + length);
+                    if (record.get() != StoredItem.PUT) {
+                        throw new DataCorruptionException("Snapshot " + file + " holds an unknown record type");
+                    }
+                    consumer.accept(StoredItem.readPut(record));
+                }
+            } catch (BufferUnderflowException | IndexOutOfBoundsException | IllegalArgumentException e) {
+                throw new DataCorruptionException("Snapshot " + file + " holds a malformed record", e);
+            }
+            return logGeneration;
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package repository.embedded;
+
+import model.IInventoryItem;
+import model.InventoryItem;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * An item as kept by the embedded store: the immutable item, or a view of it in the mapped catalog, plus its
+ * reserved stock. Also knows how to write itself to, and read itself from, the log.
+ */
+final class StoredItem {
+    static final byte PUT = 1;
+    static final byte DELETE = 2;
+    //Largest record an item can produce: a PUT with its id and name at the longest writeString allows
+    static final int MAX_RECORD_SIZE = 1 + 2 * (2 + 0xFFFF) + Integer.BYTES + Double.BYTES + Integer.BYTES + Long.BYTES + Integer.BYTES;
+
+    final IInventoryItem item;
+    final int reserved;
+
+    StoredItem(IInventoryItem item, int reserved) {
+        this.item = item;
+        this.reserved = reserved;
+    }
+
+    String id() {
+        return item.getId();
+    }
+
+    //returns the item to hand to callers, copied off the mapping if it is a catalog view so it outlives the catalog
+    IInventoryItem detached() {
+        return item instanceof InventoryItem ? item : new InventoryItem(item.getId(), item.getName(),
+                item.getQuantity(), item.getPrice(), item.getVersion(), item.getReorderPoint());
+    }
+
+    //Returns a copy with the quantity, reserved stock and version changed
+    StoredItem withStock(int quantity, int reserved) {
+        return new StoredItem(new InventoryItem(item.getId(), item.getName(), quantity, item.getPrice(),
+                item.getVersion() + 1, item.getReorderPoint()), reserved);
+    }
+
+    //Log record that stores this item, replacing any earlier record with the same id
+    byte[] toPutRecord() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(PUT);
+            writeString(out, item.getId());
+            writeString(out, item.getName());
+            out.writeInt(item.getQuantity());
+            out.writeDouble(item.getPrice());
+            out.writeInt(reserved);
+            out.writeLong(item.getVersion());
+            out.writeInt(item.getReorderPoint());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    //Log record that removes the item with the id
+    static byte[] toDeleteRecord(String id) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(32);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(DELETE);
+            writeString(out, id);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Reads the item of a PUT record, positioned after the type byte.
+     * The buffer must end with the record, since records written before reorder points existed end after the version.
+     */
+    static StoredItem readPut(ByteBuffer in) {
+        String id = readString(in);
+        String name = readString(in);
+        int quantity = in.getInt();
+        double price = in.getDouble();
+        int reserved = in.getInt();
+        long version = in.getLong();
+        int reorderPoint = in.remaining() >= Integer.BYTES ? in.getInt() : 0;
+        return new StoredItem(new InventoryItem(id, name, quantity, price, version, reorderPoint), reserved);
+    }
+
+    //Writes a string as its UTF-8 length followed by its UTF-8 bytes
+    static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > 0xFFFF) {
+            throw new IllegalArgumentException("Text is too long to store: " + value.substring(0, 20) + "...");
+        }
+        out.writeShort(bytes.length);
+        out.write(bytes);
+    }
+
+    //Reads a string written by writeString
+    static String readString(ByteBuffer in) {
+        int length = in.getShort() & 0xFFFF;
+        byte[] bytes = new byte[length];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,41 @@
+package repository.ledger;
+
+import model.InventoryItem;
+
+/**
+ * Current state of one item in the ledger's projection: the immutable item handed to callers plus its reserved stock.
+ */
+public final class ItemState {
+    private final InventoryItem item;
+    private final int reserved;
+
+    public ItemState(InventoryItem item, int reserved) {
+        this.item = item;
+        this.reserved = reserved;
+    }
+
+    //State of a new item from its CREATED event
+    static ItemState of(LedgerEvent created) {
+        return new ItemState(new InventoryItem(created.getItemId(), created.getName(), created.getQuantityDelta(),
+                created.getPrice(), 0, created.getReorderPoint()), 0);
+    }
+
+    //Returns the state after a RECEIVED, SHIPPED or ADJUSTED event, with the version bumped
+    ItemState apply(LedgerEvent event) {
+        boolean details = event.hasDetails();
+        return new ItemState(new InventoryItem(item.getId(),
+                details ? event.getName() : item.getName(),
+                item.getQuantity() + event.getQuantityDelta(),
+                details ? event.getPrice() : item.getPrice(),
+                item.getVersion() + 1,
+                details ? event.getReorderPoint() : item.getReorderPoint()), reserved + event.getReservedDelta());
+    }
+
+    public InventoryItem getItem() {
+        return item;
+    }
+
+    public int getReserved() {
+        return reserved;
+    }
+}
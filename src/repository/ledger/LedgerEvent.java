@@ -0,0 +1,130 @@
+package repository.ledger;
+
+import model.IInventoryItem;
+
+/**
+ * One entry of the stock ledger.
+ * CREATED events, and ADJUSTED events that change an item's details, carry the name, price and reorder point;
+ * every other event carries only the id and the stock deltas. Events created by the factory methods have
+ * sequence number 0 until the ledger numbers them.
+ */
+public class LedgerEvent {
+    private final long seq;
+    private final LedgerEventType type;
+    private final String itemId;
+    private final String name;
+    private final int quantityDelta;
+    private final int reservedDelta;
+    private final double price;
+    private final int reorderPoint;
+    private final long timestamp;
+
+    public LedgerEvent(long seq, LedgerEventType type, String itemId, String name, int quantityDelta, int reservedDelta,
+                       double price, int reorderPoint, long timestamp) {
+        this.seq = seq;
+        this.type = type;
+        this.itemId = itemId;
+        this.name = name;
+        this.quantityDelta = quantityDelta;
+        this.reservedDelta = reservedDelta;
+        this.price = price;
+        this.reorderPoint = reorderPoint;
+        this.timestamp = timestamp;
+    }
+
+    public static LedgerEvent created(IInventoryItem item) {
+        return new LedgerEvent(0, LedgerEventType.CREATED, item.getId(), item.getName(), item.getQuantity(), 0,
+                item.getPrice(), item.getReorderPoint(), System.currentTimeMillis());
+    }
+
+    public static LedgerEvent received(String id, int amount) {
+        return stock(LedgerEventType.RECEIVED, id, amount, 0);
+    }
+
+    public static LedgerEvent shipped(String id, int amount) {
+        return stock(LedgerEventType.SHIPPED, id, -amount, 0);
+    }
+
+    public static LedgerEvent adjusted(String id, int quantityDelta, int reservedDelta) {
+        return stock(LedgerEventType.ADJUSTED, id, quantityDelta, reservedDelta);
+    }
+
+    //An ADJUSTED event overwriting the item's details, quantityDelta moving the quantity to the item's new one
+    public static LedgerEvent revised(IInventoryItem item, int quantityDelta) {
+        return new LedgerEvent(0, LedgerEventType.ADJUSTED, item.getId(), item.getName(), quantityDelta, 0,
+                item.getPrice(), item.getReorderPoint(), System.currentTimeMillis());
+    }
+
+    public static LedgerEvent removed(String id) {
+        return stock(LedgerEventType.REMOVED, id, 0, 0);
+    }
+
+    private static LedgerEvent stock(LedgerEventType type, String id, int quantityDelta, int reservedDelta) {
+        return new LedgerEvent(0, type, id, null, quantityDelta, reservedDelta, 0, 0, System.currentTimeMillis());
+    }
+
+    //Returns a copy numbered with its place in the ledger
+    LedgerEvent withSeq(long seq) {
+        return new LedgerEvent(seq, type, itemId, name, quantityDelta, reservedDelta, price, reorderPoint, timestamp);
+    }
+
+    //returns the position of the event in the ledger, increasing by one per event
+    public long getSeq() {
+        return seq;
+    }
+
+    public LedgerEventType getType() {
+        return type;
+    }
+
+    public String getItemId() {
+        return itemId;
+    }
+
+    //returns true if the event sets the item's name, price and reorder point
+    public boolean hasDetails() {
+        return name != null;
+    }
+
+    //returns the item name when the event has details, null otherwise
+    public String getName() {
+        return name;
+    }
+
+    //returns the change in available quantity, the opening quantity for CREATED events
+    public int getQuantityDelta() {
+        return quantityDelta;
+    }
+
+    //returns the change in reserved quantity
+    public int getReservedDelta() {
+        return reservedDelta;
+    }
+
+    //returns the item price when the event has details
+    public double getPrice() {
+        return price;
+    }
+
+    //returns the item reorder point when the event has details
+    public int getReorderPoint() {
+        return reorderPoint;
+    }
+
+    //returns when the event was recorded, in milliseconds since the epoch
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    @Override
+    public String toString() {
+        return "LedgerEvent{" +
+                "seq=" + seq +
+                ", type=" + type +
+                ", itemId=" + itemId +
+                (name != null ? ", name='" + name + '\'' + ", price=" + price : "") +
+                ", quantityDelta=" + quantityDelta +
+                ", reservedDelta=" + reservedDelta +
+                '}';
+    }
+}
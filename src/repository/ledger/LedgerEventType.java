@@ -0,0 +1,17 @@
+package repository.ledger;
+
+/**
+ * Kind of stock movement recorded in the ledger
+ */
+public enum LedgerEventType {
+    //a new item with its opening stock
+    CREATED,
+    //stock arrived, quantityDelta is positive
+    RECEIVED,
+    //stock left, quantityDelta is negative
+    SHIPPED,
+    //any other change: a stock correction, a reservation moving stock, or new item details
+    ADJUSTED,
+    //the item was deleted
+    REMOVED
+}
@@ -0,0 +1,607 @@
+package repository.ledger;
+
+import analytics.StockSummary;
+import changefeed.ChangeEvent;
+import exceptions.DataAccessException;
+import exceptions.EmptyItemNameException;
+import exceptions.ItemAlreadyExistsException;
+import exceptions.NoItemPresentException;
+import model.AdjustmentResult;
+import model.IInventoryItem;
+import model.InventoryItem;
+import model.ItemPage;
+import model.ItemRanking;
+import model.ItemSort;
+import model.StockAdjustment;
+import repository.BulkLoadOptions;
+import repository.BulkLoadReport;
+import repository.IRepo;
+import util.Names;
+
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+
+/**
+ * Event-sourced repository: every change is an event appended to the stock ledger, and the current stock is
+ * derived from the events.
+ *
+ * Writes are checked against an in-memory projection of the current state under a single write lock, their events
+ * are appended to the ledger in one batch per call, and only then applied to the projection. getItem, getItems and
+ * streamItems read the projection, so they always see every committed write. A background fold applies the ledger
+ * to the inventory table in batches, which getPage, getStockSummary and getTopItems read through the view
+ * repository; those reads trail the ledger by up to the fold interval, or not at all after fold() returns.
+ *
+ * Each fold records its last event as the checkpoint in the same transaction, so on startup the projection is
+ * loaded from the inventory table and only the events after the checkpoint are replayed.
+ * Assumes it is the only writer of the ledger and of the inventory table. With a change outbox on the store,
+ * every append also records the matching change feed events.
+ */
+public class LedgerRepo implements IRepo, AutoCloseable {
+    public static final Duration DEFAULT_FOLD_INTERVAL = Duration.ofMillis(200);
+    public static final int DEFAULT_FOLD_BATCH_SIZE = 1000;
+
+    private final LedgerStore store;
+    private final IRepo view;
+    private final int foldBatchSize;
+
+    //id -> current state, sorted so listings come out in id order
+    private final ConcurrentSkipListMap<String, ItemState> byId = new ConcurrentSkipListMap<>();
+    //normalized name -> ids of the items with that name
+    private final ConcurrentHashMap<String, NavigableSet<String>> byName = new ConcurrentHashMap<>();
+
+    private final ReentrantLock writeLock = new ReentrantLock();
+    //Held while folding so the background fold and fold() never apply the same events twice
+    private final ReentrantLock foldLock = new ReentrantLock();
+    private final ScheduledExecutorService folder;
+    //Sequence number of the last appended event, guarded by writeLock
+    private long lastSeq;
+    //Sequence number of the last event folded into the inventory table, guarded by foldLock
+    private long checkpoint;
+    private final long replayedOnOpen;
+
+    /**
+     * Opens the ledger with the default fold interval and batch size
+     * @param store Ledger and materialized state in the database
+     * @param view Repository reading the inventory table, used for paging, the summary and the top items
+     */
+    public LedgerRepo(LedgerStore store, IRepo view) {
+        this(store, view, DEFAULT_FOLD_INTERVAL, DEFAULT_FOLD_BATCH_SIZE);
+    }
+
+    /**
+     * Opens the ledger, loading the materialized state and replaying the events after its checkpoint
+     * @param store Ledger and materialized state in the database
+     * @param view Repository reading the inventory table, used for paging, the summary and the top items
+     * @param foldInterval How often new events are folded into the inventory table
+     * @param foldBatchSize Most events folded in one transaction
+     * @throws DataAccessException if the ledger can't be read
+     */
+    public LedgerRepo(LedgerStore store, IRepo view, Duration foldInterval, int foldBatchSize) {
+        if (foldInterval.isNegative() || foldInterval.isZero()) {
+            throw new IllegalArgumentException("Fold interval must be greater than zero");
+        }
+        if (foldBatchSize <= 0) {
+            throw new IllegalArgumentException("Fold batch size must be greater than zero");
+        }
+        this.store = store;
+        this.view = view;
+        this.foldBatchSize = foldBatchSize;
+        try {
+            store.createSchema();
+            checkpoint = store.loadState(this::index);
+            lastSeq = checkpoint;
+            long replayed = 0;
+            List<LedgerEvent> events;
+            while (!(events = store.readAfter(lastSeq, foldBatchSize)).isEmpty()) {
+                for (LedgerEvent event : events) {
+                    apply(event);
+                }
+                replayed += events.size();
+                lastSeq = events.get(events.size() - 1).getSeq();
+            }
+            replayedOnOpen = replayed;
+        } catch (SQLException e) {
+            throw new DataAccessException("Failed to open the stock ledger", e);
+        }
+
+        this.folder = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "ledger-fold");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long interval = foldInterval.toMillis();
+        folder.scheduleWithFixedDelay(this::foldQuietly, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public boolean addItem(IInventoryItem item) throws SQLException {
+        if (item == null) {
+            throw new NoItemPresentException();
+        }
+        return addAll(List.of(item));
+    }
+
+    /**
+     * Adds all the items or none of them
+     * @throws ItemAlreadyExistsException if any id is already stored or repeated in the list
+     */
+    @Override
+    public boolean addListOfItems(List<IInventoryItem> items) throws SQLException {
+        if (items == null || items.isEmpty()) {
+            throw new NoItemPresentException();
+        }
+        return addAll(items);
+    }
+
+    /**
+     * Records a CREATED event per new item, one ledger append per chunk in best effort mode
+     * and one for the whole load in all or nothing mode
+     */
+    @Override
+    public BulkLoadReport bulkLoad(List<IInventoryItem> items, BulkLoadOptions options) throws SQLException {
+        if (items == null || items.isEmpty()) {
+            throw new NoItemPresentException();
+        }
+
+        long start = System.nanoTime();
+        boolean bestEffort = options.getMode() == BulkLoadOptions.Mode.BEST_EFFORT;
+        List<String> conflicts = new ArrayList<>();
+        Set<String> seen = new HashSet<>();
+        int inserted = 0;
+        int chunkSize = bestEffort ? options.getChunkSize() : items.size();
+
+        for (int from = 0; from < items.size(); from += chunkSize) {
+            List<IInventoryItem> chunk = items.subList(from, Math.min(items.size(), from + chunkSize));
+            writeLock.lock();
+            try {
+                List<LedgerEvent> events = new ArrayList<>(chunk.size());
+                for (IInventoryItem item : chunk) {
+                    if (byId.containsKey(item.getId()) || !seen.add(item.getId())) {
+                        conflicts.add(item.getId());
+                    } else {
+                        events.add(LedgerEvent.created(item));
+                    }
+                }
+                if (!bestEffort && !conflicts.isEmpty()) {
+                    return new BulkLoadReport(items.size(), 0, conflicts, true, System.nanoTime() - start);
+                }
+                record(events);
+                inserted += events.size();
+            } finally {
+                writeLock.unlock();
+            }
+        }
+
+        return new BulkLoadReport(items.size(), inserted, conflicts, false, System.nanoTime() - start);
+    }
+
+    /**
+     * Retrieves an item by its name (Case insensitive) from the projection
+     * @throws EmptyItemNameException if the name is blank
+     * @throws NoItemPresentException if no item matches the name
+     */
+    @Override
+    public IInventoryItem getItem(String name) {
+        if (name.isBlank()) {
+            throw new EmptyItemNameException();
+        }
+
+        NavigableSet<String> ids = byName.get(Names.normalize(name));
+        if (ids != null) {
+            for (String id : ids) {
+                ItemState state = byId.get(id);
+                if (state != null) {
+                    return state.getItem();
+                }
+            }
+        }
+        throw new NoItemPresentException();
+    }
+
+    /**
+     * Retrieves all the items ordered by id from the projection
+     * @throws NoItemPresentException if there are no items
+     */
+    @Override
+    public List<IInventoryItem> getItems() {
+        List<IInventoryItem> items = new ArrayList<>(byId.size());
+        for (ItemState state : byId.values()) {
+            items.add(state.getItem());
+        }
+        if (items.isEmpty()) {
+            throw new NoItemPresentException();
+        }
+        return items;
+    }
+
+    /**
+     * Streams the items ordered by id from the projection. The fetch size has no effect on an in-memory projection.
+     */
+    @Override
+    public Stream<IInventoryItem> streamItems(int fetchSize) {
+        if (fetchSize <= 0) {
+            throw new IllegalArgumentException("Fetch size must be greater than zero");
+        }
+        return byId.values().stream().map(ItemState::getItem);
+    }
+
+    @Override
+    public ItemPage getPage(int pageSize, String afterCursor, ItemSort sort) throws SQLException {
+        return view.getPage(pageSize, afterCursor, sort);
+    }
+
+    @Override
+    public boolean removeItemById(String id) throws SQLException {
+        if (id.isBlank()) {
+            throw new EmptyItemNameException();
+        }
+
+        writeLock.lock();
+        try {
+            if (!byId.containsKey(id)) {
+                return false;
+            }
+            record(List.of(LedgerEvent.removed(id)));
+            return true;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public boolean increaseQuantity(String id, int amount) throws SQLException {
+        validateAdjustment(id, amount);
+        return adjust(id, amount, 0, LedgerEvent.received(id, amount));
+    }
+
+    @Override
+    public boolean decreaseQuantity(String id, int amount) throws SQLException {
+        validateAdjustment(id, amount);
+        return adjust(id, -amount, 0, LedgerEvent.shipped(id, amount));
+    }
+
+    @Override
+    public boolean reserveQuantity(String id, int amount) throws SQLException {
+        validateAdjustment(id, amount);
+        return adjust(id, -amount, amount, LedgerEvent.adjusted(id, -amount, amount));
+    }
+
+    @Override
+    public boolean releaseReservation(String id, int amount) throws SQLException {
+        validateAdjustment(id, amount);
+        return adjust(id, amount, -amount, LedgerEvent.adjusted(id, amount, -amount));
+    }
+
+    /**
+     * Checks the adjustments in order against the projection and records the applied ones in one ledger append
+     */
+    @Override
+    public List<AdjustmentResult> adjustQuantities(List<StockAdjustment> adjustments) throws SQLException {
+        if (adjustments == null || adjustments.isEmpty()) {
+            throw new NoItemPresentException();
+        }
+        for (StockAdjustment adjustment : adjustments) {
+            if (adjustment.getId() == null || adjustment.getId().isBlank()) {
+                throw new EmptyItemNameException();
+            }
+            if (adjustment.getDelta() == 0 || adjustment.getDelta() == Integer.MIN_VALUE) {
+                throw new IllegalArgumentException("Invalid adjustment amount for item " + adjustment.getId());
+            }
+        }
+
+        List<AdjustmentResult> results = new ArrayList<>(adjustments.size());
+        writeLock.lock();
+        try {
+            //quantities as they stand after the earlier adjustments of this call
+            Map<String, Integer> quantities = new HashMap<>();
+            List<LedgerEvent> events = new ArrayList<>();
+            for (StockAdjustment adjustment : adjustments) {
+                ItemState state = byId.get(adjustment.getId());
+                if (state == null) {
+                    results.add(AdjustmentResult.NOT_FOUND);
+                    continue;
+                }
+                long quantity = (long) quantities.getOrDefault(adjustment.getId(), state.getItem().getQuantity())
+                        + adjustment.getDelta();
+                if (quantity < 0 || quantity > Integer.MAX_VALUE) {
+                    results.add(AdjustmentResult.INSUFFICIENT_STOCK);
+                    continue;
+                }
+                quantities.put(adjustment.getId(), (int) quantity);
+                events.add(LedgerEvent.adjusted(adjustment.getId(), adjustment.getDelta(), 0));
+                results.add(AdjustmentResult.APPLIED);
+            }
+            record(events);
+        } finally {
+            writeLock.unlock();
+        }
+        return results;
+    }
+
+    /**
+     * Updates the item if its version still matches the projection's, recording an ADJUSTED event with its new details
+     * @throws NoItemPresentException if the item is null or no item has its id
+     */
+    @Override
+    public boolean updateItem(IInventoryItem item) throws SQLException {
+        if (item == null) {
+            throw new NoItemPresentException();
+        }
+        if (item.getName() == null || item.getName().isBlank()) {
+            throw new EmptyItemNameException();
+        }
+
+        writeLock.lock();
+        try {
+            ItemState state = byId.get(item.getId());
+            if (state == null) {
+                throw new NoItemPresentException();
+            }
+            if (state.getItem().getVersion() != item.getVersion()) {
+                return false;
+            }
+            record(List.of(LedgerEvent.revised(item, item.getQuantity() - state.getItem().getQuantity())));
+            return true;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public StockSummary getStockSummary() throws SQLException {
+        return view.getStockSummary();
+    }
+
+    @Override
+    public List<IInventoryItem> getTopItems(ItemRanking ranking, int limit) throws SQLException {
+        return view.getTopItems(ranking, limit);
+    }
+
+    /**
+     * Reads the audit trail of one item
+     * @param id Id of the item
+     * @return every event recorded for the item, oldest first, including those before it was last removed
+     */
+    public List<LedgerEvent> getHistory(String id) throws SQLException {
+        return store.history(id);
+    }
+
+    /**
+     * Folds every event appended so far into the inventory table, moving the checkpoint along.
+     * The background fold does this on its own; calling it makes the table current straight away.
+     */
+    public void fold() throws SQLException {
+        foldLock.lock();
+        try {
+            List<LedgerEvent> events;
+            while (!(events = store.readAfter(checkpoint, foldBatchSize)).isEmpty()) {
+                store.fold(events);
+                checkpoint = events.get(events.size() - 1).getSeq();
+            }
+        } finally {
+            foldLock.unlock();
+        }
+    }
+
+    //returns the sequence number of the last event folded into the inventory table
+    public long getCheckpoint() {
+        foldLock.lock();
+        try {
+            return checkpoint;
+        } finally {
+            foldLock.unlock();
+        }
+    }
+
+    //returns the sequence number of the last event in the ledger
+    public long getLastSeq() {
+        writeLock.lock();
+        try {
+            return lastSeq;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    //returns the number of events replayed on startup because they came after the checkpoint
+    public long getReplayedOnOpen() {
+        return replayedOnOpen;
+    }
+
+    /**
+     * Stops the background fold and folds the remaining events, so the next start has nothing to replay
+     * @throws DataAccessException if the final fold fails; its events are replayed on the next start instead
+     */
+    @Override
+    public void close() {
+        folder.shutdown();
+        try {
+            folder.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        try {
+            fold();
+        } catch (SQLException e) {
+            throw new DataAccessException("Failed to fold the stock ledger", e);
+        }
+    }
+
+    //Adds the items if none of their ids are taken
+    private boolean addAll(List<IInventoryItem> items) throws SQLException {
+        writeLock.lock();
+        try {
+            Set<String> ids = new HashSet<>();
+            List<LedgerEvent> events = new ArrayList<>(items.size());
+            for (IInventoryItem item : items) {
+                if (byId.containsKey(item.getId()) || !ids.add(item.getId())) {
+                    throw new ItemAlreadyExistsException();
+                }
+                events.add(LedgerEvent.created(item));
+            }
+            record(events);
+            return true;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    //Applies a conditional change to the quantity and reserved stock of one item
+    private boolean adjust(String id, int quantityDelta, int reservedDelta, LedgerEvent event) throws SQLException {
+        writeLock.lock();
+        try {
+            ItemState state = byId.get(id);
+            if (state == null) {
+                throw new NoItemPresentException();
+            }
+            long quantity = (long) state.getItem().getQuantity() + quantityDelta;
+            long reserved = (long) state.getReserved() + reservedDelta;
+            if (quantity < 0 || reserved < 0 || quantity > Integer.MAX_VALUE || reserved > Integer.MAX_VALUE) {
+                return false;
+            }
+            record(List.of(event));
+            return true;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Numbers the events, appends them to the ledger and applies them to the projection.
+     * Must be called while holding the write lock; if the append fails nothing is applied.
+     */
+    private void record(List<LedgerEvent> events) throws SQLException {
+        if (events.isEmpty()) {
+            return;
+        }
+        List<LedgerEvent> numbered = new ArrayList<>(events.size());
+        long seq = lastSeq;
+        for (LedgerEvent event : events) {
+            numbered.add(event.withSeq(++seq));
+        }
+        if (store.recordsChanges()) {
+            store.append(numbered, changesOf(numbered));
+        } else {
+            store.append(numbered);
+        }
+        lastSeq = seq;
+        for (LedgerEvent event : numbered) {
+            apply(event);
+        }
+    }
+
+    //Translates events into change feed events, taking the item values an UPDATED event carries from the projection
+    private List<ChangeEvent> changesOf(List<LedgerEvent> events) {
+        //states after the earlier events of the list, which the projection doesn't hold yet
+        Map<String, ItemState> states = new HashMap<>();
+        List<ChangeEvent> changes = new ArrayList<>(events.size());
+        for (LedgerEvent event : events) {
+            String id = event.getItemId();
+            switch (event.getType()) {
+                case CREATED -> {
+                    ItemState created = ItemState.of(event);
+                    states.put(id, created);
+                    changes.add(ChangeEvent.added(created.getItem()));
+                }
+                case REMOVED -> {
+                    states.put(id, null);
+                    changes.add(ChangeEvent.removed(id));
+                }
+                default -> {
+                    ItemState state = states.containsKey(id) ? states.get(id) : byId.get(id);
+                    if (state != null) {
+                        state = state.apply(event);
+                        states.put(id, state);
+                    }
+                    if (event.hasDetails() && state != null) {
+                        changes.add(ChangeEvent.updated(state.getItem()));
+                    } else if (event.getReservedDelta() > 0) {
+                        changes.add(ChangeEvent.reserved(id, event.getReservedDelta()));
+                    } else if (event.getReservedDelta() < 0) {
+                        changes.add(ChangeEvent.released(id, -event.getReservedDelta()));
+                    } else {
+                        changes.add(ChangeEvent.quantityChanged(id, event.getQuantityDelta()));
+                    }
+                }
+            }
+        }
+        return changes;
+    }
+
+    //Folds one event into the projection
+    private void apply(LedgerEvent event) {
+        ItemState state = byId.get(event.getItemId());
+        switch (event.getType()) {
+            case CREATED -> {
+                if (state != null) {
+                    unindex(state);
+                }
+                index(ItemState.of(event));
+            }
+            case REMOVED -> {
+                if (state != null) {
+                    unindex(state);
+                }
+            }
+            default -> {
+                if (state == null) {
+                    return;
+                }
+                ItemState updated = state.apply(event);
+                if (event.hasDetails()) {
+                    unindex(state);
+                    index(updated);
+                } else {
+                    byId.put(updated.getItem().getId(), updated);
+                }
+            }
+        }
+    }
+
+    private void index(ItemState state) {
+        InventoryItem item = state.getItem();
+        byId.put(item.getId(), state);
+        byName.computeIfAbsent(Names.normalize(item.getName()), key -> new ConcurrentSkipListSet<>()).add(item.getId());
+    }
+
+    private void unindex(ItemState state) {
+        InventoryItem item = state.getItem();
+        byId.remove(item.getId());
+        byName.computeIfPresent(Names.normalize(item.getName()), (key, ids) -> {
+            ids.remove(item.getId());
+            return ids.isEmpty() ? null : ids;
+        });
+    }
+
+    private void foldQuietly() {
+        try {
+            fold();
+        } catch (SQLException | RuntimeException e) {
+            System.err.println("Failed to fold the stock ledger: " + e.getMessage());
+        }
+    }
+
+    private static void validateAdjustment(String id, int amount) {
+        if (id == null || id.isBlank()) {
+            throw new EmptyItemNameException();
+        }
+        if (amount <= 0) {
+            throw new IllegalArgumentException("Amount must be greater than zero");
+        }
+    }
+}
@@ -0,0 +1,308 @@
+package repository.ledger;
+
+import changefeed.ChangeEvent;
+import changefeed.ChangeOutbox;
+import dbConnection.ConnectionProvider;
+import model.InventoryItem;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Database side of the stock ledger.
+ * Events are appended to the stock_ledger table, which is never updated or deleted from, and later folded into
+ * the inventory table, which serves as the materialized current state. Every fold moves the checkpoint in
+ * stock_ledger_checkpoint to its last event in the same transaction, so the inventory table always holds exactly
+ * the state after the checkpoint's event and a restart only has to replay the events after it.
+ *
+ * With a change outbox, the change feed events of every append are written in the append's transaction, so the
+ * feed follows the ledger, the source of truth, rather than the fold.
+ */
+public class LedgerStore {
+    //Rows fetched per round trip when loading the materialized state
+    private static final int FETCH_SIZE = 1000;
+
+    private final ConnectionProvider connectionProvider;
+    //null when no change feed is kept
+    private final ChangeOutbox changes;
+
+    /**
+     * Constructs the store
+     * @param connectionProvider where every call gets its connection from, usually a ConnectionPool
+     */
+    public LedgerStore(ConnectionProvider connectionProvider) {
+        this(connectionProvider, null);
+    }
+
+    /**
+     * Constructs the store
+     * @param connectionProvider where every call gets its connection from, usually a ConnectionPool
+     * @param changes Outbox the change feed events are appended to along with the ledger events, null for no change feed
+     */
+    public LedgerStore(ConnectionProvider connectionProvider, ChangeOutbox changes) {
+        this.connectionProvider = connectionProvider;
+        this.changes = changes;
+    }
+
+    //returns true if appends also record change feed events
+    public boolean recordsChanges() {
+        return changes != null;
+    }
+
+    /**
+     * Creates the ledger and checkpoint tables if they don't exist yet. The inventory table must already exist.
+     */
+    public void createSchema() throws SQLException {
+        String createLedger = """
+                CREATE TABLE IF NOT EXISTS stock_ledger(
+                seq BIGINT PRIMARY KEY,
+                type VARCHAR(20) NOT NULL,
+                item_id VARCHAR(100) NOT NULL,
+                name VARCHAR(100) NULL,
+                quantity_delta INT NOT NULL DEFAULT 0,
+                reserved_delta INT NOT NULL DEFAULT 0,
+                price DOUBLE NOT NULL DEFAULT 0,
+                reorder_point INT NOT NULL DEFAULT 0,
+                recorded_at BIGINT NOT NULL,
+                INDEX idx_stock_ledger_item(item_id, seq)
+                );
+                """;
+        String createCheckpoint = "CREATE TABLE IF NOT EXISTS stock_ledger_checkpoint(id INT PRIMARY KEY, last_seq BIGINT NOT NULL)";
+
+        try(Connection con = connectionProvider.getConnection();
+            Statement stm = con.createStatement()
+        ){
+            stm.execute(createLedger);
+            stm.execute(createCheckpoint);
+            stm.execute("INSERT IGNORE INTO stock_ledger_checkpoint(id, last_seq) VALUES(1, 0)");
+        }
+    }
+
+    /**
+     * Appends numbered events in one transaction
+     * @param events Events in sequence order
+     */
+    public void append(List<LedgerEvent> events) throws SQLException {
+        append(events, List.of());
+    }
+
+    /**
+     * Appends numbered events and their change feed events in one transaction
+     * @param events Events in sequence order
+     * @param changeEvents The same changes as change feed events, ignored without a change outbox
+     */
+    public void append(List<LedgerEvent> events, List<ChangeEvent> changeEvents) throws SQLException {
+        if(events.isEmpty()){
+            return;
+        }
+
+        String insert = "INSERT INTO stock_ledger(seq,type,item_id,name,quantity_delta,reserved_delta,price,reorder_point,recorded_at) VALUES(?,?,?,?,?,?,?,?,?)";
+
+        try(Connection con = connectionProvider.getConnection()){
+            con.setAutoCommit(false);
+            try(PreparedStatement pstm = con.prepareStatement(insert)){
+                for(LedgerEvent event : events){
+                    pstm.setLong(1, event.getSeq());
+                    pstm.setString(2, event.getType().name());
+                    pstm.setString(3, event.getItemId());
+                    pstm.setString(4, event.getName());
+                    pstm.setInt(5, event.getQuantityDelta());
+                    pstm.setInt(6, event.getReservedDelta());
+                    pstm.setDouble(7, event.getPrice());
+                    pstm.setInt(8, event.getReorderPoint());
+                    pstm.setLong(9, event.getTimestamp());
+                    pstm.addBatch();
+                }
+                pstm.executeBatch();
+                if(changes != null){
+                    changes.append(con, changeEvents);
+                }
+                con.commit();
+            }
+            catch (SQLException | RuntimeException e){
+                con.rollback();
+                throw e;
+            }
+            finally {
+                con.setAutoCommit(true);
+            }
+        }
+    }
+
+    /**
+     * Reads events in sequence order
+     * @param afterSeq Sequence number of the last event already seen, 0 to start from the beginning
+     * @param limit Most events to return
+     * @return the events after afterSeq, empty if there are none
+     */
+    public List<LedgerEvent> readAfter(long afterSeq, int limit) throws SQLException {
+        String read = "SELECT * FROM stock_ledger WHERE seq > ? ORDER BY seq LIMIT ?";
+
+        try(Connection con = connectionProvider.getConnection();
+            PreparedStatement pstm = con.prepareStatement(read)
+        ){
+            pstm.setLong(1, afterSeq);
+            pstm.setInt(2, limit);
+            return readEvents(pstm, Math.min(limit, FETCH_SIZE));
+        }
+    }
+
+    /**
+     * Reads the full history of one item, the audit trail of its stock movements
+     * @param itemId Id of the item
+     * @return every event of the item in sequence order
+     */
+    public List<LedgerEvent> history(String itemId) throws SQLException {
+        try(Connection con = connectionProvider.getConnection();
+            PreparedStatement pstm = con.prepareStatement("SELECT * FROM stock_ledger WHERE item_id = ? ORDER BY seq")
+        ){
+            pstm.setString(1, itemId);
+            return readEvents(pstm, 16);
+        }
+    }
+
+    //returns the sequence number of the last appended event, 0 if the ledger is empty
+    public long getLastSeq() throws SQLException {
+        try(Connection con = connectionProvider.getConnection();
+            PreparedStatement pstm = con.prepareStatement("SELECT COALESCE(MAX(seq), 0) FROM stock_ledger");
+            ResultSet rs = pstm.executeQuery()
+        ){
+            rs.next();
+            return rs.getLong(1);
+        }
+    }
+
+    /**
+     * Reads the materialized state and the checkpoint it corresponds to, in one transaction so they match
+     * @param items Receives the state of every item in the inventory table
+     * @return the sequence number of the last event folded into the inventory table
+     */
+    public long loadState(Consumer<ItemState> items) throws SQLException {
+        try(Connection con = connectionProvider.getConnection()){
+            con.setAutoCommit(false);
+            try{
+                long checkpoint;
+                try(PreparedStatement pstm = con.prepareStatement("SELECT last_seq FROM stock_ledger_checkpoint WHERE id = 1");
+                    ResultSet rs = pstm.executeQuery()
+                ){
+                    checkpoint = rs.next() ? rs.getLong(1) : 0;
+                }
+
+                String selectAll = "SELECT id,name,quantity,price,reserved,version,reorder_point FROM inventory";
+                try(PreparedStatement pstm = con.prepareStatement(selectAll, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)){
+                    pstm.setFetchSize(FETCH_SIZE);
+                    try(ResultSet rs = pstm.executeQuery()){
+                        while(rs.next()){
+                            items.accept(new ItemState(new InventoryItem(rs.getString("id"), rs.getString("name"),
+                                    rs.getInt("quantity"), rs.getDouble("price"), rs.getLong("version"),
+                                    rs.getInt("reorder_point")), rs.getInt("reserved")));
+                        }
+                    }
+                }
+                con.commit();
+                return checkpoint;
+            }
+            catch (SQLException | RuntimeException e){
+                con.rollback();
+                throw e;
+            }
+            finally {
+                con.setAutoCommit(true);
+            }
+        }
+    }
+
+    /**
+     * Applies events to the inventory table and moves the checkpoint to the last one, in one transaction.
+     * Runs of events that use the same statement are sent as one batch, keeping the events in order.
+     * @param events Events following the current checkpoint, in sequence order
+     */
+    public void fold(List<LedgerEvent> events) throws SQLException {
+        if(events.isEmpty()){
+            return;
+        }
+
+        String insert = "INSERT INTO inventory(id,name,quantity,price,reorder_point) VALUES(?,?,?,?,?)";
+        String adjust = "UPDATE inventory SET quantity = quantity + ?, reserved = reserved + ?, version = version + 1 WHERE id = ?";
+        String revise = "UPDATE inventory SET name = ?, quantity = quantity + ?, price = ?, reorder_point = ?, version = version + 1 WHERE id = ?";
+        String delete = "DELETE FROM inventory WHERE id = ?";
+
+        try(Connection con = connectionProvider.getConnection()){
+            con.setAutoCommit(false);
+            try(PreparedStatement inserts = con.prepareStatement(insert);
+                PreparedStatement adjusts = con.prepareStatement(adjust);
+                PreparedStatement revisions = con.prepareStatement(revise);
+                PreparedStatement deletes = con.prepareStatement(delete);
+                PreparedStatement checkpoint = con.prepareStatement("UPDATE stock_ledger_checkpoint SET last_seq = ? WHERE id = 1")
+            ){
+                PreparedStatement pending = null;
+                for(LedgerEvent event : events){
+                    PreparedStatement pstm;
+                    if(event.getType() == LedgerEventType.CREATED){
+                        pstm = inserts;
+                        pstm.setString(1, event.getItemId());
+                        pstm.setString(2, event.getName());
+                        pstm.setInt(3, event.getQuantityDelta());
+                        pstm.setDouble(4, event.getPrice());
+                        pstm.setInt(5, event.getReorderPoint());
+                    }
+                    else if(event.getType() == LedgerEventType.REMOVED){
+                        pstm = deletes;
+                        pstm.setString(1, event.getItemId());
+                    }
+                    else if(event.hasDetails()){
+                        pstm = revisions;
+                        pstm.setString(1, event.getName());
+                        pstm.setInt(2, event.getQuantityDelta());
+                        pstm.setDouble(3, event.getPrice());
+                        pstm.setInt(4, event.getReorderPoint());
+                        pstm.setString(5, event.getItemId());
+                    }
+                    else {
+                        pstm = adjusts;
+                        pstm.setInt(1, event.getQuantityDelta());
+                        pstm.setInt(2, event.getReservedDelta());
+                        pstm.setString(3, event.getItemId());
+                    }
+                    //a change of statement sends the previous run first, so an item is never updated before it is inserted
+                    if(pending != null && pending != pstm){
+                        pending.executeBatch();
+                    }
+                    pstm.addBatch();
+                    pending = pstm;
+                }
+                pending.executeBatch();
+
+                checkpoint.setLong(1, events.get(events.size() - 1).getSeq());
+                checkpoint.executeUpdate();
+                con.commit();
+            }
+            catch (SQLException | RuntimeException e){
+                con.rollback();
+                throw e;
+            }
+            finally {
+                con.setAutoCommit(true);
+            }
+        }
+    }
+
+    private static List<LedgerEvent> readEvents(PreparedStatement pstm, int expected) throws SQLException {
+        List<LedgerEvent> events = new ArrayList<>(expected);
+        try(ResultSet rs = pstm.executeQuery()){
+            while(rs.next()){
+                events.add(new LedgerEvent(rs.getLong("seq"), LedgerEventType.valueOf(rs.getString("type")),
+                        rs.getString("item_id"), rs.getString("name"), rs.getInt("quantity_delta"),
+                        rs.getInt("reserved_delta"), rs.getDouble("price"), rs.getInt("reorder_point"),
+                        rs.getLong("recorded_at")));
+            }
+        }
+        return events;
+    }
+}
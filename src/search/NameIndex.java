@@ -0,0 +1,455 @@
+package search;
+
+import util.Names;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory inverted index over item names.
+ * Names are normalized and split into words, and every word points to the items containing it. The words are
+ * kept sorted, so a prefix is a range of the vocabulary, and every word is also indexed by its trigrams, so
+ * substrings and misspellings only have to be checked against words sharing trigrams with the query rather
+ * than against the whole vocabulary. Lookups touch the vocabulary and the matching postings, never the items
+ * that don't match.
+ *
+ * Every word of the query has to match a word of the name, either exactly, as a prefix, as a substring or
+ * within a small edit distance, and the hits are ranked by how closely they matched.
+ */
+public class NameIndex {
+    private static final double EXACT = 1.0;
+    private static final double PREFIX = 0.8;
+    private static final double SUBSTRING = 0.6;
+    private static final double TYPO = 0.5;
+    //Extra score for names equal to the whole query, or starting with it, small enough not to lift a prefix above an exact word
+    private static final double WHOLE_NAME = 1.0;
+    private static final double NAME_PREFIX = 0.15;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    //document number -> indexed item, documents of removed items are reused
+    private String[] ids = new String[1024];
+    private String[] names = new String[1024];
+    private String[][] words = new String[1024][];
+    //normalized words of the name joined by single spaces, to compare with the whole query
+    private String[] keys = new String[1024];
+    private int documentCount;
+    private final Map<String, Integer> documents = new HashMap<>();
+    private int[] free = new int[16];
+    private int freeCount;
+
+    //word -> documents containing it, sorted so prefixes are ranges
+    private final TreeMap<String, Postings> vocabulary = new TreeMap<>();
+    //padded trigram -> words containing it
+    private final Map<String, Set<String>> trigrams = new HashMap<>();
+    //length -> words of that length, for short misspellings that share no trigram with the query
+    private final Map<Integer, Set<String>> wordsByLength = new HashMap<>();
+    //Per thread scoring arrays indexed by document, reused across searches
+    private final ThreadLocal<Scratch> scratch = ThreadLocal.withInitial(Scratch::new);
+
+    /**
+     * Indexes the item, replacing the name indexed for its id
+     */
+    public void put(String id, String name) {
+        lock.writeLock().lock();
+        try {
+            removeLocked(id);
+            int document = freeCount > 0 ? free[--freeCount] : documentCount++;
+            if (document == ids.length) {
+                int capacity = ids.length * 2;
+                ids = Arrays.copyOf(ids, capacity);
+                names = Arrays.copyOf(names, capacity);
+                words = Arrays.copyOf(words, capacity);
+                keys = Arrays.copyOf(keys, capacity);
+            }
+            String[] tokens = tokenize(name).stream().distinct().toArray(String[]::new);
+            ids[document] = id;
+            names[document] = name;
+            words[document] = tokens;
+            keys[document] = String.join(" ", tokenize(name));
+            documents.put(id, document);
+            for (String word : tokens) {
+                Postings postings = vocabulary.get(word);
+                if (postings == null) {
+                    postings = new Postings();
+                    vocabulary.put(word, postings);
+                    for (String trigram : trigramsOf(word)) {
+                        trigrams.computeIfAbsent(trigram, key -> new HashSet<>()).add(word);
+                    }
+                    wordsByLength.computeIfAbsent(word.length(), key -> new HashSet<>()).add(word);
+                }
+                postings.add(document);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(String id) {
+        lock.writeLock().lock();
+        try {
+            removeLocked(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            Arrays.fill(ids, null);
+            Arrays.fill(names, null);
+            Arrays.fill(words, null);
+            Arrays.fill(keys, null);
+            documentCount = 0;
+            freeCount = 0;
+            documents.clear();
+            vocabulary.clear();
+            trigrams.clear();
+            wordsByLength.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    //returns the number of indexed items
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return documents.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Finds the items best matching the query
+     * @param query Words to look for, matched case-insensitively
+     * @param limit Maximum number of hits to return
+     * @return the best hits, best first, or nothing if the query has no words
+     */
+    public List<SearchHit> search(String query, int limit) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("Limit must be greater than zero");
+        }
+        List<String> queryWords = tokenize(query);
+        if (queryWords.isEmpty()) {
+            return List.of();
+        }
+
+        lock.readLock().lock();
+        Scratch scores = scratch.get();
+        scores.ensureCapacity(ids.length);
+        try {
+            //a document stays a candidate only while it has matched every query word so far
+            for (int i = 0; i < queryWords.size(); i++) {
+                for (Map.Entry<String, Double> match : matchingWords(queryWords.get(i)).entrySet()) {
+                    Postings postings = vocabulary.get(match.getKey());
+                    scores.add(postings, i, match.getValue());
+                }
+            }
+
+            String normalizedQuery = String.join(" ", queryWords);
+            Comparator<SearchHit> ranking = Comparator.comparingDouble(SearchHit::getScore).reversed()
+                    .thenComparingInt(hit -> hit.getName().length())
+                    .thenComparing(SearchHit::getId);
+            PriorityQueue<SearchHit> best = new PriorityQueue<>(limit + 1, ranking.reversed());
+            for (int t = 0; t < scores.touchedCount; t++) {
+                int document = scores.touched[t];
+                if (scores.matched[document] != queryWords.size()) {
+                    continue;
+                }
+                double score = scores.total[document];
+                if (keys[document].equals(normalizedQuery)) {
+                    score += WHOLE_NAME;
+                } else if (keys[document].startsWith(normalizedQuery)) {
+                    score += NAME_PREFIX;
+                }
+                //most documents lose to the current worst hit on score alone, so they never get a hit object
+                if (best.size() == limit && score < best.peek().getScore()) {
+                    continue;
+                }
+                best.add(new SearchHit(ids[document], names[document], score));
+                if (best.size() > limit) {
+                    best.poll();
+                }
+            }
+
+            List<SearchHit> hits = new ArrayList<>(best);
+            hits.sort(ranking);
+            return hits;
+        } finally {
+            scores.reset();
+            lock.readLock().unlock();
+        }
+    }
+
+    //returns the words in the vocabulary matching the query word, with how well they match
+    private Map<String, Double> matchingWords(String queryWord) {
+        Map<String, Double> matches = new HashMap<>();
+        if (vocabulary.containsKey(queryWord)) {
+            matches.put(queryWord, EXACT);
+        }
+        for (String word : vocabulary.subMap(queryWord, false, queryWord + Character.MAX_VALUE, false).keySet()) {
+            matches.put(word, PREFIX);
+        }
+
+        for (String word : wordsContaining(queryWord)) {
+            matches.putIfAbsent(word, SUBSTRING);
+        }
+
+        if (queryWord.length() >= 3) {
+            int maxEdits = queryWord.length() <= 4 ? 1 : 2;
+            for (String word : typoCandidates(queryWord, maxEdits)) {
+                if (!matches.containsKey(word)) {
+                    int distance = editDistance(queryWord, word, maxEdits);
+                    if (distance <= maxEdits) {
+                        matches.put(word, TYPO - 0.1 * distance);
+                    }
+                }
+            }
+        }
+        return matches;
+    }
+
+    //returns the words containing the text, through its trigrams when it has any
+    private Set<String> wordsContaining(String text) {
+        if (text.length() < 3) {
+            Set<String> words = new HashSet<>();
+            for (String word : vocabulary.keySet()) {
+                if (word.contains(text)) {
+                    words.add(word);
+                }
+            }
+            return words;
+        }
+
+        Set<String> candidates = null;
+        for (int i = 0; i + 3 <= text.length(); i++) {
+            Set<String> withTrigram = trigrams.get(text.substring(i, i + 3));
+            if (withTrigram == null) {
+                return Set.of();
+            }
+            if (candidates == null || withTrigram.size() < candidates.size()) {
+                candidates = withTrigram;
+            }
+        }
+        Set<String> words = new HashSet<>();
+        for (String word : candidates) {
+            if (word.contains(text)) {
+                words.add(word);
+            }
+        }
+        return words;
+    }
+
+    /**
+     * Returns the words that could be within maxEdits of the query word.
+     * Each edit changes at most three of the padded trigrams, so a close enough word shares at least
+     * length - 3 * maxEdits of them. When that bound is zero or less, every word of a close enough length is a candidate.
+     */
+    private Set<String> typoCandidates(String queryWord, int maxEdits) {
+        int required = queryWord.length() - 3 * maxEdits;
+        Set<String> candidates = new HashSet<>();
+        if (required <= 0) {
+            for (int length = queryWord.length() - maxEdits; length <= queryWord.length() + maxEdits; length++) {
+                candidates.addAll(wordsByLength.getOrDefault(length, Set.of()));
+            }
+            return candidates;
+        }
+
+        Map<String, Integer> shared = new HashMap<>();
+        for (String trigram : trigramsOf(queryWord)) {
+            for (String word : trigrams.getOrDefault(trigram, Set.of())) {
+                if (Math.abs(word.length() - queryWord.length()) <= maxEdits) {
+                    shared.merge(word, 1, Integer::sum);
+                }
+            }
+        }
+        for (Map.Entry<String, Integer> entry : shared.entrySet()) {
+            if (entry.getValue() >= required) {
+                candidates.add(entry.getKey());
+            }
+        }
+        return candidates;
+    }
+
+    //must be called while holding the write lock
+    private void removeLocked(String id) {
+        Integer document = documents.remove(id);
+        if (document == null) {
+            return;
+        }
+        for (String word : words[document]) {
+            Postings postings = vocabulary.get(word);
+            postings.remove(document);
+            if (postings.size == 0) {
+                vocabulary.remove(word);
+                for (String trigram : trigramsOf(word)) {
+                    Set<String> withTrigram = trigrams.get(trigram);
+                    withTrigram.remove(word);
+                    if (withTrigram.isEmpty()) {
+                        trigrams.remove(trigram);
+                    }
+                }
+                Set<String> sameLength = wordsByLength.get(word.length());
+                sameLength.remove(word);
+                if (sameLength.isEmpty()) {
+                    wordsByLength.remove(word.length());
+                }
+            }
+        }
+        ids[document] = null;
+        names[document] = null;
+        words[document] = null;
+        keys[document] = null;
+        if (freeCount == free.length) {
+            free = Arrays.copyOf(free, free.length * 2);
+        }
+        free[freeCount++] = document;
+    }
+
+    //Splits a name into its normalized words, anything but letters and digits separates words
+    static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        String normalized = Names.normalize(text);
+        int start = -1;
+        for (int i = 0; i <= normalized.length(); i++) {
+            boolean wordChar = i < normalized.length() && Character.isLetterOrDigit(normalized.charAt(i));
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                tokens.add(normalized.substring(start, i));
+                start = -1;
+            }
+        }
+        return tokens;
+    }
+
+    //returns the trigrams of the word padded with ^ and $, one per character of the word
+    private static List<String> trigramsOf(String word) {
+        String padded = "^" + word + "$";
+        List<String> result = new ArrayList<>(word.length());
+        for (int i = 0; i + 3 <= padded.length(); i++) {
+            result.add(padded.substring(i, i + 3));
+        }
+        return result;
+    }
+
+    /**
+     * Levenshtein distance between the words, giving up once it is known to exceed the limit
+     * @return the distance, or limit + 1 if it is larger than the limit
+     */
+    static int editDistance(String a, String b, int limit) {
+        if (Math.abs(a.length() - b.length()) > limit) {
+            return limit + 1;
+        }
+        int[] previous = new int[b.length() + 1];
+        int[] current = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) {
+            previous[j] = j;
+        }
+        for (int i = 1; i <= a.length(); i++) {
+            current[0] = i;
+            int rowMin = current[0];
+            for (int j = 1; j <= b.length(); j++) {
+                int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                current[j] = Math.min(Math.min(current[j - 1] + 1, previous[j] + 1), previous[j - 1] + cost);
+                rowMin = Math.min(rowMin, current[j]);
+            }
+            if (rowMin > limit) {
+                return limit + 1;
+            }
+            int[] swap = previous;
+            previous = current;
+            current = swap;
+        }
+        return Math.min(previous[b.length()], limit + 1);
+    }
+
+    /**
+     * Growable list of the documents containing a word
+     */
+    private static final class Postings {
+        private int[] documents = new int[4];
+        private int size;
+
+        private void add(int document) {
+            if (size == documents.length) {
+                documents = Arrays.copyOf(documents, size * 2);
+            }
+            documents[size++] = document;
+        }
+
+        private void remove(int document) {
+            for (int i = 0; i < size; i++) {
+                if (documents[i] == document) {
+                    documents[i] = documents[--size];
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Scores of the documents touched by one search, kept in arrays indexed by document so a search
+     * over large postings allocates nothing per document
+     */
+    private static final class Scratch {
+        //number of query words the document has matched so far
+        private int[] matched = new int[0];
+        //best score of the document for the current query word
+        private double[] current = new double[0];
+        //sum of the best scores over the query words matched
+        private double[] total = new double[0];
+        private int[] touched = new int[16];
+        private int touchedCount;
+
+        private void ensureCapacity(int documents) {
+            if (matched.length < documents) {
+                matched = Arrays.copyOf(matched, documents);
+                current = Arrays.copyOf(current, documents);
+                total = Arrays.copyOf(total, documents);
+            }
+        }
+
+        //Scores the documents of a word matching query word number queryWord
+        private void add(Postings postings, int queryWord, double score) {
+            for (int i = 0; i < postings.size; i++) {
+                int document = postings.documents[i];
+                if (matched[document] == queryWord) {
+                    if (queryWord == 0) {
+                        if (touchedCount == touched.length) {
+                            touched = Arrays.copyOf(touched, touchedCount * 2);
+                        }
+                        touched[touchedCount++] = document;
+                    }
+                    matched[document] = queryWord + 1;
+                    current[document] = score;
+                    total[document] += score;
+                } else if (matched[document] == queryWord + 1 && score > current[document]) {
+                    total[document] += score - current[document];
+                    current[document] = score;
+                }
+            }
+        }
+
+        private void reset() {
+            for (int i = 0; i < touchedCount; i++) {
+                int document = touched[i];
+                matched[document] = 0;
+                total[document] = 0;
+            }
+            touchedCount = 0;
+        }
+    }
+}
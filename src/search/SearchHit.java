@@ -0,0 +1,38 @@
+package search;
+
+/**
+ * An item matching a search, with how well it matched
+ */
+public class SearchHit {
+    private final String id;
+    private final String name;
+    //Higher is a better match; exact word matches score highest, then prefixes, substrings and typos
+    private final double score;
+
+    public SearchHit(String id, String name, double score) {
+        this.id = id;
+        this.name = name;
+        this.score = score;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public double getScore() {
+        return score;
+    }
+
+    @Override
+    public String toString() {
+        return "SearchHit{" +
+                "id=" + id +
+                ", name='" + name + '\'' +
+                ", score=" + score +
+                '}';
+    }
+}
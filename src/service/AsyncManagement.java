@@ -0,0 +1,297 @@
+package service;
+
+import analytics.StockSummary;
+import model.AdjustmentResult;
+import model.IInventoryItem;
+import model.ItemPage;
+import model.ItemRanking;
+import model.ItemSort;
+import model.StockAdjustment;
+import repository.BulkLoadOptions;
+import repository.BulkLoadReport;
+
+import java.lang.reflect.Method;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Non-blocking front to IManagement: every operation returns straight away with a CompletableFuture
+ * and runs on a virtual thread when the JVM has them (Java 21+), otherwise on a fixed pool of maxConcurrency threads.
+ *
+ * At most maxConcurrency operations run at once and at most maxQueued more wait for a slot, so a burst of callers
+ * waits here instead of timing out in the connection pool; beyond that new operations fail straight away with
+ * RejectedExecutionException. Every future times out, counted from when the operation was submitted, and a future
+ * that times out or is cancelled removes its operation from the queue, or interrupts it if it is already running.
+ *
+ * streamItems has no async form, since the stream holds a connection until the caller closes it.
+ */
+public class AsyncManagement implements AutoCloseable {
+
+    /**
+     * An operation to run against the wrapped IManagement
+     */
+    @FunctionalInterface
+    public interface Operation<T> {
+        T apply(IManagement management) throws SQLException;
+    }
+
+    private final IManagement management;
+    private final AsyncOptions options;
+    private final ExecutorService executor;
+    private final boolean virtualThreads;
+    //One permit per operation running or waiting to run
+    private final Semaphore admitted;
+    //One permit per operation running
+    private final Semaphore running;
+    private volatile boolean closed;
+
+    public AsyncManagement(IManagement management) {
+        this(management, new AsyncOptions());
+    }
+
+    public AsyncManagement(IManagement management, AsyncOptions options) {
+        this.management = Objects.requireNonNull(management, "management");
+        this.options = options;
+        this.admitted = new Semaphore(options.getMaxConcurrency() + options.getMaxQueued());
+        this.running = new Semaphore(options.getMaxConcurrency());
+
+        ExecutorService virtual = newVirtualThreadExecutor();
+        this.virtualThreads = virtual != null;
+        this.executor = virtual != null ? virtual : newPlatformThreadExecutor(options.getMaxConcurrency());
+    }
+
+    public CompletableFuture<Boolean> addItem(IInventoryItem item) {
+        return submit(m -> m.addItem(item));
+    }
+
+    public CompletableFuture<Boolean> addList(List<IInventoryItem> items) {
+        return submit(m -> m.addList(items));
+    }
+
+    public CompletableFuture<BulkLoadReport> bulkLoad(List<IInventoryItem> items, BulkLoadOptions bulkLoadOptions) {
+        return submit(m -> m.bulkLoad(items, bulkLoadOptions));
+    }
+
+    public CompletableFuture<IInventoryItem> getItem(String name) {
+        return submit(m -> m.getItem(name));
+    }
+
+    public CompletableFuture<List<IInventoryItem>> getItems() {
+        return submit(IManagement::getItems);
+    }
+
+    public CompletableFuture<ItemPage> getPage(int pageSize, String afterCursor, ItemSort sort) {
+        return submit(m -> m.getPage(pageSize, afterCursor, sort));
+    }
+
+    public CompletableFuture<Boolean> removeItem(String id) {
+        return submit(m -> m.removeItem(id));
+    }
+
+    public CompletableFuture<Boolean> updateItem(IInventoryItem item) {
+        return submit(m -> m.updateItem(item));
+    }
+
+    public CompletableFuture<Boolean> increaseQuantity(String id, int amount) {
+        return submit(m -> m.increaseQuantity(id, amount));
+    }
+
+    public CompletableFuture<Boolean> decreaseQuantity(String id, int amount) {
+        return submit(m -> m.decreaseQuantity(id, amount));
+    }
+
+    public CompletableFuture<Boolean> reserveQuantity(String id, int amount) {
+        return submit(m -> m.reserveQuantity(id, amount));
+    }
+
+    public CompletableFuture<Boolean> releaseReservation(String id, int amount) {
+        return submit(m -> m.releaseReservation(id, amount));
+    }
+
+    public CompletableFuture<List<AdjustmentResult>> adjustQuantities(List<StockAdjustment> adjustments) {
+        return submit(m -> m.adjustQuantities(adjustments));
+    }
+
+    public CompletableFuture<StockSummary> getStockSummary() {
+        return submit(IManagement::getStockSummary);
+    }
+
+    public CompletableFuture<List<IInventoryItem>> getTopItems(ItemRanking ranking, int limit) {
+        return submit(m -> m.getTopItems(ranking, limit));
+    }
+
+    /**
+     * Runs an operation with the default timeout
+     * @param operation Operation to run against the wrapped IManagement
+     * @return a future completed with the result, or with the exception the operation threw
+     */
+    public <T> CompletableFuture<T> submit(Operation<T> operation) {
+        return submit(operation, options.getTimeout());
+    }
+
+    /**
+     * Runs an operation with its own timeout
+     * @param operation Operation to run against the wrapped IManagement
+     * @param timeout How long to wait, counted from now, before the future fails with a TimeoutException
+     * @return a future completed with the result, or with the exception the operation threw.
+     * Cancelling it drops the operation if it hasn't started and interrupts it if it has.
+     */
+    public <T> CompletableFuture<T> submit(Operation<T> operation, Duration timeout) {
+        Objects.requireNonNull(operation, "operation");
+        CompletableFuture<T> result = new CompletableFuture<>();
+        if (closed) {
+            result.completeExceptionally(new RejectedExecutionException("Async management is closed"));
+            return result;
+        }
+        if (!admitted.tryAcquire()) {
+            result.completeExceptionally(new RejectedExecutionException("Too many operations waiting, the limit is "
+                    + (options.getMaxConcurrency() + options.getMaxQueued())));
+            return result;
+        }
+
+        Call<T> call = new Call<>(operation, result);
+        try {
+            executor.execute(call);
+        } catch (RejectedExecutionException e) {
+            admitted.release();
+            result.completeExceptionally(e);
+            return result;
+        }
+        result.orTimeout(timeout.toNanos(), TimeUnit.NANOSECONDS);
+        result.whenComplete((value, error) -> {
+            if (error != null) {
+                call.abandon();
+            }
+        });
+        return result;
+    }
+
+    //returns the number of operations running right now
+    public int getRunningCount() {
+        return options.getMaxConcurrency() - running.availablePermits();
+    }
+
+    //returns the number of operations waiting for a free slot
+    public int getQueuedCount() {
+        int admittedCount = options.getMaxConcurrency() + options.getMaxQueued() - admitted.availablePermits();
+        return Math.max(0, admittedCount - getRunningCount());
+    }
+
+    //returns true if operations run on virtual threads
+    public boolean usesVirtualThreads() {
+        return virtualThreads;
+    }
+
+    /**
+     * Stops taking new operations and waits up to the default timeout for the ones already submitted,
+     * then interrupts whatever is still running.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(options.getTimeout().toMillis(), TimeUnit.MILLISECONDS)) {
+                executor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    //Executors.newVirtualThreadPerTaskExecutor through reflection, so the app still builds and runs on Java 17
+    private static ExecutorService newVirtualThreadExecutor() {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return null;
+        }
+    }
+
+    private static ExecutorService newPlatformThreadExecutor(int threads) {
+        AtomicInteger counter = new AtomicInteger();
+        return Executors.newFixedThreadPool(threads, r -> {
+            Thread thread = new Thread(r, "async-management-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * One submitted operation. It runs at most once, and only if its caller hasn't given up on it by then.
+     */
+    private final class Call<T> implements Runnable {
+        private static final int WAITING = 0;
+        private static final int STARTED = 1;
+        private static final int ABANDONED = 2;
+
+        private final Operation<T> operation;
+        private final CompletableFuture<T> result;
+        private final AtomicInteger state = new AtomicInteger(WAITING);
+        //Thread running the operation, guarded by this so it is never interrupted after moving on to another call
+        private Thread worker;
+
+        private Call(Operation<T> operation, CompletableFuture<T> result) {
+            this.operation = operation;
+            this.result = result;
+        }
+
+        @Override
+        public void run() {
+            if (!state.compareAndSet(WAITING, STARTED)) {
+                return;
+            }
+            synchronized (this) {
+                worker = Thread.currentThread();
+            }
+            try {
+                if (result.isDone()) {
+                    return;
+                }
+                running.acquire();
+                try {
+                    result.complete(operation.apply(management));
+                } catch (Exception e) {
+                    //also catches checked exceptions a mock or proxy throws without declaring them
+                    result.completeExceptionally(e);
+                } finally {
+                    running.release();
+                }
+            } catch (InterruptedException e) {
+                result.completeExceptionally(new CancellationException("Interrupted while waiting to run"));
+            } finally {
+                synchronized (this) {
+                    worker = null;
+                }
+                //drops an interrupt meant for this call, so it doesn't leak into the next one on a pooled thread
+                Thread.interrupted();
+                admitted.release();
+            }
+        }
+
+        //Called once the caller has stopped waiting: drops the call if it hasn't started, or interrupts it
+        private void abandon() {
+            if (state.compareAndSet(WAITING, ABANDONED)) {
+                admitted.release();
+                return;
+            }
+            synchronized (this) {
+                if (worker != null) {
+                    worker.interrupt();
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package service;
+
+import java.time.Duration;
+
+/**
+ * Settings for AsyncManagement.
+ * Every setter returns this so settings can be chained.
+ */
+public class AsyncOptions {
+    //Operations running at once, at most the connection pool size so waiting happens here and not in the pool
+    private int maxConcurrency = 10;
+    //Operations allowed to wait for a free slot before new ones are rejected
+    private int maxQueued = 1000;
+    //How long an operation may take, counted from when it is submitted, unless a call gives its own timeout
+    private Duration timeout = Duration.ofSeconds(5);
+
+    public int getMaxConcurrency() {
+        return maxConcurrency;
+    }
+
+    public AsyncOptions setMaxConcurrency(int maxConcurrency) {
+        if (maxConcurrency <= 0) {
+            throw new IllegalArgumentException("Concurrency limit must be greater than zero");
+        }
+        this.maxConcurrency = maxConcurrency;
+        return this;
+    }
+
+    public int getMaxQueued() {
+        return maxQueued;
+    }
+
+    public AsyncOptions setMaxQueued(int maxQueued) {
+        if (maxQueued < 0) {
+            throw new IllegalArgumentException("Queue limit cannot be negative");
+        }
+        this.maxQueued = maxQueued;
+        return this;
+    }
+
+    public Duration getTimeout() {
+        return timeout;
+    }
+
+    public AsyncOptions setTimeout(Duration timeout) {
+        if (timeout == null || timeout.isNegative() || timeout.isZero()) {
+            throw new IllegalArgumentException("Timeout must be greater than zero");
+        }
+        this.timeout = timeout;
+        return this;
+    }
+}
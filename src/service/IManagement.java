@@ -2,20 +2,51 @@ package service;
 
 import exceptions.EmptyItemNameException;
 import exceptions.NoItemPresentException;
+import analytics.StockSummary;
+import model.AdjustmentResult;
 import model.IInventoryItem;
+import model.ItemPage;
+import model.ItemRanking;
+import model.ItemSort;
+import model.StockAdjustment;
+import repository.BulkLoadOptions;
+import repository.BulkLoadReport;
 
 import java.sql.SQLException;
 import java.util.List;
+import java.util.stream.Stream;
 
 public interface IManagement {
     public boolean addItem(IInventoryItem item) throws SQLException;
 
     public boolean addList(List<IInventoryItem> items) throws SQLException;
 
+    public BulkLoadReport bulkLoad(List<IInventoryItem> items, BulkLoadOptions options) throws SQLException;
+
     public IInventoryItem getItem(String name) throws SQLException;
 
     public List<IInventoryItem> getItems() throws SQLException;
 
+    public Stream<IInventoryItem> streamItems(int fetchSize) throws SQLException;
+
+    public ItemPage getPage(int pageSize, String afterCursor, ItemSort sort) throws SQLException;
+
 
     public boolean removeItem(String name) throws SQLException;
+
+    public boolean updateItem(IInventoryItem item) throws SQLException;
+
+    public boolean increaseQuantity(String id, int amount) throws SQLException;
+
+    public boolean decreaseQuantity(String id, int amount) throws SQLException;
+
+    public boolean reserveQuantity(String id, int amount) throws SQLException;
+
+    public boolean releaseReservation(String id, int amount) throws SQLException;
+
+    public List<AdjustmentResult> adjustQuantities(List<StockAdjustment> adjustments) throws SQLException;
+
+    public StockSummary getStockSummary() throws SQLException;
+
+    public List<IInventoryItem> getTopItems(ItemRanking ranking, int limit) throws SQLException;
 }
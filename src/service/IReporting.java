@@ -0,0 +1,20 @@
+package service;
+
+import analytics.PriceBand;
+import analytics.StockSummary;
+
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Map;
+
+public interface IReporting {
+    public StockSummary getStockSummary();
+
+    public int countLowStock(int threshold);
+
+    public List<PriceBand> getPriceBands(double width);
+
+    public Map<String, Long> getUnitsByName();
+
+    public void refresh() throws SQLException;
+}
@@ -0,0 +1,29 @@
+package service;
+
+import model.IInventoryItem;
+
+import java.util.List;
+
+/**
+ * Receives the changes made through Management once the repository has applied them.
+ * Every method has an empty default, so listeners only override the changes they care about.
+ * Listeners are called on the writing thread and should return quickly.
+ */
+public interface InventoryChangeListener {
+
+    //called with the items that were added, in the order they were submitted
+    default void onItemsAdded(List<IInventoryItem> items) {
+    }
+
+    //called with the new values of an item whose update succeeded
+    default void onItemUpdated(IInventoryItem item) {
+    }
+
+    //called with the id of an item that was removed
+    default void onItemRemoved(String id) {
+    }
+
+    //called when the quantity of an item changed by delta, negative when stock was taken or reserved
+    default void onQuantityChanged(String id, int delta) {
+    }
+}
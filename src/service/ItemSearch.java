@@ -0,0 +1,71 @@
+package service;
+
+import model.IInventoryItem;
+import search.NameIndex;
+import search.SearchHit;
+
+import java.sql.SQLException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Search service for finding items by partial or misspelled names.
+ * The index is loaded once from the management layer and then kept current by listening to the changes made through it.
+ */
+public class ItemSearch implements InventoryChangeListener {
+    private static final int FETCH_SIZE = 1000;
+
+    private final IManagement management;
+    private final NameIndex index = new NameIndex();
+
+    /**
+     * Constructs the search service; call refresh to index the inventory before the first search
+     * @param management Management layer to load from and listen to
+     */
+    public ItemSearch(Management management){
+        this.management = management;
+        management.addListener(this);
+    }
+
+    /**
+     * Re-indexes the whole inventory, picking up changes that were made without going through the management layer
+     */
+    public void refresh() throws SQLException {
+        try(Stream<IInventoryItem> items = management.streamItems(FETCH_SIZE)){
+            index.clear();
+            Iterator<IInventoryItem> iterator = items.iterator();
+            while(iterator.hasNext()){
+                IInventoryItem item = iterator.next();
+                index.put(item.getId(), item.getName());
+            }
+        }
+    }
+
+    /**
+     * Finds the items whose names best match the query
+     * @param query Whole words, word prefixes, parts of words or words with up to two typos
+     * @param limit Maximum number of items to return
+     * @return The best matches, best first
+     */
+    public List<SearchHit> search(String query, int limit){
+        return index.search(query, limit);
+    }
+
+    @Override
+    public void onItemsAdded(List<IInventoryItem> items){
+        for(IInventoryItem item : items){
+            index.put(item.getId(), item.getName());
+        }
+    }
+
+    @Override
+    public void onItemUpdated(IInventoryItem item){
+        index.put(item.getId(), item.getName());
+    }
+
+    @Override
+    public void onItemRemoved(String id){
+        index.remove(id);
+    }
+}
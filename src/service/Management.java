@@ -2,11 +2,22 @@ package service;
 
 import exceptions.EmptyItemNameException;
 import exceptions.NoItemPresentException;
+import analytics.StockSummary;
+import model.AdjustmentResult;
 import model.IInventoryItem;
+import model.ItemPage;
+import model.ItemRanking;
+import model.ItemSort;
+import model.StockAdjustment;
+import repository.BulkLoadOptions;
+import repository.BulkLoadReport;
 import repository.IRepo;
 
 import java.sql.SQLException;
 import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 /**
  * Service layer for managing the inventory actions
@@ -15,6 +26,7 @@ import java.util.List;
  */
 public class Management implements IManagement{
     private final IRepo repo;
+    private final List<InventoryChangeListener> listeners = new CopyOnWriteArrayList<>();
 
     /**
      * Constructor the management layer with specified IRepo
@@ -24,6 +36,19 @@ public class Management implements IManagement{
         this.repo = repo;
     }
 
+    /**
+     * Registers a listener that is told about every successful change made through this service.
+     * Changes made directly on the repository or by other processes are not seen.
+     * @param listener Listener to notify
+     */
+    public void addListener(InventoryChangeListener listener){
+        listeners.add(listener);
+    }
+
+    public void removeListener(InventoryChangeListener listener){
+        listeners.remove(listener);
+    }
+
     /**
      * Delegates the adding of an item to repository
      * @param item Item that's to be added
@@ -36,7 +61,11 @@ public class Management implements IManagement{
             throw new NoItemPresentException();
         }
 
-        return repo.addItem(item);
+        boolean added = repo.addItem(item);
+        if(added){
+            notifyListeners(listener -> listener.onItemsAdded(List.of(item)));
+        }
+        return added;
     }
 
     /**
@@ -51,7 +80,32 @@ public class Management implements IManagement{
             throw new NoItemPresentException();
         }
 
-        return repo.addListOfItems(items);
+        boolean added = repo.addListOfItems(items);
+        if(added){
+            notifyListeners(listener -> listener.onItemsAdded(items));
+        }
+        return added;
+    }
+
+    /**
+     * Delegates loading a large list of items to the repository
+     * @param items The list of items to load
+     * @param options Chunk size and conflict handling, defaults are used if null
+     * @return Report of the inserted rows, the conflicting ids and the throughput
+     * @throws NoItemPresentException if the list of items is empty
+     */
+    @Override
+    public BulkLoadReport bulkLoad(List<IInventoryItem> items, BulkLoadOptions options) throws SQLException {
+        if(items == null || items.isEmpty()){
+            throw new NoItemPresentException();
+        }
+
+        BulkLoadReport report = repo.bulkLoad(items, options == null ? new BulkLoadOptions() : options);
+        if(!listeners.isEmpty() && !report.isRolledBack() && report.getInserted() > 0){
+            List<IInventoryItem> inserted = report.insertedItems(items);
+            notifyListeners(listener -> listener.onItemsAdded(inserted));
+        }
+        return report;
     }
 
     /**
@@ -84,6 +138,37 @@ public class Management implements IManagement{
         return items;
     }
 
+    /**
+     * Delegates streaming all the items to the repository.
+     * Items are handed over as they are read, so callers can start printing before the whole inventory is loaded.
+     * @param fetchSize Number of rows fetched per round trip
+     * @return Stream of Inventory items that must be closed after use
+     */
+    @Override
+    public Stream<IInventoryItem> streamItems(int fetchSize) throws SQLException {
+        if(fetchSize <= 0){
+            throw new IllegalArgumentException("Fetch size must be greater than zero");
+        }
+
+        return repo.streamItems(fetchSize);
+    }
+
+    /**
+     * Delegates the retrieval of a page of items to the repository
+     * @param pageSize Maximum number of items on the page
+     * @param afterCursor Cursor from the previous page, or null for the first page
+     * @param sort Order to page through the inventory in, defaults to id
+     * @return The page of items and the cursor for the next page
+     */
+    @Override
+    public ItemPage getPage(int pageSize, String afterCursor, ItemSort sort) throws SQLException {
+        if(pageSize <= 0){
+            throw new IllegalArgumentException("Page size must be greater than zero");
+        }
+
+        return repo.getPage(pageSize, afterCursor, sort == null ? ItemSort.ID : sort);
+    }
+
 
     /**
      * Delegates the removal of an Inventory item by id to the repository.
@@ -96,6 +181,165 @@ public class Management implements IManagement{
             throw new EmptyItemNameException();
         }
 
-        return repo.removeItemById(id);
+        boolean removed = repo.removeItemById(id);
+        if(removed){
+            notifyListeners(listener -> listener.onItemRemoved(id));
+        }
+        return removed;
+    }
+
+    /**
+     * Delegates updating an item to the repository.
+     * The update only succeeds if the item's version still matches, so callers should re-read and retry on false.
+     * @param item The item with its new values and the version it was read at
+     * @return True if the item was updated, false if it was changed by someone else since it was read
+     * @throws NoItemPresentException if the item is null
+     * @throws EmptyItemNameException if the new name is empty
+     */
+    @Override
+    public boolean updateItem(IInventoryItem item) throws SQLException {
+        if(item == null){
+            throw new NoItemPresentException();
+        }
+        if(item.getName().isBlank()){
+            throw new EmptyItemNameException();
+        }
+
+        boolean updated = repo.updateItem(item);
+        if(updated){
+            notifyListeners(listener -> listener.onItemUpdated(item));
+        }
+        return updated;
+    }
+
+    /**
+     * Delegates adding stock to an item to the repository
+     * @param id ID of the item
+     * @param amount Amount of stock to add
+     * @return True once the stock has been added
+     * @throws EmptyItemNameException if the id is empty
+     */
+    @Override
+    public boolean increaseQuantity(String id, int amount) throws SQLException {
+        validateAdjustment(id, amount);
+
+        return quantityChanged(repo.increaseQuantity(id, amount), id, amount);
+    }
+
+    /**
+     * Delegates taking stock away from an item to the repository
+     * @param id ID of the item
+     * @param amount Amount of stock to take away
+     * @return True if the stock was taken, false if there was not enough stock
+     * @throws EmptyItemNameException if the id is empty
+     */
+    @Override
+    public boolean decreaseQuantity(String id, int amount) throws SQLException {
+        validateAdjustment(id, amount);
+
+        return quantityChanged(repo.decreaseQuantity(id, amount), id, -amount);
+    }
+
+    /**
+     * Delegates reserving stock of an item to the repository
+     * @param id ID of the item
+     * @param amount Amount of stock to reserve
+     * @return True if the stock was reserved, false if there was not enough stock
+     * @throws EmptyItemNameException if the id is empty
+     */
+    @Override
+    public boolean reserveQuantity(String id, int amount) throws SQLException {
+        validateAdjustment(id, amount);
+
+        return quantityChanged(repo.reserveQuantity(id, amount), id, -amount);
+    }
+
+    /**
+     * Delegates releasing reserved stock of an item to the repository
+     * @param id ID of the item
+     * @param amount Amount of reserved stock to release
+     * @return True if the stock was released, false if less than the amount was reserved
+     * @throws EmptyItemNameException if the id is empty
+     */
+    @Override
+    public boolean releaseReservation(String id, int amount) throws SQLException {
+        validateAdjustment(id, amount);
+
+        return quantityChanged(repo.releaseReservation(id, amount), id, amount);
+    }
+
+    /**
+     * Delegates applying a batch of stock adjustments to the repository
+     * @param adjustments Adjustments to apply, in order
+     * @return The result of each adjustment, in the same order
+     * @throws NoItemPresentException if the list of adjustments is empty
+     */
+    @Override
+    public List<AdjustmentResult> adjustQuantities(List<StockAdjustment> adjustments) throws SQLException {
+        if(adjustments == null || adjustments.isEmpty()){
+            throw new NoItemPresentException();
+        }
+
+        List<AdjustmentResult> results = repo.adjustQuantities(adjustments);
+        if(!listeners.isEmpty()){
+            for(int i = 0; i < results.size(); i++){
+                StockAdjustment adjustment = adjustments.get(i);
+                if(results.get(i) == AdjustmentResult.APPLIED){
+                    notifyListeners(listener -> listener.onQuantityChanged(adjustment.getId(), adjustment.getDelta()));
+                }
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Delegates computing the inventory totals to the repository
+     * @return Item count, total units, total stock value and price range of the inventory
+     */
+    @Override
+    public StockSummary getStockSummary() throws SQLException {
+        return repo.getStockSummary();
+    }
+
+    /**
+     * Delegates finding the highest ranked items to the repository
+     * @param ranking Measure to rank the items by, defaults to stock value
+     * @param limit Maximum number of items to return
+     * @return The top items, highest first
+     */
+    @Override
+    public List<IInventoryItem> getTopItems(ItemRanking ranking, int limit) throws SQLException {
+        if(limit <= 0){
+            throw new IllegalArgumentException("Limit must be greater than zero");
+        }
+
+        return repo.getTopItems(ranking == null ? ItemRanking.VALUE : ranking, limit);
+    }
+
+    private boolean quantityChanged(boolean changed, String id, int delta){
+        if(changed){
+            notifyListeners(listener -> listener.onQuantityChanged(id, delta));
+        }
+        return changed;
+    }
+
+    //The change is already stored, so a failing listener is reported without failing the caller
+    private void notifyListeners(Consumer<InventoryChangeListener> event){
+        for(InventoryChangeListener listener : listeners){
+            try {
+                event.accept(listener);
+            } catch (RuntimeException e) {
+                System.err.println("Inventory change listener failed: " + e.getMessage());
+            }
+        }
+    }
+
+    private static void validateAdjustment(String id, int amount){
+        if(id.isBlank()){
+            throw new EmptyItemNameException();
+        }
+        if(amount <= 0){
+            throw new IllegalArgumentException("Amount must be greater than zero");
+        }
     }
 }
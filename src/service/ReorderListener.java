@@ -0,0 +1,16 @@
+package service;
+
+import model.ReorderAlert;
+
+/**
+ * Receives reorder alerts from a ReorderMonitor, on the monitor's alert thread
+ */
+public interface ReorderListener {
+
+    //called when an item's quantity drops below its reorder point
+    void onReorderNeeded(ReorderAlert alert);
+
+    //called when an item that needed reordering is back at or above its reorder point, or was removed
+    default void onRestocked(String id) {
+    }
+}
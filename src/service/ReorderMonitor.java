@@ -0,0 +1,197 @@
+package service;
+
+import model.IInventoryItem;
+import model.ReorderAlert;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Tracks which items have fallen below their reorder point.
+ * Items with a reorder point are kept in memory and those below it in a tree ordered by how far below
+ * they are, so the items that most need reordering are read off the front of the tree without a scan.
+ * The monitor listens to Management, so every change made through it is reflected immediately.
+ *
+ * Listeners are told when an item first drops below its reorder point and when it recovers.
+ * They are called one at a time, in order, on the monitor's own alert thread, so a slow listener never
+ * delays the write that caused the alert.
+ */
+public class ReorderMonitor implements InventoryChangeListener, AutoCloseable {
+    private static final int FETCH_SIZE = 1000;
+    //Most urgent first: largest deficit, then id so every item has exactly one place
+    private static final Comparator<ReorderAlert> URGENCY = Comparator.comparingInt(ReorderAlert::getDeficit).reversed()
+            .thenComparing(ReorderAlert::getId);
+
+    private final IManagement management;
+    //id -> tracked state of every item with a reorder point. Guarded by this
+    private final Map<String, ReorderAlert> tracked = new HashMap<>();
+    //the tracked items below their reorder point. Guarded by this
+    private final TreeSet<ReorderAlert> belowReorderPoint = new TreeSet<>(URGENCY);
+    private final List<ReorderListener> listeners = new CopyOnWriteArrayList<>();
+    private final ExecutorService alerts = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "reorder-alerts");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * Constructs the monitor and starts listening to changes; call refresh to load the current inventory
+     * @param management Management layer to load from and listen to
+     */
+    public ReorderMonitor(Management management){
+        this.management = management;
+        management.addListener(this);
+    }
+
+    public void addListener(ReorderListener listener){
+        listeners.add(listener);
+    }
+
+    public void removeListener(ReorderListener listener){
+        listeners.remove(listener);
+    }
+
+    /**
+     * Reloads every item with a reorder point, alerting for items that dropped below it since the last load
+     */
+    public void refresh() throws SQLException {
+        try(Stream<IInventoryItem> items = management.streamItems(FETCH_SIZE)){
+            synchronized (this){
+                Map<String, ReorderAlert> before = new HashMap<>(tracked);
+                Iterator<IInventoryItem> iterator = items.iterator();
+                while(iterator.hasNext()){
+                    IInventoryItem item = iterator.next();
+                    before.remove(item.getId());
+                    track(tracked.get(item.getId()), toState(item));
+                }
+                for(ReorderAlert removed : before.values()){
+                    track(removed, null);
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the items that most need reordering. Takes time proportional to the limit, not to the inventory.
+     * @param limit Maximum number of items to return
+     * @return Items below their reorder point, largest deficit first
+     */
+    public synchronized List<ReorderAlert> needsReorder(int limit){
+        if(limit <= 0){
+            throw new IllegalArgumentException("Limit must be greater than zero");
+        }
+
+        List<ReorderAlert> items = new ArrayList<>(Math.min(limit, belowReorderPoint.size()));
+        for(ReorderAlert alert : belowReorderPoint){
+            if(items.size() == limit){
+                break;
+            }
+            items.add(alert);
+        }
+        return items;
+    }
+
+    //returns how many items are below their reorder point
+    public synchronized int countNeedingReorder(){
+        return belowReorderPoint.size();
+    }
+
+    @Override
+    public synchronized void onItemsAdded(List<IInventoryItem> items){
+        for(IInventoryItem item : items){
+            track(tracked.get(item.getId()), toState(item));
+        }
+    }
+
+    @Override
+    public synchronized void onItemUpdated(IInventoryItem item){
+        track(tracked.get(item.getId()), toState(item));
+    }
+
+    @Override
+    public synchronized void onItemRemoved(String id){
+        track(tracked.get(id), null);
+    }
+
+    @Override
+    public synchronized void onQuantityChanged(String id, int delta){
+        ReorderAlert current = tracked.get(id);
+        if(current != null){
+            track(current, new ReorderAlert(id, current.getName(), current.getQuantity() + delta, current.getReorderPoint()));
+        }
+    }
+
+    /**
+     * Stops the alert thread once the alerts already raised have been delivered
+     */
+    @Override
+    public void close(){
+        alerts.shutdown();
+    }
+
+    /**
+     * Replaces the tracked state of an item and queues the alert for crossing its reorder point.
+     * Must be called while holding the lock on this, which also keeps the alerts in the order of the changes.
+     * @param before State before the change, null if the item wasn't tracked
+     * @param after State after the change, null if the item is no longer tracked
+     */
+    private void track(ReorderAlert before, ReorderAlert after){
+        boolean wasBelow = before != null && belowReorderPoint.remove(before);
+        if(before != null){
+            tracked.remove(before.getId());
+        }
+
+        boolean isBelow = false;
+        if(after != null){
+            tracked.put(after.getId(), after);
+            isBelow = after.getQuantity() < after.getReorderPoint();
+            if(isBelow){
+                belowReorderPoint.add(after);
+            }
+        }
+
+        if(isBelow && !wasBelow){
+            fire(listener -> listener.onReorderNeeded(after));
+        }
+        else if(wasBelow && !isBelow){
+            String id = before.getId();
+            fire(listener -> listener.onRestocked(id));
+        }
+    }
+
+    //Hands an alert to the alert thread, a failing listener is reported without stopping the others
+    private void fire(Consumer<ReorderListener> alert){
+        try {
+            alerts.execute(() -> {
+                for(ReorderListener listener : listeners){
+                    try {
+                        alert.accept(listener);
+                    } catch (RuntimeException e) {
+                        System.err.println("Reorder listener failed: " + e.getMessage());
+                    }
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            //the monitor is closed
+        }
+    }
+
+    //returns the state to track for an item, or null if it has no reorder point
+    private static ReorderAlert toState(IInventoryItem item){
+        return item.getReorderPoint() > 0
+                ? new ReorderAlert(item.getId(), item.getName(), item.getQuantity(), item.getReorderPoint())
+                : null;
+    }
+}
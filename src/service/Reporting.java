@@ -0,0 +1,103 @@
+package service;
+
+import analytics.ColumnarInventory;
+import analytics.PriceBand;
+import analytics.StockSummary;
+import model.IInventoryItem;
+
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Reporting service answering aggregate questions about the inventory from a columnar copy of it.
+ * The copy is loaded once from the management layer and then kept current by listening to the changes
+ * made through it, so reports never go back to the repository.
+ */
+public class Reporting implements IReporting, InventoryChangeListener {
+    private static final int FETCH_SIZE = 1000;
+
+    private final IManagement management;
+    private final ColumnarInventory inventory = new ColumnarInventory();
+
+    /**
+     * Constructs the reporting service; call refresh to load the inventory before the first report
+     * @param management Management layer to load from and listen to
+     */
+    public Reporting(Management management){
+        this.management = management;
+        management.addListener(this);
+    }
+
+    /**
+     * Reloads the whole inventory, picking up changes that were made without going through the management layer
+     */
+    @Override
+    public void refresh() throws SQLException {
+        try(Stream<IInventoryItem> items = management.streamItems(FETCH_SIZE)){
+            inventory.load(items);
+        }
+    }
+
+    /**
+     * Totals the units and stock value of the inventory and finds its price range
+     * @return Summary of the whole inventory
+     */
+    @Override
+    public StockSummary getStockSummary(){
+        return inventory.summary();
+    }
+
+    /**
+     * Counts the items running low on stock
+     * @param threshold Quantity below which an item counts as low on stock
+     * @return Number of items below the threshold
+     */
+    @Override
+    public int countLowStock(int threshold){
+        if(threshold < 0){
+            throw new IllegalArgumentException("Threshold must not be negative");
+        }
+        return inventory.countBelow(threshold);
+    }
+
+    /**
+     * Groups the inventory into price bands
+     * @param width Width of each band
+     * @return The bands holding at least one item, cheapest first
+     */
+    @Override
+    public List<PriceBand> getPriceBands(double width){
+        return inventory.priceBands(width);
+    }
+
+    /**
+     * Totals the units of each item name
+     * @return Units per item name
+     */
+    @Override
+    public Map<String, Long> getUnitsByName(){
+        return inventory.unitsByName();
+    }
+
+    @Override
+    public void onItemsAdded(List<IInventoryItem> items){
+        inventory.upsertAll(items);
+    }
+
+    @Override
+    public void onItemUpdated(IInventoryItem item){
+        inventory.upsert(item);
+    }
+
+    @Override
+    public void onItemRemoved(String id){
+        inventory.remove(id);
+    }
+
+    @Override
+    public void onQuantityChanged(String id, int delta){
+        inventory.adjustQuantity(id, delta);
+    }
+}
@@ -0,0 +1,73 @@
+package test.analytics;
+
+import analytics.ColumnarInventory;
+import analytics.PriceBand;
+import analytics.StockSummary;
+import model.IInventoryItem;
+import model.InventoryItem;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ColumnarInventoryTest {
+
+    private ColumnarInventory inventory;
+
+    @BeforeEach
+    void startUp(){
+        inventory = new ColumnarInventory();
+        inventory.load(Stream.<IInventoryItem>of(
+                new InventoryItem("1","Rice",10,2.5),
+                new InventoryItem("2","Beans",3,12.0),
+                new InventoryItem("3","Rice",1,7.0)));
+    }
+
+    @Test
+    public void shouldSummarizeStock(){
+        StockSummary summary = inventory.summary();
+
+        assertEquals(3, summary.getItemCount());
+        assertEquals(14, summary.getTotalUnits());
+        assertEquals(10 * 2.5 + 3 * 12.0 + 7.0, summary.getTotalValue(), 1e-9);
+        assertEquals(2.5, summary.getMinPrice());
+        assertEquals(12.0, summary.getMaxPrice());
+    }
+
+    @Test
+    public void shouldGroupByPriceBandAndName(){
+        List<PriceBand> bands = inventory.priceBands(5);
+
+        assertEquals(3, bands.size());
+        assertEquals(0.0, bands.get(0).getLowerBound());
+        assertEquals(10, bands.get(0).getUnits());
+        assertEquals(10.0, bands.get(2).getLowerBound());
+        assertEquals(Map.of("Rice", 11L, "Beans", 3L), inventory.unitsByName());
+    }
+
+    @Test
+    public void shouldApplyIncrementalChanges(){
+        inventory.adjustQuantity("2", -2);
+        inventory.remove("1");
+        inventory.upsert(new InventoryItem("4","Maize",0,1.0));
+
+        assertEquals(3, inventory.size());
+        assertEquals(3, inventory.countBelow(2));
+        assertEquals(1, inventory.countBelow(1));
+        assertEquals(2, inventory.summary().getTotalUnits());
+        assertEquals(1L, inventory.unitsByName().get("Beans"));
+    }
+
+    @Test
+    public void shouldReportEmptyInventory(){
+        inventory.load(Stream.empty());
+
+        assertEquals(0, inventory.summary().getItemCount());
+        assertTrue(Double.isNaN(inventory.summary().getMinPrice()));
+        assertTrue(inventory.priceBands(1).isEmpty());
+    }
+}
@@ -0,0 +1,128 @@
+package test.changefeed;
+
+import changefeed.ChangeEvent;
+import changefeed.ChangeFeed;
+import changefeed.ChangeOutbox;
+import changefeed.ChangeType;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class ChangeFeedTest {
+
+    private ChangeOutbox outbox;
+    private ChangeFeed feed;
+
+    @BeforeEach
+    void startUp(){
+        outbox = mock(ChangeOutbox.class);
+        feed = new ChangeFeed(outbox);
+    }
+
+    @AfterEach
+    void tearDown(){
+        feed.close();
+    }
+
+    private static List<ChangeEvent> events(long from, long to){
+        List<ChangeEvent> events = new ArrayList<>();
+        for(long offset = from; offset <= to; offset++){
+            events.add(new ChangeEvent(offset, ChangeType.QUANTITY_CHANGED, "id" + offset, null, 0, 0, 0, 1, 0));
+        }
+        return events;
+    }
+
+    @Test
+    public void shouldDeliverBatchesFromCommittedOffsetAndCommitEach() throws Exception {
+        when(outbox.getCommittedOffset("pricing")).thenReturn(10L);
+        when(outbox.read(anyLong(), anyInt())).thenReturn(List.of());
+        when(outbox.read(10, 3)).thenReturn(events(11, 13));
+        when(outbox.read(13, 3)).thenReturn(events(14, 15));
+        List<Long> delivered = new CopyOnWriteArrayList<>();
+        CountDownLatch done = new CountDownLatch(2);
+
+        ChangeFeed.Subscription subscription = feed.subscribe("pricing", 3, Duration.ofMillis(10), batch -> {
+            batch.forEach(event -> delivered.add(event.getOffset()));
+            done.countDown();
+        });
+
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        subscription.close();
+        assertEquals(List.of(11L, 12L, 13L, 14L, 15L), delivered);
+        assertEquals(15, subscription.getCommittedOffset());
+        assertEquals(5, subscription.getDeliveredCount());
+        verify(outbox).commitOffset("pricing", 13);
+        verify(outbox).commitOffset("pricing", 15);
+    }
+
+    @Test
+    public void shouldRedeliverBatchWhenListenerFails() throws Exception {
+        when(outbox.read(anyLong(), anyInt())).thenReturn(List.of());
+        when(outbox.read(0, 500)).thenReturn(events(1, 2));
+        List<Long> firstOffsets = new CopyOnWriteArrayList<>();
+        CountDownLatch done = new CountDownLatch(2);
+
+        ChangeFeed.Subscription subscription = feed.subscribe("warehouse", 500, Duration.ofMillis(10), batch -> {
+            firstOffsets.add(batch.get(0).getOffset());
+            done.countDown();
+            if(firstOffsets.size() == 1){
+                throw new IllegalStateException("warehouse is down");
+            }
+        });
+
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        subscription.close();
+        assertEquals(List.of(1L, 1L), firstOffsets);
+        assertEquals(1, subscription.getFailureCount());
+        verify(outbox, times(1)).commitOffset("warehouse", 2);
+    }
+
+    @Test
+    public void shouldNotReadAheadOfSlowListener() throws Exception {
+        when(outbox.read(anyLong(), anyInt())).thenReturn(List.of());
+        when(outbox.read(0, 2)).thenReturn(events(1, 2));
+        when(outbox.read(2, 2)).thenReturn(events(3, 4));
+        CountDownLatch inListener = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        ChangeFeed.Subscription subscription = feed.subscribe("slow", 2, Duration.ofMillis(10), batch -> {
+            inListener.countDown();
+            release.await();
+        });
+
+        assertTrue(inListener.await(5, TimeUnit.SECONDS));
+        Thread.sleep(100);
+        verify(outbox, never()).read(eq(2L), anyInt());
+        release.countDown();
+        subscription.close();
+    }
+
+    @Test
+    public void shouldRejectInvalidSubscriptions(){
+        assertThrows(IllegalArgumentException.class, () -> feed.subscribe(" ", batch -> {}));
+        assertThrows(IllegalArgumentException.class, () -> feed.subscribe("a", 0, Duration.ofMillis(10), batch -> {}));
+    }
+
+    @Test
+    public void shouldKeepPollingWhenOutboxFails() throws Exception {
+        when(outbox.read(anyLong(), anyInt())).thenThrow(new SQLException("connection lost")).thenReturn(events(1, 1));
+        CountDownLatch done = new CountDownLatch(1);
+
+        ChangeFeed.Subscription subscription = feed.subscribe("retry", 10, Duration.ofMillis(10), batch -> done.countDown());
+
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        subscription.close();
+        assertEquals(1, subscription.getFailureCount());
+    }
+}
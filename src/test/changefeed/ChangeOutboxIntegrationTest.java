@@ -0,0 +1,91 @@
+package test.changefeed;
+
+import changefeed.ChangeEvent;
+import changefeed.ChangeOutbox;
+import changefeed.ChangeType;
+import dbConnection.DBConnection;
+import model.IInventoryItem;
+import model.InventoryItem;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import repository.BulkLoadOptions;
+import repository.IRepo;
+import repository.Repo;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ChangeOutboxIntegrationTest {
+    private ChangeOutbox outbox;
+    private IRepo repo;
+    private long start;
+
+    @BeforeEach
+    void startUp() throws SQLException {
+        DBConnection.config = true;
+        outbox = new ChangeOutbox(DBConnection::getConnection);
+        outbox.createSchema();
+        repo = new Repo(DBConnection::getConnection, outbox);
+        start = outbox.getLastOffset();
+    }
+
+    @Test
+    public void shouldRecordEveryChangeInOrder() throws SQLException {
+        IInventoryItem item = new InventoryItem("feed", "Feed Item", 10, 2.5, 0, 0);
+        repo.addItem(item);
+        repo.decreaseQuantity("feed", 3);
+        repo.reserveQuantity("feed", 2);
+        repo.removeItemById("feed");
+
+        List<ChangeEvent> events = outbox.read(start, 10);
+
+        assertEquals(4, events.size());
+        assertEquals(List.of(ChangeType.ADDED, ChangeType.QUANTITY_CHANGED, ChangeType.RESERVED, ChangeType.REMOVED),
+                events.stream().map(ChangeEvent::getType).toList());
+        assertEquals("Feed Item", events.get(0).getName());
+        assertEquals(-3, events.get(1).getDelta());
+        for(int i = 0; i < events.size(); i++){
+            assertEquals(start + i + 1, events.get(i).getOffset());
+        }
+    }
+
+    @Test
+    public void shouldRecordNothingForChangesThatDidNotHappen() throws SQLException {
+        repo.addItem(new InventoryItem("few", "Few", 1, 1, 0, 0));
+        long afterAdd = outbox.getLastOffset();
+
+        assertFalse(repo.decreaseQuantity("few", 5));
+        repo.bulkLoad(List.of(new InventoryItem("fresh", "Fresh", 1, 1, 0, 0), new InventoryItem("few", "Few", 1, 1, 0, 0)),
+                new BulkLoadOptions().setMode(BulkLoadOptions.Mode.ALL_OR_NOTHING));
+
+        assertEquals(afterAdd, outbox.getLastOffset());
+        assertTrue(outbox.read(afterAdd, 10).isEmpty());
+    }
+
+    @Test
+    public void shouldResumeFromCommittedOffset() throws SQLException {
+        repo.addItem(new InventoryItem("one", "One", 1, 1, 0, 0));
+        repo.addItem(new InventoryItem("two", "Two", 1, 1, 0, 0));
+        outbox.commitOffset("test-consumer", start + 1);
+
+        List<ChangeEvent> rest = outbox.read(outbox.getCommittedOffset("test-consumer"), 10);
+
+        assertEquals(1, rest.size());
+        assertEquals("two", rest.get(0).getItemId());
+    }
+
+    @AfterEach
+    void cleanUp() throws SQLException {
+        try(Connection con = DBConnection.getConnection();
+            Statement stm = con.createStatement()
+        ){
+            stm.execute("DELETE FROM inventory");
+            stm.execute("DELETE FROM inventory_change_offsets WHERE consumer = 'test-consumer'");
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package test.dbConnection;
+
+import dbConnection.ConnectionPool;
+import dbConnection.PoolConfig;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class ConnectionPoolTest {
+
+    //Every physical connection the pool opened, in order
+    private final List<Connection> opened = new ArrayList<>();
+    private ConnectionPool pool;
+
+    @AfterEach
+    void tearDown(){
+        if(pool != null){
+            pool.close();
+        }
+    }
+
+    private static Connection healthyConnection() throws SQLException {
+        Connection con = mock(Connection.class);
+        when(con.isValid(anyInt())).thenReturn(true);
+        when(con.getAutoCommit()).thenReturn(true);
+        return con;
+    }
+
+    private ConnectionPool pool(PoolConfig config) throws SQLException {
+        return new ConnectionPool(() -> {
+            Connection con = healthyConnection();
+            opened.add(con);
+            return con;
+        }, config);
+    }
+
+    @Test
+    public void shouldHandBackTheSameConnectionAfterItIsReturned() throws SQLException {
+        pool = pool(new PoolConfig().setMinSize(0).setMaxSize(2));
+
+        Connection first = pool.getConnection();
+        assertEquals(1, pool.getMetrics().getActive());
+        first.close();
+        assertEquals(0, pool.getMetrics().getActive());
+        assertEquals(1, pool.getMetrics().getIdle());
+
+        try(Connection second = pool.getConnection()){
+            assertNotSame(first, second);
+            assertEquals(1, opened.size());
+        }
+        verify(opened.get(0), never()).close();
+    }
+
+    @Test
+    public void shouldRollBackWhatTheBorrowerLeftOpen() throws SQLException {
+        pool = pool(new PoolConfig().setMinSize(0).setMaxSize(1));
+
+        Connection con = pool.getConnection();
+        when(opened.get(0).getAutoCommit()).thenReturn(false);
+        con.close();
+
+        verify(opened.get(0)).rollback();
+        verify(opened.get(0)).setAutoCommit(true);
+    }
+
+    @Test
+    public void shouldRejectCallsOnAReturnedConnection() throws SQLException {
+        pool = pool(new PoolConfig().setMinSize(0).setMaxSize(1));
+
+        Connection con = pool.getConnection();
+        con.close();
+
+        assertTrue(con.isClosed());
+        assertThrows(SQLException.class, con::createStatement);
+    }
+
+    @Test
+    public void shouldTimeOutWhenEveryConnectionIsBorrowed() throws SQLException {
+        pool = pool(new PoolConfig().setMinSize(0).setMaxSize(1).setAcquireTimeout(Duration.ofMillis(50)));
+
+        try(Connection held = pool.getConnection()){
+            assertThrows(SQLTimeoutException.class, pool::getConnection);
+            assertEquals(1, pool.getMetrics().getTimeouts());
+        }
+        try(Connection again = pool.getConnection()){
+            assertEquals(1, opened.size());
+        }
+    }
+
+    @Test
+    public void shouldReplaceAConnectionThatFailsValidation() throws SQLException {
+        pool = pool(new PoolConfig().setMinSize(1).setMaxSize(1));
+        Connection stale = opened.get(0);
+        when(stale.isValid(anyInt())).thenReturn(false);
+
+        try(Connection con = pool.getConnection()){
+            assertEquals(2, opened.size());
+            verify(stale).close();
+        }
+    }
+
+    @Test
+    public void shouldDiscardAConnectionThatBrokeWhileBorrowed() throws SQLException {
+        pool = pool(new PoolConfig().setMinSize(0).setMaxSize(1));
+
+        Connection con = pool.getConnection();
+        when(opened.get(0).createStatement()).thenThrow(new SQLException("Communications link failure", "08S01"));
+        assertThrows(SQLException.class, con::createStatement);
+        con.close();
+
+        verify(opened.get(0)).close();
+        assertEquals(0, pool.getMetrics().getIdle());
+        try(Connection replacement = pool.getConnection()){
+            assertEquals(2, opened.size());
+        }
+    }
+
+    @Test
+    public void shouldCloseIdleConnectionsAndRefuseBorrowsOnceClosed() throws SQLException {
+        pool = pool(new PoolConfig().setMinSize(2).setMaxSize(3));
+        Connection borrowed = pool.getConnection();
+
+        pool.close();
+
+        verify(opened.get(1)).close();
+        assertThrows(SQLException.class, pool::getConnection);
+        Connection held = opened.get(0);
+        verify(held, never()).close();
+        borrowed.close();
+        verify(held).close();
+    }
+}
@@ -0,0 +1,79 @@
+package test.metrics;
+
+import exceptions.NoItemPresentException;
+import metrics.Instrumentation;
+import metrics.MetricsRegistry;
+import metrics.OperationStats;
+import model.IInventoryItem;
+import model.InventoryItem;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import repository.IRepo;
+
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class InstrumentationTest {
+
+    private IRepo repo;
+    private MetricsRegistry registry;
+    private IRepo instrumented;
+
+    @BeforeEach
+    void startUp(){
+        repo = mock(IRepo.class);
+        registry = new MetricsRegistry();
+        instrumented = Instrumentation.wrap(IRepo.class, repo, "repo", registry);
+    }
+
+    @Test
+    public void shouldCountCallsRowsAndErrorsByType() throws SQLException {
+        when(repo.getItems()).thenReturn(List.of(new InventoryItem("Rice",1,1.0), new InventoryItem("Beans",1,1.0)));
+        when(repo.getItem("Maize")).thenThrow(new NoItemPresentException());
+
+        assertEquals(2, instrumented.getItems().size());
+        assertEquals(2, instrumented.getItems().size());
+        assertThrows(NoItemPresentException.class, () -> instrumented.getItem("Maize"));
+
+        OperationStats getItems = registry.stats("repo", "getItems");
+        assertEquals(2, getItems.getCount());
+        assertEquals(4, getItems.getRows());
+        OperationStats getItem = registry.stats("repo", "getItem");
+        assertEquals(1, getItem.getCount());
+        assertEquals(Map.of("NoItemPresentException", 1L), getItem.getErrors());
+    }
+
+    @Test
+    public void shouldCountStreamedRowsAsTheyAreRead() throws SQLException {
+        when(repo.streamItems(10)).thenReturn(Stream.<IInventoryItem>of(new InventoryItem("Rice",1,1.0), new InventoryItem("Beans",1,1.0)));
+
+        try(Stream<IInventoryItem> items = instrumented.streamItems(10)){
+            assertEquals(2, items.count());
+        }
+
+        assertEquals(2, registry.stats("repo", "streamItems").getRows());
+    }
+
+    @Test
+    public void shouldWritePrometheusText() throws SQLException {
+        when(repo.removeItemById("1")).thenReturn(true);
+        instrumented.removeItemById("1");
+
+        String text = registry.toPrometheus();
+
+        assertTrue(text.contains("# TYPE inventory_operation_duration_seconds summary"));
+        assertTrue(text.contains("inventory_operation_duration_seconds_count{component=\"repo\",operation=\"removeItemById\"} 1"));
+        assertTrue(text.contains("inventory_operation_rows_total{component=\"repo\",operation=\"removeItemById\"} 1"));
+    }
+
+    @Test
+    public void shouldLeaveObjectsUnwrappedWhenDisabled(){
+        assertSame(repo, Instrumentation.wrap(IRepo.class, repo, "repo", MetricsRegistry.DISABLED));
+        assertEquals(instrumented, instrumented);
+    }
+}
@@ -0,0 +1,168 @@
+package test.repository;
+
+import analytics.StockSummary;
+import exceptions.NoItemPresentException;
+import model.IInventoryItem;
+import model.InventoryItem;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import repository.CachingRepo;
+import repository.IRepo;
+
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class CachingRepoTest {
+
+    private IRepo repo;
+    private CachingRepo cache;
+
+    @BeforeEach
+    void startUp(){
+        repo = mock(IRepo.class);
+        cache = new CachingRepo(repo, 2, Duration.ofMinutes(1));
+    }
+
+    @Test
+    public void shouldServeRepeatedLookupsFromCache() throws SQLException {
+        IInventoryItem item = new InventoryItem("1111","Rice",3,33.3);
+        when(repo.getItem("Rice")).thenReturn(item);
+
+        assertEquals(item, cache.getItem("Rice"));
+        assertEquals(item, cache.getItem("Rice"));
+
+        verify(repo,times(1)).getItem("Rice");
+        assertEquals(1, cache.getHits());
+        assertEquals(1, cache.getMisses());
+    }
+
+    @Test
+    public void shouldShareCacheEntryAcrossCasing() throws SQLException {
+        IInventoryItem item = new InventoryItem("1111","Rice",3,33.3);
+        when(repo.getItem(anyString())).thenReturn(item);
+
+        cache.getItem("Rice");
+        cache.getItem("RICE");
+
+        verify(repo,times(1)).getItem(anyString());
+    }
+
+    @Test
+    public void shouldInvalidateOnRemove() throws SQLException {
+        IInventoryItem item = new InventoryItem("1111","Rice",3,33.3);
+        when(repo.getItem("Rice")).thenReturn(item);
+        when(repo.removeItemById("1111")).thenReturn(true);
+
+        cache.getItem("Rice");
+        cache.removeItemById("1111");
+        cache.getItem("Rice");
+
+        verify(repo,times(2)).getItem("Rice");
+    }
+
+    @Test
+    public void shouldInvalidateOnAdd() throws SQLException {
+        IInventoryItem item = new InventoryItem("1111","Rice",3,33.3);
+        when(repo.getItem("Rice")).thenReturn(item);
+
+        cache.getItem("Rice");
+        cache.addListOfItems(List.of(new InventoryItem("2222","Rice",1,30.0)));
+        cache.getItem("Rice");
+
+        verify(repo,times(2)).getItem("Rice");
+    }
+
+    @Test
+    public void shouldNotKeepALookupThatRanWhileTheAddWasInProgress() throws SQLException {
+        IInventoryItem stale = new InventoryItem("1111","Rice",3,33.3);
+        IInventoryItem added = new InventoryItem("2222","Rice",1,30.0);
+        when(repo.getItem("Rice")).thenReturn(stale, added);
+        //the lookup lands after the cache dropped the name but before the insert commits
+        when(repo.addItem(added)).thenAnswer(invocation -> {
+            assertEquals(stale, cache.getItem("Rice"));
+            return true;
+        });
+
+        cache.addItem(added);
+
+        assertEquals(added, cache.getItem("Rice"));
+        verify(repo,times(2)).getItem("Rice");
+    }
+
+    @Test
+    public void shouldEvictLeastRecentlyUsedItem() throws SQLException {
+        when(repo.getItem(anyString())).thenAnswer(inv -> new InventoryItem(inv.getArgument(0), 1, 1.0));
+
+        cache.getItem("a");
+        cache.getItem("b");
+        cache.getItem("a");
+        cache.getItem("c");
+
+        assertEquals(2, cache.size());
+        assertEquals(1, cache.getEvictions());
+
+        cache.getItem("a");
+        verify(repo,times(1)).getItem("a");
+        cache.getItem("b");
+        verify(repo,times(2)).getItem("b");
+    }
+
+    @Test
+    public void shouldNotCacheMisses() throws SQLException {
+        when(repo.getItem("Rice")).thenThrow(new NoItemPresentException());
+
+        assertThrows(NoItemPresentException.class, () -> cache.getItem("Rice"));
+        assertThrows(NoItemPresentException.class, () -> cache.getItem("Rice"));
+
+        verify(repo,times(2)).getItem("Rice");
+    }
+
+    @Test
+    public void shouldLoadOnceForConcurrentMisses() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        IInventoryItem item = new InventoryItem("1111","Rice",3,33.3);
+        when(repo.getItem("Rice")).thenAnswer(inv -> {
+            release.await(5, TimeUnit.SECONDS);
+            return item;
+        });
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<IInventoryItem>> results = new ArrayList<>();
+        for(int i = 0; i < 8; i++){
+            results.add(executor.submit(() -> cache.getItem("Rice")));
+        }
+        Thread.sleep(200);
+        release.countDown();
+
+        for(Future<IInventoryItem> result : results){
+            assertEquals(item, result.get(5, TimeUnit.SECONDS));
+        }
+        executor.shutdown();
+
+        verify(repo,times(1)).getItem("Rice");
+    }
+
+    @Test
+    public void shouldCacheReportsUntilAWrite() throws SQLException {
+        StockSummary before = new StockSummary(1, 3, 99.9, 33.3, 33.3);
+        StockSummary after = new StockSummary(1, 5, 166.5, 33.3, 33.3);
+        when(repo.getStockSummary()).thenReturn(before, after);
+
+        assertSame(before, cache.getStockSummary());
+        assertSame(before, cache.getStockSummary());
+        cache.increaseQuantity("1111", 2);
+
+        assertSame(after, cache.getStockSummary());
+        verify(repo, times(2)).getStockSummary();
+    }
+}
@@ -0,0 +1,272 @@
+package test.repository;
+
+import exceptions.DataAccessException;
+import exceptions.DataCorruptionException;
+import exceptions.ItemAlreadyExistsException;
+import model.AdjustmentResult;
+import model.IInventoryItem;
+import model.InventoryItem;
+import model.ItemPage;
+import model.ItemRanking;
+import model.ItemSort;
+import model.StockAdjustment;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import repository.embedded.EmbeddedRepo;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class EmbeddedRepoTest {
+
+    @TempDir
+    Path directory;
+
+    private EmbeddedRepo repo;
+
+    @BeforeEach
+    void startUp(){
+        repo = new EmbeddedRepo(directory);
+    }
+
+    @AfterEach
+    void tearDown(){
+        repo.close();
+    }
+
+    @Test
+    public void shouldFindItemsByNameIgnoringCase(){
+        repo.addItem(new InventoryItem("1111","Rice",3,33.3));
+
+        assertEquals("1111", repo.getItem("rICE").getId());
+    }
+
+    @Test
+    public void shouldRejectDuplicateIdsWithoutAddingAny(){
+        repo.addItem(new InventoryItem("1111","Rice",3,33.3));
+
+        assertThrows(ItemAlreadyExistsException.class, () -> repo.addListOfItems(List.of(
+                new InventoryItem("2222","Beans",1,10.0),
+                new InventoryItem("1111","Maize",1,10.0))));
+        assertEquals(1, repo.size());
+    }
+
+    @Test
+    public void shouldKeepItemsAfterReopening(){
+        repo.addItem(new InventoryItem("1111","Rice",3,33.3));
+        repo.addItem(new InventoryItem("2222","Beans",5,10.0));
+        repo.decreaseQuantity("1111", 2);
+        repo.removeItemById("2222");
+        repo.close();
+
+        repo = new EmbeddedRepo(directory);
+
+        assertEquals(1, repo.size());
+        IInventoryItem rice = repo.getItem("Rice");
+        assertEquals(1, rice.getQuantity());
+        assertEquals(1, rice.getVersion());
+    }
+
+    @Test
+    public void shouldApplyRepeatedAdjustmentsToTheSameItemInTurn(){
+        repo.addItem(new InventoryItem("1111","Rice",5,33.3));
+
+        assertEquals(List.of(AdjustmentResult.APPLIED, AdjustmentResult.INSUFFICIENT_STOCK, AdjustmentResult.APPLIED),
+                repo.adjustQuantities(List.of(new StockAdjustment("1111", -3), new StockAdjustment("1111", -3),
+                        new StockAdjustment("1111", 4))));
+        repo.close();
+
+        repo = new EmbeddedRepo(directory);
+        assertEquals(6, repo.getItem("Rice").getQuantity());
+    }
+
+    @Test
+    public void shouldLeaveStockUnchangedWhenTheAdjustmentCannotBeLogged(){
+        repo.addItem(new InventoryItem("1111","Rice",5,33.3));
+        repo.close();
+
+        assertThrows(DataAccessException.class, () -> repo.adjustQuantities(List.of(new StockAdjustment("1111", -3))));
+        assertEquals(5, repo.getItem("Rice").getQuantity());
+    }
+
+    @Test
+    public void shouldDiscardTornRecordOnRecovery() throws IOException {
+        repo.addItem(new InventoryItem("1111","Rice",3,33.3));
+        repo.addItem(new InventoryItem("2222","Beans",5,10.0));
+        repo.close();
+
+        Path log = directory.resolve("inventory-0000000000000000.log");
+        try (FileChannel channel = FileChannel.open(log, StandardOpenOption.WRITE)) {
+            channel.truncate(channel.size() - 3);
+        }
+        repo = new EmbeddedRepo(directory);
+
+        assertEquals(1, repo.size());
+        assertEquals("1111", repo.getItem("Rice").getId());
+        repo.addItem(new InventoryItem("3333","Maize",1,1.0));
+        repo.close();
+
+        repo = new EmbeddedRepo(directory);
+        assertEquals(2, repo.size());
+    }
+
+    @Test
+    public void shouldFailOnCorruptRecordInTheMiddleOfTheLog() throws IOException {
+        repo.addItem(new InventoryItem("1111","Rice",3,33.3));
+        repo.addItem(new InventoryItem("2222","Beans",5,10.0));
+        repo.close();
+
+        Path log = directory.resolve("inventory-0000000000000000.log");
+        byte[] bytes = Files.readAllBytes(log);
+        //flips a bit in the first record's payload, just after its 8 byte header
+        bytes[10] ^= 1;
+        Files.write(log, bytes);
+
+        assertThrows(DataCorruptionException.class, () -> new EmbeddedRepo(directory));
+        assertArrayEquals(bytes, Files.readAllBytes(log));
+        repo = new EmbeddedRepo(directory.resolve("fresh"));
+    }
+
+    @Test
+    public void shouldFailOnDamagedLengthInTheMiddleOfTheLog() throws IOException {
+        repo.addItem(new InventoryItem("1111","Rice",3,33.3));
+        repo.addItem(new InventoryItem("2222","Beans",5,10.0));
+        repo.close();
+
+        Path log = directory.resolve("inventory-0000000000000000.log");
+        byte[] bytes = Files.readAllBytes(log);
+        //makes the first record's length run far past the end of the file
+        bytes[0] ^= 0x10;
+        Files.write(log, bytes);
+
+        assertThrows(DataCorruptionException.class, () -> new EmbeddedRepo(directory));
+        assertArrayEquals(bytes, Files.readAllBytes(log));
+        repo = new EmbeddedRepo(directory.resolve("fresh"));
+    }
+
+    @Test
+    public void shouldNotDecreaseBelowZero(){
+        repo.addItem(new InventoryItem("1111","Rice",3,33.3));
+
+        assertFalse(repo.decreaseQuantity("1111", 4));
+        assertTrue(repo.decreaseQuantity("1111", 3));
+        assertEquals(0, repo.getItem("Rice").getQuantity());
+    }
+
+    @Test
+    public void shouldRejectUpdateWithStaleVersion(){
+        repo.addItem(new InventoryItem("1111","Rice",3,33.3));
+        IInventoryItem read = repo.getItem("Rice");
+
+        assertTrue(repo.updateItem(new InventoryItem("1111","Brown Rice",3,35.0,read.getVersion())));
+        assertFalse(repo.updateItem(new InventoryItem("1111","Wild Rice",3,40.0,read.getVersion())));
+        assertEquals("Brown Rice", repo.getItem("brown rice").getName());
+    }
+
+    @Test
+    public void shouldPageInSortOrder(){
+        repo.addItem(new InventoryItem("1111","Rice",3,33.3));
+        repo.addItem(new InventoryItem("2222","Beans",5,10.0));
+        repo.addItem(new InventoryItem("3333","Maize",1,20.0));
+
+        ItemPage first = repo.getPage(2, null, ItemSort.PRICE);
+        ItemPage second = repo.getPage(2, first.getNextCursor(), ItemSort.PRICE);
+
+        assertEquals(List.of("2222","3333"), first.getItems().stream().map(IInventoryItem::getId).toList());
+        assertEquals(List.of("1111"), second.getItems().stream().map(IInventoryItem::getId).toList());
+        assertFalse(second.hasNext());
+    }
+
+    @Test
+    public void shouldRestoreFromSnapshotAndDeleteCompactedLogs() throws IOException {
+        repo.addItem(new InventoryItem("1111","Rice",3,33.3));
+        repo.addItem(new InventoryItem("2222","Beans",5,10.0));
+        repo.compact();
+        repo.removeItemById("2222");
+        repo.close();
+
+        try (Stream<Path> files = Files.list(directory)) {
+            assertEquals(List.of("inventory-0000000000000001.catalog", "inventory-0000000000000001.log"),
+                    files.map(file -> file.getFileName().toString()).sorted().toList());
+        }
+        repo = new EmbeddedRepo(directory);
+
+        assertEquals(1, repo.size());
+        assertEquals("1111", repo.getItem("Rice").getId());
+    }
+
+    @Test
+    public void shouldCompactOnceLogExceedsThreshold() throws Exception {
+        repo.close();
+        repo = new EmbeddedRepo(directory, Duration.ZERO, 1024);
+
+        for (int i = 0; i < 100; i++) {
+            repo.addItem(new InventoryItem("id" + i,"Item " + i,i,1.0));
+        }
+        repo.close();
+        repo = new EmbeddedRepo(directory);
+
+        try (Stream<Path> files = Files.list(directory)) {
+            assertTrue(files.anyMatch(file -> file.getFileName().toString().endsWith(".catalog")));
+        }
+        assertEquals(100, repo.size());
+    }
+
+    @Test
+    public void shouldKeepItemsReadBeforeCompactionAfterTheStoreCloses(){
+        repo.addItem(new InventoryItem("1111","Rice",3,33.3));
+        repo.compact();
+        IInventoryItem mapped = repo.getItem("Rice");
+        repo.addItem(new InventoryItem("2222","Beans",5,10.0));
+        repo.compact();
+        repo.close();
+
+        assertEquals("Rice", mapped.getName());
+        assertEquals(3, mapped.getQuantity());
+        assertEquals(33.3, mapped.getPrice(), 1e-9);
+
+        repo = new EmbeddedRepo(directory);
+        IInventoryItem beans = repo.getItem("Beans");
+        repo.close();
+        assertEquals(5, beans.getQuantity());
+        repo = new EmbeddedRepo(directory);
+        assertEquals(2, repo.size());
+    }
+
+    @Test
+    public void shouldFailOnCorruptSnapshot() throws IOException {
+        repo.addItem(new InventoryItem("1111","Rice",3,33.3));
+        repo.compact();
+        repo.close();
+
+        Path snapshot = directory.resolve("inventory-0000000000000001.catalog");
+        byte[] bytes = Files.readAllBytes(snapshot);
+        bytes[bytes.length / 2] ^= 1;
+        Files.write(snapshot, bytes);
+
+        assertThrows(DataCorruptionException.class, () -> new EmbeddedRepo(directory));
+        repo = new EmbeddedRepo(directory.resolve("fresh"));
+    }
+
+    @Test
+    public void shouldReportTotalsAndTopItems(){
+        repo.addItem(new InventoryItem("1111","Rice",3,33.3));
+        repo.addItem(new InventoryItem("2222","Beans",10,5.0));
+        repo.addItem(new InventoryItem("3333","Maize",1,20.0));
+
+        assertEquals(14, repo.getStockSummary().getTotalUnits());
+        assertEquals(3 * 33.3 + 50.0 + 20.0, repo.getStockSummary().getTotalValue(), 1e-9);
+        assertEquals(List.of("1111","2222"), repo.getTopItems(ItemRanking.VALUE, 2).stream().map(IInventoryItem::getId).toList());
+        assertEquals(List.of("2222"), repo.getTopItems(ItemRanking.QUANTITY, 1).stream().map(IInventoryItem::getId).toList());
+    }
+}
@@ -0,0 +1,152 @@
+package test.repository;
+
+import changefeed.ChangeEvent;
+import changefeed.ChangeType;
+import exceptions.NoItemPresentException;
+import model.InventoryItem;
+import model.ItemSort;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import repository.IRepo;
+import repository.ledger.ItemState;
+import repository.ledger.LedgerEvent;
+import repository.ledger.LedgerEventType;
+import repository.ledger.LedgerRepo;
+import repository.ledger.LedgerStore;
+
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class LedgerRepoTest {
+
+    private LedgerStore store;
+    private IRepo view;
+    private LedgerRepo repo;
+
+    @BeforeEach
+    void startUp() throws SQLException {
+        store = mock(LedgerStore.class);
+        view = mock(IRepo.class);
+        when(store.readAfter(anyLong(), anyInt())).thenReturn(List.of());
+        repo = new LedgerRepo(store, view, Duration.ofHours(1), 100);
+    }
+
+    @AfterEach
+    void tearDown(){
+        repo.close();
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<LedgerEvent> appended() throws SQLException {
+        ArgumentCaptor<List<LedgerEvent>> captor = ArgumentCaptor.forClass(List.class);
+        verify(store, atLeastOnce()).append(captor.capture());
+        return captor.getAllValues().stream().flatMap(List::stream).toList();
+    }
+
+    @Test
+    public void shouldRecordEventsAndReadFromProjection() throws SQLException {
+        repo.addItem(new InventoryItem("a", "Apple", 10, 2.0, 0, 0));
+        repo.increaseQuantity("a", 5);
+        repo.decreaseQuantity("a", 3);
+        repo.reserveQuantity("a", 2);
+
+        List<LedgerEvent> events = appended();
+        assertEquals(List.of(LedgerEventType.CREATED, LedgerEventType.RECEIVED, LedgerEventType.SHIPPED, LedgerEventType.ADJUSTED),
+                events.stream().map(LedgerEvent::getType).toList());
+        assertEquals(List.of(1L, 2L, 3L, 4L), events.stream().map(LedgerEvent::getSeq).toList());
+        assertEquals(-3, events.get(2).getQuantityDelta());
+
+        assertEquals(10, repo.getItem("APPLE").getQuantity());
+        assertEquals(3, repo.getItem("apple").getVersion());
+        verifyNoInteractions(view);
+    }
+
+    @Test
+    public void shouldRecordNothingForRejectedChanges() throws SQLException {
+        repo.addItem(new InventoryItem("a", "Apple", 1, 2.0, 0, 0));
+
+        assertFalse(repo.decreaseQuantity("a", 2));
+        assertFalse(repo.releaseReservation("a", 1));
+        assertFalse(repo.updateItem(new InventoryItem("a", "Apple", 1, 3.0, 5, 0)));
+        assertFalse(repo.removeItemById("missing"));
+
+        assertEquals(1, appended().size());
+        assertEquals(1, repo.getLastSeq());
+    }
+
+    @Test
+    public void shouldLeaveProjectionUnchangedWhenAppendFails() throws SQLException {
+        doThrow(new SQLException("ledger unavailable")).when(store).append(anyList());
+
+        assertThrows(SQLException.class, () -> repo.addItem(new InventoryItem("a", "Apple", 1, 2.0, 0, 0)));
+
+        assertThrows(NoItemPresentException.class, () -> repo.getItem("Apple"));
+        assertEquals(0, repo.getLastSeq());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void shouldReplayOnlyEventsAfterCheckpoint() throws SQLException {
+        LedgerStore restarted = mock(LedgerStore.class);
+        when(restarted.loadState(any())).thenAnswer(invocation -> {
+            ((Consumer<ItemState>) invocation.getArgument(0)).accept(new ItemState(new InventoryItem("a", "Apple", 5, 2.0, 4, 0), 0));
+            return 7L;
+        });
+        when(restarted.readAfter(anyLong(), anyInt())).thenReturn(List.of());
+        when(restarted.readAfter(7, 100)).thenReturn(List.of(new LedgerEvent(8, LedgerEventType.RECEIVED, "a", null, 3, 0, 0, 0, 0)));
+
+        try(LedgerRepo reopened = new LedgerRepo(restarted, view, Duration.ofHours(1), 100)){
+            assertEquals(8, reopened.getItem("apple").getQuantity());
+            assertEquals(5, reopened.getItem("apple").getVersion());
+            assertEquals(1, reopened.getReplayedOnOpen());
+            assertEquals(8, reopened.getLastSeq());
+            verify(restarted, never()).readAfter(eq(0L), anyInt());
+        }
+    }
+
+    @Test
+    public void shouldFoldPendingEventsAndMoveCheckpoint() throws SQLException {
+        repo.addItem(new InventoryItem("a", "Apple", 1, 2.0, 0, 0));
+        List<LedgerEvent> events = appended();
+        when(store.readAfter(0, 100)).thenReturn(events);
+
+        repo.fold();
+
+        verify(store).fold(events);
+        assertEquals(1, repo.getCheckpoint());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void shouldRecordChangeFeedEventsWithTheLedgerEvents() throws SQLException {
+        when(store.recordsChanges()).thenReturn(true);
+
+        repo.addItem(new InventoryItem("a", "Apple", 10, 2.0, 0, 0));
+        repo.reserveQuantity("a", 4);
+        repo.updateItem(new InventoryItem("a", "Green apple", 7, 2.5, 1, 3));
+
+        ArgumentCaptor<List<ChangeEvent>> captor = ArgumentCaptor.forClass(List.class);
+        verify(store, times(3)).append(anyList(), captor.capture());
+        List<ChangeEvent> changes = captor.getAllValues().stream().flatMap(List::stream).toList();
+        assertEquals(List.of(ChangeType.ADDED, ChangeType.RESERVED, ChangeType.UPDATED),
+                changes.stream().map(ChangeEvent::getType).toList());
+        assertEquals(4, changes.get(1).getDelta());
+        assertEquals("Green apple", changes.get(2).getName());
+        assertEquals(7, changes.get(2).getQuantity());
+        verify(store, never()).append(anyList());
+    }
+
+    @Test
+    public void shouldPageThroughMaterializedView() throws SQLException {
+        repo.getPage(10, null, ItemSort.NAME);
+
+        verify(view).getPage(10, null, ItemSort.NAME);
+    }
+}
@@ -0,0 +1,128 @@
+package test.repository;
+
+import exceptions.NoItemPresentException;
+import model.IInventoryItem;
+import model.InventoryItem;
+import model.ItemSort;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import repository.BulkLoadOptions;
+import repository.IRepo;
+import repository.ReplicaConfig;
+import repository.ReplicaRoutingRepo;
+import repository.embedded.EmbeddedRepo;
+
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class ReplicaRoutingRepoTest {
+    private static final int ITEMS = 50;
+
+    @TempDir
+    Path directory;
+
+    private EmbeddedRepo primary;
+    private final List<EmbeddedRepo> replicas = new ArrayList<>();
+    private ReplicaRoutingRepo router;
+    //Stands in for System.nanoTime, moved on by the tests instead of sleeping
+    private final AtomicLong now = new AtomicLong();
+
+    //The replicas get a copy of the items, standing in for replication having caught up
+    @BeforeEach
+    void startUp() throws SQLException {
+        primary = new EmbeddedRepo(directory.resolve("primary"));
+        List<IInventoryItem> items = new ArrayList<>();
+        for(int i = 0; i < ITEMS; i++){
+            items.add(new InventoryItem("id" + i, "item" + i, i, 10, 0, 0));
+        }
+        primary.bulkLoad(items, new BulkLoadOptions());
+        for(int i = 0; i < 2; i++){
+            EmbeddedRepo replica = new EmbeddedRepo(directory.resolve("replica-" + i));
+            replica.bulkLoad(items, new BulkLoadOptions());
+            replicas.add(replica);
+        }
+        router = new ReplicaRoutingRepo(primary, new ArrayList<>(replicas), config(), now::get);
+    }
+
+    @AfterEach
+    void tearDown(){
+        router.close();
+        primary.close();
+        replicas.forEach(EmbeddedRepo::close);
+    }
+
+    private static ReplicaConfig config(){
+        return new ReplicaConfig().setLagWindow(Duration.ofMillis(200)).setHealthCheckInterval(Duration.ZERO);
+    }
+
+    @Test
+    public void shouldSpreadReadsOverReplicas() throws SQLException {
+        for(int i = 0; i < 10; i++){
+            assertEquals("id" + i, router.getItem("item" + i).getId());
+        }
+        assertEquals(ITEMS, router.getItems().size());
+
+        assertEquals(11, router.getReplicaReadCount());
+        assertEquals(0, router.getPrimaryReadCount());
+    }
+
+    @Test
+    public void shouldReadOwnWritesFromPrimaryWithinLagWindow() throws SQLException {
+        IRepo writer = router.newSession();
+        IRepo reader = router.newSession();
+
+        writer.addItem(new InventoryItem("new", "fresh", 1, 5, 0, 0));
+
+        assertEquals("new", writer.getItem("fresh").getId());
+        assertThrows(NoItemPresentException.class, () -> reader.getItem("fresh"));
+        assertEquals(1, router.getPrimaryReadCount());
+
+        now.addAndGet(Duration.ofMillis(199).toNanos());
+        assertEquals("new", writer.getItem("fresh").getId());
+        now.addAndGet(Duration.ofMillis(1).toNanos());
+        assertThrows(NoItemPresentException.class, () -> writer.getItem("fresh"));
+    }
+
+    @Test
+    public void shouldRetryOnPrimaryAndEjectFailingReplica() throws SQLException {
+        IRepo failing = mock(IRepo.class);
+        when(failing.getItem(anyString())).thenThrow(new SQLException("replica down"));
+        try(ReplicaRoutingRepo routing = new ReplicaRoutingRepo(primary, List.of(failing), config())){
+            assertEquals("id3", routing.getItem("item3").getId());
+            assertEquals("id4", routing.getItem("item4").getId());
+
+            assertEquals(0, routing.getHealthyReplicaCount());
+            assertEquals(1, routing.getEjectionCount());
+            assertEquals(2, routing.getPrimaryReadCount());
+            verify(failing, times(1)).getItem(anyString());
+        }
+    }
+
+    @Test
+    public void shouldEjectSlowReplicaUntilHealthCheckPasses() throws SQLException {
+        IRepo slow = mock(IRepo.class);
+        when(slow.getPage(1, null, ItemSort.ID)).thenAnswer(invocation -> {
+            now.addAndGet(Duration.ofMillis(100).toNanos());
+            return null;
+        });
+        ReplicaConfig config = config().setSlowThreshold(Duration.ofMillis(50));
+        try(ReplicaRoutingRepo routing = new ReplicaRoutingRepo(primary, List.of(slow), config, now::get)){
+            routing.checkReplicas();
+            assertEquals(0, routing.getHealthyReplicaCount());
+            assertEquals("id5", routing.getItem("item5").getId());
+
+            reset(slow);
+            routing.checkReplicas();
+            assertEquals(1, routing.getHealthyReplicaCount());
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package test.repository;
 
+import analytics.StockSummary;
 import dbConnection.DBConnection;
 import exceptions.EmptyItemNameException;
 import exceptions.NoItemPresentException;
@@ -8,6 +9,8 @@ import model.InventoryItem;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import repository.BulkLoadOptions;
+import repository.BulkLoadReport;
 import repository.IRepo;
 import repository.Repo;
 
@@ -46,6 +49,17 @@ public class RepoTest {
         assertEquals(item.getPrice(),retrieve.getPrice());
     }
 
+    @Test
+    public void shouldGetItemIgnoringCase() throws SQLException {
+        IInventoryItem item = new InventoryItem("Brown Rice",2,4);
+        repo.addItem(item);
+
+        IInventoryItem retrieve = repo.getItem("bROWN rICE");
+
+        assertEquals(item.getId(),retrieve.getId());
+        assertEquals("Brown Rice",retrieve.getName());
+    }
+
     @Test
     public void shouldThrowExceptionWhenTryingToAddNull(){
         assertThrows(Exception.class, ()->{
@@ -76,6 +90,38 @@ public class RepoTest {
             assertEquals(new ArrayList<>(itemList), new ArrayList<>(retrieved));
     }
 
+    @Test
+    public void shouldSkipConflictsInBestEffortBulkLoad() throws SQLException {
+        repo.addItem(new InventoryItem("1000","existing",1,1.0));
+        List<IInventoryItem> itemList = List.of(
+                new InventoryItem("1001", "test1", 2, 23.2),
+                new InventoryItem("1000", "test2", 1, 3.2),
+                new InventoryItem("1002", "test3", 4, 43.2)
+        );
+
+        BulkLoadReport report = repo.bulkLoad(itemList, new BulkLoadOptions().setChunkSize(2));
+
+        assertEquals(2, report.getInserted());
+        assertEquals(List.of("1000"), report.getConflictingIds());
+        assertEquals(3, repo.getItems().size());
+    }
+
+    @Test
+    public void shouldRollBackAllOrNothingBulkLoadOnConflict() throws SQLException {
+        repo.addItem(new InventoryItem("1000","existing",1,1.0));
+        List<IInventoryItem> itemList = List.of(
+                new InventoryItem("1001", "test1", 2, 23.2),
+                new InventoryItem("1000", "test2", 1, 3.2)
+        );
+
+        BulkLoadReport report = repo.bulkLoad(itemList,
+                new BulkLoadOptions().setMode(BulkLoadOptions.Mode.ALL_OR_NOTHING));
+
+        assertTrue(report.isRolledBack());
+        assertEquals(0, report.getInserted());
+        assertEquals(1, repo.getItems().size());
+    }
+
     @Test
     public void shouldThrowExceptionWhenTryingToAddNullList(){
         assertThrows(NoItemPresentException.class, ()->{
@@ -93,6 +139,21 @@ public class RepoTest {
         assertTrue(validate);
     }
 
+    @Test
+    public void shouldRejectUpdateWithStaleVersion() throws SQLException {
+        repo.addItem(new InventoryItem("1000","Rice",2,4));
+        IInventoryItem read = repo.getItem("Rice");
+
+        boolean first = repo.updateItem(new InventoryItem(read.getId(),"Rice",2,5,read.getVersion()));
+        boolean second = repo.updateItem(new InventoryItem(read.getId(),"Rice",2,6,read.getVersion()));
+
+        assertTrue(first);
+        assertFalse(second);
+        IInventoryItem updated = repo.getItem("Rice");
+        assertEquals(5, updated.getPrice());
+        assertEquals(read.getVersion() + 1, updated.getVersion());
+    }
+
     @Test
     public void shouldThrowExceptionWhenTryingToRemove(){
 
@@ -115,4 +176,16 @@ public class RepoTest {
 
 
 
+
+    @Test
+    public void shouldComputeSummaryInTheDatabase() throws SQLException {
+        StockSummary before = repo.getStockSummary();
+        repo.addItem(new InventoryItem("Summary Rice",7,2.5));
+
+        StockSummary after = repo.getStockSummary();
+
+        assertEquals(before.getItemCount() + 1, after.getItemCount());
+        assertEquals(before.getTotalUnits() + 7, after.getTotalUnits());
+        assertEquals(before.getTotalValue() + 17.5, after.getTotalValue(), 1e-6);
+    }
 }
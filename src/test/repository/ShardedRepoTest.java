@@ -0,0 +1,192 @@
+package test.repository;
+
+import exceptions.DataAccessException;
+import exceptions.EmptyItemNameException;
+import exceptions.ItemAlreadyExistsException;
+import exceptions.NoItemPresentException;
+import model.IInventoryItem;
+import model.InventoryItem;
+import model.ItemPage;
+import model.ItemSort;
+import model.StockAdjustment;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import repository.BulkLoadOptions;
+import repository.BulkLoadReport;
+import repository.IRepo;
+import repository.ShardedRepo;
+import repository.embedded.EmbeddedRepo;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ShardedRepoTest {
+    private static final int ITEMS = 300;
+
+    @TempDir
+    Path directory;
+
+    private final List<EmbeddedRepo> stores = new ArrayList<>();
+    private ShardedRepo repo;
+
+    @BeforeEach
+    void startUp() throws SQLException {
+        for(int i = 0; i < 3; i++){
+            stores.add(new EmbeddedRepo(directory.resolve("shard-" + i)));
+        }
+        repo = new ShardedRepo(new ArrayList<>(stores));
+
+        List<IInventoryItem> items = new ArrayList<>();
+        for(int i = 0; i < ITEMS; i++){
+            items.add(new InventoryItem(String.format("id%04d", i), "item" + (i * 7 % ITEMS), i % 20, 1 + i % 9, 0, 0));
+        }
+        repo.bulkLoad(items, new BulkLoadOptions());
+    }
+
+    @AfterEach
+    void tearDown(){
+        repo.close();
+        stores.forEach(EmbeddedRepo::close);
+    }
+
+    @Test
+    public void shouldSpreadItemsAndFindThemByName() throws SQLException {
+        for(EmbeddedRepo store : stores){
+            assertTrue(store.getStockSummary().getItemCount() > ITEMS / 6);
+        }
+        assertEquals("item42", repo.getItem("ITEM42").getName());
+        assertEquals(ITEMS, repo.getStockSummary().getItemCount());
+    }
+
+    @Test
+    public void shouldMergeShardsInIdOrder() throws SQLException {
+        List<IInventoryItem> items = repo.getItems();
+
+        assertEquals(ITEMS, items.size());
+        for(int i = 0; i < ITEMS; i++){
+            assertEquals(String.format("id%04d", i), items.get(i).getId());
+        }
+    }
+
+    @Test
+    public void shouldPageThroughEveryItemOnceInOrder() throws SQLException {
+        List<IInventoryItem> expected = new ArrayList<>(repo.getItems());
+        expected.sort(ItemSort.NAME.comparator());
+
+        List<IInventoryItem> paged = new ArrayList<>();
+        String cursor = null;
+        do {
+            ItemPage page = repo.getPage(25, cursor, ItemSort.NAME);
+            paged.addAll(page.getItems());
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+
+        assertEquals(expected, paged);
+    }
+
+    @Test
+    public void shouldAddNothingWhenAnyShardHasAConflict() throws SQLException {
+        List<IInventoryItem> items = List.of(new InventoryItem("new-1", "New", 1, 1.0),
+                new InventoryItem("id0001", "Taken", 1, 1.0), new InventoryItem("new-2", "Newer", 1, 1.0));
+
+        assertThrows(ItemAlreadyExistsException.class, () -> repo.addListOfItems(items));
+        assertEquals(ITEMS, repo.getStockSummary().getItemCount());
+    }
+
+    @Test
+    public void shouldUndoOtherShardsWhenOneFails() throws SQLException {
+        EmbeddedRepo healthy = new EmbeddedRepo(directory.resolve("healthy"));
+        EmbeddedRepo failing = new EmbeddedRepo(directory.resolve("failing")) {
+            @Override
+            public BulkLoadReport bulkLoad(List<IInventoryItem> items, BulkLoadOptions options) {
+                throw new DataAccessException("Disk full", new IOException("No space left on device"));
+            }
+        };
+        stores.add(healthy);
+        stores.add(failing);
+        ShardedRepo pair = new ShardedRepo(List.of(healthy, failing));
+        List<IInventoryItem> items = new ArrayList<>();
+        for(int i = 0; i < 20; i++){
+            items.add(new InventoryItem("pair-" + i, "Pair " + i, 1, 1.0));
+        }
+
+        assertThrows(DataAccessException.class, () -> pair.addListOfItems(items));
+        assertEquals(0, healthy.getStockSummary().getItemCount());
+        pair.close();
+    }
+
+    @Test
+    public void shouldRejectMissingIdsAndAdjustmentsBeforeRouting(){
+        assertThrows(NoItemPresentException.class, () -> repo.adjustQuantities(List.of()));
+        assertThrows(NoItemPresentException.class, () -> repo.adjustQuantities(null));
+        assertThrows(EmptyItemNameException.class, () -> repo.adjustQuantities(List.of(new StockAdjustment(" ", 1))));
+        assertThrows(EmptyItemNameException.class, () -> repo.increaseQuantity(null, 1));
+        assertThrows(EmptyItemNameException.class, () -> repo.reserveQuantity(" ", 1));
+    }
+
+    @Test
+    public void shouldMoveOnlyItemsOwnedByTheNewShard() throws SQLException {
+        EmbeddedRepo added = new EmbeddedRepo(directory.resolve("shard-3"));
+        stores.add(added);
+
+        repo.addShard(added);
+
+        assertEquals(4, repo.getShardCount());
+        int total = 0;
+        for(int i = 0; i < stores.size(); i++){
+            IRepo store = stores.get(i);
+            total += store.getStockSummary().getItemCount();
+            if(store.getStockSummary().getItemCount() > 0){
+                for(IInventoryItem item : store.getItems()){
+                    assertEquals(i, ShardedRepo.shardOf(item.getId(), 4));
+                }
+            }
+        }
+        assertEquals(ITEMS, total);
+        assertTrue(added.getStockSummary().getItemCount() > 0);
+        assertEquals(ITEMS, repo.getItems().size());
+        assertTrue(repo.increaseQuantity(added.getItems().get(0).getId(), 1));
+    }
+
+    @Test
+    public void shouldRemovePartlyCopiedItemsWhenAddingAShardFails() throws SQLException {
+        int[] loads = {0};
+        EmbeddedRepo added = new EmbeddedRepo(directory.resolve("shard-3")) {
+            @Override
+            public BulkLoadReport bulkLoad(List<IInventoryItem> items, BulkLoadOptions options) {
+                BulkLoadReport report = super.bulkLoad(items, options);
+                //the second batch is stored but fails to sync
+                if (++loads[0] == 2) {
+                    throw new DataAccessException("Failed to sync", new IOException("I/O error"));
+                }
+                return report;
+            }
+        };
+        stores.add(added);
+
+        assertThrows(DataAccessException.class, () -> repo.addShard(added));
+        assertEquals(0, added.getStockSummary().getItemCount());
+        assertEquals(3, repo.getShardCount());
+
+        repo.addShard(added);
+        assertEquals(4, repo.getShardCount());
+        assertEquals(ITEMS, repo.getItems().size());
+    }
+
+    @Test
+    public void shouldOnlyMoveIdsToTheNewShard(){
+        for(int i = 0; i < 10_000; i++){
+            String id = "key" + i;
+            int before = ShardedRepo.shardOf(id, 5);
+            int after = ShardedRepo.shardOf(id, 6);
+            assertTrue(after == before || after == 5);
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package test.repository;
+
+import dbConnection.ConnectionPool;
+import dbConnection.DBConnection;
+import dbConnection.PoolConfig;
+import model.AdjustmentResult;
+import model.IInventoryItem;
+import model.InventoryItem;
+import model.StockAdjustment;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import repository.IRepo;
+import repository.Repo;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class StockAdjustmentStressTest {
+    private static final int THREADS = 32;
+    private static final int ORDERS_PER_THREAD = 100;
+    private static final int STOCK = 1000;
+
+    private ConnectionPool pool;
+    private IRepo repo;
+
+    @BeforeEach
+    void startUp() throws SQLException {
+        DBConnection.config = true;
+        pool = DBConnection.createPool(new PoolConfig().setMaxSize(THREADS));
+        repo = new Repo(pool);
+    }
+
+    @Test
+    public void shouldNeverOversellUnderConcurrentDecrements() throws Exception {
+        IInventoryItem item = new InventoryItem("stress", STOCK, 1.0);
+        repo.addItem(item);
+
+        AtomicInteger sold = new AtomicInteger();
+        AtomicInteger refused = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+
+        List<Future<?>> workers = new ArrayList<>();
+        for(int t = 0; t < THREADS; t++){
+            workers.add(executor.submit(() -> {
+                start.await();
+                for(int i = 0; i < ORDERS_PER_THREAD; i++){
+                    if(repo.decreaseQuantity(item.getId(), 1)){
+                        sold.incrementAndGet();
+                    }
+                    else {
+                        refused.incrementAndGet();
+                    }
+                }
+                return null;
+            }));
+        }
+
+        long begin = System.nanoTime();
+        start.countDown();
+        for(Future<?> worker : workers){
+            worker.get(2, TimeUnit.MINUTES);
+        }
+        long elapsed = System.nanoTime() - begin;
+        executor.shutdown();
+
+        System.out.printf("%d decrements on one row with %d threads: %.0f ops/s%n",
+                THREADS * ORDERS_PER_THREAD, THREADS, THREADS * ORDERS_PER_THREAD / (elapsed / 1e9));
+
+        assertEquals(STOCK, sold.get());
+        assertEquals(THREADS * ORDERS_PER_THREAD - STOCK, refused.get());
+        assertEquals(0, repo.getItem("stress").getQuantity());
+    }
+
+    @Test
+    public void shouldReportEachBatchedAdjustment() throws SQLException {
+        IInventoryItem item = new InventoryItem("batch", 5, 1.0);
+        repo.addItem(item);
+
+        List<AdjustmentResult> results = repo.adjustQuantities(List.of(
+                new StockAdjustment(item.getId(), -3),
+                new StockAdjustment(item.getId(), -3),
+                new StockAdjustment(item.getId(), 10),
+                new StockAdjustment("missing", -1)
+        ));
+
+        assertEquals(List.of(AdjustmentResult.APPLIED, AdjustmentResult.INSUFFICIENT_STOCK,
+                AdjustmentResult.APPLIED, AdjustmentResult.NOT_FOUND), results);
+        assertEquals(12, repo.getItem("batch").getQuantity());
+    }
+
+    @Test
+    public void shouldReserveOnlyAvailableStock() throws SQLException {
+        IInventoryItem item = new InventoryItem("reserve", 5, 1.0);
+        repo.addItem(item);
+
+        assertTrue(repo.reserveQuantity(item.getId(), 4));
+        assertFalse(repo.reserveQuantity(item.getId(), 2));
+        assertTrue(repo.releaseReservation(item.getId(), 4));
+        assertFalse(repo.releaseReservation(item.getId(), 1));
+        assertEquals(5, repo.getItem("reserve").getQuantity());
+    }
+
+    @AfterEach
+    void cleanUp() throws SQLException {
+        try(Connection con = DBConnection.getConnection();
+            Statement stm = con.createStatement()
+        ){
+            stm.execute("DELETE FROM inventory");
+        }
+        pool.close();
+    }
+}
@@ -0,0 +1,129 @@
+package test.repository;
+
+import exceptions.ItemAlreadyExistsException;
+import model.IInventoryItem;
+import model.InventoryItem;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import repository.BulkLoadOptions;
+import repository.BulkLoadReport;
+import repository.IRepo;
+import repository.WriteBehindRepo;
+
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class WriteBehindRepoTest {
+
+    private IRepo repo;
+    private WriteBehindRepo writeBehind;
+
+    @BeforeEach
+    void startUp(){
+        repo = mock(IRepo.class);
+        writeBehind = new WriteBehindRepo(repo, 10, Duration.ofMillis(200), 20);
+    }
+
+    @AfterEach
+    void tearDown(){
+        writeBehind.close();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void shouldWriteQueuedItemsAsOneBatch() throws SQLException {
+        when(repo.bulkLoad(anyList(), any(BulkLoadOptions.class)))
+                .thenAnswer(invocation -> report(invocation.getArgument(0), List.of()));
+
+        List<CompletableFuture<Boolean>> results = new ArrayList<>();
+        for(int i = 0; i < 5; i++){
+            results.add(writeBehind.addItemAsync(new InventoryItem(String.valueOf(i), "item" + i, 1, 1.0)));
+        }
+
+        for(CompletableFuture<Boolean> result : results){
+            assertTrue(result.join());
+        }
+        verify(repo, times(1)).bulkLoad(argThat(items -> items.size() == 5), any(BulkLoadOptions.class));
+        verify(repo, never()).addItem(any());
+        assertEquals(1, writeBehind.getBatchCount());
+        assertEquals(0, writeBehind.getQueueDepth());
+    }
+
+    @Test
+    public void shouldFailOnlyTheCallersWhoseIdsConflict() throws SQLException {
+        when(repo.bulkLoad(anyList(), any(BulkLoadOptions.class)))
+                .thenAnswer(invocation -> report(invocation.getArgument(0), List.of("1", "2")));
+
+        CompletableFuture<Boolean> first = writeBehind.addItemAsync(new InventoryItem("1", "Rice", 1, 1.0));
+        CompletableFuture<Boolean> copy = writeBehind.addItemAsync(new InventoryItem("1", "Rice again", 1, 1.0));
+        CompletableFuture<Boolean> existing = writeBehind.addItemAsync(new InventoryItem("2", "Beans", 1, 1.0));
+
+        assertTrue(first.join());
+        assertInstanceOf(ItemAlreadyExistsException.class, assertThrows(CompletionException.class, copy::join).getCause());
+        assertInstanceOf(ItemAlreadyExistsException.class, assertThrows(CompletionException.class, existing::join).getCause());
+    }
+
+    @Test
+    public void shouldPassBatchFailureToEveryCaller() throws SQLException {
+        when(repo.bulkLoad(anyList(), any(BulkLoadOptions.class))).thenThrow(new SQLException("connection lost"));
+        when(repo.addItem(any())).thenThrow(new SQLException("connection lost"));
+
+        assertThrows(SQLException.class, () -> writeBehind.addItem(new InventoryItem("1", "Rice", 1, 1.0)));
+    }
+
+    @Test
+    public void shouldFailOnlyTheBadItemWhenTheBatchFails() throws SQLException {
+        IInventoryItem bad = new InventoryItem("2", "x".repeat(200), 1, 1.0);
+        when(repo.bulkLoad(anyList(), any(BulkLoadOptions.class))).thenThrow(new SQLException("Data too long for column 'name'"));
+        when(repo.addItem(any())).thenReturn(true);
+        when(repo.addItem(bad)).thenThrow(new SQLException("Data too long for column 'name'"));
+
+        CompletableFuture<Boolean> first = writeBehind.addItemAsync(new InventoryItem("1", "Rice", 1, 1.0));
+        CompletableFuture<Boolean> failing = writeBehind.addItemAsync(bad);
+        CompletableFuture<Boolean> last = writeBehind.addItemAsync(new InventoryItem("3", "Beans", 1, 1.0));
+
+        assertTrue(first.join());
+        assertInstanceOf(SQLException.class, assertThrows(CompletionException.class, failing::join).getCause());
+        assertTrue(last.join());
+        verify(repo, times(3)).addItem(any());
+    }
+
+    @Test
+    public void shouldFlushQueuedItemsOnClose() throws SQLException {
+        when(repo.bulkLoad(anyList(), any(BulkLoadOptions.class)))
+                .thenAnswer(invocation -> report(invocation.getArgument(0), List.of()));
+
+        CompletableFuture<Boolean> result = writeBehind.addItemAsync(new InventoryItem("1", "Rice", 1, 1.0));
+        writeBehind.close();
+
+        assertTrue(result.isDone());
+        assertTrue(result.join());
+        assertThrows(IllegalStateException.class, () -> writeBehind.addItem(new InventoryItem("2", "Beans", 1, 1.0)));
+    }
+
+    @Test
+    public void shouldStillWriteTheBatchWhenTheFlusherIsInterrupted() throws SQLException {
+        when(repo.bulkLoad(anyList(), any(BulkLoadOptions.class)))
+                .thenAnswer(invocation -> report(invocation.getArgument(0), List.of()));
+
+        CompletableFuture<Boolean> result = writeBehind.addItemAsync(new InventoryItem("1", "Rice", 1, 1.0));
+        Thread.getAllStackTraces().keySet().stream()
+                .filter(thread -> thread.getName().equals("write-behind"))
+                .forEach(Thread::interrupt);
+
+        assertTrue(result.orTimeout(5, TimeUnit.SECONDS).join());
+    }
+
+    private static BulkLoadReport report(List<IInventoryItem> items, List<String> conflicts){
+        return new BulkLoadReport(items.size(), items.size() - conflicts.size(), conflicts, false, 1);
+    }
+}
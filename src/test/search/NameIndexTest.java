@@ -0,0 +1,60 @@
+package test.search;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import search.NameIndex;
+import search.SearchHit;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class NameIndexTest {
+
+    private NameIndex index;
+
+    @BeforeEach
+    void startUp(){
+        index = new NameIndex();
+        index.put("1", "Brown Rice 5kg");
+        index.put("2", "Basmati Rice");
+        index.put("3", "Rice Cakes");
+        index.put("4", "Black Beans");
+    }
+
+    @Test
+    public void shouldRankExactWordsAbovePrefixes(){
+        index.put("5", "Riceland Flour");
+
+        List<String> ids = ids(index.search("rice", 10));
+
+        assertEquals(List.of("3", "2", "1", "5"), ids);
+    }
+
+    @Test
+    public void shouldMatchPrefixesSubstringsAndTypos(){
+        assertEquals(List.of("2"), ids(index.search("basm", 10)));
+        assertEquals(List.of("2"), ids(index.search("asmat", 10)));
+        assertEquals(List.of("4"), ids(index.search("blakc beens", 10)));
+        assertTrue(index.search("quinoa", 10).isEmpty());
+    }
+
+    @Test
+    public void shouldRequireEveryQueryWord(){
+        assertEquals(List.of("1"), ids(index.search("rice brown", 10)));
+    }
+
+    @Test
+    public void shouldFollowRenamesAndRemovals(){
+        index.put("2", "Jasmine Rice");
+        index.remove("3");
+
+        assertTrue(index.search("basmati", 10).isEmpty());
+        assertEquals(List.of("2", "1"), ids(index.search("rice", 10)));
+        assertEquals(3, index.size());
+    }
+
+    private static List<String> ids(List<SearchHit> hits){
+        return hits.stream().map(SearchHit::getId).toList();
+    }
+}
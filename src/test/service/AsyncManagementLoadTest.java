@@ -0,0 +1,80 @@
+package test.service;
+
+import dbConnection.ConnectionPool;
+import dbConnection.DBConnection;
+import dbConnection.PoolConfig;
+import model.IInventoryItem;
+import model.InventoryItem;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import repository.Repo;
+import service.AsyncManagement;
+import service.AsyncOptions;
+import service.Management;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Issues the same lookups one at a time through Management and all at once through AsyncManagement,
+ * against the test database, and checks they give the same answers.
+ * How the two compare in speed is measured by benchmark.AsyncManagementBenchmark.
+ */
+public class AsyncManagementLoadTest {
+    private static final int POOL_SIZE = 16;
+    private static final int ITEMS = 100;
+    private static final int LOOKUPS = 5000;
+
+    private ConnectionPool pool;
+    private Management management;
+    private AsyncManagement async;
+
+    @BeforeEach
+    void startUp() throws SQLException {
+        DBConnection.config = true;
+        pool = DBConnection.createPool(new PoolConfig().setMaxSize(POOL_SIZE));
+        management = new Management(new Repo(pool));
+        async = new AsyncManagement(management, new AsyncOptions().setMaxConcurrency(POOL_SIZE).setMaxQueued(LOOKUPS));
+
+        List<IInventoryItem> items = new ArrayList<>();
+        for(int i = 0; i < ITEMS; i++){
+            items.add(new InventoryItem("load-" + i, i, 1.0));
+        }
+        management.addList(items);
+    }
+
+    @Test
+    public void shouldAnswerConcurrentLookupsLikeBlockingCalls() throws SQLException {
+        for(int i = 0; i < LOOKUPS; i++){
+            assertEquals("load-" + i % ITEMS, management.getItem("load-" + i % ITEMS).getName());
+        }
+
+        List<CompletableFuture<IInventoryItem>> lookups = new ArrayList<>(LOOKUPS);
+        for(int i = 0; i < LOOKUPS; i++){
+            lookups.add(async.getItem("load-" + i % ITEMS));
+        }
+        CompletableFuture.allOf(lookups.toArray(CompletableFuture[]::new)).join();
+
+        for(int i = 0; i < LOOKUPS; i++){
+            assertEquals("load-" + i % ITEMS, lookups.get(i).join().getName());
+        }
+    }
+
+    @AfterEach
+    void cleanUp() throws SQLException {
+        async.close();
+        try(Connection con = DBConnection.getConnection();
+            Statement stm = con.createStatement()
+        ){
+            stm.execute("DELETE FROM inventory");
+        }
+        pool.close();
+    }
+}
@@ -0,0 +1,101 @@
+package test.service;
+
+import model.IInventoryItem;
+import model.InventoryItem;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import service.AsyncManagement;
+import service.AsyncOptions;
+import service.IManagement;
+
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class AsyncManagementTest {
+
+    private IManagement management;
+    private AsyncManagement async;
+    private CountDownLatch release;
+
+    @BeforeEach
+    void startUp() throws SQLException {
+        management = mock(IManagement.class);
+        async = new AsyncManagement(management, new AsyncOptions().setMaxConcurrency(1).setMaxQueued(1)
+                .setTimeout(Duration.ofSeconds(5)));
+        release = new CountDownLatch(1);
+        when(management.getItem("slow")).thenAnswer(invocation -> {
+            release.await();
+            return new InventoryItem("1", "slow", 1, 1.0, 0, 0);
+        });
+    }
+
+    @AfterEach
+    void tearDown(){
+        release.countDown();
+        async.close();
+    }
+
+    @Test
+    public void shouldCompleteWithResultOrException() throws Exception {
+        IInventoryItem item = new InventoryItem("2", "Rice", 10, 33.3, 0, 0);
+        when(management.getItem("Rice")).thenReturn(item);
+        when(management.getItem("Beans")).thenThrow(new SQLException("connection lost"));
+
+        assertSame(item, async.getItem("Rice").get(1, TimeUnit.SECONDS));
+        CompletionException error = assertThrows(CompletionException.class, () -> async.getItem("Beans").join());
+        assertInstanceOf(SQLException.class, error.getCause());
+    }
+
+    @Test
+    public void shouldRejectOperationsBeyondTheQueueLimit() {
+        CompletableFuture<IInventoryItem> runningCall = async.getItem("slow");
+        CompletableFuture<IInventoryItem> queuedCall = async.getItem("slow");
+        CompletableFuture<IInventoryItem> rejectedCall = async.getItem("slow");
+
+        CompletionException error = assertThrows(CompletionException.class, rejectedCall::join);
+        assertInstanceOf(RejectedExecutionException.class, error.getCause());
+
+        release.countDown();
+        assertEquals("slow", runningCall.join().getName());
+        assertEquals("slow", queuedCall.join().getName());
+    }
+
+    @Test
+    public void shouldDropQueuedOperationsThatTimeOut() throws Exception {
+        CompletableFuture<IInventoryItem> runningCall = async.getItem("slow");
+        CompletableFuture<IInventoryItem> queuedCall = async.submit(m -> m.getItem("queued"), Duration.ofMillis(50));
+
+        CompletionException error = assertThrows(CompletionException.class, queuedCall::join);
+        assertInstanceOf(TimeoutException.class, error.getCause());
+
+        release.countDown();
+        runningCall.get(1, TimeUnit.SECONDS);
+        async.close();
+        verify(management, never()).getItem("queued");
+        assertEquals(0, async.getQueuedCount());
+    }
+
+    @Test
+    public void shouldStopRunningOperationsThatAreCancelled() throws Exception {
+        CompletableFuture<IInventoryItem> call = async.getItem("slow");
+        while(async.getRunningCount() == 0){
+            Thread.sleep(1);
+        }
+
+        call.cancel(true);
+
+        async.close();
+        assertTrue(call.isCancelled());
+        assertEquals(0, async.getRunningCount());
+    }
+}
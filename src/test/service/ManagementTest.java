@@ -4,11 +4,17 @@ import exceptions.EmptyItemNameException;
 import exceptions.NoItemPresentException;
 import model.IInventoryItem;
 import model.InventoryItem;
+import model.ItemPage;
+import model.ItemRanking;
+import model.ItemSort;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import repository.BulkLoadOptions;
+import repository.BulkLoadReport;
 import repository.IRepo;
 import repository.Repo;
 import service.IManagement;
+import service.InventoryChangeListener;
 import service.Management;
 
 import java.sql.SQLException;
@@ -16,6 +22,8 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Comparator;
 import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -121,6 +129,48 @@ public class ManagementTest {
         });
     }
 
+    @Test
+    public void shouldStreamItemsSuccessfully() throws SQLException {
+        List<IInventoryItem> items = List.of(
+                new InventoryItem("Rice", 44,45.3),
+                new InventoryItem("Bread", 2,33.1)
+        );
+
+        when(repo.streamItems(100)).thenReturn(items.stream());
+
+        try(Stream<IInventoryItem> streamed = management.streamItems(100)){
+            assertEquals(items, streamed.collect(Collectors.toList()));
+        }
+        verify(repo,times(1)).streamItems(100);
+    }
+
+    @Test
+    public void shouldThrowAnExceptionWhenFetchSizeIsInvalid(){
+        assertThrows(IllegalArgumentException.class, ()->{
+            management.streamItems(0);
+        });
+    }
+
+    @Test
+    public void shouldGetPageSortedByIdByDefault() throws SQLException {
+        ItemPage page = new ItemPage(List.of(new InventoryItem("Rice", 44,45.3)), null);
+
+        when(repo.getPage(10, null, ItemSort.ID)).thenReturn(page);
+
+        ItemPage retrieved = management.getPage(10, null, null);
+
+        assertSame(page, retrieved);
+        assertFalse(retrieved.hasNext());
+        verify(repo,times(1)).getPage(10, null, ItemSort.ID);
+    }
+
+    @Test
+    public void shouldThrowAnExceptionWhenPageSizeIsInvalid(){
+        assertThrows(IllegalArgumentException.class, ()->{
+            management.getPage(0, null, ItemSort.NAME);
+        });
+    }
+
     @Test
     public void shouldRemoveItemSuccessfully() throws SQLException {
         IInventoryItem item = new InventoryItem("testing", 3,44.2);
@@ -141,6 +191,21 @@ public class ManagementTest {
         });
     }
 
+    @Test
+    public void shouldDelegateDecreaseQuantity() throws SQLException {
+        when(repo.decreaseQuantity("1234", 2)).thenReturn(false);
+
+        assertFalse(management.decreaseQuantity("1234", 2));
+        verify(repo, times(1)).decreaseQuantity("1234", 2);
+    }
+
+    @Test
+    public void shouldThrowAnExceptionWhenAdjustmentAmountIsInvalid(){
+        assertThrows(IllegalArgumentException.class, ()->{
+            management.increaseQuantity("1234", 0);
+        });
+    }
+
     @Test
     public void shouldThrowSQLExceptionIfRepoFails() throws SQLException {
         IInventoryItem item = new InventoryItem("Rice", 2, 39.2);
@@ -150,4 +215,45 @@ public class ManagementTest {
         assertThrows(SQLException.class, ()-> management.addItem(item));
     }
 
+
+    @Test
+    public void shouldTellListenersWhichBulkLoadedItemsWereInserted() throws SQLException {
+        Management listened = new Management(repo);
+        InventoryChangeListener listener = mock(InventoryChangeListener.class);
+        listened.addListener(listener);
+        IInventoryItem rice = new InventoryItem("1","Rice",3,33.3);
+        IInventoryItem beans = new InventoryItem("2","Beans",1,10.0);
+        IInventoryItem riceAgain = new InventoryItem("1","Rice",5,33.3);
+        List<IInventoryItem> items = List.of(rice, beans, riceAgain);
+        when(repo.bulkLoad(eq(items), any(BulkLoadOptions.class)))
+                .thenReturn(new BulkLoadReport(3, 1, List.of("2", "1"), false, 0));
+
+        listened.bulkLoad(items, null);
+
+        verify(listener).onItemsAdded(List.of(rice));
+    }
+
+    @Test
+    public void shouldTellListenersAboutStockChangesThatApplied() throws SQLException {
+        Management listened = new Management(repo);
+        InventoryChangeListener listener = mock(InventoryChangeListener.class);
+        listened.addListener(listener);
+        when(repo.decreaseQuantity("1", 2)).thenReturn(true);
+        when(repo.reserveQuantity("1", 9)).thenReturn(false);
+
+        listened.decreaseQuantity("1", 2);
+        listened.reserveQuantity("1", 9);
+
+        verify(listener).onQuantityChanged("1", -2);
+        verifyNoMoreInteractions(listener);
+    }
+
+    @Test
+    public void shouldRankByValueWhenNoRankingIsGiven() throws SQLException {
+        List<IInventoryItem> top = List.of(new InventoryItem("1","Rice",3,33.3));
+        when(repo.getTopItems(ItemRanking.VALUE, 5)).thenReturn(top);
+
+        assertEquals(top, management.getTopItems(null, 5));
+        assertThrows(IllegalArgumentException.class, () -> management.getTopItems(ItemRanking.QUANTITY, 0));
+    }
 }
@@ -0,0 +1,95 @@
+package test.service;
+
+import model.IInventoryItem;
+import model.InventoryItem;
+import model.ReorderAlert;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import repository.IRepo;
+import service.Management;
+import service.ReorderListener;
+import service.ReorderMonitor;
+
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class ReorderMonitorTest {
+
+    private IRepo repo;
+    private Management management;
+    private ReorderMonitor monitor;
+    private BlockingQueue<String> alerts;
+
+    @BeforeEach
+    void startUp() throws SQLException {
+        repo = mock(IRepo.class);
+        management = new Management(repo);
+        monitor = new ReorderMonitor(management);
+        alerts = new LinkedBlockingQueue<>();
+        monitor.addListener(new ReorderListener() {
+            @Override
+            public void onReorderNeeded(ReorderAlert alert) {
+                alerts.add("reorder " + alert.getId());
+            }
+
+            @Override
+            public void onRestocked(String id) {
+                alerts.add("restocked " + id);
+            }
+        });
+
+        when(repo.streamItems(anyInt())).thenReturn(Stream.<IInventoryItem>of(
+                new InventoryItem("1","Rice",10,33.3,0,5),
+                new InventoryItem("2","Beans",1,10.0,0,4),
+                new InventoryItem("3","Maize",0,20.0,0,0)));
+        monitor.refresh();
+    }
+
+    @AfterEach
+    void tearDown(){
+        monitor.close();
+    }
+
+    @Test
+    public void shouldListItemsBelowReorderPointMostUrgentFirst() throws SQLException {
+        when(repo.decreaseQuantity("1", 7)).thenReturn(true);
+
+        management.decreaseQuantity("1", 7);
+
+        List<ReorderAlert> needed = monitor.needsReorder(10);
+        assertEquals(List.of("2", "1"), needed.stream().map(ReorderAlert::getId).toList());
+        assertEquals(3, needed.get(0).getDeficit());
+        assertEquals(1, monitor.needsReorder(1).size());
+    }
+
+    @Test
+    public void shouldAlertWhenCrossingTheReorderPoint() throws Exception {
+        assertEquals("reorder 2", alerts.poll(5, TimeUnit.SECONDS));
+        when(repo.decreaseQuantity("1", 6)).thenReturn(true);
+        when(repo.increaseQuantity("2", 10)).thenReturn(true);
+
+        management.decreaseQuantity("1", 6);
+        management.increaseQuantity("2", 10);
+
+        assertEquals("reorder 1", alerts.poll(5, TimeUnit.SECONDS));
+        assertEquals("restocked 2", alerts.poll(5, TimeUnit.SECONDS));
+        assertEquals(1, monitor.countNeedingReorder());
+    }
+
+    @Test
+    public void shouldStopTrackingRemovedItems() throws SQLException {
+        when(repo.removeItemById("2")).thenReturn(true);
+
+        management.removeItem("2");
+
+        assertTrue(monitor.needsReorder(10).isEmpty());
+    }
+}
@@ -0,0 +1,85 @@
+package test.transfer;
+
+import exceptions.InvalidRowException;
+import model.IInventoryItem;
+import model.InventoryItem;
+import org.junit.jupiter.api.Test;
+import transfer.CsvCodec;
+import transfer.ItemCodec;
+import transfer.JsonLinesCodec;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ItemCodecTest {
+
+    private static IInventoryItem parse(ItemCodec codec, String line){
+        byte[] bytes = line.getBytes(StandardCharsets.UTF_8);
+        return codec.parse(bytes, bytes.length);
+    }
+
+    @Test
+    public void shouldParseCsvRow(){
+        IInventoryItem item = parse(new CsvCodec(), "1001,Rice,3,33.3");
+
+        assertEquals("1001", item.getId());
+        assertEquals("Rice", item.getName());
+        assertEquals(3, item.getQuantity());
+        assertEquals(33.3, item.getPrice());
+    }
+
+    @Test
+    public void shouldParseQuotedCsvName(){
+        IInventoryItem item = parse(new CsvCodec(), "1001,\"Rice, \"\"long grain\"\"\",3,33.3");
+
+        assertEquals("Rice, \"long grain\"", item.getName());
+    }
+
+    @Test
+    public void shouldGenerateIdForCsvRowWithoutOne(){
+        IInventoryItem item = parse(new CsvCodec(), "Rice,3,33.3");
+
+        assertFalse(item.getId().isBlank());
+        assertEquals("Rice", item.getName());
+    }
+
+    @Test
+    public void shouldRejectInvalidCsvRow(){
+        assertThrows(InvalidRowException.class, () -> parse(new CsvCodec(), "1001,Rice,three,33.3"));
+        assertThrows(InvalidRowException.class, () -> parse(new CsvCodec(), "1001,Rice,3,33.3,extra"));
+        assertThrows(InvalidRowException.class, () -> parse(new CsvCodec(), "1001, ,3,33.3"));
+    }
+
+    @Test
+    public void shouldParseJsonLine(){
+        IInventoryItem item = parse(new JsonLinesCodec(),
+                "{\"id\":\"1001\",\"name\":\"Rice \\\"white\\\"\",\"unit\":\"kg\",\"quantity\":3,\"price\":33.3}");
+
+        assertEquals("1001", item.getId());
+        assertEquals("Rice \"white\"", item.getName());
+        assertEquals(3, item.getQuantity());
+        assertEquals(33.3, item.getPrice());
+    }
+
+    @Test
+    public void shouldRejectJsonLineWithoutPrice(){
+        assertThrows(InvalidRowException.class, () -> parse(new JsonLinesCodec(), "{\"name\":\"Rice\",\"quantity\":3}"));
+    }
+
+    @Test
+    public void shouldRoundTripThroughBothFormats(){
+        IInventoryItem item = new InventoryItem("1001", "Crème, \"brûlée\"", 7, 12.75);
+
+        for(ItemCodec codec : new ItemCodec[]{new CsvCodec(), new JsonLinesCodec()}){
+            StringBuilder line = new StringBuilder();
+            codec.write(item, line);
+            line.setLength(line.length() - 1);
+
+            IInventoryItem parsed = parse(codec, line.toString());
+
+            assertEquals(item.getId(), parsed.getId());
+            assertEquals(item, parsed);
+        }
+    }
+}
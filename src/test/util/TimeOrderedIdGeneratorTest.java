@@ -0,0 +1,69 @@
+package test.util;
+
+import org.junit.jupiter.api.Test;
+import util.TimeOrderedIdGenerator;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TimeOrderedIdGeneratorTest {
+
+    @Test
+    public void shouldGenerateIncreasingFixedLengthIds(){
+        TimeOrderedIdGenerator generator = new TimeOrderedIdGenerator(1);
+
+        String previous = generator.nextId();
+        for(int i = 0; i < 10_000; i++){
+            String id = generator.nextId();
+            assertEquals(13, id.length());
+            assertTrue(id.compareTo(previous) > 0);
+            previous = id;
+        }
+    }
+
+    @Test
+    public void shouldKeepIncreasingWhenClockGoesBackwards(){
+        long[] now = {1_800_000_000_000L};
+        TimeOrderedIdGenerator generator = new TimeOrderedIdGenerator(1, () -> now[0]);
+
+        long first = generator.nextValue();
+        now[0] -= 5_000;
+        long second = generator.nextValue();
+
+        assertTrue(second > first);
+    }
+
+    @Test
+    public void shouldNotRepeatIdsAcrossThreads() throws Exception {
+        TimeOrderedIdGenerator generator = new TimeOrderedIdGenerator(1);
+        Set<String> ids = ConcurrentHashMap.newKeySet();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+
+        List<Future<?>> results = new ArrayList<>();
+        for(int t = 0; t < 8; t++){
+            results.add(executor.submit(() -> {
+                for(int i = 0; i < 20_000; i++){
+                    ids.add(generator.nextId());
+                }
+            }));
+        }
+        for(Future<?> result : results){
+            result.get();
+        }
+        executor.shutdown();
+
+        assertEquals(160_000, ids.size());
+    }
+
+    @Test
+    public void shouldRejectInvalidNodeId(){
+        assertThrows(IllegalArgumentException.class, () -> new TimeOrderedIdGenerator(TimeOrderedIdGenerator.MAX_NODE_ID + 1));
+    }
+}
@@ -0,0 +1,121 @@
+package transfer;
+
+import exceptions.InvalidRowException;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Parses numbers straight out of a byte buffer, so reading a row doesn't create a String per field.
+ */
+final class ByteParsing {
+    //Powers of ten that are exact doubles
+    private static final double[] POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+    //Largest mantissa that is still an exact double
+    private static final long MAX_EXACT_MANTISSA = 1L << 53;
+
+    private ByteParsing() {
+    }
+
+    /**
+     * Parses a decimal int from bytes [from, to)
+     * @throws InvalidRowException if the bytes aren't a valid int
+     */
+    static int parseInt(byte[] bytes, int from, int to, String field) {
+        int pos = skipSpaces(bytes, from, to);
+        int end = trimSpaces(bytes, pos, to);
+        boolean negative = pos < end && bytes[pos] == '-';
+        if (negative || (pos < end && bytes[pos] == '+')) {
+            pos++;
+        }
+        if (pos == end) {
+            throw new InvalidRowException(field + " is missing");
+        }
+
+        long value = 0;
+        for (; pos < end; pos++) {
+            int digit = bytes[pos] - '0';
+            if (digit < 0 || digit > 9) {
+                throw new InvalidRowException(field + " is not a valid number");
+            }
+            value = value * 10 + digit;
+            if (value > (long) Integer.MAX_VALUE + 1) {
+                throw new InvalidRowException(field + " is out of range");
+            }
+        }
+
+        value = negative ? -value : value;
+        if (value > Integer.MAX_VALUE) {
+            throw new InvalidRowException(field + " is out of range");
+        }
+        return (int) value;
+    }
+
+    /**
+     * Parses a decimal double from bytes [from, to).
+     * Plain decimals with up to 15 significant digits are converted with a single exact division,
+     * anything else falls back to Double.parseDouble.
+     * @throws InvalidRowException if the bytes aren't a valid double
+     */
+    static double parseDouble(byte[] bytes, int from, int to, String field) {
+        int pos = skipSpaces(bytes, from, to);
+        int end = trimSpaces(bytes, pos, to);
+        if (pos == end) {
+            throw new InvalidRowException(field + " is missing");
+        }
+
+        int start = pos;
+        boolean negative = bytes[pos] == '-';
+        if (negative || bytes[pos] == '+') {
+            pos++;
+        }
+
+        long mantissa = 0;
+        int digits = 0;
+        int fractionDigits = 0;
+        boolean seenPoint = false;
+        boolean fastPath = pos < end;
+        for (; pos < end && fastPath; pos++) {
+            byte b = bytes[pos];
+            if (b == '.' && !seenPoint) {
+                seenPoint = true;
+            } else if (b >= '0' && b <= '9') {
+                mantissa = mantissa * 10 + (b - '0');
+                digits++;
+                if (seenPoint) {
+                    fractionDigits++;
+                }
+                fastPath = digits <= 15;
+            } else {
+                fastPath = false;
+            }
+        }
+
+        if (fastPath && digits > 0 && mantissa < MAX_EXACT_MANTISSA) {
+            double value = mantissa / POWERS_OF_TEN[fractionDigits];
+            return negative ? -value : value;
+        }
+
+        try {
+            return Double.parseDouble(new String(bytes, start, end - start, StandardCharsets.US_ASCII));
+        } catch (NumberFormatException e) {
+            throw new InvalidRowException(field + " is not a valid number");
+        }
+    }
+
+    static int skipSpaces(byte[] bytes, int from, int to) {
+        while (from < to && (bytes[from] == ' ' || bytes[from] == '\t')) {
+            from++;
+        }
+        return from;
+    }
+
+    static int trimSpaces(byte[] bytes, int from, int to) {
+        while (to > from && (bytes[to - 1] == ' ' || bytes[to - 1] == '\t')) {
+            to--;
+        }
+        return to;
+    }
+}
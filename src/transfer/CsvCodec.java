@@ -0,0 +1,178 @@
+package transfer;
+
+import exceptions.InvalidRowException;
+import model.IInventoryItem;
+import model.InventoryItem;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Reads and writes items as comma separated values: id,name,quantity,price.
+ * Rows with only name,quantity,price get a generated id. Names may be quoted, with "" standing for a quote.
+ * Every record is a single line, so line breaks inside names are written as spaces.
+ */
+public class CsvCodec implements ItemCodec {
+    private static final String HEADER = "id,name,quantity,price";
+    private static final int MAX_FIELDS = 4;
+
+    //Field boundaries of the line being parsed
+    private final int[] starts = new int[MAX_FIELDS];
+    private final int[] ends = new int[MAX_FIELDS];
+    private final boolean[] quoted = new boolean[MAX_FIELDS];
+    private final boolean[] escaped = new boolean[MAX_FIELDS];
+    private byte[] scratch = new byte[128];
+
+    @Override
+    public boolean isHeader(byte[] line, int length) {
+        int pos = ByteParsing.skipSpaces(line, 0, length);
+        return length - pos >= 3
+                && (line[pos] == 'i' || line[pos] == 'I')
+                && (line[pos + 1] == 'd' || line[pos + 1] == 'D')
+                && line[pos + 2] == ',';
+    }
+
+    @Override
+    public IInventoryItem parse(byte[] line, int length) {
+        int count = split(line, length);
+        if (count != MAX_FIELDS && count != MAX_FIELDS - 1) {
+            throw new InvalidRowException("Expected id,name,quantity,price but found " + count + " fields");
+        }
+
+        int first = count == MAX_FIELDS ? 1 : 0;
+        String id = count == MAX_FIELDS ? text(line, 0) : "";
+        String name = text(line, first);
+        int quantity = ByteParsing.parseInt(line, starts[first + 1], ends[first + 1], "Quantity");
+        double price = ByteParsing.parseDouble(line, starts[first + 2], ends[first + 2], "Price");
+
+        if (name.isBlank()) {
+            throw new InvalidRowException("Name is missing");
+        }
+        if (quantity < 0) {
+            throw new InvalidRowException("Quantity cannot be negative");
+        }
+        if (price < 0 || Double.isNaN(price) || Double.isInfinite(price)) {
+            throw new InvalidRowException("Price must be a positive number");
+        }
+
+        return id.isEmpty() ? new InventoryItem(name, quantity, price) : new InventoryItem(id, name, quantity, price);
+    }
+
+    @Override
+    public void writeHeader(StringBuilder out) {
+        out.append(HEADER).append('\n');
+    }
+
+    @Override
+    public void write(IInventoryItem item, StringBuilder out) {
+        appendField(item.getId(), out);
+        out.append(',');
+        appendField(item.getName(), out);
+        out.append(',').append(item.getQuantity())
+                .append(',').append(item.getPrice())
+                .append('\n');
+    }
+
+    //Records the field boundaries of the line and returns the number of fields
+    private int split(byte[] line, int length) {
+        int count = 0;
+        int pos = 0;
+        while (true) {
+            if (count == MAX_FIELDS) {
+                throw new InvalidRowException("Too many fields, expected id,name,quantity,price");
+            }
+
+            int fieldStart = ByteParsing.skipSpaces(line, pos, length);
+            if (fieldStart < length && line[fieldStart] == '"') {
+                int i = fieldStart + 1;
+                boolean hasEscapes = false;
+                while (true) {
+                    if (i >= length) {
+                        throw new InvalidRowException("Unterminated quoted field");
+                    }
+                    if (line[i] == '"') {
+                        if (i + 1 < length && line[i + 1] == '"') {
+                            hasEscapes = true;
+                            i += 2;
+                            continue;
+                        }
+                        break;
+                    }
+                    i++;
+                }
+                starts[count] = fieldStart + 1;
+                ends[count] = i;
+                quoted[count] = true;
+                escaped[count] = hasEscapes;
+
+                pos = ByteParsing.skipSpaces(line, i + 1, length);
+                if (pos < length && line[pos] != ',') {
+                    throw new InvalidRowException("Unexpected text after quoted field");
+                }
+            } else {
+                pos = fieldStart;
+                while (pos < length && line[pos] != ',') {
+                    pos++;
+                }
+                starts[count] = fieldStart;
+                ends[count] = pos;
+                quoted[count] = false;
+                escaped[count] = false;
+            }
+
+            count++;
+            if (pos >= length) {
+                return count;
+            }
+            pos++;
+        }
+    }
+
+    //Decodes a text field, trimming unquoted fields and collapsing "" in quoted ones
+    private String text(byte[] line, int field) {
+        int from = starts[field];
+        int to = ends[field];
+        if (!quoted[field]) {
+            to = ByteParsing.trimSpaces(line, from, to);
+        }
+        if (!escaped[field]) {
+            return new String(line, from, to - from, StandardCharsets.UTF_8);
+        }
+
+        if (scratch.length < to - from) {
+            scratch = new byte[to - from];
+        }
+        int length = 0;
+        for (int i = from; i < to; i++) {
+            scratch[length++] = line[i];
+            if (line[i] == '"') {
+                i++;
+            }
+        }
+        return new String(scratch, 0, length, StandardCharsets.UTF_8);
+    }
+
+    private static void appendField(String value, StringBuilder out) {
+        boolean needsQuotes = false;
+        for (int i = 0; i < value.length() && !needsQuotes; i++) {
+            char c = value.charAt(i);
+            needsQuotes = c == ',' || c == '"';
+        }
+        if (!needsQuotes && (value.startsWith(" ") || value.endsWith(" "))) {
+            needsQuotes = true;
+        }
+
+        if (needsQuotes) {
+            out.append('"');
+        }
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"') {
+                out.append('"');
+            }
+            out.append(c == '\n' || c == '\r' ? ' ' : c);
+        }
+        if (needsQuotes) {
+            out.append('"');
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package transfer;
+
+import java.nio.file.Path;
+import java.util.Locale;
+
+/**
+ * File formats the inventory can be imported from and exported to.
+ */
+public enum FileFormat {
+    CSV,
+    JSONL;
+
+    //returns a new codec for the format
+    public ItemCodec newCodec() {
+        return switch (this) {
+            case CSV -> new CsvCodec();
+            case JSONL -> new JsonLinesCodec();
+        };
+    }
+
+    /**
+     * Picks the format from the file extension
+     * @param file File to import or export
+     * @return JSONL for .jsonl and .ndjson files, CSV for .csv files
+     * @throws IllegalArgumentException if the extension isn't recognised
+     */
+    public static FileFormat fromPath(Path file) {
+        String name = file.getFileName().toString().toLowerCase(Locale.ROOT);
+        if (name.endsWith(".csv")) {
+            return CSV;
+        }
+        if (name.endsWith(".jsonl") || name.endsWith(".ndjson")) {
+            return JSONL;
+        }
+        throw new IllegalArgumentException("Unsupported file type, expected .csv or .jsonl: " + file.getFileName());
+    }
+}
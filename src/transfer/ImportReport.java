@@ -0,0 +1,73 @@
+package transfer;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Outcome of importing a file: how many rows were read, imported and rejected.
+ */
+public class ImportReport {
+    private final long rowsRead;
+    private final long imported;
+    //Total number of rows that failed to parse
+    private final long rejectedCount;
+    //Details of the first rejected rows, capped so a bad file can't exhaust memory
+    private final List<RejectedRow> rejected;
+    //Total number of rows whose id already existed in the inventory or appeared twice in the file
+    private final long conflictCount;
+    //The first of those ids, capped like the rejected rows
+    private final List<String> conflictingIds;
+    private final long elapsedNanos;
+
+    public ImportReport(long rowsRead, long imported, long rejectedCount, List<RejectedRow> rejected,
+                        long conflictCount, List<String> conflictingIds, long elapsedNanos) {
+        this.rowsRead = rowsRead;
+        this.imported = imported;
+        this.rejectedCount = rejectedCount;
+        this.rejected = List.copyOf(rejected);
+        this.conflictCount = conflictCount;
+        this.conflictingIds = List.copyOf(conflictingIds);
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    public long getRowsRead() {
+        return rowsRead;
+    }
+
+    public long getImported() {
+        return imported;
+    }
+
+    public long getRejectedCount() {
+        return rejectedCount;
+    }
+
+    public List<RejectedRow> getRejected() {
+        return rejected;
+    }
+
+    public long getConflictCount() {
+        return conflictCount;
+    }
+
+    public List<String> getConflictingIds() {
+        return conflictingIds;
+    }
+
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    //returns the number of rows read per second
+    public double getRowsPerSecond() {
+        return elapsedNanos == 0 ? 0 : rowsRead / (elapsedNanos / (double) TimeUnit.SECONDS.toNanos(1));
+    }
+
+    @Override
+    public String toString() {
+        return "Read " + rowsRead + " rows, imported " + imported
+                + ", rejected " + rejectedCount
+                + ", conflicting ids " + conflictCount
+                + String.format(" (%.0f rows/s)", getRowsPerSecond());
+    }
+}
@@ -0,0 +1,73 @@
+package transfer;
+
+import model.IInventoryItem;
+import service.IManagement;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * Streams the inventory out to a CSV or JSON Lines file.
+ * Items are written as they are read from storage, so the table is never held in memory.
+ */
+public class InventoryExporter {
+    private static final int BUFFER_SIZE = 1 << 16;
+    //Rows between progress updates
+    private static final int PROGRESS_INTERVAL = 10_000;
+
+    private final IManagement management;
+    private final int fetchSize;
+
+    /**
+     * Constructs the exporter
+     * @param management Service the items are streamed from
+     * @param fetchSize Number of rows read from storage per round trip
+     */
+    public InventoryExporter(IManagement management, int fetchSize) {
+        this.management = management;
+        this.fetchSize = fetchSize;
+    }
+
+    /**
+     * Writes every item in the inventory to the file, replacing it if it exists
+     * @param file File to write
+     * @param format Format to write in
+     * @param progress Notified every 10,000 rows and when the export finishes
+     * @return the number of items written
+     * @throws IOException if the file can't be written
+     */
+    public long exportFile(Path file, FileFormat format, ProgressListener progress) throws IOException, SQLException {
+        ItemCodec codec = format.newCodec();
+        StringBuilder line = new StringBuilder(128);
+        long rows = 0;
+        long chars = 0;
+
+        try (Stream<IInventoryItem> items = management.streamItems(fetchSize);
+             BufferedWriter writer = new BufferedWriter(Files.newBufferedWriter(file, StandardCharsets.UTF_8), BUFFER_SIZE)) {
+            codec.writeHeader(line);
+            writer.append(line);
+            chars += line.length();
+
+            Iterator<IInventoryItem> iterator = items.iterator();
+            while (iterator.hasNext()) {
+                line.setLength(0);
+                codec.write(iterator.next(), line);
+                writer.append(line);
+                chars += line.length();
+                rows++;
+                if (rows % PROGRESS_INTERVAL == 0) {
+                    progress.onProgress(rows, chars, -1);
+                }
+            }
+        }
+
+        progress.onProgress(rows, chars, -1);
+        return rows;
+    }
+}
@@ -0,0 +1,175 @@
+package transfer;
+
+import exceptions.InvalidRowException;
+import model.IInventoryItem;
+import repository.BulkLoadOptions;
+import repository.BulkLoadReport;
+import service.IManagement;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Streams a CSV or JSON Lines file into the inventory.
+ * The file is read through a reusable direct buffer and split into lines on the raw bytes,
+ * so memory use depends on the batch size rather than the size of the file.
+ * Parsed items are handed to the bulk loader one batch at a time; rows that fail to parse
+ * are reported with their line number and skipped.
+ */
+public class InventoryImporter {
+    private static final int BUFFER_SIZE = 1 << 20;
+    //Rejected rows and conflicting ids kept in the report, the rest are only counted
+    private static final int MAX_REPORTED = 1000;
+
+    private final IManagement management;
+    private final BulkLoadOptions options;
+
+    /**
+     * Constructs the importer
+     * @param management Service the parsed items are loaded through
+     * @param batchSize Number of items loaded per bulk load call
+     */
+    public InventoryImporter(IManagement management, int batchSize) {
+        this.management = management;
+        this.options = new BulkLoadOptions()
+                .setChunkSize(Math.min(batchSize, BulkLoadOptions.MAX_CHUNK_SIZE))
+                .setMode(BulkLoadOptions.Mode.BEST_EFFORT);
+    }
+
+    /**
+     * Imports every item in the file
+     * @param file File to import
+     * @param format Format of the file
+     * @param progress Notified after every buffer that is read
+     * @return Report of the imported, rejected and conflicting rows
+     * @throws IOException if the file can't be read
+     */
+    public ImportReport importFile(Path file, FileFormat format, ProgressListener progress) throws IOException, SQLException {
+        Run run = new Run(format.newCodec());
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long total = channel.size();
+            long bytesRead = 0;
+            ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+
+            int read;
+            while ((read = channel.read(buffer)) != -1) {
+                bytesRead += read;
+                buffer.flip();
+                while (buffer.hasRemaining()) {
+                    run.accept(buffer.get());
+                }
+                buffer.clear();
+                progress.onProgress(run.rowsRead, bytesRead, total);
+            }
+            run.finish();
+            progress.onProgress(run.rowsRead, bytesRead, total);
+        }
+
+        return run.report();
+    }
+
+    /**
+     * State of a single import: the line being assembled, the pending batch and the counters.
+     */
+    private final class Run {
+        private final ItemCodec codec;
+        private final long start = System.nanoTime();
+        private final List<IInventoryItem> batch = new ArrayList<>(options.getChunkSize());
+        private final List<RejectedRow> rejected = new ArrayList<>();
+        private final List<String> conflicts = new ArrayList<>();
+
+        private byte[] line = new byte[256];
+        private int length;
+        private long lineNumber;
+        private long rowsRead;
+        private long imported;
+        private long rejectedCount;
+        private long conflictCount;
+
+        private Run(ItemCodec codec) {
+            this.codec = codec;
+        }
+
+        private void accept(byte b) throws SQLException {
+            if (b == '\n') {
+                endLine();
+                return;
+            }
+            if (length == line.length) {
+                line = Arrays.copyOf(line, length * 2);
+            }
+            line[length++] = b;
+        }
+
+        private void endLine() throws SQLException {
+            lineNumber++;
+            int end = length;
+            length = 0;
+            if (end > 0 && line[end - 1] == '\r') {
+                end--;
+            }
+            if (isBlank(end) || (lineNumber == 1 && codec.isHeader(line, end))) {
+                return;
+            }
+
+            rowsRead++;
+            try {
+                batch.add(codec.parse(line, end));
+            } catch (InvalidRowException e) {
+                rejectedCount++;
+                if (rejected.size() < MAX_REPORTED) {
+                    rejected.add(new RejectedRow(lineNumber, e.getMessage()));
+                }
+            }
+
+            if (batch.size() == options.getChunkSize()) {
+                flush();
+            }
+        }
+
+        private void finish() throws SQLException {
+            if (length > 0) {
+                endLine();
+            }
+            flush();
+        }
+
+        private void flush() throws SQLException {
+            if (batch.isEmpty()) {
+                return;
+            }
+            BulkLoadReport report = management.bulkLoad(batch, options);
+            imported += report.getInserted();
+            conflictCount += report.getConflictingIds().size();
+            for (String id : report.getConflictingIds()) {
+                if (conflicts.size() == MAX_REPORTED) {
+                    break;
+                }
+                conflicts.add(id);
+            }
+            batch.clear();
+        }
+
+        private boolean isBlank(int end) {
+            for (int i = 0; i < end; i++) {
+                if (line[i] != ' ' && line[i] != '\t') {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private ImportReport report() {
+            return new ImportReport(rowsRead, imported, rejectedCount, rejected,
+                    conflictCount, conflicts, System.nanoTime() - start);
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package transfer;
+
+import model.IInventoryItem;
+
+/**
+ * Converts inventory items to and from single lines of a file format.
+ * Implementations keep scratch buffers between calls, so an instance must only be used by one thread.
+ */
+public interface ItemCodec {
+
+    /**
+     * Checks if the line is the format's header line
+     * @param line Buffer holding the line, without the line terminator
+     * @param length Number of bytes of the line in the buffer
+     * @return true if the line should be skipped as a header
+     */
+    boolean isHeader(byte[] line, int length);
+
+    /**
+     * Parses one line into an item. Items without an id get a generated one.
+     * @param line Buffer holding the UTF-8 encoded line, without the line terminator
+     * @param length Number of bytes of the line in the buffer
+     * @return the parsed item
+     * @throws exceptions.InvalidRowException if the line isn't a valid item
+     */
+    IInventoryItem parse(byte[] line, int length);
+
+    /**
+     * Appends the format's header line, if it has one
+     * @param out Where the header is appended to
+     */
+    void writeHeader(StringBuilder out);
+
+    /**
+     * Appends the item as one line, including the line terminator
+     * @param item Item to write
+     * @param out Where the line is appended to
+     */
+    void write(IInventoryItem item, StringBuilder out);
+}
@@ -0,0 +1,292 @@
+package transfer;
+
+import exceptions.InvalidRowException;
+import model.IInventoryItem;
+import model.InventoryItem;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Reads and writes items as JSON Lines, one flat object per line:
+ * {"id":"1001","name":"Rice","quantity":3,"price":33.3,"reorderPoint":5}
+ * The id and reorder point are optional and unknown keys are skipped. Keys are matched on the raw bytes,
+ * so only the id and name values are turned into Strings.
+ */
+public class JsonLinesCodec implements ItemCodec {
+    private static final byte[] ID = "id".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] NAME = "name".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] QUANTITY = "quantity".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] PRICE = "price".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] REORDER_POINT = "reorderPoint".getBytes(StandardCharsets.US_ASCII);
+
+    //Line being parsed and the parse position in it
+    private byte[] line;
+    private int length;
+    private int pos;
+
+    @Override
+    public boolean isHeader(byte[] line, int length) {
+        return false;
+    }
+
+    @Override
+    public IInventoryItem parse(byte[] line, int length) {
+        this.line = line;
+        this.length = length;
+        this.pos = 0;
+
+        String id = "";
+        String name = null;
+        int quantity = 0;
+        double price = 0;
+        int reorderPoint = 0;
+        boolean hasQuantity = false;
+        boolean hasPrice = false;
+
+        skipWhitespace();
+        expect('{');
+        skipWhitespace();
+        if (peek() == '}') {
+            throw new InvalidRowException("Name is missing");
+        }
+
+        while (true) {
+            skipWhitespace();
+            expect('"');
+            int keyStart = pos;
+            int keyEnd = endOfString();
+            pos = keyEnd + 1;
+            skipWhitespace();
+            expect(':');
+            skipWhitespace();
+
+            if (keyEquals(keyStart, keyEnd, ID)) {
+                id = peek() == '"' ? readString() : readNumberText();
+            } else if (keyEquals(keyStart, keyEnd, NAME)) {
+                name = readString();
+            } else if (keyEquals(keyStart, keyEnd, QUANTITY)) {
+                int start = pos;
+                quantity = ByteParsing.parseInt(line, start, endOfNumber(), "Quantity");
+                hasQuantity = true;
+            } else if (keyEquals(keyStart, keyEnd, PRICE)) {
+                int start = pos;
+                price = ByteParsing.parseDouble(line, start, endOfNumber(), "Price");
+                hasPrice = true;
+            } else if (keyEquals(keyStart, keyEnd, REORDER_POINT)) {
+                int start = pos;
+                reorderPoint = ByteParsing.parseInt(line, start, endOfNumber(), "Reorder point");
+            } else {
+                skipValue();
+            }
+
+            skipWhitespace();
+            byte separator = next();
+            if (separator == '}') {
+                break;
+            }
+            if (separator != ',') {
+                throw new InvalidRowException("Expected , or } in JSON object");
+            }
+        }
+
+        skipWhitespace();
+        if (pos != length) {
+            throw new InvalidRowException("Unexpected text after JSON object");
+        }
+
+        if (name == null || name.isBlank()) {
+            throw new InvalidRowException("Name is missing");
+        }
+        if (!hasQuantity || quantity < 0) {
+            throw new InvalidRowException("Quantity is missing or negative");
+        }
+        if (!hasPrice || price < 0 || Double.isNaN(price) || Double.isInfinite(price)) {
+            throw new InvalidRowException("Price is missing or negative");
+        }
+        if (reorderPoint < 0) {
+            throw new InvalidRowException("Reorder point is negative");
+        }
+
+        return id.isEmpty()
+                ? new InventoryItem(name, quantity, price, reorderPoint)
+                : new InventoryItem(id, name, quantity, price, 0, reorderPoint);
+    }
+
+    @Override
+    public void writeHeader(StringBuilder out) {
+        //JSON Lines has no header
+    }
+
+    @Override
+    public void write(IInventoryItem item, StringBuilder out) {
+        out.append("{\"id\":");
+        appendString(item.getId(), out);
+        out.append(",\"name\":");
+        appendString(item.getName(), out);
+        out.append(",\"quantity\":").append(item.getQuantity())
+                .append(",\"price\":").append(item.getPrice());
+        if (item.getReorderPoint() > 0) {
+            out.append(",\"reorderPoint\":").append(item.getReorderPoint());
+        }
+        out.append("}\n");
+    }
+
+    private byte peek() {
+        if (pos >= length) {
+            throw new InvalidRowException("Unexpected end of line in JSON object");
+        }
+        return line[pos];
+    }
+
+    private byte next() {
+        byte b = peek();
+        pos++;
+        return b;
+    }
+
+    private void expect(char c) {
+        if (next() != c) {
+            throw new InvalidRowException("Expected " + c + " in JSON object");
+        }
+    }
+
+    private void skipWhitespace() {
+        while (pos < length && (line[pos] == ' ' || line[pos] == '\t' || line[pos] == '\r')) {
+            pos++;
+        }
+    }
+
+    //Returns the index of the quote closing the string that starts at pos
+    private int endOfString() {
+        for (int i = pos; i < length; i++) {
+            if (line[i] == '\\') {
+                i++;
+            } else if (line[i] == '"') {
+                return i;
+            }
+        }
+        throw new InvalidRowException("Unterminated string in JSON object");
+    }
+
+    private int endOfNumber() {
+        while (pos < length && line[pos] != ',' && line[pos] != '}' && line[pos] != ' ' && line[pos] != '\t') {
+            pos++;
+        }
+        return pos;
+    }
+
+    private String readNumberText() {
+        int start = pos;
+        int end = endOfNumber();
+        return new String(line, start, end - start, StandardCharsets.US_ASCII);
+    }
+
+    private boolean keyEquals(int from, int to, byte[] key) {
+        if (to - from != key.length) {
+            return false;
+        }
+        for (int i = 0; i < key.length; i++) {
+            if (line[from + i] != key[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    //Reads a string value, only copying it when it contains escapes
+    private String readString() {
+        expect('"');
+        int start = pos;
+        int end = endOfString();
+        pos = end + 1;
+
+        boolean hasEscapes = false;
+        for (int i = start; i < end && !hasEscapes; i++) {
+            hasEscapes = line[i] == '\\';
+        }
+        if (!hasEscapes) {
+            return new String(line, start, end - start, StandardCharsets.UTF_8);
+        }
+
+        StringBuilder value = new StringBuilder(end - start);
+        int segment = start;
+        for (int i = start; i < end; i++) {
+            if (line[i] != '\\') {
+                continue;
+            }
+            value.append(new String(line, segment, i - segment, StandardCharsets.UTF_8));
+            byte escape = line[++i];
+            switch (escape) {
+                case 'n' -> value.append('\n');
+                case 't' -> value.append('\t');
+                case 'r' -> value.append('\r');
+                case 'b' -> value.append('\b');
+                case 'f' -> value.append('\f');
+                case 'u' -> {
+                    if (i + 4 >= end) {
+                        throw new InvalidRowException("Invalid unicode escape in JSON string");
+                    }
+                    try {
+                        value.append((char) Integer.parseInt(new String(line, i + 1, 4, StandardCharsets.US_ASCII), 16));
+                    } catch (NumberFormatException e) {
+                        throw new InvalidRowException("Invalid unicode escape in JSON string");
+                    }
+                    i += 4;
+                }
+                default -> value.append((char) escape);
+            }
+            segment = i + 1;
+        }
+        value.append(new String(line, segment, end - segment, StandardCharsets.UTF_8));
+        return value.toString();
+    }
+
+    //Skips a value of a key that isn't part of an item, including nested objects and arrays
+    private void skipValue() {
+        int depth = 0;
+        while (pos < length) {
+            byte b = line[pos];
+            if (b == '"') {
+                pos++;
+                pos = endOfString() + 1;
+                if (depth == 0) {
+                    return;
+                }
+                continue;
+            }
+            if (b == '{' || b == '[') {
+                depth++;
+            } else if (b == '}' || b == ']') {
+                if (depth == 0) {
+                    return;
+                }
+                depth--;
+            } else if (b == ',' && depth == 0) {
+                return;
+            }
+            pos++;
+        }
+    }
+
+    private static void appendString(String value, StringBuilder out) {
+        out.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"' -> out.append("\\\"");
+                case '\\' -> out.append("\\\\");
+                case '\n' -> out.append("\\n");
+                case '\r' -> out.append("\\r");
+                case '\t' -> out.append("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        out.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        out.append(c);
+                    }
+                }
+            }
+        }
+        out.append('"');
+    }
+}
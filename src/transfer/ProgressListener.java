@@ -0,0 +1,19 @@
+package transfer;
+
+/**
+ * Receives progress updates while a file is imported or exported.
+ */
+@FunctionalInterface
+public interface ProgressListener {
+
+    //Listener that ignores all updates
+    ProgressListener NONE = (rows, bytesDone, bytesTotal) -> { };
+
+    /**
+     * Called periodically while rows are processed
+     * @param rows Number of rows processed so far
+     * @param bytesDone Number of bytes read so far, or characters written when exporting
+     * @param bytesTotal Size of the file being imported, or -1 when exporting
+     */
+    void onProgress(long rows, long bytesDone, long bytesTotal);
+}
@@ -0,0 +1,28 @@
+package transfer;
+
+/**
+ * A line of an import file that could not be turned into an item.
+ */
+public class RejectedRow {
+    //1 based line number in the file
+    private final long lineNumber;
+    private final String reason;
+
+    public RejectedRow(long lineNumber, String reason) {
+        this.lineNumber = lineNumber;
+        this.reason = reason;
+    }
+
+    public long getLineNumber() {
+        return lineNumber;
+    }
+
+    public String getReason() {
+        return reason;
+    }
+
+    @Override
+    public String toString() {
+        return "Line " + lineNumber + ": " + reason;
+    }
+}
@@ -15,7 +15,11 @@ public class Menu {
                     3) Search for Item
                     4) View All Items
                     5) Remove Item
-                    6) Exit
+                    6) Import Items From File
+                    7) Export Items To File
+                    8) Inventory Report
+                    9) Stock Analysis
+                    10) Exit
                 """);
     }
 }
@@ -1,29 +1,75 @@
 package ui;
 
+import analytics.PriceBand;
+import analytics.StockSummary;
+import exceptions.DataAccessException;
 import exceptions.EmptyItemNameException;
 import exceptions.InputEmptyException;
 import exceptions.NoItemPresentException;
 import model.IInventoryItem;
 import model.InventoryItem;
+import model.ItemRanking;
 import repository.IRepo;
+import search.SearchHit;
 import service.IManagement;
+import service.IReporting;
+import service.ItemSearch;
+import transfer.FileFormat;
+import transfer.ImportReport;
+import transfer.InventoryExporter;
+import transfer.InventoryImporter;
+import transfer.RejectedRow;
 import util.ExceptionHandler;
 import util.UserPrompts;
 
+import java.io.IOException;
+import java.nio.file.Path;
 import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.InputMismatchException;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
 
 public class Start {
+    //Rows fetched per round trip when listing the inventory
+    private static final int FETCH_SIZE = 500;
+    //Items loaded per batch when importing a file
+    private static final int IMPORT_BATCH_SIZE = 1000;
+    //Rejected rows printed after an import
+    private static final int REJECTED_ROWS_SHOWN = 10;
+    //Items listed under each ranking in the inventory report
+    private static final int REPORT_TOP_ITEMS = 5;
+    //Close matches suggested when no item has the exact name searched for
+    private static final int SEARCH_SUGGESTIONS = 10;
+    //Item names listed by units in the stock analysis
+    private static final int ANALYSIS_TOP_NAMES = 5;
     private final Menu menu;
     private final UserPrompts userPrompts;
     private final IManagement management;
+    private final InventoryImporter importer;
+    private final InventoryExporter exporter;
+    //Suggests close matches when a search finds no exact name, null to only search exact names
+    private final ItemSearch itemSearch;
+    //Answers the stock analysis from its in-memory copy, null when the analysis isn't available
+    private final IReporting reporting;
 
     public Start(Menu menu, UserPrompts userPrompts,IRepo repo,IManagement management){
+        this(menu, userPrompts, repo, management, null);
+    }
+
+    public Start(Menu menu, UserPrompts userPrompts,IRepo repo,IManagement management,ItemSearch itemSearch){
+        this(menu, userPrompts, repo, management, itemSearch, null);
+    }
+
+    public Start(Menu menu, UserPrompts userPrompts,IRepo repo,IManagement management,ItemSearch itemSearch,IReporting reporting){
         this.menu = menu;
         this.userPrompts = userPrompts;
         this.management = management;
+        this.itemSearch = itemSearch;
+        this.reporting = reporting;
+        this.importer = new InventoryImporter(management, IMPORT_BATCH_SIZE);
+        this.exporter = new InventoryExporter(management, FETCH_SIZE);
     }
 
 
@@ -41,7 +87,11 @@ public class Start {
                     case 3 -> searchItem();
                     case 4 -> viewAllItems();
                     case 5 -> removeItem();
-                    case 6 -> cont = exitApp();
+                    case 6 -> importItems();
+                    case 7 -> exportItems();
+                    case 8 -> showReport();
+                    case 9 -> showAnalysis();
+                    case 10 -> cont = exitApp();
                     default -> throw new IllegalArgumentException("Invalid option chosen");
                 }
             }catch (IllegalArgumentException | InputMismatchException e){
@@ -57,8 +107,9 @@ public class Start {
             String name = userPrompts.userPrompt("Enter the item name: ");
             int quantity = userPrompts.userIntegerPrompt("Enter the quantity of the item: ");
             double price = userPrompts.userDoublePrompt("Enter the price of the item: R");
+            int reorderPoint = userPrompts.userIntegerPrompt("Enter the quantity to reorder below (0 for never): ");
 
-            IInventoryItem item = new InventoryItem(name,quantity,price);
+            IInventoryItem item = new InventoryItem(name,quantity,price,reorderPoint);
 
             boolean check = management.addItem(item);
 
@@ -86,8 +137,9 @@ public class Start {
                     String name = userPrompts.userPrompt("Enter the item name: ");
                     int quantity = userPrompts.userIntegerPrompt("Enter the quantity of the item: ");
                     double price = userPrompts.userDoublePrompt("Enter the price of the item: R");
+                    int reorderPoint = userPrompts.userIntegerPrompt("Enter the quantity to reorder below (0 for never): ");
 
-                    items.add(new InventoryItem(name, quantity, price));
+                    items.add(new InventoryItem(name, quantity, price, reorderPoint));
                 }
 
                 if (management.addList(items)) {
@@ -106,7 +158,16 @@ public class Start {
 
             String itemName = userPrompts.userPrompt("Enter the name of item: ");
 
-            IInventoryItem item = management.getItem(itemName);
+            IInventoryItem item;
+            try{
+                item = management.getItem(itemName);
+            } catch (NoItemPresentException e) {
+                if(itemSearch == null){
+                    throw e;
+                }
+                suggestItems(itemName);
+                return;
+            }
 
             System.out.printf("""
                         Item id: %s
@@ -116,17 +177,30 @@ public class Start {
                     """,item.getId(),item.getName(),item.getQuantity(),item.getPrice());
 
             System.out.println();
-        } catch (EmptyItemNameException | NullPointerException | InputEmptyException | SQLException e) {
+        } catch (EmptyItemNameException | NoItemPresentException | NullPointerException | InputEmptyException | SQLException e) {
             ExceptionHandler.exception(e);
         }
     }
 
+    //Lists the items whose names are closest to a name that matched nothing exactly
+    private void suggestItems(String itemName){
+        List<SearchHit> hits = itemSearch.search(itemName, SEARCH_SUGGESTIONS);
+        if(hits.isEmpty()){
+            throw new NoItemPresentException();
+        }
+
+        System.out.println("No item is called \"" + itemName + "\", closest matches:");
+        for(SearchHit hit : hits){
+            System.out.println("Item id: " + hit.getId() + " - " + hit.getName());
+        }
+        System.out.println();
+    }
+
     public void viewAllItems(){
 
-        try{
-            List<IInventoryItem> listItems = management.getItems();
+        try(Stream<IInventoryItem> listItems = management.streamItems(FETCH_SIZE)){
             int counter = 0;
-            for(IInventoryItem in : listItems){
+            for(IInventoryItem in : (Iterable<IInventoryItem>) listItems::iterator){
                 counter++;
                 System.out.println("--".repeat(20));
                 System.out.println("Item (" + counter + ")");
@@ -137,7 +211,11 @@ public class Start {
                 System.out.println("--".repeat(20));
             }
 
-        } catch (NoItemPresentException | InputEmptyException | SQLException e) {
+            if(counter == 0){
+                throw new NoItemPresentException();
+            }
+
+        } catch (NoItemPresentException | InputEmptyException | DataAccessException | SQLException e) {
             ExceptionHandler.exception(e);
         }
     }
@@ -154,6 +232,114 @@ public class Start {
         }
     }
 
+    public void importItems(){
+        try{
+            Path file = Path.of(userPrompts.userPrompt("Enter the path of the .csv or .jsonl file to import: "));
+
+            ImportReport report = importer.importFile(file, FileFormat.fromPath(file), (rows, bytesDone, bytesTotal) ->
+                    System.out.print("\rImported " + rows + " rows (" + (bytesTotal == 0 ? 100 : bytesDone * 100 / bytesTotal) + "%)"));
+            System.out.println();
+
+            printImportReport(report);
+        } catch (InputEmptyException | IllegalArgumentException | IOException | SQLException e) {
+            ExceptionHandler.exception(e);
+        }
+    }
+
+    public void exportItems(){
+        try{
+            Path file = Path.of(userPrompts.userPrompt("Enter the path of the .csv or .jsonl file to export to: "));
+
+            long rows = exporter.exportFile(file, FileFormat.fromPath(file), (written, charsDone, total) ->
+                    System.out.print("\rExported " + written + " rows"));
+            System.out.println();
+
+            System.out.println("Successfully exported " + rows + " items to " + file);
+        } catch (InputEmptyException | IllegalArgumentException | DataAccessException | IOException | SQLException e) {
+            ExceptionHandler.exception(e);
+        }
+    }
+
+    //Prints the inventory totals and top items, all computed by the repository
+    public void showReport(){
+        try{
+            StockSummary summary = management.getStockSummary();
+            if(summary.getItemCount() == 0){
+                throw new NoItemPresentException();
+            }
+
+            System.out.println("--".repeat(20));
+            System.out.println("Items: " + summary.getItemCount());
+            System.out.println("Units in stock: " + summary.getTotalUnits());
+            System.out.printf("Stock value: R%.2f%n", summary.getTotalValue());
+            System.out.println("Prices: R" + summary.getMinPrice() + " - R" + summary.getMaxPrice());
+            for(ItemRanking ranking : ItemRanking.values()){
+                System.out.println("--".repeat(20));
+                System.out.println("Top " + REPORT_TOP_ITEMS + " by " + ranking.name().toLowerCase() + ":");
+                int rank = 0;
+                for(IInventoryItem item : management.getTopItems(ranking, REPORT_TOP_ITEMS)){
+                    System.out.printf("%d) %s (id %s) - %d units at R%s = R%.2f%n", ++rank, item.getName(), item.getId(),
+                            item.getQuantity(), item.getPrice(), item.getQuantity() * item.getPrice());
+                }
+            }
+            System.out.println("--".repeat(20));
+        } catch (NoItemPresentException | DataAccessException | SQLException e) {
+            ExceptionHandler.exception(e);
+        }
+    }
+
+    //Prints low stock, price bands and units per name from the reporting service's in-memory copy
+    public void showAnalysis(){
+        if(reporting == null){
+            System.out.println("Stock analysis is not available");
+            return;
+        }
+        try{
+            StockSummary summary = reporting.getStockSummary();
+            if(summary.getItemCount() == 0){
+                throw new NoItemPresentException();
+            }
+            int threshold = userPrompts.userIntegerPrompt("Enter the quantity below which stock is low: ");
+            double width = userPrompts.userDoublePrompt("Enter the width of each price band: R");
+
+            System.out.println("--".repeat(20));
+            System.out.println("Items below " + threshold + " units: " + reporting.countLowStock(threshold) + " of " + summary.getItemCount());
+            System.out.println("--".repeat(20));
+            System.out.println("Price bands:");
+            for(PriceBand band : reporting.getPriceBands(width)){
+                System.out.printf("R%.2f - R%.2f: %d items, %d units, R%.2f%n", band.getLowerBound(), band.getUpperBound(),
+                        band.getItemCount(), band.getUnits(), band.getValue());
+            }
+            System.out.println("--".repeat(20));
+            System.out.println("Most units by name:");
+            reporting.getUnitsByName().entrySet().stream()
+                    .sorted(Map.Entry.<String, Long>comparingByValue().reversed())
+                    .limit(ANALYSIS_TOP_NAMES)
+                    .forEach(entry -> System.out.println(entry.getKey() + ": " + entry.getValue() + " units"));
+            System.out.println("--".repeat(20));
+        } catch (NoItemPresentException | InputEmptyException | InputMismatchException e) {
+            ExceptionHandler.exception(e);
+        }
+    }
+
+    //Prints the import counts and the first few rejected rows
+    public static void printImportReport(ImportReport report){
+        System.out.println(report);
+        int shown = 0;
+        for(RejectedRow row : report.getRejected()){
+            if(shown++ == REJECTED_ROWS_SHOWN){
+                System.out.println("... and " + (report.getRejectedCount() - REJECTED_ROWS_SHOWN) + " more rejected rows");
+                break;
+            }
+            System.out.println("Rejected " + row);
+        }
+        if(!report.getConflictingIds().isEmpty()){
+            System.out.println("Skipped ids that already exist: "
+                    + String.join(", ", report.getConflictingIds().subList(0, Math.min(REJECTED_ROWS_SHOWN, report.getConflictingIds().size())))
+                    + (report.getConflictCount() > REJECTED_ROWS_SHOWN ? ", ..." : ""));
+        }
+    }
+
     public boolean exitApp(){
 
         String input = userPrompts.userPrompt("Are you sure you want to exit? enter (Y/N) to confirm decision: ");
@@ -1,22 +1,23 @@
 package util;
 
-import java.security.SecureRandom;
-
+/**
+ * Entry point for creating item ids.
+ * Uses a time ordered generator whose node id is read from the inventory.nodeId system property,
+ * which must differ between processes writing to the same inventory.
+ */
 public class AutoGenerator {
 
-    public static String idGenerator(){
-
-        String characters = "0123456789";
-
-        SecureRandom secureRandom = new SecureRandom();
+    private static volatile IdGenerator generator = new TimeOrderedIdGenerator(Integer.getInteger("inventory.nodeId", 0));
 
-        StringBuilder builder = new StringBuilder(4);
-
-        for(int i = 0; i<4; i++){
-
-             builder.append(characters.charAt(secureRandom.nextInt(characters.length())));
-        }
+    public static String idGenerator(){
+        return generator.nextId();
+    }
 
-        return builder.toString();
+    /**
+     * Replaces the generator used for new items
+     * @param idGenerator the generator to use from now on
+     */
+    public static void setIdGenerator(IdGenerator idGenerator){
+        generator = idGenerator;
     }
 }
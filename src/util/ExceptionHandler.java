@@ -1,8 +1,18 @@
 package util;
 
+import metrics.MetricsRegistry;
+
 public class ExceptionHandler {
+    //Counts every handled exception by type when metrics are turned on
+    private static volatile MetricsRegistry metrics = MetricsRegistry.DISABLED;
+
     public static void exception(Exception e){
+        metrics.recordHandled("ui", e);
         System.out.println("Error: " + e.getMessage());
     }
 
+    public static void setMetrics(MetricsRegistry registry){
+        metrics = registry;
+    }
+
 }
@@ -0,0 +1,11 @@
+package util;
+
+/**
+ * Defines how new inventory item ids are created.
+ * Implementations must be safe to call from many threads at once and never hand out the same id twice.
+ */
+public interface IdGenerator {
+
+    //returns a new unique id
+    String nextId();
+}
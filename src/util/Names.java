@@ -0,0 +1,17 @@
+package util;
+
+import java.util.Locale;
+
+public class Names {
+
+    private Names(){}
+
+    /**
+     * Normalizes an item name the same way the name_key column does, so lookups are case-insensitive
+     * @param name Item name as entered
+     * @return the lower-cased name
+     */
+    public static String normalize(String name){
+        return name.toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,88 @@
+package util;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Snowflake style id generator producing 64 bit ids that sort by creation time.
+ * An id is made of 41 bits of milliseconds since 2024-01-01, a 10 bit node id and a 12 bit sequence,
+ * written as 13 characters of Crockford base 32 so string order matches numeric order.
+ * The timestamp and sequence live in one AtomicLong that is advanced with a CAS, so callers never lock.
+ * When a millisecond's 4096 sequence numbers run out, or the clock steps backwards, the sequence simply
+ * carries into the timestamp and ids keep increasing until the clock catches up.
+ */
+public class TimeOrderedIdGenerator implements IdGenerator {
+    //2024-01-01T00:00:00Z, gives 41 bits of milliseconds until 2093
+    private static final long EPOCH = 1_704_067_200_000L;
+    private static final int NODE_BITS = 10;
+    private static final int SEQUENCE_BITS = 12;
+    public static final int MAX_NODE_ID = (1 << NODE_BITS) - 1;
+
+    private static final int LENGTH = 13;
+    private static final byte[] ALPHABET = "0123456789ABCDEFGHJKMNPQRSTVWXYZ".getBytes(StandardCharsets.US_ASCII);
+
+    private final long node;
+    private final LongSupplier clock;
+    //timestamp << SEQUENCE_BITS | sequence of the last id handed out
+    private final AtomicLong state = new AtomicLong();
+
+    /**
+     * Constructs the generator for the specified node
+     * @param nodeId Id between 0 and 1023 that is unique to every process generating ids
+     */
+    public TimeOrderedIdGenerator(int nodeId) {
+        this(nodeId, System::currentTimeMillis);
+    }
+
+    /**
+     * Constructs the generator with the specified clock, used by tests
+     * @param nodeId Id between 0 and 1023 that is unique to every process generating ids
+     * @param clock Returns the current time in milliseconds
+     */
+    public TimeOrderedIdGenerator(int nodeId, LongSupplier clock) {
+        if (nodeId < 0 || nodeId > MAX_NODE_ID) {
+            throw new IllegalArgumentException("Node id must be between 0 and " + MAX_NODE_ID);
+        }
+        this.node = nodeId;
+        this.clock = clock;
+    }
+
+    @Override
+    public String nextId() {
+        return encode(nextValue());
+    }
+
+    /**
+     * Generates the next id as a number
+     * @return a positive id greater than every id previously returned by this generator
+     */
+    public long nextValue() {
+        long now = clock.getAsLong() - EPOCH;
+        while (true) {
+            long previous = state.get();
+            long next = now > previous >>> SEQUENCE_BITS
+                    ? now << SEQUENCE_BITS
+                    : previous + 1;
+            if (state.compareAndSet(previous, next)) {
+                long timestamp = next >>> SEQUENCE_BITS;
+                long sequence = next & ((1L << SEQUENCE_BITS) - 1);
+                return timestamp << (NODE_BITS + SEQUENCE_BITS) | node << SEQUENCE_BITS | sequence;
+            }
+        }
+    }
+
+    /**
+     * Writes an id as fixed width Crockford base 32
+     * @param value Id to encode
+     * @return the 13 character id
+     */
+    public static String encode(long value) {
+        byte[] chars = new byte[LENGTH];
+        for (int i = LENGTH - 1; i >= 0; i--) {
+            chars[i] = ALPHABET[(int) (value & 31)];
+            value >>>= 5;
+        }
+        return new String(chars, StandardCharsets.US_ASCII);
+    }
+}